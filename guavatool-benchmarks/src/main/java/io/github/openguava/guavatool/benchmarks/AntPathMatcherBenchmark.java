@@ -0,0 +1,62 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.openguava.guavatool.core.text.AntPathMatcher;
+
+/**
+ * {@link AntPathMatcher#match(String, String)}匹配基准，覆盖常见的权限和静态资源路径规则
+ * @author openguava
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AntPathMatcherBenchmark {
+
+	private AntPathMatcher matcher;
+
+	@Setup
+	public void setup() {
+		this.matcher = new AntPathMatcher();
+	}
+
+	@Benchmark
+	public boolean matchLiteral() {
+		return this.matcher.match("/api/user/list", "/api/user/list");
+	}
+
+	@Benchmark
+	public boolean matchWildcard() {
+		return this.matcher.match("/api/*/list?", "/api/user/lists");
+	}
+
+	@Benchmark
+	public boolean matchDoubleWildcard() {
+		return this.matcher.match("/static/**/*.js", "/static/js/lib/jquery/jquery.min.js");
+	}
+
+	@Benchmark
+	public boolean matchUriVariable() {
+		return this.matcher.match("/api/user/{id}/roles/{roleId}", "/api/user/1001/roles/7");
+	}
+
+	@Benchmark
+	public boolean mismatch() {
+		return this.matcher.match("/admin/**", "/api/user/1001/roles/7");
+	}
+}
@@ -0,0 +1,53 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.openguava.guavatool.core.util.DateUtils;
+
+/**
+ * {@link DateUtils}格式化和解析基准
+ * @author openguava
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+	private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+	private Date date;
+
+	private String text;
+
+	@Setup
+	public void setup() {
+		this.date = new Date(1650000000000L);
+		this.text = DateUtils.format(this.date, PATTERN);
+	}
+
+	@Benchmark
+	public String format() {
+		return DateUtils.format(this.date, PATTERN);
+	}
+
+	@Benchmark
+	public Date parse() {
+		return DateUtils.parse(this.text, PATTERN);
+	}
+}
@@ -0,0 +1,64 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.openguava.guavatool.shiro.serializer.ObjectSerializer;
+
+/**
+ * {@link ObjectSerializer}序列化基准，负载为与会话属性类似的小型Map
+ * @author openguava
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectSerializerBenchmark {
+
+	private ObjectSerializer serializer;
+
+	private HashMap<String, Object> payload;
+
+	private byte[] bytes;
+
+	@Setup
+	public void setup() {
+		this.serializer = new ObjectSerializer();
+		this.payload = new HashMap<>();
+		this.payload.put("userId", 1001L);
+		this.payload.put("userName", "guavatool");
+		this.payload.put("loginTime", new Date(0L));
+		List<String> roles = new ArrayList<>();
+		roles.add("admin");
+		roles.add("user");
+		this.payload.put("roles", roles);
+		this.bytes = this.serializer.serialize(this.payload);
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return this.serializer.serialize(this.payload);
+	}
+
+	@Benchmark
+	public Object deserialize() {
+		return this.serializer.deserialize(this.bytes);
+	}
+}
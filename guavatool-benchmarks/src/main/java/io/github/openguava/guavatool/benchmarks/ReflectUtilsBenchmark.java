@@ -0,0 +1,50 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.openguava.guavatool.core.util.ReflectUtils;
+
+/**
+ * {@link ReflectUtils#getMethods(Class)}基准，分别测量缓存命中和直接反射获取
+ * @author openguava
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReflectUtilsBenchmark {
+
+	private Class<?> beanClass;
+
+	@Setup
+	public void setup() {
+		this.beanClass = ArrayList.class;
+		ReflectUtils.getMethods(this.beanClass);
+	}
+
+	@Benchmark
+	public Method[] getMethods() {
+		return ReflectUtils.getMethods(this.beanClass);
+	}
+
+	@Benchmark
+	public Method[] getMethodsDirectly() {
+		return ReflectUtils.getMethodsDirectly(this.beanClass, true);
+	}
+}
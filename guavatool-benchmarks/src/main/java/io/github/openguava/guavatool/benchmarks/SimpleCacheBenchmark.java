@@ -0,0 +1,88 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.openguava.guavatool.core.cache.SimpleCache;
+import io.github.openguava.guavatool.core.lang.FuncR;
+
+/**
+ * {@link SimpleCache}读写基准，键从预先生成的{@link #SIZE}个字符串中随机选取
+ * @author openguava
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimpleCacheBenchmark {
+
+	private static final int SIZE = 1024;
+
+	private SimpleCache<String, String> cache;
+
+	private String[] keys;
+
+	private FuncR<String> supplier;
+
+	@Setup
+	public void setup() {
+		this.cache = new SimpleCache<>();
+		this.keys = new String[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			this.keys[i] = "key-" + i;
+			this.cache.put(this.keys[i], "value-" + i);
+		}
+		this.supplier = new FuncR<String>() {
+			@Override
+			public String call() {
+				return "value";
+			}
+		};
+	}
+
+	private String randomKey() {
+		return this.keys[ThreadLocalRandom.current().nextInt(SIZE)];
+	}
+
+	@Benchmark
+	public String get() {
+		return this.cache.get(this.randomKey());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public String getContended() {
+		return this.cache.get(this.randomKey());
+	}
+
+	@Benchmark
+	public String getWithSupplier() {
+		return this.cache.get(this.randomKey(), this.supplier);
+	}
+
+	@Benchmark
+	public String put() {
+		return this.cache.put(this.randomKey(), "value");
+	}
+
+	@Benchmark
+	@Threads(4)
+	public String putContended() {
+		return this.cache.put(this.randomKey(), "value");
+	}
+}
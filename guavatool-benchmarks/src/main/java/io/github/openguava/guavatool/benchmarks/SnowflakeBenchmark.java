@@ -0,0 +1,60 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.openguava.guavatool.core.lang.Snowflake;
+
+/**
+ * {@link Snowflake}生成ID基准，单个生成器每毫秒最多生成4096个ID，吞吐量上限约为4096 ops/ms
+ * @author openguava
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnowflakeBenchmark {
+
+	private Snowflake snowflake;
+
+	private long[] batch;
+
+	@Setup
+	public void setup() {
+		this.snowflake = new Snowflake(1, 1);
+		this.batch = new long[256];
+	}
+
+	@Benchmark
+	public long nextId() {
+		return this.snowflake.nextId();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long nextIdContended() {
+		return this.snowflake.nextId();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(256)
+	public long[] nextIdsBatch() {
+		this.snowflake.nextIds(this.batch);
+		return this.batch;
+	}
+}
@@ -0,0 +1,47 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.openguava.guavatool.core.util.StringUtils;
+
+/**
+ * {@link StringUtils#format(String, Object...)}格式化基准
+ * @author openguava
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringUtilsBenchmark {
+
+	private Object[] args;
+
+	@Setup
+	public void setup() {
+		this.args = new Object[] { "guavatool", 12345L, Boolean.TRUE };
+	}
+
+	@Benchmark
+	public String format() {
+		return StringUtils.format("name: {}, id: {}, enabled: {}", this.args);
+	}
+
+	@Benchmark
+	public String formatEscaped() {
+		return StringUtils.format("json: \\{}, name: {}, id: {}", this.args);
+	}
+}
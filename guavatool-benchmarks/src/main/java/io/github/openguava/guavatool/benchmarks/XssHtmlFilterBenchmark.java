@@ -0,0 +1,53 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.openguava.guavatool.spring.xss.XssHtmlFilter;
+
+/**
+ * {@link XssHtmlFilter#filter(String)}过滤基准，{@link XssHtmlFilter}非线程安全，每次调用新建实例与实际使用方式一致
+ * @author openguava
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XssHtmlFilterBenchmark {
+
+	private String plain;
+
+	private String html;
+
+	@Setup
+	public void setup() {
+		this.plain = "guavatool is a java tool library, version 0.1.4";
+		this.html = "<div class=\"content\"><p>hello <b>world</b></p>"
+				+ "<a href=\"javascript:alert(1)\" onclick=\"alert(2)\">link</a>"
+				+ "<img src=\"http://example.com/a.png\" onerror=\"alert(3)\">"
+				+ "<script>alert(document.cookie)</script><!-- comment --></div>";
+	}
+
+	@Benchmark
+	public String filterPlain() {
+		return new XssHtmlFilter().filter(this.plain);
+	}
+
+	@Benchmark
+	public String filterHtml() {
+		return new XssHtmlFilter().filter(this.html);
+	}
+}
@@ -0,0 +1,76 @@
+package io.github.openguava.guavatool.benchmarks;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import junit.framework.TestCase;
+
+/**
+ * 基准冒烟测试，每个基准执行一次初始化和每个基准方法，不测量性能
+ * @author openguava
+ *
+ */
+public class BenchmarkSmokeTest extends TestCase {
+
+	public void testEveryBenchmarkRunsOnce() throws Exception {
+		List<Class<?>> benchmarks = findBenchmarks();
+		assertFalse(benchmarks.isEmpty());
+		for (Class<?> type : benchmarks) {
+			Object benchmark = type.newInstance();
+			invokeAnnotated(benchmark, Setup.class);
+			int count = 0;
+			for (Method method : type.getMethods()) {
+				if (method.isAnnotationPresent(Benchmark.class)) {
+					Object result = invoke(benchmark, method);
+					if (method.getReturnType() != void.class) {
+						assertNotNull(type.getSimpleName() + "." + method.getName(), result);
+					}
+					count++;
+				}
+			}
+			assertTrue(type.getSimpleName() + " has no benchmark", count > 0);
+			invokeAnnotated(benchmark, TearDown.class);
+		}
+	}
+
+	/**
+	 * 查找本包下的基准，新增的基准无需登记
+	 */
+	private static List<Class<?>> findBenchmarks() throws Exception {
+		File dir = new File(SnowflakeBenchmark.class.getResource(SnowflakeBenchmark.class.getSimpleName() + ".class").toURI()).getParentFile();
+		List<Class<?>> benchmarks = new ArrayList<>();
+		for (String name : dir.list()) {
+			if (name.endsWith("Benchmark.class") && name.indexOf('$') < 0) {
+				String className = SnowflakeBenchmark.class.getPackage().getName() + "." + name.substring(0, name.length() - ".class".length());
+				benchmarks.add(Class.forName(className));
+			}
+		}
+		return benchmarks;
+	}
+
+	private static void invokeAnnotated(Object benchmark, Class<? extends java.lang.annotation.Annotation> annotation) throws Exception {
+		for (Method method : benchmark.getClass().getMethods()) {
+			if (method.isAnnotationPresent(annotation)) {
+				invoke(benchmark, method);
+			}
+		}
+	}
+
+	private static Object invoke(Object benchmark, Method method) throws Exception {
+		try {
+			return method.invoke(benchmark);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
@@ -1,31 +1,745 @@
 package io.github.openguava.guavatool.core.cache;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class AbstractCache<K, V> implements Cache<K, V> {
+import io.github.openguava.guavatool.core.lang.FuncR;
+import io.github.openguava.guavatool.core.lang.SystemClock;
+
+/**
+ * 缓存抽象实现，基于{@link CacheObj}实现容量限制、对象超时以及淘汰策略<br>
+ * 子类通过构造时指定{@link #cacheMap}的具体实现以及{@link #pruneCache()}实现不同的淘汰策略
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public abstract class AbstractCache<K, V> implements Cache<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** {@code null}键在键锁池中的占位对象 */
+	private static final Object NULL_KEY = new Object();
+
+	/** 缓存池 */
+	protected Map<K, CacheObj<K, V>> cacheMap;
+
+	/** 缓存锁，LRU等策略在读取时也会修改缓存池顺序，因此读写共用一把锁 */
+	protected final ReentrantLock lock = new ReentrantLock();
+
+	/** 键锁池，用于生产值对象时锁定单个键，生产期间不持有缓存锁 */
+	private final ConcurrentHashMap<Object, ReentrantLock> keyLockMap = new ConcurrentHashMap<>();
+
+	/** 持有缓存锁期间被移除的对象，释放锁后统一回调{@link #onRemove(Object, Object)} */
+	private transient List<CacheObj<K, V>> removedObjs;
+
+	/** 返回缓存容量，{@code 0}表示无大小限制 */
+	protected int capacity;
+
+	/** 缓存失效时长， {@code 0} 表示无限制，单位毫秒 */
+	protected long timeout;
+
+	/** 权重计算，{@code null}表示不按权重限制 */
+	protected transient Weigher<K, V> weigher;
+
+	/** 最大总权重，{@code 0}表示不按权重限制 */
+	protected long maxWeight;
+
+	/** 当前总权重 */
+	protected long totalWeight;
+
+	/** 正在加入的对象所需权重，加入期间用于判断缓存是否已满 */
+	protected long admittingWeight;
+
+	/** 每个对象是否有单独的失效时长，用于决定清理过期对象是否有必要 */
+	protected boolean existCustomTimeout;
+
+	/** 缓存监听 */
+	protected transient CacheListener<K, V> listener;
+
+	/** 主动过期时间轮，{@code null}表示只在访问时惰性过期 */
+	protected transient TimingWheel timingWheel;
+
+	/** 统计计数器 */
+	protected final CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+	/** 热点键采样器，{@code null}表示不采样 */
+	protected transient HotKeySampler<K> hotKeySampler;
+
+	/** 关联的快照，未命中时从中惰性读取，{@code null}表示未关联 */
+	protected transient volatile CacheSnapshot<K, V> snapshot;
+
+	/**
+	 * 返回缓存容量，{@code 0}表示无大小限制
+	 *
+	 * @return 返回缓存容量
+	 */
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * 缓存失效时长， {@code 0} 表示没有设置，单位毫秒
+	 *
+	 * @return 缓存失效时长
+	 */
+	public long timeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * 最大总权重，{@code 0}表示不按权重限制
+	 *
+	 * @return 最大总权重
+	 */
+	public long maxWeight() {
+		return this.maxWeight;
+	}
+
+	/**
+	 * 当前总权重
+	 *
+	 * @return 当前总权重
+	 */
+	public long totalWeight() {
+		this.lock.lock();
+		try {
+			return this.totalWeight;
+		} finally {
+			this.unlock();
+		}
+	}
+
+	/**
+	 * 设置权重计算及最大总权重，设置后除容量外还按总权重淘汰对象，已有对象的权重会被重新计算
+	 *
+	 * @param weigher 权重计算，如{@link ByteArrayWeigher}
+	 * @param maxWeight 最大总权重，如字节预算
+	 * @return this
+	 */
+	public AbstractCache<K, V> setWeigher(Weigher<K, V> weigher, long maxWeight) {
+		if (weigher != null && maxWeight <= 0) {
+			throw new IllegalArgumentException("maxWeight must be greater than 0");
+		}
+		this.lock.lock();
+		try {
+			this.weigher = weigher;
+			this.maxWeight = weigher == null ? 0 : maxWeight;
+			this.totalWeight = 0;
+			for (CacheObj<K, V> co : this.cacheMap.values()) {
+				co.weight = this.weigh(co.key, co.value);
+				this.totalWeight += co.weight;
+			}
+			while (this.isFull() && !this.cacheMap.isEmpty()) {
+				if (this.pruneCache() == 0) {
+					break;
+				}
+			}
+		} finally {
+			this.unlock();
+		}
+		return this;
+	}
+
+	/**
+	 * 设置监听
+	 *
+	 * @param listener 监听
+	 * @return this
+	 */
+	public AbstractCache<K, V> setListener(CacheListener<K, V> listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * 设置主动过期时间轮，设置后带有失效时长的对象到期时由时间轮主动移除并回调监听，
+	 * 未设置时过期对象只在访问或清理时移除
+	 *
+	 * @param timingWheel 时间轮，可使用{@link TimingWheel#getDefault()}
+	 * @return this
+	 */
+	public AbstractCache<K, V> setTimingWheel(TimingWheel timingWheel) {
+		this.timingWheel = timingWheel;
+		return this;
+	}
+
+	/**
+	 * 设置热点键采样器，设置后每次命中都会交给采样器记录
+	 *
+	 * @param hotKeySampler 热点键采样器
+	 * @return this
+	 */
+	public AbstractCache<K, V> setHotKeySampler(HotKeySampler<K> hotKeySampler) {
+		this.hotKeySampler = hotKeySampler;
+		return this;
+	}
+
+	/**
+	 * 获取热点键采样器
+	 *
+	 * @return 热点键采样器，未设置返回{@code null}
+	 */
+	public HotKeySampler<K> getHotKeySampler() {
+		return this.hotKeySampler;
+	}
 
 	@Override
-	public V get(K key) {
-		// TODO Auto-generated method stub
-		return null;
+	public CacheStats stats() {
+		return this.statsCounter.snapshot();
 	}
 
 	@Override
 	public V put(K key, V value) {
-		// TODO Auto-generated method stub
-		return null;
+		return this.put(key, value, this.timeout);
+	}
+
+	/**
+	 * 将对象加入到缓存，使用指定失效时长
+	 *
+	 * @param key 键
+	 * @param value 缓存的对象
+	 * @param timeout 失效时长，单位毫秒，{@code 0}表示永不过期
+	 * @return 值
+	 */
+	public V put(K key, V value, long timeout) {
+		this.lock.lock();
+		try {
+			this.putWithoutLock(key, value, timeout);
+		} finally {
+			this.unlock();
+		}
+		return value;
+	}
+
+	@Override
+	public V get(K key) {
+		return this.get(key, true);
+	}
+
+	/**
+	 * 从缓存中获得对象，当对象不在缓存中或已经过期返回{@code null}
+	 *
+	 * @param key 键
+	 * @param isUpdateLastAccess 是否更新最后访问时间，即重新计算超时时间
+	 * @return 值
+	 */
+	public V get(K key, boolean isUpdateLastAccess) {
+		V value;
+		this.lock.lock();
+		try {
+			CacheObj<K, V> co = this.cacheMap.get(key);
+			this.onAccess(key, co);
+			if (co == null) {
+				this.statsCounter.recordMisses(1);
+				return this.snapshot != null ? this.restoreWithoutLock(key) : null;
+			}
+			if (co.isExpired()) {
+				// 过期对象
+				this.cacheMap.remove(key);
+				this.statsCounter.recordMisses(1);
+				this.onRemove(co);
+				return null;
+			}
+			this.statsCounter.recordHits(1);
+			value = co.get(isUpdateLastAccess);
+		} finally {
+			this.unlock();
+		}
+		// 锁外采样，采样器已满时替换计数器的开销不阻塞其他读写
+		HotKeySampler<K> sampler = this.hotKeySampler;
+		if (sampler != null) {
+			sampler.record(key);
+		}
+		return value;
+	}
+
+	/**
+	 * 从缓存中获得对象，当对象不在缓存中或已经过期返回supplier回调产生的对象
+	 *
+	 * @param key 键
+	 * @param supplier 如果不存在回调方法，用于生产值对象
+	 * @return 值对象
+	 */
+	public V get(K key, FuncR<V> supplier) {
+		V v = this.get(key);
+		if (v == null && supplier != null) {
+			Object lockKey = key == null ? NULL_KEY : key;
+			ReentrantLock keyLock = this.keyLockMap.get(lockKey);
+			if (keyLock == null) {
+				ReentrantLock newLock = new ReentrantLock();
+				keyLock = this.keyLockMap.putIfAbsent(lockKey, newLock);
+				if (keyLock == null) {
+					keyLock = newLock;
+				}
+			}
+			// 只锁定当前键，生产值对象期间其他键的读写不受影响
+			keyLock.lock();
+			try {
+				// 双重检查锁
+				this.lock.lock();
+				try {
+					CacheObj<K, V> co = this.cacheMap.get(key);
+					if (co != null && !co.isExpired()) {
+						v = co.get(true);
+					}
+				} finally {
+					this.unlock();
+				}
+				if (v == null) {
+					long start = System.nanoTime();
+					try {
+						v = supplier.call();
+					} catch (RuntimeException e) {
+						this.statsCounter.recordLoadFailure(System.nanoTime() - start);
+						throw e;
+					}
+					this.statsCounter.recordLoadSuccess(System.nanoTime() - start);
+					this.put(key, v, this.timeout);
+				}
+			} finally {
+				keyLock.unlock();
+				this.keyLockMap.remove(lockKey, keyLock);
+			}
+		}
+		return v;
+	}
+
+	/**
+	 * 仅当键当前缓存的是{@code expected}(同一对象)且未过期时替换为新值，使用默认失效时长
+	 *
+	 * @param key 键
+	 * @param expected 期望的当前值
+	 * @param value 新值
+	 * @return 是否替换
+	 */
+	public boolean replace(K key, V expected, V value) {
+		this.lock.lock();
+		try {
+			CacheObj<K, V> co = this.cacheMap.get(key);
+			if (co == null || co.value != expected || co.isExpired()) {
+				return false;
+			}
+			this.putWithoutLock(key, value, this.timeout);
+			return true;
+		} finally {
+			this.unlock();
+		}
+	}
+
+	/**
+	 * 是否包含键，过期对象视为不包含
+	 *
+	 * @param key 键
+	 * @return 是否包含
+	 */
+	public boolean containsKey(K key) {
+		return this.get(key, false) != null;
 	}
 
 	@Override
 	public V remove(K key) {
-		// TODO Auto-generated method stub
-		return null;
+		this.lock.lock();
+		try {
+			CacheObj<K, V> co = this.removeWithoutLock(key);
+			if (this.snapshot != null) {
+				this.snapshot.discard(key);
+			}
+			if (co == null) {
+				return null;
+			}
+			this.addRemoved(co);
+			return co.value;
+		} finally {
+			this.unlock();
+		}
 	}
 
+	/**
+	 * 清空缓存，每个被清除的对象都会回调{@link #onRemove(Object, Object)}，不计入淘汰次数
+	 */
 	@Override
 	public void clear() {
-		// TODO Auto-generated method stub
-		
+		this.lock.lock();
+		try {
+			for (CacheObj<K, V> co : this.cacheMap.values()) {
+				co.cancelExpiry();
+				this.addRemoved(co);
+			}
+			this.cacheMap.clear();
+			this.totalWeight = 0;
+			if (this.snapshot != null) {
+				this.snapshot.discardAll();
+				this.snapshot = null;
+			}
+		} finally {
+			this.unlock();
+		}
+	}
+
+	/**
+	 * 清理过期对象以及按照淘汰策略清理对象
+	 *
+	 * @return 清理的缓存对象个数
+	 */
+	public int prune() {
+		this.lock.lock();
+		try {
+			return this.pruneCache();
+		} finally {
+			this.unlock();
+		}
+	}
+
+	/**
+	 * 缓存对象数量(包括未清理的过期对象)
+	 *
+	 * @return 缓存对象数量
+	 */
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.cacheMap.size();
+		} finally {
+			this.unlock();
+		}
 	}
 
+	/**
+	 * 缓存是否为空
+	 *
+	 * @return 是否为空
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * 缓存是否已满，数量达到容量或总权重没有余量时为满，{@code capacity}为{@code 0}且未设置权重时永远不满
+	 *
+	 * @return 是否已满
+	 */
+	public boolean isFull() {
+		if (this.capacity > 0 && this.cacheMap.size() >= this.capacity) {
+			return true;
+		}
+		return this.maxWeight > 0 && this.totalWeight + Math.max(1, this.admittingWeight) > this.maxWeight;
+	}
+
+	@Override
+	public String toString() {
+		return this.cacheMap.toString();
+	}
+
+	/**
+	 * 从关联的快照中取出对象并加入缓存，无锁
+	 *
+	 * @param key 键
+	 * @return 值，快照中不存在返回{@code null}
+	 */
+	private V restoreWithoutLock(K key) {
+		CacheSnapshot<K, V> snapshot = this.snapshot;
+		long start = System.nanoTime();
+		CacheSnapshot.Record<K, V> record = snapshot.take(key);
+		if (snapshot.remaining() == 0) {
+			this.snapshot = null;
+		}
+		if (record == null || !this.restoreWithoutLock(record)) {
+			return null;
+		}
+		this.statsCounter.recordLoadSuccess(System.nanoTime() - start);
+		return record.value;
+	}
+
+	/**
+	 * 将快照对象加入缓存，按剩余存活时长计算超时，无锁
+	 *
+	 * @param record 快照对象
+	 * @return 是否加入，已过期返回{@code false}
+	 */
+	private boolean restoreWithoutLock(CacheSnapshot.Record<K, V> record) {
+		long timeout = 0;
+		if (record.expireAt > 0) {
+			timeout = record.expireAt - SystemClock.now();
+			if (timeout <= 0) {
+				return false;
+			}
+		}
+		this.putWithoutLock(record.key, record.value, timeout);
+		return true;
+	}
+
+	/**
+	 * 将快照对象加入缓存，缓存中已存在的对象不覆盖
+	 *
+	 * @param record 快照对象
+	 * @return 是否加入
+	 */
+	boolean restore(CacheSnapshot.Record<K, V> record) {
+		this.lock.lock();
+		try {
+			return !this.cacheMap.containsKey(record.key) && this.restoreWithoutLock(record);
+		} finally {
+			this.unlock();
+		}
+	}
+
+	/**
+	 * 获取未过期对象的快照记录
+	 *
+	 * @return 快照记录
+	 */
+	List<CacheSnapshot.Record<K, V>> snapshotRecords() {
+		this.lock.lock();
+		try {
+			List<CacheSnapshot.Record<K, V>> records = new ArrayList<>(this.cacheMap.size());
+			for (CacheObj<K, V> co : this.cacheMap.values()) {
+				if (!co.isExpired()) {
+					records.add(new CacheSnapshot.Record<>(co.key, co.value, co.ttl > 0 ? co.lastAccess + co.ttl : 0));
+				}
+			}
+			return records;
+		} finally {
+			this.unlock();
+		}
+	}
+
+	/**
+	 * 加入元素，无锁
+	 *
+	 * @param key 键
+	 * @param value 值
+	 * @param timeout 超时时长
+	 */
+	protected void putWithoutLock(K key, V value, long timeout) {
+		CacheObj<K, V> co = new CacheObj<>(key, value, timeout);
+		co.weight = this.weigh(key, value);
+		if (this.snapshot != null) {
+			this.snapshot.discard(key);
+		}
+		if (timeout != 0) {
+			this.existCustomTimeout = true;
+		}
+		if (this.maxWeight > 0 && co.weight > this.maxWeight) {
+			// 单个对象超过最大总权重，不缓存，同时移除旧值
+			CacheObj<K, V> previous = this.removeWithoutLock(key);
+			if (previous != null) {
+				this.addRemoved(previous);
+			}
+			return;
+		}
+		if (this.capacity > 0 && !this.cacheMap.containsKey(key) && this.cacheMap.size() >= this.capacity) {
+			this.pruneCache();
+		}
+		if (this.maxWeight > 0) {
+			this.admitWeightWithoutLock(key, co.weight);
+		}
+		CacheObj<K, V> previous = this.cacheMap.put(key, co);
+		this.totalWeight += co.weight;
+		if (previous != null) {
+			previous.cancelExpiry();
+			this.totalWeight -= previous.weight;
+		}
+		if (this.timingWheel != null && timeout > 0) {
+			co.expiryTimeout = this.timingWheel.schedule(new ExpiryTask(co), timeout);
+		}
+	}
+
+	/**
+	 * 移除元素并取消其主动过期任务，无锁
+	 *
+	 * @param key 键
+	 * @return 被移除的缓存对象，不存在返回{@code null}
+	 */
+	protected CacheObj<K, V> removeWithoutLock(K key) {
+		CacheObj<K, V> co = this.cacheMap.remove(key);
+		if (co != null) {
+			co.cancelExpiry();
+			this.totalWeight -= co.weight;
+		}
+		return co;
+	}
+
+	/**
+	 * 按淘汰策略淘汰对象，直到总权重可以容纳新对象，无锁
+	 *
+	 * @param key 新对象的键，其旧值的权重视为可释放
+	 * @param weight 新对象权重
+	 */
+	protected void admitWeightWithoutLock(K key, int weight) {
+		try {
+			while (!this.cacheMap.isEmpty()) {
+				CacheObj<K, V> previous = this.cacheMap.containsKey(key) ? this.cacheMap.get(key) : null;
+				this.admittingWeight = weight - (previous == null ? 0 : previous.weight);
+				if (this.admittingWeight <= 0 || this.totalWeight + this.admittingWeight <= this.maxWeight) {
+					return;
+				}
+				if (this.pruneCache() == 0) {
+					return;
+				}
+			}
+		} finally {
+			this.admittingWeight = 0;
+		}
+	}
+
+	/**
+	 * 计算对象权重
+	 *
+	 * @param key 键
+	 * @param value 值
+	 * @return 权重，未设置{@link Weigher}时为{@code 0}
+	 */
+	protected int weigh(K key, V value) {
+		Weigher<K, V> weigher = this.weigher;
+		if (weigher == null) {
+			return 0;
+		}
+		int weight = weigher.weigh(key, value);
+		if (weight < 0) {
+			throw new IllegalStateException("weight of key [" + key + "] cannot be negative");
+		}
+		return weight;
+	}
+
+	/**
+	 * 是否需要清理过期对象
+	 *
+	 * @return 是否需要清理
+	 */
+	protected boolean isPruneExpiredActive() {
+		return this.timeout != 0 || this.existCustomTimeout;
+	}
+
+	/**
+	 * 清理过期对象，无锁
+	 *
+	 * @return 清理的缓存对象个数
+	 */
+	protected int pruneExpiredWithoutLock() {
+		if (!this.isPruneExpiredActive()) {
+			return 0;
+		}
+		int count = 0;
+		Iterator<CacheObj<K, V>> values = this.cacheMap.values().iterator();
+		CacheObj<K, V> co;
+		while (values.hasNext()) {
+			co = values.next();
+			if (co.isExpired()) {
+				values.remove();
+				this.onRemove(co);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 淘汰对象回调，取消其主动过期任务、释放权重、记录淘汰次数，释放锁后调用{@link #onRemove(Object, Object)}，调用者已持有锁
+	 *
+	 * @param co 被淘汰的缓存对象
+	 */
+	protected void onRemove(CacheObj<K, V> co) {
+		co.cancelExpiry();
+		this.totalWeight -= co.weight;
+		this.statsCounter.recordEviction();
+		this.addRemoved(co);
+	}
+
+	/**
+	 * 记录被移除的对象，释放锁后回调{@link #onRemove(Object, Object)}，调用者已持有锁
+	 *
+	 * @param co 被移除的缓存对象
+	 */
+	protected void addRemoved(CacheObj<K, V> co) {
+		if (this.removedObjs == null) {
+			this.removedObjs = new ArrayList<>();
+		}
+		this.removedObjs.add(co);
+	}
+
+	/**
+	 * 释放缓存锁，最外层释放时回调持有锁期间被移除的对象，监听中可以安全地访问缓存
+	 */
+	protected void unlock() {
+		List<CacheObj<K, V>> removed = null;
+		if (this.lock.getHoldCount() == 1) {
+			removed = this.removedObjs;
+			this.removedObjs = null;
+		}
+		this.lock.unlock();
+		if (removed != null) {
+			for (CacheObj<K, V> co : removed) {
+				this.onRemove(co.key, co.value);
+			}
+		}
+	}
+
+	/**
+	 * 对象移除回调，在缓存锁之外调用，默认调用{@link CacheListener#onRemove(Object, Object)}
+	 *
+	 * @param key 键
+	 * @param cachedObject 被缓存的对象
+	 */
+	protected void onRemove(K key, V cachedObject) {
+		CacheListener<K, V> listener = this.listener;
+		if (listener != null) {
+			listener.onRemove(key, cachedObject);
+		}
+	}
+
+	/**
+	 * 对象访问回调，命中和未命中都会调用，供淘汰策略记录访问，默认空实现，调用者已持有锁
+	 *
+	 * @param key 键
+	 * @param co 缓存对象，未命中时为{@code null}
+	 */
+	protected void onAccess(K key, CacheObj<K, V> co) {
+	}
+
+	/**
+	 * 清理过期对象以及按照淘汰策略淘汰对象，调用者已持有锁
+	 *
+	 * @return 清理的缓存对象个数
+	 */
+	protected abstract int pruneCache();
+
+	/**
+	 * 主动过期任务，到期时对象若在此期间被访问过则按新的过期时间重新调度
+	 */
+	private class ExpiryTask implements Runnable {
+
+		private final CacheObj<K, V> co;
+
+		private ExpiryTask(CacheObj<K, V> co) {
+			this.co = co;
+		}
+
+		@Override
+		public void run() {
+			lock.lock();
+			try {
+				// 对象已被移除或替换
+				if (this.co.expiryTimeout == null || this.co.expiryTimeout.isCancelled()) {
+					return;
+				}
+				if (!this.co.isExpired()) {
+					long delay = this.co.lastAccess + this.co.ttl - SystemClock.now();
+					this.co.expiryTimeout = timingWheel.schedule(this, Math.max(1, delay + 1));
+					return;
+				}
+				cacheMap.remove(this.co.key);
+				this.co.expiryTimeout = null;
+				totalWeight -= this.co.weight;
+				statsCounter.recordEviction();
+				addRemoved(this.co);
+			} finally {
+				unlock();
+			}
+		}
+	}
 }
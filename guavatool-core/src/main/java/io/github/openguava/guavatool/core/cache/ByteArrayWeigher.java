@@ -0,0 +1,15 @@
+package io.github.openguava.guavatool.core.cache;
+
+/**
+ * 字节数组权重，权重为值的字节长度，适用于缓存序列化后的对象
+ * @author openguava
+ *
+ * @param <K> 键类型
+ */
+public class ByteArrayWeigher<K> implements Weigher<K, byte[]> {
+
+	@Override
+	public int weigh(K key, byte[] value) {
+		return value == null ? 0 : value.length;
+	}
+}
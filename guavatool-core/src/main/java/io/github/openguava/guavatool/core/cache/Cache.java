@@ -37,4 +37,10 @@ public interface Cache<K,V> extends Serializable {
 	 * 清空缓存
 	 */
 	void clear();
+	
+	/**
+	 * 获取缓存统计快照
+	 * @return
+	 */
+	CacheStats stats();
 }
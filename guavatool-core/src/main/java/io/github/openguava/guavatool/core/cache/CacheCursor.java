@@ -0,0 +1,21 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * 缓存键游标，逐批从缓存中取出键，遍历大量键时不必一次载入全部键<br>
+ * 游标可能占用连接等资源，使用完毕(包括未遍历完)必须调用{@link #close()}。
+ * 遍历期间缓存被修改时，新增或删除的键可能出现也可能不出现，同一个键也可能出现多次。
+ * @author openguava
+ *
+ * @param <K>
+ */
+public interface CacheCursor<K> extends Iterator<K>, Closeable {
+
+	/**
+	 * 关闭游标，释放占用的资源
+	 */
+	@Override
+	void close();
+}
@@ -0,0 +1,51 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 缓存加载器，用于{@link LoadingCache}在未命中或需要刷新时加载值
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public abstract class CacheLoader<K, V> {
+
+	/**
+	 * 加载单个键的值
+	 *
+	 * @param key 键
+	 * @return 值，返回{@code null}表示不存在，不会被缓存
+	 */
+	public abstract V load(K key);
+
+	/**
+	 * 批量加载，默认逐个调用{@link #load(Object)}，后端支持批量查询时应覆盖此方法
+	 *
+	 * @param keys 键集合
+	 * @return 键值对，不存在的键可以不包含
+	 */
+	public Map<K, V> loadAll(Collection<? extends K> keys) {
+		Map<K, V> result = new HashMap<>(keys.size() * 4 / 3 + 1);
+		for (K key : keys) {
+			V value = this.load(key);
+			if (value != null) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 后台刷新时重新加载值，默认调用{@link #load(Object)}
+	 *
+	 * @param key 键
+	 * @param oldValue 旧值
+	 * @return 新值，返回{@code null}表示保留旧值
+	 */
+	public V reload(K key, V oldValue) {
+		return this.load(key);
+	}
+}
@@ -4,6 +4,8 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.concurrent.atomic.AtomicLong;
 
+import io.github.openguava.guavatool.core.lang.SystemClock;
+
 /**
  * 缓存对象
  * @author openguava
@@ -58,6 +60,15 @@ public class CacheObj<K, V> implements Serializable {
 	 */
 	protected AtomicLong accessCount = new AtomicLong();
 	
+	/**
+	 * 获取访问次数
+	 *
+	 * @return 访问次数
+	 */
+	public long getAccessCount() {
+		return this.accessCount.get();
+	}
+	
 	/**
 	 * 对象存活时长，0表示永久存活
 	 */
@@ -72,6 +83,25 @@ public class CacheObj<K, V> implements Serializable {
 		return this.ttl;
 	}
 	
+	/**
+	 * 权重，未设置{@link Weigher}时为{@code 0}
+	 */
+	protected int weight;
+	
+	/**
+	 * 获取权重
+	 *
+	 * @return 权重
+	 */
+	public int getWeight() {
+		return this.weight;
+	}
+	
+	/**
+	 * 主动过期任务句柄，未启用时间轮时为{@code null}
+	 */
+	protected transient TimingWheel.Timeout expiryTimeout;
+	
 	/**
 	 * 构造
 	 *
@@ -83,7 +113,7 @@ public class CacheObj<K, V> implements Serializable {
 		this.key = key;
 		this.value = obj;
 		this.ttl = ttl;
-		this.lastAccess = System.currentTimeMillis();
+		this.lastAccess = SystemClock.now();
 	}
 
 	/**
@@ -106,7 +136,7 @@ public class CacheObj<K, V> implements Serializable {
 	protected boolean isExpired() {
 		if (this.ttl > 0) {
 			// 此处不考虑时间回拨
-			return (System.currentTimeMillis() - this.lastAccess) > this.ttl;
+			return (SystemClock.now() - this.lastAccess) > this.ttl;
 		}
 		return false;
 	}
@@ -119,12 +149,22 @@ public class CacheObj<K, V> implements Serializable {
 	 */
 	protected V get(boolean isUpdateLastAccess) {
 		if (isUpdateLastAccess) {
-			this.lastAccess = System.currentTimeMillis();
+			this.lastAccess = SystemClock.now();
 		}
 		this.accessCount.getAndIncrement();
 		return this.value;
 	}
 	
+	/**
+	 * 取消主动过期任务
+	 */
+	protected void cancelExpiry() {
+		if (this.expiryTimeout != null) {
+			this.expiryTimeout.cancel();
+			this.expiryTimeout = null;
+		}
+	}
+	
 	@Override
 	public String toString() {
 		return "CacheObj [key=" + key + ", obj=" + this.value + ", lastAccess=" + lastAccess + ", accessCount=" + accessCount + ", ttl=" + ttl + "]";
@@ -0,0 +1,544 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openguava.guavatool.core.exception.SerializationException;
+import io.github.openguava.guavatool.core.exception.UtilException;
+import io.github.openguava.guavatool.core.lang.SystemClock;
+import io.github.openguava.guavatool.core.serializer.Serializer;
+
+/**
+ * 缓存快照，用于应用重启后快速预热缓存<br>
+ * 停机时将缓存对象通过{@link Serializer}序列化写入快照文件；启动时以内存映射方式打开快照，只反序列化键建立索引，
+ * 值在缓存首次未命中时才从映射区读取并反序列化，因此打开快照几乎不产生额外开销。
+ * <p>
+ * 对象的过期时间按绝对时间保存，停机期间同样计入存活时长。支持{@link AbstractCache}及其子类和{@link SimpleCache}。
+ * 打开时校验每条记录的长度，遇到截断或损坏的记录即停止读取，之前的记录仍然有效。
+ * 使用示例：
+ * <pre>
+ * CacheSnapshot&lt;K, V&gt; snapshot = new CacheSnapshot&lt;&gt;(file, keySerializer, valueSerializer);
+ * snapshot.attach(cache).saveOnShutdown(cache);
+ * </pre>
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class CacheSnapshot<K, V> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CacheSnapshot.class);
+
+	/** 文件标识 */
+	private static final int MAGIC = 0x47544353;
+
+	/** 文件格式版本 */
+	private static final int VERSION = 1;
+
+	/** 快照文件 */
+	private final File file;
+
+	/** 键序列化 */
+	private final Serializer<K, byte[]> keySerializer;
+
+	/** 值序列化 */
+	private final Serializer<V, byte[]> valueSerializer;
+
+	/** 快照映射区，全部对象取出后释放 */
+	private volatile MappedByteBuffer buffer;
+
+	/** 快照文件的映射，保存快照替换文件前解除映射 */
+	private MappedByteBuffer mapping;
+
+	/** 读取映射区时持有读锁，解除映射时持有写锁 */
+	private final ReentrantReadWriteLock mappingLock = new ReentrantReadWriteLock();
+
+	/** 尚未取出的对象在映射区中的偏移 */
+	private final ConcurrentHashMap<K, Integer> index = new ConcurrentHashMap<>();
+
+	/** 是否已打开 */
+	private boolean opened;
+
+	/**
+	 * 构造
+	 *
+	 * @param file 快照文件
+	 * @param keySerializer 键序列化
+	 * @param valueSerializer 值序列化
+	 */
+	public CacheSnapshot(File file, Serializer<K, byte[]> keySerializer, Serializer<V, byte[]> valueSerializer) {
+		if (file == null || keySerializer == null || valueSerializer == null) {
+			throw new IllegalArgumentException("file and serializers cannot be null.");
+		}
+		this.file = file;
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+	}
+
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * 以内存映射方式打开快照并建立键索引，快照文件不存在或格式不符时视为空快照，重复调用无效
+	 *
+	 * @return this
+	 */
+	public synchronized CacheSnapshot<K, V> open() {
+		if (this.opened) {
+			return this;
+		}
+		this.opened = true;
+		if (!this.file.isFile()) {
+			return this;
+		}
+		MappedByteBuffer mapped;
+		try {
+			mapped = this.map();
+		} catch (IOException e) {
+			throw new UtilException(e, "open cache snapshot failed: {}", this.file);
+		}
+		ByteBuffer buf = mapped.duplicate();
+		if (buf.remaining() < 8 || buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+			LOGGER.warn("ignore invalid cache snapshot: {}", this.file);
+			unmap(mapped);
+			return this;
+		}
+		long now = SystemClock.now();
+		while (buf.remaining() >= 8) {
+			int offset = buf.position();
+			long expireAt = buf.getLong();
+			int keyLength = readLength(buf);
+			if (keyLength < 0) {
+				LOGGER.warn("ignore corrupted cache snapshot record at {}: {}", offset, this.file);
+				break;
+			}
+			byte[] keyBytes = new byte[keyLength];
+			buf.get(keyBytes);
+			int valueLength = readLength(buf);
+			if (valueLength < 0) {
+				LOGGER.warn("ignore corrupted cache snapshot record at {}: {}", offset, this.file);
+				break;
+			}
+			buf.position(buf.position() + valueLength);
+			if (expireAt > 0 && expireAt <= now) {
+				continue;
+			}
+			try {
+				K key = this.keySerializer.deserialize(keyBytes);
+				if (key != null) {
+					this.index.put(key, offset);
+				}
+			} catch (SerializationException e) {
+				LOGGER.warn(e.getMessage(), e);
+			}
+		}
+		if (this.index.isEmpty()) {
+			unmap(mapped);
+		} else {
+			this.mapping = mapped;
+			this.buffer = mapped;
+		}
+		return this;
+	}
+
+	/**
+	 * 打开快照并关联到缓存，缓存未命中时从快照中惰性读取
+	 *
+	 * @param cache 缓存
+	 * @return this
+	 */
+	public CacheSnapshot<K, V> attach(Cache<K, V> cache) {
+		this.open();
+		if (cache instanceof AbstractCache) {
+			((AbstractCache<K, V>) cache).snapshot = this;
+		} else if (cache instanceof SimpleCache) {
+			((SimpleCache<K, V>) cache).snapshot = this;
+		} else {
+			throw new IllegalArgumentException("unsupported cache type: " + cache);
+		}
+		return this;
+	}
+
+	/**
+	 * 将快照中尚未取出的对象全部加入缓存，可在后台线程中调用以主动预热
+	 *
+	 * @param cache 缓存
+	 * @return 加入的对象数
+	 */
+	public int restore(Cache<K, V> cache) {
+		this.open();
+		int count = 0;
+		for (K key : this.index.keySet()) {
+			Record<K, V> record = this.take(key);
+			if (record == null) {
+				continue;
+			}
+			if (cache instanceof AbstractCache) {
+				if (((AbstractCache<K, V>) cache).restore(record)) {
+					count++;
+				}
+			} else {
+				cache.put(record.key, record.value);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 将缓存写入快照文件，快照中尚未取出且缓存中不存在的对象一并保留<br>
+	 * 先写入临时文件，解除原快照的映射后再原子替换(Windows下映射中的文件无法替换)，写入过程中断不会破坏原快照。
+	 * 替换后尚未取出的对象改为从新快照读取
+	 *
+	 * @param cache 缓存
+	 */
+	public void save(Cache<K, V> cache) {
+		List<Record<K, V>> records;
+		if (cache instanceof AbstractCache) {
+			records = ((AbstractCache<K, V>) cache).snapshotRecords();
+		} else if (cache instanceof SimpleCache) {
+			records = ((SimpleCache<K, V>) cache).snapshotRecords();
+		} else {
+			throw new IllegalArgumentException("unsupported cache type: " + cache);
+		}
+		File tmpFile = new File(this.file.getPath() + ".tmp");
+		File parent = tmpFile.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new UtilException("create directory failed: {}", parent);
+		}
+		long now = SystemClock.now();
+		Set<K> written = new HashSet<>();
+		// 保留的对象在新快照中的偏移
+		Map<K, Integer> retained = new HashMap<>();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			for (Record<K, V> record : records) {
+				byte[] keyBytes;
+				byte[] valueBytes;
+				try {
+					keyBytes = this.keySerializer.serialize(record.key);
+					valueBytes = this.valueSerializer.serialize(record.value);
+				} catch (SerializationException e) {
+					LOGGER.warn(e.getMessage(), e);
+					continue;
+				}
+				writeRecord(out, record.expireAt, keyBytes, valueBytes);
+				written.add(record.key);
+			}
+			// 保留尚未取出的对象，避免连续重启丢失冷数据
+			this.mappingLock.readLock().lock();
+			try {
+				MappedByteBuffer mapped = this.buffer;
+				if (mapped != null) {
+					for (Map.Entry<K, Integer> entry : this.index.entrySet()) {
+						if (written.contains(entry.getKey())) {
+							continue;
+						}
+						ByteBuffer buf = mapped.duplicate();
+						buf.position(entry.getValue());
+						long expireAt = buf.getLong();
+						int keyLength = readLength(buf);
+						if (keyLength < 0) {
+							continue;
+						}
+						byte[] keyBytes = new byte[keyLength];
+						buf.get(keyBytes);
+						int valueLength = readLength(buf);
+						if (valueLength < 0) {
+							continue;
+						}
+						byte[] valueBytes = new byte[valueLength];
+						buf.get(valueBytes);
+						if (expireAt == 0 || expireAt > now) {
+							retained.put(entry.getKey(), out.size());
+							writeRecord(out, expireAt, keyBytes, valueBytes);
+						}
+					}
+				}
+			} finally {
+				this.mappingLock.readLock().unlock();
+			}
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new UtilException(e, "save cache snapshot failed: {}", this.file);
+		}
+		this.mappingLock.writeLock().lock();
+		try {
+			MappedByteBuffer mapped = this.mapping;
+			this.mapping = null;
+			this.buffer = null;
+			if (mapped != null) {
+				unmap(mapped);
+			}
+			try {
+				try {
+					Files.move(tmpFile.toPath(), this.file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tmpFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			} catch (IOException e) {
+				tmpFile.delete();
+				// 原快照未被替换，偏移仍然有效
+				this.remap(null);
+				throw new UtilException(e, "save cache snapshot failed: {}", this.file);
+			}
+			this.remap(retained);
+		} finally {
+			this.mappingLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * 注册JVM关闭钩子，停机时将缓存写入快照文件
+	 *
+	 * @param cache 缓存
+	 * @return this
+	 */
+	public CacheSnapshot<K, V> saveOnShutdown(final Cache<K, V> cache) {
+		Runtime.getRuntime().addShutdownHook(new Thread("Cache Snapshot") {
+			@Override
+			public void run() {
+				try {
+					save(cache);
+				} catch (RuntimeException e) {
+					LOGGER.warn(e.getMessage(), e);
+				}
+			}
+		});
+		return this;
+	}
+
+	/**
+	 * 快照中尚未取出的对象数
+	 *
+	 * @return 对象数
+	 */
+	public int remaining() {
+		return this.index.size();
+	}
+
+	/**
+	 * 从快照中取出对象，每个对象只能取出一次
+	 *
+	 * @param key 键
+	 * @return 快照对象，不存在、已过期或反序列化失败返回{@code null}
+	 */
+	Record<K, V> take(K key) {
+		if (this.buffer == null || key == null) {
+			return null;
+		}
+		long expireAt;
+		byte[] valueBytes;
+		this.mappingLock.readLock().lock();
+		try {
+			// 先读取映射区引用，避免其他线程取出最后一个对象后释放映射区
+			MappedByteBuffer mapped = this.buffer;
+			if (mapped == null) {
+				return null;
+			}
+			Integer offset = this.index.remove(key);
+			if (this.index.isEmpty()) {
+				this.buffer = null;
+			}
+			if (offset == null) {
+				return null;
+			}
+			ByteBuffer buf = mapped.duplicate();
+			buf.position(offset);
+			expireAt = buf.getLong();
+			int keyLength = readLength(buf);
+			if (keyLength < 0) {
+				return null;
+			}
+			buf.position(buf.position() + keyLength);
+			int valueLength = readLength(buf);
+			if (valueLength < 0) {
+				return null;
+			}
+			valueBytes = new byte[valueLength];
+			buf.get(valueBytes);
+		} finally {
+			this.mappingLock.readLock().unlock();
+		}
+		if (expireAt > 0 && expireAt <= SystemClock.now()) {
+			return null;
+		}
+		try {
+			V value = this.valueSerializer.deserialize(valueBytes);
+			return value == null ? null : new Record<>(key, value, expireAt);
+		} catch (SerializationException e) {
+			LOGGER.warn(e.getMessage(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * 丢弃快照中的对象，缓存写入或移除该键后快照中的旧值不再有效
+	 *
+	 * @param key 键
+	 */
+	void discard(K key) {
+		if (key != null && this.index.remove(key) != null && this.index.isEmpty()) {
+			this.buffer = null;
+		}
+	}
+
+	/**
+	 * 丢弃快照中的全部对象
+	 */
+	void discardAll() {
+		this.index.clear();
+		this.buffer = null;
+	}
+
+	/**
+	 * 以只读方式映射快照文件
+	 *
+	 * @return 映射区
+	 * @throws IOException IO异常
+	 */
+	private MappedByteBuffer map() throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(this.file, "r"); FileChannel channel = raf.getChannel()) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new UtilException("cache snapshot too large: {}", this.file);
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * 重新映射快照文件，需持有写锁
+	 *
+	 * @param offsets 尚未取出的对象在快照文件中的新偏移，{@code null}表示偏移不变
+	 */
+	private void remap(Map<K, Integer> offsets) {
+		if (offsets != null) {
+			for (Map.Entry<K, Integer> entry : this.index.entrySet()) {
+				Integer offset = offsets.get(entry.getKey());
+				if (offset == null) {
+					this.index.remove(entry.getKey());
+				} else {
+					entry.setValue(offset);
+				}
+			}
+		}
+		if (this.index.isEmpty()) {
+			return;
+		}
+		try {
+			MappedByteBuffer mapped = this.map();
+			this.mapping = mapped;
+			this.buffer = mapped;
+		} catch (IOException | UtilException e) {
+			LOGGER.warn(e.getMessage(), e);
+			this.index.clear();
+		}
+	}
+
+	/**
+	 * 读取长度字段并校验不超过剩余字节数
+	 *
+	 * @param buf 映射区
+	 * @return 长度，记录截断或损坏时返回{@code -1}
+	 */
+	private static int readLength(ByteBuffer buf) {
+		if (buf.remaining() < 4) {
+			return -1;
+		}
+		int length = buf.getInt();
+		return length < 0 || length > buf.remaining() ? -1 : length;
+	}
+
+	/**
+	 * 解除映射，失败时等待垃圾回收释放
+	 *
+	 * @param buffer 映射区
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			try {
+				// Java 9及以上
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			} catch (NoSuchMethodException e) {
+				// Java 8及以下
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					Method clean = cleaner.getClass().getMethod("clean");
+					clean.setAccessible(true);
+					clean.invoke(cleaner);
+				}
+			}
+		} catch (Exception e) {
+			LOGGER.debug("unmap cache snapshot failed", e);
+		}
+	}
+
+	/**
+	 * 写入一条记录
+	 *
+	 * @param out 输出流
+	 * @param expireAt 过期时间，{@code 0}表示永不过期
+	 * @param keyBytes 键
+	 * @param valueBytes 值
+	 * @throws IOException IO异常
+	 */
+	private static void writeRecord(DataOutputStream out, long expireAt, byte[] keyBytes, byte[] valueBytes) throws IOException {
+		out.writeLong(expireAt);
+		out.writeInt(keyBytes.length);
+		out.write(keyBytes);
+		out.writeInt(valueBytes.length);
+		out.write(valueBytes);
+	}
+
+	/**
+	 * 快照对象
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 */
+	static final class Record<K, V> {
+
+		final K key;
+
+		final V value;
+
+		/** 过期时间，{@code 0}表示永不过期 */
+		final long expireAt;
+
+		Record(K key, V value, long expireAt) {
+			this.key = key;
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+	}
+}
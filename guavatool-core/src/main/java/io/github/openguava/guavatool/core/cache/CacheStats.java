@@ -0,0 +1,145 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.io.Serializable;
+
+/**
+ * 缓存统计快照，不可变
+ * @author openguava
+ *
+ */
+public final class CacheStats implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** 空统计 */
+	public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0);
+
+	/** 命中次数 */
+	private final long hitCount;
+
+	/** 未命中次数 */
+	private final long missCount;
+
+	/** 加载成功次数 */
+	private final long loadSuccessCount;
+
+	/** 加载失败次数 */
+	private final long loadFailureCount;
+
+	/** 加载总耗时，单位纳秒 */
+	private final long totalLoadTime;
+
+	/** 淘汰次数(过期及容量淘汰，不含主动移除) */
+	private final long evictionCount;
+
+	/**
+	 * 构造
+	 *
+	 * @param hitCount 命中次数
+	 * @param missCount 未命中次数
+	 * @param loadSuccessCount 加载成功次数
+	 * @param loadFailureCount 加载失败次数
+	 * @param totalLoadTime 加载总耗时，单位纳秒
+	 * @param evictionCount 淘汰次数
+	 */
+	public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long totalLoadTime, long evictionCount) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.loadSuccessCount = loadSuccessCount;
+		this.loadFailureCount = loadFailureCount;
+		this.totalLoadTime = totalLoadTime;
+		this.evictionCount = evictionCount;
+	}
+
+	public long getHitCount() {
+		return this.hitCount;
+	}
+
+	public long getMissCount() {
+		return this.missCount;
+	}
+
+	public long getLoadSuccessCount() {
+		return this.loadSuccessCount;
+	}
+
+	public long getLoadFailureCount() {
+		return this.loadFailureCount;
+	}
+
+	public long getTotalLoadTime() {
+		return this.totalLoadTime;
+	}
+
+	public long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * 请求总次数，即命中与未命中次数之和
+	 *
+	 * @return 请求总次数
+	 */
+	public long getRequestCount() {
+		return this.hitCount + this.missCount;
+	}
+
+	/**
+	 * 命中率，无请求时返回{@code 1.0}
+	 *
+	 * @return 命中率
+	 */
+	public double getHitRate() {
+		long requestCount = this.getRequestCount();
+		return requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount;
+	}
+
+	/**
+	 * 未命中率，无请求时返回{@code 0.0}
+	 *
+	 * @return 未命中率
+	 */
+	public double getMissRate() {
+		long requestCount = this.getRequestCount();
+		return requestCount == 0 ? 0.0 : (double) this.missCount / requestCount;
+	}
+
+	/**
+	 * 平均加载耗时，单位纳秒
+	 *
+	 * @return 平均加载耗时
+	 */
+	public double getAverageLoadPenalty() {
+		long loadCount = this.loadSuccessCount + this.loadFailureCount;
+		return loadCount == 0 ? 0.0 : (double) this.totalLoadTime / loadCount;
+	}
+
+	/**
+	 * 与另一个快照相加，用于汇总多个缓存的统计
+	 *
+	 * @param other 另一个快照
+	 * @return 新快照
+	 */
+	public CacheStats plus(CacheStats other) {
+		return new CacheStats(this.hitCount + other.hitCount, this.missCount + other.missCount, this.loadSuccessCount + other.loadSuccessCount,
+				this.loadFailureCount + other.loadFailureCount, this.totalLoadTime + other.totalLoadTime, this.evictionCount + other.evictionCount);
+	}
+
+	/**
+	 * 与较早的快照相减，得到两次快照之间的增量
+	 *
+	 * @param other 较早的快照
+	 * @return 新快照
+	 */
+	public CacheStats minus(CacheStats other) {
+		return new CacheStats(Math.max(0, this.hitCount - other.hitCount), Math.max(0, this.missCount - other.missCount),
+				Math.max(0, this.loadSuccessCount - other.loadSuccessCount), Math.max(0, this.loadFailureCount - other.loadFailureCount),
+				Math.max(0, this.totalLoadTime - other.totalLoadTime), Math.max(0, this.evictionCount - other.evictionCount));
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", loadSuccessCount=" + loadSuccessCount + ", loadFailureCount="
+				+ loadFailureCount + ", totalLoadTime=" + totalLoadTime + ", evictionCount=" + evictionCount + "]";
+	}
+}
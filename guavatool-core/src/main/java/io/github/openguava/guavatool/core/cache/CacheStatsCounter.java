@@ -0,0 +1,93 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存统计计数器，基于{@link LongAdder}分段计数，高并发下写入无竞争
+ * @author openguava
+ *
+ */
+public class CacheStatsCounter implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder loadSuccessCount = new LongAdder();
+
+	private final LongAdder loadFailureCount = new LongAdder();
+
+	private final LongAdder totalLoadTime = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * 记录命中
+	 *
+	 * @param count 次数
+	 */
+	public void recordHits(int count) {
+		this.hitCount.add(count);
+	}
+
+	/**
+	 * 记录未命中
+	 *
+	 * @param count 次数
+	 */
+	public void recordMisses(int count) {
+		this.missCount.add(count);
+	}
+
+	/**
+	 * 记录加载成功
+	 *
+	 * @param loadTime 加载耗时，单位纳秒
+	 */
+	public void recordLoadSuccess(long loadTime) {
+		this.loadSuccessCount.increment();
+		this.totalLoadTime.add(loadTime);
+	}
+
+	/**
+	 * 记录加载失败
+	 *
+	 * @param loadTime 加载耗时，单位纳秒
+	 */
+	public void recordLoadFailure(long loadTime) {
+		this.loadFailureCount.increment();
+		this.totalLoadTime.add(loadTime);
+	}
+
+	/**
+	 * 记录淘汰
+	 */
+	public void recordEviction() {
+		this.evictionCount.increment();
+	}
+
+	/**
+	 * 获取统计快照
+	 *
+	 * @return 统计快照
+	 */
+	public CacheStats snapshot() {
+		return new CacheStats(this.hitCount.sum(), this.missCount.sum(), this.loadSuccessCount.sum(), this.loadFailureCount.sum(),
+				this.totalLoadTime.sum(), this.evictionCount.sum());
+	}
+
+	/**
+	 * 重置计数
+	 */
+	public void reset() {
+		this.hitCount.reset();
+		this.missCount.reset();
+		this.loadSuccessCount.reset();
+		this.loadFailureCount.reset();
+		this.totalLoadTime.reset();
+		this.evictionCount.reset();
+	}
+}
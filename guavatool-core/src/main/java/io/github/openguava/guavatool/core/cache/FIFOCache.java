@@ -0,0 +1,58 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * FIFO(first in first out) 先进先出缓存<br>
+ * 元素不停的加入缓存直到缓存满为止，当缓存满时，清理过期缓存对象，清理后依旧满则删除先入的缓存(链表首部对象)
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class FIFOCache<K, V> extends AbstractCache<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 构造，默认对象不过期
+	 *
+	 * @param capacity 容量
+	 */
+	public FIFOCache(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位毫秒
+	 */
+	public FIFOCache(int capacity, long timeout) {
+		this.capacity = capacity;
+		this.timeout = timeout;
+		this.cacheMap = new LinkedHashMap<>(Math.max(1 << 4, capacity + 1), 1.0f, false);
+	}
+
+	/**
+	 * 先进先出的清理策略<br>
+	 * 先遍历缓存清理过期的缓存对象，如果清理后还是满的，则删除第一个缓存对象
+	 */
+	@Override
+	protected int pruneCache() {
+		int count = this.pruneExpiredWithoutLock();
+		// 清理结束后依旧是满的，则删除第一个被缓存的对象
+		if (this.isFull()) {
+			Iterator<CacheObj<K, V>> values = this.cacheMap.values().iterator();
+			if (values.hasNext()) {
+				CacheObj<K, V> first = values.next();
+				values.remove();
+				this.onRemove(first);
+				count++;
+			}
+		}
+		return count;
+	}
+}
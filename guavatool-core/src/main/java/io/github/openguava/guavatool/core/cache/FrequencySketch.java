@@ -0,0 +1,158 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.io.Serializable;
+
+/**
+ * 访问频率估计，基于4位计数器的Count-Min Sketch<br>
+ * 每个键映射到4个计数器，频率取其中最小值，计数上限为15；累计记录次数达到容量的10倍时所有计数器减半(老化)，
+ * 使历史热点逐渐冷却，估计值始终反映近期的访问频率。
+ * <p>
+ * 非线程安全，由调用者加锁。
+ * @author openguava
+ *
+ * @param <K> 键类型
+ */
+public class FrequencySketch<K> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** 4个哈希函数的种子 */
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	/** 计数器减半时保留的位 */
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	/** 每个计数器的最低位 */
+	private static final long ONE_MASK = 0x1111111111111111L;
+
+	/** 计数器表，每个long包含16个4位计数器 */
+	private final long[] table;
+
+	/** 表掩码 */
+	private final int tableMask;
+
+	/** 老化周期 */
+	private final int sampleSize;
+
+	/** 当前周期内的记录次数 */
+	private int size;
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 预期跟踪的键数，通常为缓存容量
+	 */
+	public FrequencySketch(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be greater than 0");
+		}
+		int length = 8;
+		while (length < capacity && length < (1 << 30)) {
+			length <<= 1;
+		}
+		this.table = new long[length];
+		this.tableMask = length - 1;
+		this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * capacity);
+	}
+
+	/**
+	 * 估计键的访问频率
+	 *
+	 * @param key 键
+	 * @return 频率，范围{@code 0~15}
+	 */
+	public int frequency(K key) {
+		int hash = spread(key);
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int index = this.indexOf(hash, i);
+			int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * 记录一次访问
+	 *
+	 * @param key 键
+	 */
+	public void increment(K key) {
+		int hash = spread(key);
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= this.incrementAt(this.indexOf(hash, i), start + i);
+		}
+		if (added && ++this.size >= this.sampleSize) {
+			this.reset();
+		}
+	}
+
+	/**
+	 * 清空计数
+	 */
+	public void clear() {
+		for (int i = 0; i < this.table.length; i++) {
+			this.table[i] = 0;
+		}
+		this.size = 0;
+	}
+
+	/**
+	 * 计数器加一，已达上限时不变
+	 *
+	 * @param i 表下标
+	 * @param j 计数器在long中的序号
+	 * @return 是否增加
+	 */
+	private boolean incrementAt(int i, int j) {
+		int offset = j << 2;
+		long mask = 0xfL << offset;
+		if ((this.table[i] & mask) != mask) {
+			this.table[i] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 老化，所有计数器减半
+	 */
+	private void reset() {
+		int odd = 0;
+		for (int i = 0; i < this.table.length; i++) {
+			odd += Long.bitCount(this.table[i] & ONE_MASK);
+			this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+		}
+		// 减半时奇数计数器的余数被舍去
+		this.size = (this.size >>> 1) - (odd >>> 2);
+	}
+
+	/**
+	 * 第i个哈希函数对应的表下标
+	 *
+	 * @param hash 键hash
+	 * @param i 哈希函数序号
+	 * @return 表下标
+	 */
+	private int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return ((int) h) & this.tableMask;
+	}
+
+	/**
+	 * 扰动键hash
+	 *
+	 * @param key 键
+	 * @return hash
+	 */
+	private static int spread(Object key) {
+		int h = key == null ? 0 : key.hashCode();
+		h = ((h >>> 16) ^ h) * 0x45d9f3b;
+		h = ((h >>> 16) ^ h) * 0x45d9f3b;
+		return (h >>> 16) ^ h;
+	}
+}
@@ -0,0 +1,192 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.openguava.guavatool.core.lang.Pair;
+
+/**
+ * 热点键采样器<br>
+ * 按{@code 1/sampleRate}的概率采样访问并计数，最多跟踪{@code capacity}个键；
+ * 跟踪的键满时新键替换计数最小的键，每采样{@code capacity * 10}次将所有计数减半并移除归零的键，使长期冷却的键让出位置。
+ * 采样计数乘以采样率即为访问次数的估计值。
+ * @author openguava
+ *
+ * @param <K> 键类型
+ */
+public class HotKeySampler<K> {
+
+	/** 默认跟踪键数 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** 默认采样率，即每多少次访问采样一次 */
+	public static final int DEFAULT_SAMPLE_RATE = 16;
+
+	/** 跟踪键数 */
+	private final int capacity;
+
+	/** 采样率 */
+	private final int sampleRate;
+
+	/** 衰减间隔，每采样多少次衰减一次 */
+	private final long decayInterval;
+
+	/** 采样计数 */
+	private final ConcurrentHashMap<K, AtomicLong> counters;
+
+	/** 采样次数 */
+	private final AtomicLong samples = new AtomicLong();
+
+	/** 衰减和淘汰锁，同一时刻只有一个线程执行衰减或淘汰 */
+	private final ReentrantLock decayLock = new ReentrantLock();
+
+	/**
+	 * 构造，使用默认参数
+	 */
+	public HotKeySampler() {
+		this(DEFAULT_CAPACITY, DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 跟踪键数
+	 * @param sampleRate 采样率，{@code 1}表示每次访问都记录
+	 */
+	public HotKeySampler(int capacity, int sampleRate) {
+		if (capacity <= 0 || sampleRate <= 0) {
+			throw new IllegalArgumentException("capacity and sampleRate must be greater than 0");
+		}
+		this.capacity = capacity;
+		this.sampleRate = sampleRate;
+		this.decayInterval = capacity * 10L;
+		this.counters = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+	}
+
+	/**
+	 * 记录一次访问
+	 *
+	 * @param key 键，{@code null}忽略
+	 */
+	public void record(K key) {
+		if (key == null) {
+			return;
+		}
+		if (this.sampleRate > 1 && ThreadLocalRandom.current().nextInt(this.sampleRate) != 0) {
+			return;
+		}
+		if (this.samples.incrementAndGet() % this.decayInterval == 0) {
+			this.decay();
+		}
+		AtomicLong counter = this.counters.get(key);
+		if (counter == null) {
+			if (this.counters.size() >= this.capacity) {
+				counter = this.replaceMin(key);
+			} else {
+				AtomicLong newCounter = new AtomicLong();
+				counter = this.counters.putIfAbsent(key, newCounter);
+				if (counter == null) {
+					counter = newCounter;
+				}
+			}
+			if (counter == null) {
+				return;
+			}
+		}
+		counter.incrementAndGet();
+	}
+
+	/**
+	 * 获取访问最多的前{@code n}个键及其访问次数估计值，按次数降序
+	 *
+	 * @param n 个数
+	 * @return 键及访问次数估计值
+	 */
+	public List<Pair<K, Long>> topN(int n) {
+		List<Pair<K, Long>> list = new ArrayList<>(this.counters.size());
+		for (Map.Entry<K, AtomicLong> entry : this.counters.entrySet()) {
+			long count = entry.getValue().get();
+			if (count > 0) {
+				list.add(new Pair<>(entry.getKey(), count * this.sampleRate));
+			}
+		}
+		Collections.sort(list, new Comparator<Pair<K, Long>>() {
+			@Override
+			public int compare(Pair<K, Long> o1, Pair<K, Long> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+		return n < list.size() ? new ArrayList<>(list.subList(0, Math.max(0, n))) : list;
+	}
+
+	/**
+	 * 清空采样
+	 */
+	public void reset() {
+		this.counters.clear();
+		this.samples.set(0);
+	}
+
+	/**
+	 * 移除计数最小的键并跟踪新键，其他线程正在衰减或淘汰时放弃本次采样
+	 *
+	 * @param key 新键
+	 * @return 新键的计数，放弃时返回{@code null}
+	 */
+	private AtomicLong replaceMin(K key) {
+		if (!this.decayLock.tryLock()) {
+			return null;
+		}
+		try {
+			K minKey = null;
+			long min = Long.MAX_VALUE;
+			for (Map.Entry<K, AtomicLong> entry : this.counters.entrySet()) {
+				long count = entry.getValue().get();
+				if (count < min) {
+					min = count;
+					minKey = entry.getKey();
+				}
+			}
+			if (minKey != null && this.counters.size() >= this.capacity) {
+				this.counters.remove(minKey);
+			}
+			AtomicLong newCounter = new AtomicLong();
+			AtomicLong counter = this.counters.putIfAbsent(key, newCounter);
+			return counter == null ? newCounter : counter;
+		} finally {
+			this.decayLock.unlock();
+		}
+	}
+
+	/**
+	 * 所有计数减半并移除归零的键，其他线程正在衰减时直接返回
+	 */
+	private void decay() {
+		if (!this.decayLock.tryLock()) {
+			return;
+		}
+		try {
+			Iterator<AtomicLong> iterator = this.counters.values().iterator();
+			while (iterator.hasNext()) {
+				AtomicLong counter = iterator.next();
+				long value;
+				do {
+					value = counter.get();
+				} while (!counter.compareAndSet(value, value >> 1));
+				if ((value >> 1) == 0) {
+					iterator.remove();
+				}
+			}
+		} finally {
+			this.decayLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * LFU(least frequently used) 最少使用率缓存<br>
+ * 根据使用次数来判定对象是否被持续缓存，使用率是通过访问次数计算的。<br>
+ * 当缓存满时清理过期对象，清理后依旧满的情况下清除最少访问(访问计数最小)的对象并将其他对象的访问数减去这个最小访问数，以便新对象进入后可以公平计数。
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LFUCache<K, V> extends AbstractCache<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 构造，默认对象不过期
+	 *
+	 * @param capacity 容量
+	 */
+	public LFUCache(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位毫秒
+	 */
+	public LFUCache(int capacity, long timeout) {
+		this.capacity = capacity;
+		this.timeout = timeout;
+		this.cacheMap = new HashMap<>(Math.max(1 << 4, capacity + 1), 1.0f);
+	}
+
+	/**
+	 * 清理过期对象。<br>
+	 * 清理后依旧满的情况下清除最少访问(访问计数最小)的对象并将其他对象的访问数减去这个最小访问数，以便新对象进入后可以公平计数。
+	 *
+	 * @return 清理个数
+	 */
+	@Override
+	protected int pruneCache() {
+		int count = 0;
+		CacheObj<K, V> comin = null;
+		// 清理过期对象并找出访问最少的对象
+		Iterator<CacheObj<K, V>> values = this.cacheMap.values().iterator();
+		CacheObj<K, V> co;
+		while (values.hasNext()) {
+			co = values.next();
+			if (co.isExpired()) {
+				values.remove();
+				this.onRemove(co);
+				count++;
+				continue;
+			}
+			// 找出访问最少的对象
+			if (comin == null || co.accessCount.get() < comin.accessCount.get()) {
+				comin = co;
+			}
+		}
+		// 清除访问最少的对象，并将其他对象的访问数减去最小访问数
+		if (this.isFull() && comin != null) {
+			this.cacheMap.remove(comin.key);
+			this.onRemove(comin);
+			count++;
+			long minAccessCount = comin.accessCount.get();
+			if (minAccessCount > 0) {
+				for (CacheObj<K, V> co1 : this.cacheMap.values()) {
+					co1.accessCount.addAndGet(-minAccessCount);
+				}
+			}
+		}
+		return count;
+	}
+}
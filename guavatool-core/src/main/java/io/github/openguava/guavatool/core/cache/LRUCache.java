@@ -0,0 +1,59 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * LRU (least recently used)最近最久未使用缓存<br>
+ * 根据使用时间来判定对象是否被持续缓存，当对象被访问时放入缓存，当缓存满了，最久未被使用的对象将被移除。<br>
+ * 此缓存基于{@link LinkedHashMap}的访问顺序实现，访问对象会将其移动到链表尾部
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LRUCache<K, V> extends AbstractCache<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 构造，默认对象不过期
+	 *
+	 * @param capacity 容量
+	 */
+	public LRUCache(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位毫秒
+	 */
+	public LRUCache(int capacity, long timeout) {
+		this.capacity = capacity;
+		this.timeout = timeout;
+		this.cacheMap = new LinkedHashMap<>(Math.max(1 << 4, capacity + 1), 1.0f, true);
+	}
+
+	/**
+	 * 只清理超时对象，LRU的实现会交给{@code LinkedHashMap}<br>
+	 * 先遍历缓存清理过期的缓存对象，如果清理后还是满的，则删除最久未被访问的对象(链表首部)
+	 */
+	@Override
+	protected int pruneCache() {
+		int count = this.pruneExpiredWithoutLock();
+		// 清理结束后依旧是满的，则删除最久未被访问的对象
+		if (this.isFull()) {
+			Iterator<CacheObj<K, V>> values = this.cacheMap.values().iterator();
+			if (values.hasNext()) {
+				CacheObj<K, V> first = values.next();
+				values.remove();
+				this.onRemove(first);
+				count++;
+			}
+		}
+		return count;
+	}
+}
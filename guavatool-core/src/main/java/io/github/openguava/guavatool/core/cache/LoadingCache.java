@@ -0,0 +1,429 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.openguava.guavatool.core.exception.UtilException;
+import io.github.openguava.guavatool.core.lang.SystemClock;
+import io.github.openguava.guavatool.core.util.LogUtils;
+
+/**
+ * 自动加载缓存，支持异步提前刷新<br>
+ * <ul>
+ * <li>未命中时由{@link CacheLoader}加载，同一键的并发未命中只加载一次，其他调用者等待同一结果</li>
+ * <li>值写入超过{@code refreshAfterWrite}后，下一次访问触发后台刷新，刷新完成前继续返回旧值</li>
+ * <li>{@link #getAll(Collection)}将所有未命中的键合并为一次{@link CacheLoader#loadAll(Collection)}调用</li>
+ * </ul>
+ * 值存储在{@link AbstractCache}中，容量、淘汰策略及写入后过期由存储缓存决定。
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LoadingCache<K, V> implements Cache<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** 值存储 */
+	private final AbstractCache<K, Entry<V>> store;
+
+	/** 加载器 */
+	private final transient CacheLoader<K, V> loader;
+
+	/** 写入后多久触发刷新，单位毫秒，{@code 0}表示不刷新 */
+	private final long refreshAfterWrite;
+
+	/** 刷新执行器 */
+	private final transient Executor executor;
+
+	/** 正在加载的键 */
+	private final transient ConcurrentHashMap<K, LoadFuture<V>> loadings = new ConcurrentHashMap<>();
+
+	/** 加载统计 */
+	private final CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+	/**
+	 * 构造，使用{@link LRUCache}存储，使用共享的刷新线程池
+	 *
+	 * @param capacity 容量，{@code 0}表示无限制
+	 * @param expireAfterWrite 写入后过期时长，单位毫秒，{@code 0}表示不过期
+	 * @param refreshAfterWrite 写入后刷新时长，单位毫秒，{@code 0}表示不刷新
+	 * @param loader 加载器
+	 */
+	public LoadingCache(int capacity, long expireAfterWrite, long refreshAfterWrite, CacheLoader<K, V> loader) {
+		this(new LRUCache<K, Entry<V>>(capacity, expireAfterWrite), refreshAfterWrite, loader, null);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param store 值存储，其失效时长即写入后过期时长
+	 * @param refreshAfterWrite 写入后刷新时长，单位毫秒，{@code 0}表示不刷新
+	 * @param loader 加载器
+	 * @param executor 刷新执行器，{@code null}表示使用共享的刷新线程池
+	 */
+	public LoadingCache(AbstractCache<K, Entry<V>> store, long refreshAfterWrite, CacheLoader<K, V> loader, Executor executor) {
+		if (store == null) {
+			throw new IllegalArgumentException("store cannot be null.");
+		}
+		if (loader == null) {
+			throw new IllegalArgumentException("loader cannot be null.");
+		}
+		this.store = store;
+		this.refreshAfterWrite = refreshAfterWrite;
+		this.loader = loader;
+		this.executor = executor != null ? executor : RefreshExecutorHolder.INSTANCE;
+	}
+
+	/**
+	 * 获取值，未命中时加载，需要刷新时触发后台刷新并返回当前值
+	 *
+	 * @param key 键
+	 * @return 值，加载器返回{@code null}时为{@code null}
+	 */
+	@Override
+	public V get(K key) {
+		V value = this.getIfPresent(key);
+		if (value != null) {
+			return value;
+		}
+		return this.load(key);
+	}
+
+	/**
+	 * 获取已缓存的值，不触发加载，需要刷新时触发后台刷新
+	 *
+	 * @param key 键
+	 * @return 值，未缓存返回{@code null}
+	 */
+	public V getIfPresent(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("key cannot be null.");
+		}
+		// 不更新访问时间，使存储缓存的超时成为写入后过期
+		Entry<V> entry = this.store.get(key, false);
+		if (entry == null) {
+			return null;
+		}
+		if (this.refreshAfterWrite > 0 && SystemClock.now() - entry.writeTime >= this.refreshAfterWrite) {
+			this.refreshAsync(key, entry);
+		}
+		return entry.value;
+	}
+
+	/**
+	 * 批量获取，所有未命中且未在加载中的键合并为一次{@link CacheLoader#loadAll(Collection)}调用
+	 *
+	 * @param keys 键集合
+	 * @return 键值对，按传入顺序，不存在的键不包含
+	 */
+	public Map<K, V> getAll(Collection<? extends K> keys) {
+		Map<K, V> found = new LinkedHashMap<>();
+		List<K> toLoad = new ArrayList<>();
+		Map<K, LoadFuture<V>> owned = new LinkedHashMap<>();
+		Map<K, LoadFuture<V>> waiting = new LinkedHashMap<>();
+		for (K key : keys) {
+			if (found.containsKey(key) || owned.containsKey(key) || waiting.containsKey(key)) {
+				continue;
+			}
+			V value = this.getIfPresent(key);
+			if (value != null) {
+				found.put(key, value);
+				continue;
+			}
+			LoadFuture<V> future = new LoadFuture<>();
+			LoadFuture<V> existing = this.loadings.putIfAbsent(key, future);
+			if (existing == null) {
+				toLoad.add(key);
+				owned.put(key, future);
+			} else {
+				waiting.put(key, existing);
+			}
+		}
+		if (!toLoad.isEmpty()) {
+			long start = System.nanoTime();
+			try {
+				Map<K, V> loaded = this.loader.loadAll(toLoad);
+				this.statsCounter.recordLoadSuccess(System.nanoTime() - start);
+				for (Map.Entry<K, LoadFuture<V>> item : owned.entrySet()) {
+					V value = loaded == null ? null : loaded.get(item.getKey());
+					if (value != null) {
+						this.store.put(item.getKey(), new Entry<>(value));
+						found.put(item.getKey(), value);
+					}
+					item.getValue().complete(value);
+				}
+			} catch (Throwable e) {
+				// 包括Error，保证等待同一加载的线程都能结束等待
+				this.statsCounter.recordLoadFailure(System.nanoTime() - start);
+				for (LoadFuture<V> future : owned.values()) {
+					future.fail(e);
+				}
+				throw e;
+			} finally {
+				for (Map.Entry<K, LoadFuture<V>> item : owned.entrySet()) {
+					this.loadings.remove(item.getKey(), item.getValue());
+				}
+			}
+		}
+		for (Map.Entry<K, LoadFuture<V>> item : waiting.entrySet()) {
+			V value = this.await(item.getValue());
+			if (value != null) {
+				found.put(item.getKey(), value);
+			}
+		}
+		// 按传入顺序返回
+		Map<K, V> result = new LinkedHashMap<>(found.size() * 4 / 3 + 1);
+		for (K key : keys) {
+			V value = found.get(key);
+			if (value != null) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 后台刷新指定键，已缓存的值在刷新完成前继续可用
+	 *
+	 * @param key 键
+	 */
+	public void refresh(K key) {
+		Entry<V> entry = this.store.get(key, false);
+		if (entry == null) {
+			this.load(key);
+		} else {
+			this.refreshAsync(key, entry);
+		}
+	}
+
+	@Override
+	public V put(K key, V value) {
+		if (key == null) {
+			throw new IllegalArgumentException("key cannot be null.");
+		}
+		if (value == null) {
+			this.store.remove(key);
+			return null;
+		}
+		this.store.put(key, new Entry<>(value));
+		return value;
+	}
+
+	@Override
+	public V remove(K key) {
+		Entry<V> entry = this.store.remove(key);
+		return entry == null ? null : entry.value;
+	}
+
+	@Override
+	public void clear() {
+		this.store.clear();
+	}
+
+	/**
+	 * 获取缓存统计快照，命中及淘汰来自值存储，加载来自本缓存
+	 */
+	@Override
+	public CacheStats stats() {
+		CacheStats storeStats = this.store.stats();
+		CacheStats loadStats = this.statsCounter.snapshot();
+		return new CacheStats(storeStats.getHitCount(), storeStats.getMissCount(), loadStats.getLoadSuccessCount(), loadStats.getLoadFailureCount(),
+				loadStats.getTotalLoadTime(), storeStats.getEvictionCount());
+	}
+
+	/**
+	 * 同步加载，同一键的并发调用只加载一次
+	 *
+	 * @param key 键
+	 * @return 值
+	 */
+	private V load(K key) {
+		LoadFuture<V> future = new LoadFuture<>();
+		LoadFuture<V> existing = this.loadings.putIfAbsent(key, future);
+		if (existing != null) {
+			return this.await(existing);
+		}
+		long start = System.nanoTime();
+		try {
+			// 双重检查，避免加载刚刚完成时重复加载
+			Entry<V> entry = this.store.get(key, false);
+			V value;
+			if (entry != null) {
+				value = entry.value;
+			} else {
+				value = this.loader.load(key);
+				this.statsCounter.recordLoadSuccess(System.nanoTime() - start);
+				if (value != null) {
+					this.store.put(key, new Entry<>(value));
+				}
+			}
+			future.complete(value);
+			return value;
+		} catch (Throwable e) {
+			// 包括Error，保证等待同一加载的线程都能结束等待
+			this.statsCounter.recordLoadFailure(System.nanoTime() - start);
+			future.fail(e);
+			throw e;
+		} finally {
+			this.loadings.remove(key, future);
+		}
+	}
+
+	/**
+	 * 提交后台刷新，同一值同时只有一个刷新任务<br>
+	 * 刷新期间键被删除或重新写入时丢弃刷新结果，避免旧的刷新结果覆盖
+	 *
+	 * @param key 键
+	 * @param entry 当前值
+	 */
+	private void refreshAsync(final K key, final Entry<V> entry) {
+		if (!entry.refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					long start = System.nanoTime();
+					try {
+						V value = loader.reload(key, entry.value);
+						statsCounter.recordLoadSuccess(System.nanoTime() - start);
+						if (value != null) {
+							store.replace(key, entry, new Entry<>(value));
+						}
+					} catch (RuntimeException e) {
+						statsCounter.recordLoadFailure(System.nanoTime() - start);
+						LogUtils.warn(LoadingCache.class, "refresh cache key [" + key + "] error", e);
+					} finally {
+						// 刷新失败保留旧值，下次访问重试
+						entry.refreshing.set(false);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			entry.refreshing.set(false);
+		}
+	}
+
+	/**
+	 * 等待其他线程的加载结果
+	 *
+	 * @param future 加载
+	 * @return 值
+	 */
+	private V await(LoadFuture<V> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UtilException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new UtilException(cause);
+		}
+	}
+
+	/**
+	 * 缓存值，记录写入时间和刷新状态
+	 *
+	 * @param <V> 值类型
+	 */
+	public static final class Entry<V> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final V value;
+
+		private final long writeTime;
+
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private Entry(V value) {
+			this.value = value;
+			this.writeTime = SystemClock.now();
+		}
+
+		public V getValue() {
+			return this.value;
+		}
+
+		public long getWriteTime() {
+			return this.writeTime;
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(this.value);
+		}
+	}
+
+	/**
+	 * 可由加载线程设置结果的Future
+	 *
+	 * @param <V> 值类型
+	 */
+	private static final class LoadFuture<V> extends FutureTask<V> {
+
+		private LoadFuture() {
+			super(new Callable<V>() {
+				@Override
+				public V call() {
+					return null;
+				}
+			});
+		}
+
+		private void complete(V value) {
+			this.set(value);
+		}
+
+		private void fail(Throwable t) {
+			this.setException(t);
+		}
+	}
+
+	/**
+	 * 共享的刷新线程池，守护线程，队列满时放弃刷新
+	 */
+	private static class RefreshExecutorHolder {
+
+		private static final ThreadPoolExecutor INSTANCE;
+
+		static {
+			int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+			final AtomicInteger threadNumber = new AtomicInteger();
+			INSTANCE = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(10000), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "LoadingCache Refresh-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			INSTANCE.allowCoreThreadTimeOut(true);
+		}
+	}
+}
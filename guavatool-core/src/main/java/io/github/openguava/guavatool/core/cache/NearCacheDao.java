@@ -0,0 +1,245 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import io.github.openguava.guavatool.core.lang.FuncP;
+
+/**
+ * 近端缓存数据访问，在远程缓存数据访问(如redis)之前增加一层有容量限制的本地缓存<br>
+ * 本地缓存对象存活时间较短，用于吸收同一请求内的重复读取；远程未命中的结果也会短暂缓存(负缓存)，避免反复穿透。
+ * <p>
+ * 本节点的写入和删除会立即使本地对象失效并回调失效钩子，可在钩子中广播失效消息，其他节点收到后调用{@link #invalidate(byte[])}。
+ * 写入本地缓存的键和值均为副本，调用者之后可以复用传入的数组；返回的字节数组为本地缓存共享对象，调用者不应修改。
+ * @author openguava
+ *
+ */
+public class NearCacheDao implements CacheDao<byte[], byte[]> {
+
+	/** 默认本地缓存容量 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** 默认本地缓存存活时长，单位毫秒 */
+	public static final long DEFAULT_LOCAL_TIMEOUT = 1000L;
+
+	/** 默认负缓存存活时长，单位毫秒 */
+	public static final long DEFAULT_NEGATIVE_TIMEOUT = 500L;
+
+	/** 永不过期 */
+	private static final int NEVER_EXPIRE = -1;
+
+	/** 负缓存占位值 */
+	private static final byte[] NULL_VALUE = new byte[0];
+
+	/** 远程缓存数据访问 */
+	private final CacheDao<byte[], byte[]> dao;
+
+	public CacheDao<byte[], byte[]> getDao() {
+		return this.dao;
+	}
+
+	/** 本地缓存 */
+	private final LRUCache<BytesKey, byte[]> localCache;
+
+	/** 本地缓存存活时长，单位毫秒 */
+	private final long localTimeout;
+
+	public long getLocalTimeout() {
+		return this.localTimeout;
+	}
+
+	/** 负缓存存活时长，单位毫秒，{@code 0}表示不缓存未命中结果 */
+	private long negativeTimeout = DEFAULT_NEGATIVE_TIMEOUT;
+
+	public long getNegativeTimeout() {
+		return this.negativeTimeout;
+	}
+
+	public NearCacheDao setNegativeTimeout(long negativeTimeout) {
+		this.negativeTimeout = negativeTimeout;
+		return this;
+	}
+
+	/** 失效钩子，本节点写入或删除键时回调 */
+	private FuncP<byte[]> invalidationHook;
+
+	public FuncP<byte[]> getInvalidationHook() {
+		return this.invalidationHook;
+	}
+
+	public NearCacheDao setInvalidationHook(FuncP<byte[]> invalidationHook) {
+		this.invalidationHook = invalidationHook;
+		return this;
+	}
+
+	/**
+	 * 构造，使用默认容量和本地存活时长
+	 *
+	 * @param dao 远程缓存数据访问
+	 */
+	public NearCacheDao(CacheDao<byte[], byte[]> dao) {
+		this(dao, DEFAULT_CAPACITY, DEFAULT_LOCAL_TIMEOUT);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param dao 远程缓存数据访问
+	 * @param capacity 本地缓存容量
+	 * @param localTimeout 本地缓存存活时长，单位毫秒
+	 */
+	public NearCacheDao(CacheDao<byte[], byte[]> dao, int capacity, long localTimeout) {
+		this(dao, capacity, localTimeout, 0);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param dao 远程缓存数据访问
+	 * @param capacity 本地缓存容量
+	 * @param localTimeout 本地缓存存活时长，单位毫秒
+	 * @param maxBytes 本地缓存值的最大总字节数，{@code 0}表示只按容量限制
+	 */
+	public NearCacheDao(CacheDao<byte[], byte[]> dao, int capacity, long localTimeout, long maxBytes) {
+		if (dao == null) {
+			throw new IllegalArgumentException("cacheDao cannot be null.");
+		}
+		if (capacity <= 0 || localTimeout <= 0) {
+			throw new IllegalArgumentException("capacity and localTimeout must be greater than 0.");
+		}
+		this.dao = dao;
+		this.localTimeout = localTimeout;
+		this.localCache = new LRUCache<>(capacity, localTimeout);
+		if (maxBytes > 0) {
+			this.localCache.setWeigher(new ByteArrayWeigher<BytesKey>(), maxBytes);
+		}
+	}
+
+	@Override
+	public byte[] get(byte[] key) {
+		if (key == null) {
+			return null;
+		}
+		BytesKey localKey = new BytesKey(key);
+		byte[] value = this.localCache.get(localKey, false);
+		if (value != null) {
+			return value == NULL_VALUE ? null : value;
+		}
+		value = this.dao.get(key);
+		if (value != null) {
+			this.localCache.put(BytesKey.copyOf(key), value, this.localTimeout);
+		} else if (this.negativeTimeout > 0) {
+			this.localCache.put(BytesKey.copyOf(key), NULL_VALUE, this.negativeTimeout);
+		}
+		return value;
+	}
+
+	@Override
+	public byte[] put(byte[] key, byte[] value, int expire) {
+		byte[] result = this.dao.put(key, value, expire);
+		if (value != null && (expire == NEVER_EXPIRE || expire > 0)) {
+			// 本地存活时长不超过远程有效期，远程视为不写入的失效时长同样不写入本地
+			long timeout = expire > 0 ? Math.min(this.localTimeout, expire * 1000L) : this.localTimeout;
+			this.localCache.put(BytesKey.copyOf(key), value.clone(), timeout);
+		} else {
+			this.localCache.remove(new BytesKey(key));
+		}
+		this.fireInvalidation(key);
+		return result;
+	}
+
+	@Override
+	public void remove(byte[] key) {
+		this.dao.remove(key);
+		this.localCache.remove(new BytesKey(key));
+		this.fireInvalidation(key);
+	}
+
+	@Override
+	public Set<byte[]> keys(byte[] pattern) {
+		return this.dao.keys(pattern);
+	}
+
+	@Override
+	public int size(byte[] pattern) {
+		return this.dao.size(pattern);
+	}
+
+	@Override
+	public void clear() {
+		this.dao.clear();
+		this.localCache.clear();
+	}
+
+	/**
+	 * 使本地缓存对象失效，不访问远程缓存，通常在收到其他节点的失效消息时调用
+	 *
+	 * @param key 键
+	 */
+	public void invalidate(byte[] key) {
+		if (key != null) {
+			this.localCache.remove(new BytesKey(key));
+		}
+	}
+
+	/**
+	 * 使全部本地缓存对象失效
+	 */
+	public void invalidateAll() {
+		this.localCache.clear();
+	}
+
+	/**
+	 * 回调失效钩子
+	 *
+	 * @param key 键
+	 */
+	private void fireInvalidation(byte[] key) {
+		FuncP<byte[]> hook = this.invalidationHook;
+		if (hook != null) {
+			hook.call(key);
+		}
+	}
+
+	/**
+	 * 字节数组键，按内容比较。直接包装调用者数组的键只用于查找，存入本地缓存的键使用{@link #copyOf(byte[])}
+	 */
+	private static final class BytesKey {
+
+		private final byte[] bytes;
+
+		private final int hash;
+
+		private BytesKey(byte[] bytes) {
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		/**
+		 * 复制数组创建键，调用者之后修改原数组不影响本地缓存
+		 *
+		 * @param bytes 字节数组
+		 * @return 键
+		 */
+		private static BytesKey copyOf(byte[] bytes) {
+			return new BytesKey(bytes.clone());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof BytesKey)) {
+				return false;
+			}
+			BytesKey other = (BytesKey) obj;
+			return this.hash == other.hash && Arrays.equals(this.bytes, other.bytes);
+		}
+	}
+}
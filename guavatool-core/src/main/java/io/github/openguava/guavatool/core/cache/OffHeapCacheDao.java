@@ -0,0 +1,680 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.openguava.guavatool.core.lang.SystemClock;
+
+/**
+ * 堆外缓存数据访问，键和值存放在直接内存中，不占用Java堆<br>
+ * 直接内存按固定大小的slab分配，每个slab划分给一个尺寸等级并切分为等长的块，对象放入能容纳键和值的最小等级的块中。
+ * 内存达到上限后，在对象所属等级内按LRU淘汰最久未访问的对象。堆上只保留索引(每个对象约几十字节)。
+ * <p>
+ * slab分配给某个等级后一直归该等级使用。对象尺寸分布变化时，新尺寸所属等级可能一个slab也没有而无法在等级内淘汰，
+ * 此时从持有slab最多的等级回收其最久未访问对象所在的slab(淘汰该slab上的全部对象)并重新分配给新等级。
+ * 回收需遍历索引，只在等级没有可淘汰对象时发生。仍无法分配时放弃写入，并计入{@link #getRejectedCount()}。
+ * <p>
+ * 失效时长单位为秒：大于{@code 0}为有效期，{@code -1}为永不过期，其他值与redis实现一致视为不写入。
+ * 单个对象(键与值长度之和)不能超过slab大小，超过时不缓存，同样计入{@link #getRejectedCount()}。
+ * @author openguava
+ *
+ */
+public class OffHeapCacheDao implements CacheDao<byte[], byte[]> {
+
+	/** 默认slab大小 */
+	public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+	/** 最小块大小 */
+	private static final int MIN_CHUNK_SIZE = 64;
+
+	/** 块大小增长因子 */
+	private static final double CHUNK_GROWTH_FACTOR = 1.25;
+
+	/** 永不过期 */
+	private static final int NEVER_EXPIRE = -1;
+
+	/** 最大内存，单位字节 */
+	private final long maxMemory;
+
+	/** slab大小，单位字节 */
+	private final int slabSize;
+
+	/** 最大slab数 */
+	private final int maxSlabs;
+
+	/** 已分配的slab */
+	private final List<ByteBuffer> slabs = new ArrayList<>();
+
+	/** 空闲slab编号 */
+	private final List<Integer> freeSlabs = new ArrayList<>();
+
+	/** 尺寸等级，按块大小升序 */
+	private final SlabClass[] slabClasses;
+
+	/** 索引 */
+	private Item[] table = new Item[16];
+
+	/** 对象数量 */
+	private int size;
+
+	/** 因对象过大或内存无法分配而放弃的写入次数 */
+	private long rejectedCount;
+
+	/** 锁 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * 构造，使用默认slab大小
+	 *
+	 * @param maxMemory 最大直接内存，单位字节
+	 */
+	public OffHeapCacheDao(long maxMemory) {
+		this(maxMemory, DEFAULT_SLAB_SIZE);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param maxMemory 最大直接内存，单位字节
+	 * @param slabSize slab大小，即单个对象的最大字节数
+	 */
+	public OffHeapCacheDao(long maxMemory, int slabSize) {
+		if (slabSize < MIN_CHUNK_SIZE) {
+			throw new IllegalArgumentException("slabSize must be at least " + MIN_CHUNK_SIZE);
+		}
+		if (maxMemory < slabSize) {
+			throw new IllegalArgumentException("maxMemory must be at least slabSize");
+		}
+		this.maxMemory = maxMemory;
+		this.slabSize = slabSize;
+		this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, maxMemory / slabSize);
+		List<SlabClass> classes = new ArrayList<>();
+		int chunkSize = MIN_CHUNK_SIZE;
+		while (chunkSize < slabSize) {
+			classes.add(new SlabClass(chunkSize));
+			// 8字节对齐
+			int next = (int) Math.min(slabSize, (long) (chunkSize * CHUNK_GROWTH_FACTOR + 7) & ~7L);
+			chunkSize = Math.max(next, chunkSize + 8);
+		}
+		classes.add(new SlabClass(slabSize));
+		this.slabClasses = classes.toArray(new SlabClass[classes.size()]);
+	}
+
+	@Override
+	public byte[] get(byte[] key) {
+		if (key == null) {
+			return null;
+		}
+		int hash = hash(key);
+		this.lock.lock();
+		try {
+			Item item = this.find(key, hash);
+			if (item == null) {
+				return null;
+			}
+			if (item.isExpired(SystemClock.now())) {
+				this.removeItem(item);
+				return null;
+			}
+			item.slabClass.touch(item);
+			byte[] value = new byte[item.valueLength];
+			ByteBuffer slab = this.slabs.get(item.slabId);
+			slab.position(item.offset + item.keyLength);
+			slab.get(value, 0, item.valueLength);
+			return value;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public byte[] put(byte[] key, byte[] value, int expire) {
+		if (key == null) {
+			throw new IllegalArgumentException("key cannot be null.");
+		}
+		SlabClass slabClass = value == null ? null : this.slabClassFor(key.length + value.length);
+		if (slabClass == null || expire == 0 || expire < NEVER_EXPIRE) {
+			// 不写入，同时移除旧值避免读到过期数据
+			this.lock.lock();
+			try {
+				Item existing = this.find(key, hash(key));
+				if (existing != null) {
+					this.removeItem(existing);
+				}
+				if (value != null && slabClass == null && expire != 0 && expire >= NEVER_EXPIRE) {
+					this.rejectedCount++;
+				}
+			} finally {
+				this.lock.unlock();
+			}
+			return value;
+		}
+		int hash = hash(key);
+		long expireAt = expire > 0 ? SystemClock.now() + expire * 1000L : 0;
+		this.lock.lock();
+		try {
+			Item existing = this.find(key, hash);
+			if (existing != null) {
+				this.removeItem(existing);
+			}
+			long address = this.allocate(slabClass);
+			if (address < 0) {
+				this.rejectedCount++;
+				return value;
+			}
+			Item item = new Item(hash, key.length, value.length, expireAt, slabClass, (int) (address >>> 32), (int) address);
+			ByteBuffer slab = this.slabs.get(item.slabId);
+			slab.position(item.offset);
+			slab.put(key);
+			slab.put(value);
+			this.link(item);
+			slabClass.touch(item);
+			return value;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public void remove(byte[] key) {
+		if (key == null) {
+			return;
+		}
+		int hash = hash(key);
+		this.lock.lock();
+		try {
+			Item item = this.find(key, hash);
+			if (item != null) {
+				this.removeItem(item);
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 缓存的键集合，支持{@code *}和{@code ?}通配符，{@code null}表示全部
+	 */
+	@Override
+	public Set<byte[]> keys(byte[] pattern) {
+		Set<byte[]> keys = new HashSet<>();
+		long now = SystemClock.now();
+		this.lock.lock();
+		try {
+			for (Item head : this.table) {
+				for (Item item = head; item != null; item = item.hashNext) {
+					if (item.isExpired(now)) {
+						continue;
+					}
+					byte[] key = this.readKey(item);
+					if (pattern == null || matches(pattern, key)) {
+						keys.add(key);
+					}
+				}
+			}
+		} finally {
+			this.lock.unlock();
+		}
+		return keys;
+	}
+
+	@Override
+	public int size(byte[] pattern) {
+		if (pattern == null) {
+			this.lock.lock();
+			try {
+				return this.size;
+			} finally {
+				this.lock.unlock();
+			}
+		}
+		return this.keys(pattern).size();
+	}
+
+	/**
+	 * 清空缓存，已分配的slab保留供后续使用
+	 */
+	@Override
+	public void clear() {
+		this.lock.lock();
+		try {
+			this.table = new Item[16];
+			this.size = 0;
+			this.freeSlabs.clear();
+			for (int i = 0; i < this.slabs.size(); i++) {
+				this.freeSlabs.add(i);
+			}
+			for (SlabClass slabClass : this.slabClasses) {
+				slabClass.reset();
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 最大直接内存，单位字节
+	 *
+	 * @return 最大直接内存
+	 */
+	public long getMaxMemory() {
+		return this.maxMemory;
+	}
+
+	/**
+	 * 已分配的直接内存，单位字节
+	 *
+	 * @return 已分配的直接内存
+	 */
+	public long getAllocatedMemory() {
+		this.lock.lock();
+		try {
+			return (long) this.slabs.size() * this.slabSize;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 因对象过大或内存无法分配而放弃的写入次数
+	 *
+	 * @return 放弃的写入次数
+	 */
+	public long getRejectedCount() {
+		this.lock.lock();
+		try {
+			return this.rejectedCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 获取能容纳指定长度的最小尺寸等级
+	 *
+	 * @param length 长度
+	 * @return 尺寸等级，超过slab大小返回{@code null}
+	 */
+	private SlabClass slabClassFor(int length) {
+		for (SlabClass slabClass : this.slabClasses) {
+			if (slabClass.chunkSize >= length) {
+				return slabClass;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 分配块，依次使用空闲块、当前slab剩余空间、新slab，内存用尽时淘汰本等级最久未访问的对象，
+	 * 本等级没有对象时从其他等级回收slab
+	 *
+	 * @param slabClass 尺寸等级
+	 * @return 块地址(高32位为slab编号，低32位为偏移)，无法分配返回{@code -1}
+	 */
+	private long allocate(SlabClass slabClass) {
+		if (slabClass.freeCount > 0) {
+			return slabClass.freeChunks[--slabClass.freeCount];
+		}
+		if (slabClass.currentSlab < 0 || slabClass.currentOffset + slabClass.chunkSize > this.slabSize) {
+			int slabId = this.newSlab();
+			if (slabId < 0) {
+				// 内存用尽，淘汰本等级最久未访问的对象
+				Item victim = slabClass.lruTail;
+				if (victim != null) {
+					this.removeItem(victim);
+					return slabClass.freeChunks[--slabClass.freeCount];
+				}
+				slabId = this.reassignSlab(slabClass);
+				if (slabId < 0) {
+					return -1;
+				}
+			}
+			slabClass.slabCount++;
+			slabClass.currentSlab = slabId;
+			slabClass.currentOffset = 0;
+		}
+		long address = ((long) slabClass.currentSlab << 32) | slabClass.currentOffset;
+		slabClass.currentOffset += slabClass.chunkSize;
+		return address;
+	}
+
+	/**
+	 * 从持有slab最多的其他等级回收其最久未访问对象所在的slab，淘汰该slab上的全部对象
+	 *
+	 * @param target 需要slab的等级
+	 * @return slab编号，没有可回收的slab返回{@code -1}
+	 */
+	private int reassignSlab(SlabClass target) {
+		SlabClass owner = null;
+		for (SlabClass slabClass : this.slabClasses) {
+			if (slabClass != target && slabClass.lruTail != null && (owner == null || slabClass.slabCount > owner.slabCount)) {
+				owner = slabClass;
+			}
+		}
+		if (owner == null) {
+			return -1;
+		}
+		int slabId = owner.lruTail.slabId;
+		List<Item> victims = new ArrayList<>();
+		for (Item head : this.table) {
+			for (Item item = head; item != null; item = item.hashNext) {
+				if (item.slabId == slabId) {
+					victims.add(item);
+				}
+			}
+		}
+		for (Item item : victims) {
+			this.removeItem(item);
+		}
+		owner.releaseSlab(slabId);
+		return slabId;
+	}
+
+	/**
+	 * 获取空闲slab，没有时在内存上限内分配新的slab
+	 *
+	 * @return slab编号，内存用尽返回{@code -1}
+	 */
+	private int newSlab() {
+		if (!this.freeSlabs.isEmpty()) {
+			return this.freeSlabs.remove(this.freeSlabs.size() - 1);
+		}
+		if (this.slabs.size() >= this.maxSlabs) {
+			return -1;
+		}
+		this.slabs.add(ByteBuffer.allocateDirect(this.slabSize));
+		return this.slabs.size() - 1;
+	}
+
+	/**
+	 * 查找对象
+	 *
+	 * @param key 键
+	 * @param hash 键hash
+	 * @return 对象，不存在返回{@code null}
+	 */
+	private Item find(byte[] key, int hash) {
+		for (Item item = this.table[hash & (this.table.length - 1)]; item != null; item = item.hashNext) {
+			if (item.hash == hash && item.keyLength == key.length && this.keyEquals(item, key)) {
+				return item;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 比较堆外的键与给定键
+	 *
+	 * @param item 对象
+	 * @param key 键
+	 * @return 是否相同
+	 */
+	private boolean keyEquals(Item item, byte[] key) {
+		ByteBuffer slab = this.slabs.get(item.slabId);
+		for (int i = 0; i < key.length; i++) {
+			if (slab.get(item.offset + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 读取堆外的键
+	 *
+	 * @param item 对象
+	 * @return 键
+	 */
+	private byte[] readKey(Item item) {
+		byte[] key = new byte[item.keyLength];
+		ByteBuffer slab = this.slabs.get(item.slabId);
+		slab.position(item.offset);
+		slab.get(key, 0, item.keyLength);
+		return key;
+	}
+
+	/**
+	 * 加入索引
+	 *
+	 * @param item 对象
+	 */
+	private void link(Item item) {
+		if (this.size >= this.table.length * 3 / 4) {
+			this.resize();
+		}
+		int index = item.hash & (this.table.length - 1);
+		item.hashNext = this.table[index];
+		this.table[index] = item;
+		this.size++;
+	}
+
+	/**
+	 * 索引扩容
+	 */
+	private void resize() {
+		Item[] oldTable = this.table;
+		Item[] newTable = new Item[oldTable.length << 1];
+		for (Item head : oldTable) {
+			Item item = head;
+			while (item != null) {
+				Item next = item.hashNext;
+				int index = item.hash & (newTable.length - 1);
+				item.hashNext = newTable[index];
+				newTable[index] = item;
+				item = next;
+			}
+		}
+		this.table = newTable;
+	}
+
+	/**
+	 * 移除对象并回收块
+	 *
+	 * @param item 对象
+	 */
+	private void removeItem(Item item) {
+		int index = item.hash & (this.table.length - 1);
+		Item prev = null;
+		for (Item current = this.table[index]; current != null; current = current.hashNext) {
+			if (current == item) {
+				if (prev == null) {
+					this.table[index] = current.hashNext;
+				} else {
+					prev.hashNext = current.hashNext;
+				}
+				this.size--;
+				break;
+			}
+			prev = current;
+		}
+		item.hashNext = null;
+		item.slabClass.unlinkLru(item);
+		item.slabClass.free(((long) item.slabId << 32) | item.offset);
+	}
+
+	/**
+	 * 键hash
+	 *
+	 * @param key 键
+	 * @return hash
+	 */
+	private static int hash(byte[] key) {
+		int h = 1;
+		for (byte b : key) {
+			h = 31 * h + b;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * 通配符匹配，支持{@code *}和{@code ?}
+	 *
+	 * @param pattern 模式
+	 * @param key 键
+	 * @return 是否匹配
+	 */
+	private static boolean matches(byte[] pattern, byte[] key) {
+		int p = 0, k = 0, star = -1, mark = 0;
+		while (k < key.length) {
+			if (p < pattern.length && (pattern[p] == '?' || pattern[p] == key[k])) {
+				p++;
+				k++;
+			} else if (p < pattern.length && pattern[p] == '*') {
+				star = p++;
+				mark = k;
+			} else if (star >= 0) {
+				p = star + 1;
+				k = ++mark;
+			} else {
+				return false;
+			}
+		}
+		while (p < pattern.length && pattern[p] == '*') {
+			p++;
+		}
+		return p == pattern.length;
+	}
+
+	/**
+	 * 堆上索引项
+	 */
+	private static final class Item {
+
+		private final int hash;
+
+		private final int keyLength;
+
+		private final int valueLength;
+
+		/** 过期时间，{@code 0}表示永不过期 */
+		private final long expireAt;
+
+		private final SlabClass slabClass;
+
+		private final int slabId;
+
+		private final int offset;
+
+		private Item hashNext;
+
+		private Item lruPrev;
+
+		private Item lruNext;
+
+		private Item(int hash, int keyLength, int valueLength, long expireAt, SlabClass slabClass, int slabId, int offset) {
+			this.hash = hash;
+			this.keyLength = keyLength;
+			this.valueLength = valueLength;
+			this.expireAt = expireAt;
+			this.slabClass = slabClass;
+			this.slabId = slabId;
+			this.offset = offset;
+		}
+
+		private boolean isExpired(long now) {
+			return this.expireAt > 0 && now >= this.expireAt;
+		}
+	}
+
+	/**
+	 * 尺寸等级，维护空闲块和等级内的LRU链表
+	 */
+	private static final class SlabClass {
+
+		private final int chunkSize;
+
+		private long[] freeChunks = new long[16];
+
+		private int freeCount;
+
+		private int currentSlab = -1;
+
+		private int currentOffset;
+
+		/** 持有的slab数 */
+		private int slabCount;
+
+		/** 最近访问 */
+		private Item lruHead;
+
+		/** 最久未访问 */
+		private Item lruTail;
+
+		private SlabClass(int chunkSize) {
+			this.chunkSize = chunkSize;
+		}
+
+		private void free(long address) {
+			if (this.freeCount == this.freeChunks.length) {
+				long[] newChunks = new long[this.freeChunks.length << 1];
+				System.arraycopy(this.freeChunks, 0, newChunks, 0, this.freeCount);
+				this.freeChunks = newChunks;
+			}
+			this.freeChunks[this.freeCount++] = address;
+		}
+
+		/**
+		 * 交出slab，丢弃该slab上的空闲块
+		 *
+		 * @param slabId slab编号
+		 */
+		private void releaseSlab(int slabId) {
+			int count = 0;
+			for (int i = 0; i < this.freeCount; i++) {
+				if ((int) (this.freeChunks[i] >>> 32) != slabId) {
+					this.freeChunks[count++] = this.freeChunks[i];
+				}
+			}
+			this.freeCount = count;
+			if (this.currentSlab == slabId) {
+				this.currentSlab = -1;
+				this.currentOffset = 0;
+			}
+			this.slabCount--;
+		}
+
+		private void touch(Item item) {
+			if (this.lruHead == item) {
+				return;
+			}
+			this.unlinkLru(item);
+			item.lruNext = this.lruHead;
+			if (this.lruHead != null) {
+				this.lruHead.lruPrev = item;
+			}
+			this.lruHead = item;
+			if (this.lruTail == null) {
+				this.lruTail = item;
+			}
+		}
+
+		private void unlinkLru(Item item) {
+			if (item.lruPrev != null) {
+				item.lruPrev.lruNext = item.lruNext;
+			} else if (this.lruHead == item) {
+				this.lruHead = item.lruNext;
+			}
+			if (item.lruNext != null) {
+				item.lruNext.lruPrev = item.lruPrev;
+			} else if (this.lruTail == item) {
+				this.lruTail = item.lruPrev;
+			}
+			item.lruPrev = null;
+			item.lruNext = null;
+		}
+
+		private void reset() {
+			this.freeChunks = new long[16];
+			this.freeCount = 0;
+			this.currentSlab = -1;
+			this.currentOffset = 0;
+			this.slabCount = 0;
+			this.lruHead = null;
+			this.lruTail = null;
+		}
+	}
+}
@@ -1,54 +1,128 @@
 package io.github.openguava.guavatool.core.cache;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.github.openguava.guavatool.core.lang.FuncR;
 
 /**
- * 简单缓存，无超时实现，使用{@link WeakHashMap}实现缓存自动清理
+ * 简单缓存，无超时实现，使用{@link WeakHashMap}实现缓存自动清理<br>
+ * 缓存按键的hash分段存储，每段持有独立的锁，不同段之间的读写互不阻塞；
+ * {@link #get(Object, FuncR)}使用键级别的锁，生产值对象时只阻塞相同键的调用者
  * @author openguava
  *
  * @param <K> 键类型
  * @param <V> 值类型
  */
 public class SimpleCache<K,V> implements Cache<K, V> {
-	
+
 	private static final long serialVersionUID = 1L;
 
-	/** 池 */
-	private final Map<K, V> cache = new WeakHashMap<>();
-	
-	private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-	
-	private final ReadLock readLock = readWriteLock.readLock();
-	
-	private final WriteLock writeLock = readWriteLock.writeLock();
-	
+	/** 默认分段数 */
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+	/** 最大分段数 */
+	private static final int MAX_CONCURRENCY_LEVEL = 1 << 16;
+
+	/** {@code null}键在键锁池中的占位对象 */
+	private static final Object NULL_KEY = new Object();
+
+	/** 分段池 */
+	private final Segment<K, V>[] segments;
+
+	/** 分段掩码 */
+	private final int segmentMask;
+
+	/** 键锁池，用于生产值对象时锁定单个键 */
+	private final ConcurrentHashMap<Object, ReentrantLock> keyLockMap = new ConcurrentHashMap<>();
+
+	/** 统计计数器 */
+	private final CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+	/** 关联的快照，未命中时从中惰性读取，{@code null}表示未关联 */
+	transient volatile CacheSnapshot<K, V> snapshot;
+
+	/**
+	 * 构造，使用默认分段数
+	 */
+	public SimpleCache() {
+		this(DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param concurrencyLevel 分段数，会被调整为不小于此值的2的幂
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public SimpleCache(int concurrencyLevel) {
+		if (concurrencyLevel <= 0) {
+			throw new IllegalArgumentException("concurrencyLevel must be greater than 0");
+		}
+		int size = 1;
+		while (size < concurrencyLevel && size < MAX_CONCURRENCY_LEVEL) {
+			size <<= 1;
+		}
+		this.segmentMask = size - 1;
+		this.segments = new Segment[size];
+		for (int i = 0; i < size; i++) {
+			this.segments[i] = new Segment<>();
+		}
+	}
+
 	/**
 	 * 从缓存池中查找值
-	 * 
+	 *
 	 * @param key 键
 	 * @return 值
 	 */
 	public V get(K key) {
-		// 尝试读取缓存
-		this.readLock.lock();
-		V value;
+		V value = this.getWithoutStats(key);
+		if (value != null) {
+			this.statsCounter.recordHits(1);
+		} else {
+			this.statsCounter.recordMisses(1);
+		}
+		return value;
+	}
+
+	/**
+	 * 从缓存池中查找值，不记录统计
+	 *
+	 * @param key 键
+	 * @return 值
+	 */
+	private V getWithoutStats(K key) {
+		// WeakHashMap读取时也会清理失效条目，因此读取同样需要加锁
+		Segment<K, V> segment = this.segmentFor(key);
+		segment.lock();
 		try {
-			value = this.cache.get(key);
+			V value = segment.map.get(key);
+			CacheSnapshot<K, V> snapshot = this.snapshot;
+			if (value == null && snapshot != null) {
+				// 从快照中惰性读取
+				CacheSnapshot.Record<K, V> record = snapshot.take(key);
+				if (snapshot.remaining() == 0) {
+					this.snapshot = null;
+				}
+				if (record != null) {
+					value = record.value;
+					segment.map.put(key, value);
+				}
+			}
+			return value;
 		} finally {
-			this.readLock.unlock();
+			segment.unlock();
 		}
-		return value;
 	}
-	
+
 	/**
 	 * 从缓存中获得对象，当对象不在缓存中或已经过期返回Func0回调产生的对象
-	 * 
+	 *
 	 * @param key 键
 	 * @param supplier 如果不存在回调方法，用于生产值对象
 	 * @return 值对象
@@ -56,25 +130,38 @@ public class SimpleCache<K,V> implements Cache<K, V> {
 	public V get(K key, FuncR<V> supplier) {
 		V v = get(key);
 		if (null == v && null != supplier) {
-			this.writeLock.lock();
+			Object lockKey = key == null ? NULL_KEY : key;
+			ReentrantLock keyLock = this.keyLockMap.get(lockKey);
+			if (keyLock == null) {
+				ReentrantLock newLock = new ReentrantLock();
+				keyLock = this.keyLockMap.putIfAbsent(lockKey, newLock);
+				if (keyLock == null) {
+					keyLock = newLock;
+				}
+			}
+			keyLock.lock();
 			try {
 				// 双重检查锁
-				v = this.cache.get(key);
+				v = getWithoutStats(key);
 				if(null == v) {
+					long start = System.nanoTime();
 					try {
 						v = supplier.call();
 					} catch (Exception e) {
+						this.statsCounter.recordLoadFailure(System.nanoTime() - start);
 						throw new RuntimeException(e);
 					}
-					this.cache.put(key, v);
+					this.statsCounter.recordLoadSuccess(System.nanoTime() - start);
+					put(key, v);
 				}
 			} finally {
-				this.writeLock.unlock();
+				keyLock.unlock();
+				this.keyLockMap.remove(lockKey, keyLock);
 			}
 		}
 		return v;
 	}
-	
+
 	/**
 	 * 设置缓存
 	 * @param key 键
@@ -82,27 +169,37 @@ public class SimpleCache<K,V> implements Cache<K, V> {
 	 * @return 值
 	 */
 	public V put(K key, V value){
-		this.writeLock.lock();
+		Segment<K, V> segment = this.segmentFor(key);
+		segment.lock();
 		try {
-			this.cache.put(key, value);
+			segment.map.put(key, value);
+			CacheSnapshot<K, V> snapshot = this.snapshot;
+			if (snapshot != null) {
+				snapshot.discard(key);
+			}
 		} finally {
-			this.writeLock.unlock();
+			segment.unlock();
 		}
 		return value;
 	}
 
 	/**
 	 * 移除缓存
-	 * 
+	 *
 	 * @param key 键
 	 * @return 移除的值
 	 */
 	public V remove(K key) {
-		this.writeLock.lock();
+		Segment<K, V> segment = this.segmentFor(key);
+		segment.lock();
 		try {
-			return this.cache.remove(key);
+			CacheSnapshot<K, V> snapshot = this.snapshot;
+			if (snapshot != null) {
+				snapshot.discard(key);
+			}
+			return segment.map.remove(key);
 		} finally {
-			this.writeLock.unlock();
+			segment.unlock();
 		}
 	}
 
@@ -110,11 +207,72 @@ public class SimpleCache<K,V> implements Cache<K, V> {
 	 * 清空缓存池
 	 */
 	public void clear() {
-		this.writeLock.lock();
-		try {
-			this.cache.clear();
-		} finally {
-			this.writeLock.unlock();
+		CacheSnapshot<K, V> snapshot = this.snapshot;
+		if (snapshot != null) {
+			snapshot.discardAll();
+			this.snapshot = null;
 		}
+		for (Segment<K, V> segment : this.segments) {
+			segment.lock();
+			try {
+				segment.map.clear();
+			} finally {
+				segment.unlock();
+			}
+		}
+	}
+
+	/**
+	 * 获取全部对象的快照记录
+	 *
+	 * @return 快照记录
+	 */
+	List<CacheSnapshot.Record<K, V>> snapshotRecords() {
+		List<CacheSnapshot.Record<K, V>> records = new ArrayList<>();
+		for (Segment<K, V> segment : this.segments) {
+			segment.lock();
+			try {
+				for (Map.Entry<K, V> entry : segment.map.entrySet()) {
+					if (entry.getValue() != null) {
+						records.add(new CacheSnapshot.Record<>(entry.getKey(), entry.getValue(), 0));
+					}
+				}
+			} finally {
+				segment.unlock();
+			}
+		}
+		return records;
+	}
+
+	@Override
+	public CacheStats stats() {
+		return this.statsCounter.snapshot();
+	}
+
+	/**
+	 * 获取键所在的分段
+	 *
+	 * @param key 键
+	 * @return 分段
+	 */
+	private Segment<K, V> segmentFor(K key) {
+		int h = key == null ? 0 : key.hashCode();
+		// 扰动，避免低位相同的hash集中在同一分段
+		h ^= (h >>> 16);
+		return this.segments[h & this.segmentMask];
+	}
+
+	/**
+	 * 缓存分段，锁即分段本身
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 */
+	private static final class Segment<K, V> extends ReentrantLock {
+
+		private static final long serialVersionUID = 1L;
+
+		/** 池 */
+		private final Map<K, V> map = new WeakHashMap<>();
 	}
 }
@@ -0,0 +1,44 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.Iterator;
+
+/**
+ * 基于迭代器的缓存键游标，关闭时不做任何操作，子类可重写{@link #close()}释放资源
+ * @author openguava
+ *
+ * @param <K>
+ */
+public class SimpleCacheCursor<K> implements CacheCursor<K> {
+
+	private final Iterator<K> iterator;
+
+	/**
+	 * 初始化
+	 * @param iterator 迭代器
+	 */
+	public SimpleCacheCursor(Iterator<K> iterator) {
+		if (iterator == null) {
+			throw new IllegalArgumentException("iterator cannot be null.");
+		}
+		this.iterator = iterator;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return this.iterator.hasNext();
+	}
+
+	@Override
+	public K next() {
+		return this.iterator.next();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove");
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,37 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.HashMap;
+
+/**
+ * 定时缓存<br>
+ * 此缓存没有容量限制，对象只有在过期后才会被移除
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class TimedCache<K, V> extends AbstractCache<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 构造
+	 *
+	 * @param timeout 过期时长，单位毫秒
+	 */
+	public TimedCache(long timeout) {
+		this.capacity = 0;
+		this.timeout = timeout;
+		this.cacheMap = new HashMap<>();
+	}
+
+	/**
+	 * 清理过期对象
+	 *
+	 * @return 清理数
+	 */
+	@Override
+	protected int pruneCache() {
+		return this.pruneExpiredWithoutLock();
+	}
+}
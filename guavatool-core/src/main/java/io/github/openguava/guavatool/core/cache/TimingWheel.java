@@ -0,0 +1,382 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.openguava.guavatool.core.lang.SystemClock;
+import io.github.openguava.guavatool.core.util.LogUtils;
+
+/**
+ * 分层时间轮，用于缓存对象的主动过期<br>
+ * 每层时间轮有{@code wheelSize}个槽，第0层每槽跨度为{@code tickMs}，上层每槽跨度为下层整轮跨度。
+ * 任务按到期时间放入对应层的槽中，时间推进到上层槽时将其中的任务降级放入下层，
+ * 每个任务最多降级{@code levels}次，因此每次tick的均摊开销为O(1)。
+ * <p>
+ * 超出最高层跨度的任务放入最高层最后一个槽，到达时重新计算位置。
+ * @author openguava
+ *
+ */
+public class TimingWheel {
+
+	/** 默认tick时长，单位毫秒 */
+	public static final long DEFAULT_TICK_MS = 10L;
+
+	/** 默认每层槽数 */
+	public static final int DEFAULT_WHEEL_SIZE = 64;
+
+	/** 默认层数 */
+	public static final int DEFAULT_LEVELS = 5;
+
+	/** tick时长，单位毫秒 */
+	private final long tickMs;
+
+	/** 每层槽数位数 */
+	private final int wheelBits;
+
+	/** 槽下标掩码 */
+	private final int wheelMask;
+
+	/** 层数 */
+	private final int levels;
+
+	/** 时间轮槽，[层][槽] */
+	private final Bucket[][] buckets;
+
+	/** 起始时间 */
+	private final long startTime;
+
+	/** 已推进到的tick */
+	private long currentTick;
+
+	/** 时间轮锁 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** 推进线程 */
+	private volatile ScheduledExecutorService scheduler;
+
+	private static class InstanceHolder {
+		public static final TimingWheel INSTANCE = new TimingWheel();
+	}
+
+	/**
+	 * 获取全局共享的时间轮
+	 *
+	 * @return 时间轮
+	 */
+	public static TimingWheel getDefault() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	/**
+	 * 构造，使用默认参数
+	 */
+	public TimingWheel() {
+		this(DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE, DEFAULT_LEVELS);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param tickMs tick时长，单位毫秒
+	 * @param wheelSize 每层槽数，会被调整为不小于此值的2的幂
+	 * @param levels 层数
+	 */
+	public TimingWheel(long tickMs, int wheelSize, int levels) {
+		if (tickMs <= 0) {
+			throw new IllegalArgumentException("tickMs must be greater than 0");
+		}
+		if (wheelSize <= 1 || levels <= 0) {
+			throw new IllegalArgumentException("wheelSize must be greater than 1 and levels must be greater than 0");
+		}
+		int bits = 1;
+		while ((1 << bits) < wheelSize && bits < 16) {
+			bits++;
+		}
+		if (bits * levels > 62) {
+			throw new IllegalArgumentException("wheelSize ^ levels is too large");
+		}
+		this.tickMs = tickMs;
+		this.wheelBits = bits;
+		this.wheelMask = (1 << bits) - 1;
+		this.levels = levels;
+		this.buckets = new Bucket[levels][1 << bits];
+		for (int i = 0; i < levels; i++) {
+			for (int j = 0; j <= this.wheelMask; j++) {
+				this.buckets[i][j] = new Bucket();
+			}
+		}
+		this.startTime = SystemClock.now();
+		this.currentTick = 0;
+	}
+
+	/**
+	 * 调度任务，任务在{@code delayMs}毫秒后由推进线程执行<br>
+	 * 第一次调度时自动启动推进线程
+	 *
+	 * @param task 任务
+	 * @param delayMs 延迟时长，单位毫秒
+	 * @return 任务句柄，可用于取消
+	 */
+	public Timeout schedule(Runnable task, long delayMs) {
+		if (task == null) {
+			throw new IllegalArgumentException("task cannot be null");
+		}
+		if (this.scheduler == null) {
+			this.start();
+		}
+		long deadline = SystemClock.now() + Math.max(0, delayMs);
+		// 向上取整，保证任务不会提前执行
+		long deadlineTick = (deadline - this.startTime + this.tickMs - 1) / this.tickMs;
+		Timeout timeout = new Timeout(this, task, deadlineTick);
+		this.lock.lock();
+		try {
+			if (deadlineTick <= this.currentTick) {
+				timeout.deadlineTick = this.currentTick + 1;
+			}
+			this.place(timeout);
+		} finally {
+			this.lock.unlock();
+		}
+		return timeout;
+	}
+
+	/**
+	 * 启动推进线程，重复调用无副作用
+	 */
+	public synchronized void start() {
+		if (this.scheduler != null) {
+			return;
+		}
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Cache Timing Wheel");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				advance(SystemClock.now());
+			}
+		}, this.tickMs, this.tickMs, TimeUnit.MILLISECONDS);
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * 停止推进线程，未到期的任务保留在时间轮中，再次调度时重新启动
+	 */
+	public synchronized void stop() {
+		if (this.scheduler != null) {
+			this.scheduler.shutdownNow();
+			this.scheduler = null;
+		}
+	}
+
+	/**
+	 * 推进时间轮到指定时间并执行到期任务，通常由推进线程调用
+	 *
+	 * @param now 当前时间
+	 * @return 执行的任务数
+	 */
+	public int advance(long now) {
+		long targetTick = (now - this.startTime) / this.tickMs;
+		Timeout expired = null;
+		this.lock.lock();
+		try {
+			while (this.currentTick < targetTick) {
+				long tick = ++this.currentTick;
+				// 由高到低降级，保证降级后落入本tick待处理槽的任务能被继续处理
+				for (int level = this.levels - 1; level > 0; level--) {
+					if ((tick & ((1L << (this.wheelBits * level)) - 1)) == 0) {
+						this.cascade(level, (int) ((tick >>> (this.wheelBits * level)) & this.wheelMask), tick);
+					}
+				}
+				Bucket bucket = this.buckets[0][(int) (tick & this.wheelMask)];
+				Timeout timeout = bucket.head;
+				while (timeout != null) {
+					Timeout next = timeout.next;
+					bucket.unlink(timeout);
+					if (timeout.deadlineTick <= tick) {
+						timeout.next = expired;
+						expired = timeout;
+					} else {
+						this.place(timeout);
+					}
+					timeout = next;
+				}
+			}
+		} finally {
+			this.lock.unlock();
+		}
+		// 锁外执行任务，任务中可以重新调度
+		int count = 0;
+		while (expired != null) {
+			Timeout next = expired.next;
+			expired.next = null;
+			if (!expired.cancelled) {
+				expired.expired = true;
+				try {
+					expired.task.run();
+				} catch (Throwable t) {
+					LogUtils.error(this.getClass(), "timing wheel task error", t);
+				}
+				count++;
+			}
+			expired = next;
+		}
+		return count;
+	}
+
+	/**
+	 * 将指定层指定槽的任务重新放置到下层，本tick到期的任务放入第0层当前槽，随后在本tick执行
+	 *
+	 * @param level 层
+	 * @param index 槽
+	 * @param tick 当前tick
+	 */
+	private void cascade(int level, int index, long tick) {
+		Bucket bucket = this.buckets[level][index];
+		Timeout timeout = bucket.head;
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			bucket.unlink(timeout);
+			if (timeout.deadlineTick <= tick) {
+				this.buckets[0][(int) (tick & this.wheelMask)].link(timeout);
+			} else {
+				this.place(timeout);
+			}
+			timeout = next;
+		}
+	}
+
+	/**
+	 * 按到期tick放置任务，调用者已持有锁
+	 *
+	 * @param timeout 任务
+	 */
+	private void place(Timeout timeout) {
+		long deadlineTick = Math.max(timeout.deadlineTick, this.currentTick + 1);
+		long delta = deadlineTick - this.currentTick;
+		for (int level = 0; level < this.levels; level++) {
+			if (delta < (1L << (this.wheelBits * (level + 1)))) {
+				this.buckets[level][(int) ((deadlineTick >>> (this.wheelBits * level)) & this.wheelMask)].link(timeout);
+				return;
+			}
+		}
+		// 超出最高层跨度，放入最高层最后一个槽，到达时重新放置
+		int top = this.levels - 1;
+		int index = (int) (((this.currentTick >>> (this.wheelBits * top)) - 1) & this.wheelMask);
+		this.buckets[top][index].link(timeout);
+	}
+
+	/**
+	 * 取消任务
+	 *
+	 * @param timeout 任务
+	 */
+	private void cancel(Timeout timeout) {
+		this.lock.lock();
+		try {
+			timeout.cancelled = true;
+			if (timeout.bucket != null) {
+				timeout.bucket.unlink(timeout);
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 时间轮任务句柄
+	 * @author openguava
+	 *
+	 */
+	public static final class Timeout {
+
+		private final TimingWheel wheel;
+
+		private final Runnable task;
+
+		private long deadlineTick;
+
+		private volatile boolean cancelled;
+
+		private volatile boolean expired;
+
+		private Bucket bucket;
+
+		private Timeout prev;
+
+		private Timeout next;
+
+		private Timeout(TimingWheel wheel, Runnable task, long deadlineTick) {
+			this.wheel = wheel;
+			this.task = task;
+			this.deadlineTick = deadlineTick;
+		}
+
+		/**
+		 * 取消任务，已执行的任务取消无效果
+		 */
+		public void cancel() {
+			if (!this.cancelled && !this.expired) {
+				this.wheel.cancel(this);
+			}
+		}
+
+		/**
+		 * 是否已取消
+		 *
+		 * @return 是否已取消
+		 */
+		public boolean isCancelled() {
+			return this.cancelled;
+		}
+
+		/**
+		 * 是否已到期执行
+		 *
+		 * @return 是否已到期执行
+		 */
+		public boolean isExpired() {
+			return this.expired;
+		}
+	}
+
+	/**
+	 * 时间轮槽，双向链表实现O(1)插入和删除
+	 */
+	private static final class Bucket {
+
+		private Timeout head;
+
+		private void link(Timeout timeout) {
+			timeout.bucket = this;
+			timeout.prev = null;
+			timeout.next = this.head;
+			if (this.head != null) {
+				this.head.prev = timeout;
+			}
+			this.head = timeout;
+		}
+
+		private void unlink(Timeout timeout) {
+			if (timeout.prev != null) {
+				timeout.prev.next = timeout.next;
+			} else {
+				this.head = timeout.next;
+			}
+			if (timeout.next != null) {
+				timeout.next.prev = timeout.prev;
+			}
+			timeout.bucket = null;
+			timeout.prev = null;
+			timeout.next = null;
+		}
+	}
+}
@@ -0,0 +1,400 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * W-TinyLFU(Window TinyLFU) 缓存，按访问频率决定新对象能否进入缓存<br>
+ * 缓存分为窗口区(约1%)和主区，主区再分为试用区和保护区(主区的80%)。新对象先进入窗口区，
+ * 窗口区满时最久未访问的对象作为候选者，与试用区最久未访问的对象(淘汰者)比较{@link FrequencySketch}估计的访问频率，
+ * 频率较高者留在主区，另一个被淘汰；试用区对象再次被访问后晋升到保护区。
+ * 一次性的扫描访问频率很低，无法挤出主区的热点对象，因此命中率在批量扫描时不会骤降。
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class TinyLFUCache<K, V> extends AbstractCache<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** 窗口区占容量的比例 */
+	private static final double WINDOW_RATIO = 0.01;
+
+	/** 保护区占主区的比例 */
+	private static final double PROTECTED_RATIO = 0.8;
+
+	/** 访问频率估计 */
+	private final FrequencySketch<K> sketch;
+
+	/** 分区存储，即{@link #cacheMap} */
+	private final RegionMap<K, V> regionMap;
+
+	/**
+	 * 构造，默认对象不过期
+	 *
+	 * @param capacity 容量
+	 */
+	public TinyLFUCache(int capacity) {
+		this(capacity, 0);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位毫秒
+	 */
+	public TinyLFUCache(int capacity, long timeout) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be greater than 0");
+		}
+		this.capacity = capacity;
+		this.timeout = timeout;
+		int windowMax = Math.max(1, (int) (capacity * WINDOW_RATIO));
+		int protectedMax = (int) ((capacity - windowMax) * PROTECTED_RATIO);
+		this.regionMap = new RegionMap<>(capacity, windowMax, protectedMax);
+		this.cacheMap = this.regionMap;
+		this.sketch = new FrequencySketch<>(capacity);
+	}
+
+	@Override
+	protected void putWithoutLock(K key, V value, long timeout) {
+		this.sketch.increment(key);
+		super.putWithoutLock(key, value, timeout);
+	}
+
+	@Override
+	protected void onAccess(K key, CacheObj<K, V> co) {
+		this.sketch.increment(key);
+		if (co != null) {
+			this.regionMap.onHit(key);
+		}
+	}
+
+	/**
+	 * 清理过期对象，清理后依旧满的情况下淘汰一个对象：<br>
+	 * 窗口区已满时比较候选者(窗口区最久未访问)与淘汰者(试用区最久未访问)的访问频率，淘汰频率不高于对方的一个，
+	 * 胜出的候选者进入试用区；窗口区未满时直接淘汰主区最久未访问的对象。
+	 *
+	 * @return 清理个数
+	 */
+	@Override
+	protected int pruneCache() {
+		int count = this.pruneExpiredWithoutLock();
+		if (!this.isFull()) {
+			return count;
+		}
+		RegionMap<K, V> regions = this.regionMap;
+		Node<K, V> candidate = regions.window.size >= regions.windowMax ? regions.window.head : null;
+		Node<K, V> victim = regions.probation.head != null ? regions.probation.head : regions.protect.head;
+		Node<K, V> evicted;
+		if (candidate != null && victim != null) {
+			if (this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key)) {
+				evicted = victim;
+				regions.window.unlink(candidate);
+				regions.probation.addLast(candidate);
+			} else {
+				evicted = candidate;
+			}
+		} else if (victim != null) {
+			evicted = victim;
+		} else {
+			evicted = regions.window.head;
+		}
+		if (evicted != null) {
+			regions.remove(evicted.key);
+			this.onRemove(evicted.co);
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		this.lock.lock();
+		try {
+			this.sketch.clear();
+		} finally {
+			this.unlock();
+		}
+	}
+
+	/**
+	 * 分区存储，在{@link HashMap}索引之上为每个分区维护LRU链表，所有删除路径(包括迭代器删除)都会同步更新链表
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 */
+	private static final class RegionMap<K, V> extends AbstractMap<K, CacheObj<K, V>> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** 窗口区最大对象数 */
+		private final int windowMax;
+
+		/** 保护区最大对象数 */
+		private final int protectedMax;
+
+		/** 索引 */
+		private transient HashMap<K, Node<K, V>> data;
+
+		/** 窗口区 */
+		private transient Region<K, V> window;
+
+		/** 试用区 */
+		private transient Region<K, V> probation;
+
+		/** 保护区 */
+		private transient Region<K, V> protect;
+
+		private RegionMap(int capacity, int windowMax, int protectedMax) {
+			this.windowMax = windowMax;
+			this.protectedMax = protectedMax;
+			this.init(capacity);
+		}
+
+		private void init(int capacity) {
+			this.data = new HashMap<>(Math.max(1 << 4, capacity + 1), 1.0f);
+			this.window = new Region<>();
+			this.probation = new Region<>();
+			this.protect = new Region<>();
+		}
+
+		@Override
+		public int size() {
+			return this.data.size();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return this.data.containsKey(key);
+		}
+
+		@Override
+		public CacheObj<K, V> get(Object key) {
+			Node<K, V> node = this.data.get(key);
+			return node == null ? null : node.co;
+		}
+
+		/**
+		 * 加入对象，新对象进入窗口区尾部，窗口区超出上限时将最久未访问的对象移入试用区
+		 */
+		@Override
+		public CacheObj<K, V> put(K key, CacheObj<K, V> co) {
+			Node<K, V> node = this.data.get(key);
+			if (node != null) {
+				CacheObj<K, V> previous = node.co;
+				node.co = co;
+				node.region.moveToLast(node);
+				return previous;
+			}
+			node = new Node<>(key, co);
+			this.data.put(key, node);
+			this.window.addLast(node);
+			while (this.window.size > this.windowMax) {
+				Node<K, V> first = this.window.head;
+				this.window.unlink(first);
+				this.probation.addLast(first);
+			}
+			return null;
+		}
+
+		@Override
+		public CacheObj<K, V> remove(Object key) {
+			Node<K, V> node = this.data.remove(key);
+			if (node == null) {
+				return null;
+			}
+			node.region.unlink(node);
+			return node.co;
+		}
+
+		@Override
+		public void clear() {
+			this.data.clear();
+			this.window.clear();
+			this.probation.clear();
+			this.protect.clear();
+		}
+
+		/**
+		 * 命中时调整位置，试用区对象晋升到保护区，保护区超出上限时将其最久未访问的对象降级到试用区
+		 *
+		 * @param key 键
+		 */
+		private void onHit(K key) {
+			Node<K, V> node = this.data.get(key);
+			if (node == null) {
+				return;
+			}
+			if (node.region != this.probation) {
+				node.region.moveToLast(node);
+				return;
+			}
+			this.probation.unlink(node);
+			this.protect.addLast(node);
+			while (this.protect.size > this.protectedMax) {
+				Node<K, V> first = this.protect.head;
+				this.protect.unlink(first);
+				this.probation.addLast(first);
+			}
+		}
+
+		@Override
+		public Set<Map.Entry<K, CacheObj<K, V>>> entrySet() {
+			return new AbstractSet<Map.Entry<K, CacheObj<K, V>>>() {
+
+				@Override
+				public Iterator<Map.Entry<K, CacheObj<K, V>>> iterator() {
+					final Iterator<Node<K, V>> iterator = data.values().iterator();
+					return new Iterator<Map.Entry<K, CacheObj<K, V>>>() {
+
+						private Node<K, V> current;
+
+						@Override
+						public boolean hasNext() {
+							return iterator.hasNext();
+						}
+
+						@Override
+						public Map.Entry<K, CacheObj<K, V>> next() {
+							this.current = iterator.next();
+							return new AbstractMap.SimpleImmutableEntry<>(this.current.key, this.current.co);
+						}
+
+						@Override
+						public void remove() {
+							iterator.remove();
+							this.current.region.unlink(this.current);
+							this.current = null;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return data.size();
+				}
+			};
+		}
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			out.defaultWriteObject();
+			out.writeInt(this.data.size());
+			// 按分区及LRU顺序写出，读取时按相同顺序恢复
+			for (Region<K, V> region : new Region[] { this.window, this.probation, this.protect }) {
+				for (Node<K, V> node = region.head; node != null; node = node.next) {
+					out.writeByte(region == this.window ? 0 : region == this.probation ? 1 : 2);
+					out.writeObject(node.key);
+					out.writeObject(node.co);
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			int size = in.readInt();
+			this.init(size);
+			for (int i = 0; i < size; i++) {
+				byte index = in.readByte();
+				Node<K, V> node = new Node<>((K) in.readObject(), (CacheObj<K, V>) in.readObject());
+				this.data.put(node.key, node);
+				(index == 0 ? this.window : index == 1 ? this.probation : this.protect).addLast(node);
+			}
+		}
+	}
+
+	/**
+	 * 分区LRU链表，头部为最久未访问
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 */
+	private static final class Region<K, V> {
+
+		private Node<K, V> head;
+
+		private Node<K, V> tail;
+
+		private int size;
+
+		private void addLast(Node<K, V> node) {
+			node.region = this;
+			node.prev = this.tail;
+			node.next = null;
+			if (this.tail == null) {
+				this.head = node;
+			} else {
+				this.tail.next = node;
+			}
+			this.tail = node;
+			this.size++;
+		}
+
+		private void unlink(Node<K, V> node) {
+			if (node.prev == null) {
+				this.head = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				this.tail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+			node.region = null;
+			this.size--;
+		}
+
+		private void moveToLast(Node<K, V> node) {
+			if (this.tail != node) {
+				this.unlink(node);
+				this.addLast(node);
+			}
+		}
+
+		private void clear() {
+			this.head = null;
+			this.tail = null;
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * 链表节点
+	 *
+	 * @param <K> 键类型
+	 * @param <V> 值类型
+	 */
+	private static final class Node<K, V> {
+
+		private final K key;
+
+		private CacheObj<K, V> co;
+
+		private Region<K, V> region;
+
+		private Node<K, V> prev;
+
+		private Node<K, V> next;
+
+		private Node(K key, CacheObj<K, V> co) {
+			this.key = key;
+			this.co = co;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package io.github.openguava.guavatool.core.cache;
+
+/**
+ * 缓存对象权重计算，用于按总权重(如近似字节数)限制缓存大小
+ * @author openguava
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public interface Weigher<K, V> {
+
+	/**
+	 * 计算缓存对象权重，结果应在对象存活期间保持不变
+	 *
+	 * @param key 键
+	 * @param value 值
+	 * @return 权重，不能为负数
+	 */
+	int weigh(K key, V value);
+}
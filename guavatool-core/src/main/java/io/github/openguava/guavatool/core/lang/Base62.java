@@ -0,0 +1,158 @@
+package io.github.openguava.guavatool.core.lang;
+
+/**
+ * Base62定长编码，字母表为{@code 0-9A-Za-z}(按ASCII升序)<br>
+ * 64位无符号数固定编码为11个字符，128位无符号数固定编码为22个字符，高位不足时补{@code 0}，
+ * 因此编码结果的字典序与数值大小一致，适合将{@link UUIDv7Generator}等时间有序的ID缩短后作为主键。
+ * 编码直接写入调用方提供的字符数组，复用数组时不产生临时对象。
+ * @author openguava
+ *
+ */
+public final class Base62 {
+
+	/** 64位编码长度 */
+	public static final int LONG_LENGTH = 11;
+
+	/** 128位编码长度 */
+	public static final int LENGTH_128 = 22;
+
+	private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+	private static final int RADIX = 62;
+
+	/** 字符到数值的映射，非法字符为{@code -1} */
+	private static final byte[] DECODE = new byte[128];
+
+	static {
+		for (int i = 0; i < DECODE.length; i++) {
+			DECODE[i] = -1;
+		}
+		for (int i = 0; i < ALPHABET.length; i++) {
+			DECODE[ALPHABET[i]] = (byte) i;
+		}
+	}
+
+	private Base62() {
+	}
+
+	/**
+	 * 编码64位无符号数
+	 * @param value 值
+	 * @return 11个字符
+	 */
+	public static String encode(long value) {
+		char[] buf = new char[LONG_LENGTH];
+		encode(value, buf, 0);
+		return new String(buf);
+	}
+
+	/**
+	 * 编码64位无符号数到字符数组
+	 * @param value 值
+	 * @param buf 字符数组
+	 * @param offset 开始位置，写入{@link #LONG_LENGTH}个字符
+	 */
+	public static void encode(long value, char[] buf, int offset) {
+		checkBounds(buf, offset, LONG_LENGTH);
+		// 无符号数右移一位后除以31即为除以62的商，商非负，之后可用普通除法
+		int last = offset + LONG_LENGTH - 1;
+		long quotient = (value >>> 1) / (RADIX >>> 1);
+		buf[last] = ALPHABET[(int) (value - quotient * RADIX)];
+		for (int i = last - 1; i >= offset; i--) {
+			buf[i] = ALPHABET[(int) (quotient % RADIX)];
+			quotient /= RADIX;
+		}
+	}
+
+	/**
+	 * 编码128位无符号数
+	 * @param high 高64位
+	 * @param low 低64位
+	 * @return 22个字符
+	 */
+	public static String encode(long high, long low) {
+		char[] buf = new char[LENGTH_128];
+		encode(high, low, buf, 0);
+		return new String(buf);
+	}
+
+	/**
+	 * 编码128位无符号数到字符数组
+	 * @param high 高64位
+	 * @param low 低64位
+	 * @param buf 字符数组
+	 * @param offset 开始位置，写入{@link #LENGTH_128}个字符
+	 */
+	public static void encode(long high, long low, char[] buf, int offset) {
+		checkBounds(buf, offset, LENGTH_128);
+		for (int i = offset + LENGTH_128 - 1; i >= offset; i--) {
+			// 128位除以62：先除高64位，余数与低64位的高、低32位依次拼接后再除，中间结果不超过38位
+			long highQuotient = (high >>> 1) / (RADIX >>> 1);
+			long remainder = high - highQuotient * RADIX;
+			long part = (remainder << 32) | (low >>> 32);
+			long upper = part / RADIX;
+			part = ((part % RADIX) << 32) | (low & 0xFFFFFFFFL);
+			long lower = part / RADIX;
+			buf[i] = ALPHABET[(int) (part % RADIX)];
+			high = highQuotient;
+			low = (upper << 32) | lower;
+		}
+	}
+
+	/**
+	 * 解码64位无符号数，超出64位的文本会溢出，不做校验
+	 * @param text 11个字符
+	 * @return 值
+	 */
+	public static long decode(CharSequence text) {
+		checkLength(text, LONG_LENGTH);
+		long value = 0;
+		for (int i = 0; i < LONG_LENGTH; i++) {
+			value = value * RADIX + digit(text, i);
+		}
+		return value;
+	}
+
+	/**
+	 * 解码128位无符号数，超出128位的文本会溢出，不做校验
+	 * @param text 22个字符
+	 * @return 长度为2的数组，依次为高64位和低64位
+	 */
+	public static long[] decode128(CharSequence text) {
+		checkLength(text, LENGTH_128);
+		long high = 0;
+		long low = 0;
+		for (int i = 0; i < LENGTH_128; i++) {
+			// 128位乘62加当前位，低64位按32位拆开计算进位
+			long lowLower = (low & 0xFFFFFFFFL) * RADIX + digit(text, i);
+			long lowUpper = (low >>> 32) * RADIX + (lowLower >>> 32);
+			high = high * RADIX + (lowUpper >>> 32);
+			low = (lowUpper << 32) | (lowLower & 0xFFFFFFFFL);
+		}
+		return new long[] { high, low };
+	}
+
+	private static int digit(CharSequence text, int index) {
+		char c = text.charAt(index);
+		int digit = c < DECODE.length ? DECODE[c] : -1;
+		if (digit < 0) {
+			throw new IllegalArgumentException("Illegal base62 character: " + c);
+		}
+		return digit;
+	}
+
+	private static void checkLength(CharSequence text, int length) {
+		if (text == null || text.length() != length) {
+			throw new IllegalArgumentException("base62 text length must be " + length);
+		}
+	}
+
+	static void checkBounds(char[] buf, int offset, int length) {
+		if (buf == null) {
+			throw new IllegalArgumentException("buf cannot be null.");
+		}
+		if (offset < 0 || offset > buf.length - length) {
+			throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", buf length: " + buf.length);
+		}
+	}
+}
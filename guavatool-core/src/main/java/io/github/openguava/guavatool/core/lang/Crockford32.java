@@ -0,0 +1,148 @@
+package io.github.openguava.guavatool.core.lang;
+
+/**
+ * Crockford Base32定长编码，字母表为{@code 0-9A-Z}去掉{@code I L O U}(按ASCII升序)<br>
+ * 64位无符号数固定编码为13个字符，128位无符号数固定编码为26个字符(即ULID的文本形式)，编码结果的字典序与数值大小一致。
+ * 解码不区分大小写，{@code I L}视为{@code 1}，{@code O}视为{@code 0}。编码直接写入调用方提供的字符数组，复用数组时不产生临时对象。
+ * @author openguava
+ *
+ */
+public final class Crockford32 {
+
+	/** 64位编码长度 */
+	public static final int LONG_LENGTH = 13;
+
+	/** 128位编码长度 */
+	public static final int LENGTH_128 = 26;
+
+	private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+	/** 字符到数值的映射，非法字符为{@code -1} */
+	private static final byte[] DECODE = new byte[128];
+
+	static {
+		for (int i = 0; i < DECODE.length; i++) {
+			DECODE[i] = -1;
+		}
+		for (int i = 0; i < ALPHABET.length; i++) {
+			DECODE[ALPHABET[i]] = (byte) i;
+			DECODE[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+		}
+		DECODE['I'] = DECODE['i'] = DECODE['L'] = DECODE['l'] = 1;
+		DECODE['O'] = DECODE['o'] = 0;
+	}
+
+	private Crockford32() {
+	}
+
+	/**
+	 * 编码64位无符号数
+	 * @param value 值
+	 * @return 13个字符
+	 */
+	public static String encode(long value) {
+		char[] buf = new char[LONG_LENGTH];
+		encode(value, buf, 0);
+		return new String(buf);
+	}
+
+	/**
+	 * 编码64位无符号数到字符数组，第一个字符只包含最高的4位
+	 * @param value 值
+	 * @param buf 字符数组
+	 * @param offset 开始位置，写入{@link #LONG_LENGTH}个字符
+	 */
+	public static void encode(long value, char[] buf, int offset) {
+		Base62.checkBounds(buf, offset, LONG_LENGTH);
+		for (int i = offset + LONG_LENGTH - 1; i >= offset; i--) {
+			buf[i] = ALPHABET[(int) (value & 31)];
+			value >>>= 5;
+		}
+	}
+
+	/**
+	 * 编码128位无符号数
+	 * @param high 高64位
+	 * @param low 低64位
+	 * @return 26个字符
+	 */
+	public static String encode(long high, long low) {
+		char[] buf = new char[LENGTH_128];
+		encode(high, low, buf, 0);
+		return new String(buf);
+	}
+
+	/**
+	 * 编码128位无符号数到字符数组，第一个字符只包含最高的3位
+	 * @param high 高64位
+	 * @param low 低64位
+	 * @param buf 字符数组
+	 * @param offset 开始位置，写入{@link #LENGTH_128}个字符
+	 */
+	public static void encode(long high, long low, char[] buf, int offset) {
+		Base62.checkBounds(buf, offset, LENGTH_128);
+		// 从最低位开始每5位一个字符，第13个字符跨越高低64位
+		int i = offset + LENGTH_128 - 1;
+		for (int n = 0; n < 12; n++) {
+			buf[i--] = ALPHABET[(int) (low & 31)];
+			low >>>= 5;
+		}
+		buf[i--] = ALPHABET[(int) ((low & 15) | ((high & 1) << 4))];
+		high >>>= 1;
+		for (; i >= offset; i--) {
+			buf[i] = ALPHABET[(int) (high & 31)];
+			high >>>= 5;
+		}
+	}
+
+	/**
+	 * 解码64位无符号数
+	 * @param text 13个字符
+	 * @return 值
+	 */
+	public static long decode(CharSequence text) {
+		checkLength(text, LONG_LENGTH);
+		if (digit(text, 0) > 15) {
+			throw new IllegalArgumentException("crockford32 value overflow: " + text);
+		}
+		long value = 0;
+		for (int i = 0; i < LONG_LENGTH; i++) {
+			value = (value << 5) | digit(text, i);
+		}
+		return value;
+	}
+
+	/**
+	 * 解码128位无符号数
+	 * @param text 26个字符
+	 * @return 长度为2的数组，依次为高64位和低64位
+	 */
+	public static long[] decode128(CharSequence text) {
+		checkLength(text, LENGTH_128);
+		if (digit(text, 0) > 7) {
+			throw new IllegalArgumentException("crockford32 value overflow: " + text);
+		}
+		long high = 0;
+		long low = 0;
+		for (int i = 0; i < LENGTH_128; i++) {
+			high = (high << 5) | (low >>> 59);
+			low = (low << 5) | digit(text, i);
+		}
+		return new long[] { high, low };
+	}
+
+	private static int digit(CharSequence text, int index) {
+		char c = text.charAt(index);
+		int digit = c < DECODE.length ? DECODE[c] : -1;
+		if (digit < 0) {
+			throw new IllegalArgumentException("Illegal crockford32 character: " + c);
+		}
+		return digit;
+	}
+
+	private static void checkLength(CharSequence text, int length) {
+		if (text == null || text.length() != length) {
+			throw new IllegalArgumentException("crockford32 text length must be " + length);
+		}
+	}
+}
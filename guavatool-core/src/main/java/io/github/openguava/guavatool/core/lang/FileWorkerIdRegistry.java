@@ -0,0 +1,133 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openguava.guavatool.core.exception.UtilException;
+
+/**
+ * 基于本地文件锁的机器标识注册中心，每个标识对应目录下的一个锁文件<br>
+ * 锁由操作系统持有，进程退出时自动释放，因此租约时长不起作用；适用于单机多进程部署和测试。
+ * @author openguava
+ *
+ */
+public class FileWorkerIdRegistry implements WorkerIdRegistry {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileWorkerIdRegistry.class);
+
+	/** 锁文件目录 */
+	private final File directory;
+
+	/** 本进程持有的锁 */
+	private final ConcurrentHashMap<Long, Holder> holders = new ConcurrentHashMap<>();
+
+	/**
+	 * 构造
+	 * 
+	 * @param directory 锁文件目录，不存在时自动创建
+	 */
+	public FileWorkerIdRegistry(File directory) {
+		if (directory == null) {
+			throw new IllegalArgumentException("directory cannot be null.");
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new UtilException("create directory failed: {}", directory);
+		}
+		this.directory = directory;
+	}
+
+	@Override
+	public boolean tryAcquire(long workerId, String owner, long leaseMillis) {
+		Holder holder = this.holders.get(workerId);
+		if (holder != null) {
+			return holder.owner.equals(owner) && holder.lock.isValid();
+		}
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(new File(this.directory, "worker-" + workerId + ".lock"), "rw");
+			FileChannel channel = file.getChannel();
+			FileLock lock;
+			try {
+				lock = channel.tryLock();
+			} catch (OverlappingFileLockException e) {
+				// 本进程的其他注册中心实例已持有
+				lock = null;
+			}
+			if (lock == null) {
+				file.close();
+				return false;
+			}
+			// 写入持有者便于排查
+			channel.truncate(0);
+			channel.write(ByteBuffer.wrap(owner.getBytes(StandardCharsets.UTF_8)), 0);
+			if (this.holders.putIfAbsent(workerId, new Holder(owner, file, lock)) != null) {
+				lock.release();
+				file.close();
+				return false;
+			}
+			return true;
+		} catch (IOException e) {
+			closeQuietly(file);
+			throw new UtilException(e, "acquire worker id failed: {}", workerId);
+		}
+	}
+
+	@Override
+	public boolean renew(long workerId, String owner, long leaseMillis) {
+		Holder holder = this.holders.get(workerId);
+		return holder != null && holder.owner.equals(owner) && holder.lock.isValid();
+	}
+
+	@Override
+	public void release(long workerId, String owner) {
+		Holder holder = this.holders.get(workerId);
+		if (holder == null || !holder.owner.equals(owner) || !this.holders.remove(workerId, holder)) {
+			return;
+		}
+		try {
+			holder.lock.release();
+		} catch (IOException e) {
+			LOGGER.warn(e.getMessage(), e);
+		}
+		closeQuietly(holder.file);
+	}
+
+	private static void closeQuietly(RandomAccessFile file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			file.close();
+		} catch (IOException e) {
+			LOGGER.warn(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 持有的锁
+	 */
+	private static final class Holder {
+
+		private final String owner;
+
+		private final RandomAccessFile file;
+
+		private final FileLock lock;
+
+		private Holder(String owner, RandomAccessFile file, FileLock lock) {
+			this.owner = owner;
+			this.file = file;
+			this.lock = lock;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * ID生成统计快照，不可变<br>
+ * 等待时间直方图共{@link #WAIT_BUCKETS}个桶，第{@code i}个桶统计不超过{@code 2^i}微秒的等待，最后一个桶统计更长的等待。
+ * @author openguava
+ *
+ */
+public final class IdGeneratorStats implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** 等待时间直方图的桶数，最后一个有上限的桶为{@code 2^20}微秒(约1秒) */
+	public static final int WAIT_BUCKETS = 22;
+
+	/** 空统计 */
+	public static final IdGeneratorStats EMPTY = new IdGeneratorStats(0, 0, 0, 0, 0, new long[WAIT_BUCKETS], 0, 0, 0, 0, 0);
+
+	/** 生成个数 */
+	private final long generatedCount;
+
+	/** 序号(号段)用尽次数 */
+	private final long exhaustedCount;
+
+	/** 等待次数 */
+	private final long waitCount;
+
+	/** 等待总耗时，单位纳秒 */
+	private final long totalWaitTime;
+
+	/** 最长等待耗时，单位纳秒 */
+	private final long maxWaitTime;
+
+	/** 等待时间直方图 */
+	private final long[] waitHistogram;
+
+	/** 时钟回拨次数，等待、借用时钟序列和拒绝生成的次数之和 */
+	private final long rollbackCount;
+
+	/** 最大回拨毫秒数 */
+	private final long maxRollbackMillis;
+
+	/** 时钟回拨后借用时钟序列的次数 */
+	private final long rollbackBorrowCount;
+
+	/** 时钟回拨后拒绝生成的次数 */
+	private final long rollbackRejectCount;
+
+	/** 统计时长，单位纳秒 */
+	private final long elapsedTime;
+
+	/**
+	 * 构造
+	 *
+	 * @param generatedCount 生成个数
+	 * @param exhaustedCount 序号(号段)用尽次数
+	 * @param waitCount 等待次数
+	 * @param totalWaitTime 等待总耗时，单位纳秒
+	 * @param maxWaitTime 最长等待耗时，单位纳秒
+	 * @param waitHistogram 等待时间直方图，长度为{@link #WAIT_BUCKETS}
+	 * @param rollbackCount 时钟回拨次数
+	 * @param maxRollbackMillis 最大回拨毫秒数
+	 * @param rollbackBorrowCount 时钟回拨后借用时钟序列的次数
+	 * @param rollbackRejectCount 时钟回拨后拒绝生成的次数
+	 * @param elapsedTime 统计时长，单位纳秒
+	 */
+	public IdGeneratorStats(long generatedCount, long exhaustedCount, long waitCount, long totalWaitTime, long maxWaitTime, long[] waitHistogram,
+			long rollbackCount, long maxRollbackMillis, long rollbackBorrowCount, long rollbackRejectCount, long elapsedTime) {
+		if (waitHistogram == null || waitHistogram.length != WAIT_BUCKETS) {
+			throw new IllegalArgumentException("waitHistogram length must be " + WAIT_BUCKETS);
+		}
+		this.generatedCount = generatedCount;
+		this.exhaustedCount = exhaustedCount;
+		this.waitCount = waitCount;
+		this.totalWaitTime = totalWaitTime;
+		this.maxWaitTime = maxWaitTime;
+		this.waitHistogram = waitHistogram.clone();
+		this.rollbackCount = rollbackCount;
+		this.maxRollbackMillis = maxRollbackMillis;
+		this.rollbackBorrowCount = rollbackBorrowCount;
+		this.rollbackRejectCount = rollbackRejectCount;
+		this.elapsedTime = elapsedTime;
+	}
+
+	/**
+	 * 等待耗时所属的桶
+	 *
+	 * @param waitTime 等待耗时，单位纳秒
+	 * @return 桶序号
+	 */
+	public static int waitBucket(long waitTime) {
+		if (waitTime <= 1000) {
+			return 0;
+		}
+		// 向上取整到微秒后减一，先减一再除避免超长等待时溢出
+		long micros = (waitTime - 1) / 1000;
+		return Math.min(64 - Long.numberOfLeadingZeros(micros), WAIT_BUCKETS - 1);
+	}
+
+	/**
+	 * 桶的上限
+	 *
+	 * @param bucket 桶序号
+	 * @return 上限(包含)，单位纳秒，最后一个桶为{@link Long#MAX_VALUE}
+	 */
+	public static long waitBucketUpperBound(int bucket) {
+		return bucket >= WAIT_BUCKETS - 1 ? Long.MAX_VALUE : 1000L << bucket;
+	}
+
+	public long getGeneratedCount() {
+		return this.generatedCount;
+	}
+
+	public long getExhaustedCount() {
+		return this.exhaustedCount;
+	}
+
+	public long getWaitCount() {
+		return this.waitCount;
+	}
+
+	public long getTotalWaitTime() {
+		return this.totalWaitTime;
+	}
+
+	public long getMaxWaitTime() {
+		return this.maxWaitTime;
+	}
+
+	/**
+	 * 等待时间直方图
+	 *
+	 * @return 各桶的次数，副本
+	 */
+	public long[] getWaitHistogram() {
+		return this.waitHistogram.clone();
+	}
+
+	public long getRollbackCount() {
+		return this.rollbackCount;
+	}
+
+	public long getMaxRollbackMillis() {
+		return this.maxRollbackMillis;
+	}
+
+	public long getRollbackBorrowCount() {
+		return this.rollbackBorrowCount;
+	}
+
+	public long getRollbackRejectCount() {
+		return this.rollbackRejectCount;
+	}
+
+	public long getElapsedTime() {
+		return this.elapsedTime;
+	}
+
+	/**
+	 * 生成速率
+	 *
+	 * @return 每秒生成个数，统计时长为0时返回{@code 0.0}
+	 */
+	public double getRate() {
+		return this.elapsedTime <= 0 ? 0.0 : this.generatedCount * 1e9 / this.elapsedTime;
+	}
+
+	/**
+	 * 平均等待耗时，单位纳秒
+	 *
+	 * @return 平均等待耗时
+	 */
+	public double getAverageWaitTime() {
+		return this.waitCount == 0 ? 0.0 : (double) this.totalWaitTime / this.waitCount;
+	}
+
+	/**
+	 * 按直方图估计等待耗时的分位数，返回分位数所在桶的上限，最后一个桶返回最长等待耗时
+	 *
+	 * @param quantile 分位(0~1]，如{@code 0.99}
+	 * @return 等待耗时，单位纳秒，无等待时返回{@code 0}
+	 */
+	public long getWaitTimePercentile(double quantile) {
+		if (quantile <= 0 || quantile > 1) {
+			throw new IllegalArgumentException("quantile must be in (0, 1]");
+		}
+		long total = 0;
+		for (long count : this.waitHistogram) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * quantile);
+		long seen = 0;
+		for (int i = 0; i < WAIT_BUCKETS; i++) {
+			seen += this.waitHistogram[i];
+			if (seen >= rank) {
+				return Math.min(waitBucketUpperBound(i), this.maxWaitTime);
+			}
+		}
+		return this.maxWaitTime;
+	}
+
+	/**
+	 * 与较早的快照相减，得到两次快照之间的增量，用于计算一段时间内的速率；最大值字段保留本快照的值
+	 *
+	 * @param other 较早的快照
+	 * @return 新快照
+	 */
+	public IdGeneratorStats minus(IdGeneratorStats other) {
+		long[] histogram = new long[WAIT_BUCKETS];
+		for (int i = 0; i < WAIT_BUCKETS; i++) {
+			histogram[i] = Math.max(0, this.waitHistogram[i] - other.waitHistogram[i]);
+		}
+		return new IdGeneratorStats(Math.max(0, this.generatedCount - other.generatedCount), Math.max(0, this.exhaustedCount - other.exhaustedCount),
+				Math.max(0, this.waitCount - other.waitCount), Math.max(0, this.totalWaitTime - other.totalWaitTime), this.maxWaitTime, histogram,
+				Math.max(0, this.rollbackCount - other.rollbackCount), this.maxRollbackMillis, Math.max(0, this.rollbackBorrowCount - other.rollbackBorrowCount),
+				Math.max(0, this.rollbackRejectCount - other.rollbackRejectCount), Math.max(0, this.elapsedTime - other.elapsedTime));
+	}
+
+	@Override
+	public String toString() {
+		return "IdGeneratorStats [generatedCount=" + generatedCount + ", exhaustedCount=" + exhaustedCount + ", waitCount=" + waitCount
+				+ ", totalWaitTime=" + totalWaitTime + ", maxWaitTime=" + maxWaitTime + ", waitHistogram=" + Arrays.toString(waitHistogram)
+				+ ", rollbackCount=" + rollbackCount  + ", maxRollbackMillis=" + maxRollbackMillis + ", rollbackBorrowCount=" + rollbackBorrowCount + ", rollbackRejectCount=" + rollbackRejectCount + ", elapsedTime=" + elapsedTime + "]";
+	}
+}
@@ -0,0 +1,140 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ID生成统计计数器，基于{@link LongAdder}分段计数，高并发下写入无竞争<br>
+ * 通过{@link Snowflake}、{@link SegmentIdGenerator}、{@link UUIDv7Generator}、{@link UlidGenerator}的{@code setStatsCounter}方法设置到生成器后开始统计，
+ * 未设置时生成器不做任何统计；多个生成器可共用一个计数器以汇总统计。
+ * 需要对接外部监控系统时可继承此类并重写{@code recordXxx}方法(调用父类方法以保留快照统计)。
+ * @author openguava
+ *
+ */
+public class IdGeneratorStatsCounter implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final LongAdder generatedCount = new LongAdder();
+
+	private final LongAdder exhaustedCount = new LongAdder();
+
+	private final LongAdder waitCount = new LongAdder();
+
+	private final LongAdder totalWaitTime = new LongAdder();
+
+	private final AtomicLong maxWaitTime = new AtomicLong();
+
+	private final LongAdder[] waitHistogram = new LongAdder[IdGeneratorStats.WAIT_BUCKETS];
+
+	private final LongAdder rollbackCount = new LongAdder();
+
+	private final AtomicLong maxRollbackMillis = new AtomicLong();
+
+	private final LongAdder rollbackBorrowCount = new LongAdder();
+
+	private final LongAdder rollbackRejectCount = new LongAdder();
+
+	/** 开始统计的时间，单位纳秒 */
+	private volatile long startTime = System.nanoTime();
+
+	public IdGeneratorStatsCounter() {
+		for (int i = 0; i < this.waitHistogram.length; i++) {
+			this.waitHistogram[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * 记录生成
+	 *
+	 * @param count 个数
+	 */
+	public void recordGenerated(int count) {
+		this.generatedCount.add(count);
+	}
+
+	/**
+	 * 记录序号(号段)用尽，此后调用方需要等待下一毫秒或下一号段
+	 */
+	public void recordExhausted() {
+		this.exhaustedCount.increment();
+	}
+
+	/**
+	 * 记录等待，包括等待下一毫秒、等待时钟回拨追上和等待号段加载
+	 *
+	 * @param waitTime 等待耗时，单位纳秒
+	 */
+	public void recordWait(long waitTime) {
+		this.waitCount.increment();
+		this.totalWaitTime.add(waitTime);
+		this.waitHistogram[IdGeneratorStats.waitBucket(waitTime)].increment();
+		updateMax(this.maxWaitTime, waitTime);
+	}
+
+	/**
+	 * 记录时钟回拨
+	 *
+	 * @param offset 回拨毫秒数
+	 */
+	public void recordRollback(long offset) {
+		this.rollbackCount.increment();
+		updateMax(this.maxRollbackMillis, offset);
+	}
+
+	/**
+	 * 记录时钟回拨后借用时钟序列继续生成
+	 */
+	public void recordRollbackBorrow() {
+		this.rollbackBorrowCount.increment();
+	}
+
+	/**
+	 * 记录时钟回拨后拒绝生成
+	 */
+	public void recordRollbackReject() {
+		this.rollbackRejectCount.increment();
+	}
+
+	/**
+	 * 获取统计快照
+	 *
+	 * @return 统计快照
+	 */
+	public IdGeneratorStats snapshot() {
+		long[] histogram = new long[this.waitHistogram.length];
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] = this.waitHistogram[i].sum();
+		}
+		return new IdGeneratorStats(this.generatedCount.sum(), this.exhaustedCount.sum(), this.waitCount.sum(), this.totalWaitTime.sum(),
+				this.maxWaitTime.get(), histogram, this.rollbackCount.sum(), this.maxRollbackMillis.get(), this.rollbackBorrowCount.sum(), this.rollbackRejectCount.sum(),
+				System.nanoTime() - this.startTime);
+	}
+
+	/**
+	 * 重置计数
+	 */
+	public void reset() {
+		this.generatedCount.reset();
+		this.exhaustedCount.reset();
+		this.waitCount.reset();
+		this.totalWaitTime.reset();
+		this.maxWaitTime.set(0);
+		for (LongAdder adder : this.waitHistogram) {
+			adder.reset();
+		}
+		this.rollbackCount.reset();
+		this.maxRollbackMillis.set(0);
+		this.rollbackBorrowCount.reset();
+		this.rollbackRejectCount.reset();
+		this.startTime = System.nanoTime();
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long current;
+		while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+			// 重试直到更新最大值
+		}
+	}
+}
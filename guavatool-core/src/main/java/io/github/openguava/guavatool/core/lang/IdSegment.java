@@ -0,0 +1,62 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.io.Serializable;
+
+/**
+ * ID号段，表示一段连续的ID区间{@code [start, end)}
+ * @author openguava
+ *
+ */
+public final class IdSegment implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** 起始ID(包含) */
+	private final long start;
+
+	/** 结束ID(不包含) */
+	private final long end;
+
+	/**
+	 * 构造
+	 * 
+	 * @param start 起始ID(包含)
+	 * @param end 结束ID(不包含)
+	 */
+	public IdSegment(long start, long end) {
+		if (end <= start) {
+			throw new IllegalArgumentException("end must be greater than start: [" + start + ", " + end + ")");
+		}
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * 获取起始ID(包含)
+	 * @return 起始ID
+	 */
+	public long getStart() {
+		return this.start;
+	}
+
+	/**
+	 * 获取结束ID(不包含)
+	 * @return 结束ID
+	 */
+	public long getEnd() {
+		return this.end;
+	}
+
+	/**
+	 * 获取号段长度
+	 * @return 长度
+	 */
+	public long size() {
+		return this.end - this.start;
+	}
+
+	@Override
+	public String toString() {
+		return "IdSegment [" + this.start + ", " + this.end + ")";
+	}
+}
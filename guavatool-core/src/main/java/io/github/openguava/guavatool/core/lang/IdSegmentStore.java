@@ -0,0 +1,18 @@
+package io.github.openguava.guavatool.core.lang;
+
+/**
+ * ID号段存储，负责持久化每个业务键已分配的最大ID，供{@link SegmentIdGenerator}租用号段
+ * @author openguava
+ *
+ */
+public interface IdSegmentStore {
+
+	/**
+	 * 原子地租用下一个号段，同一业务键的号段之间不能重叠
+	 * 
+	 * @param key 业务键
+	 * @param step 号段长度
+	 * @return 号段
+	 */
+	IdSegment nextSegment(String key, int step);
+}
@@ -0,0 +1,306 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openguava.guavatool.core.exception.UtilException;
+
+/**
+ * 号段ID生成器(双缓冲)<br>
+ * 从{@link IdSegmentStore}一次租用一段连续ID(默认10000个)在内存中分配，生成的ID稠密且大致递增，适合作为按主键索引的表的ID。
+ * 当前号段消耗到{@link #setPrefetchRatio(double)}(默认70%)时在后台预取下一号段，预取未能提交时之后的每次分配都会重试，
+ * 当前号段用完后直接切换，因此正常情况下{@link #nextId()}不会等待数据库；只有预取尚未完成时才会等待。
+ * <p>
+ * 应用重启或预取的号段未用完时，剩余ID会被跳过，ID可能不连续。
+ * @author openguava
+ *
+ */
+public class SegmentIdGenerator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SegmentIdGenerator.class);
+
+	/** 默认号段长度 */
+	public static final int DEFAULT_STEP = 10000;
+
+	/** 默认预取比例 */
+	public static final double DEFAULT_PREFETCH_RATIO = 0.7;
+
+	/** 号段存储 */
+	private final IdSegmentStore store;
+
+	/** 业务键 */
+	private final String key;
+
+	/** 号段长度 */
+	private final int step;
+
+	/** 预取比例，当前号段消耗到此比例时预取下一号段 */
+	private volatile double prefetchRatio = DEFAULT_PREFETCH_RATIO;
+
+	/** 当前号段 */
+	private volatile Buffer current;
+
+	/** 预取中或已预取的下一号段 */
+	private volatile Future<IdSegment> next;
+
+	/** 切换锁 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** 是否有线程正在提交预取 */
+	private final AtomicBoolean prefetching = new AtomicBoolean();
+
+	/** 统计计数器，{@code null}表示不统计 */
+	private volatile IdGeneratorStatsCounter statsCounter;
+
+	/**
+	 * 构造，使用默认号段长度
+	 *
+	 * @param store 号段存储
+	 * @param key 业务键
+	 */
+	public SegmentIdGenerator(IdSegmentStore store, String key) {
+		this(store, key, DEFAULT_STEP);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param store 号段存储
+	 * @param key 业务键
+	 * @param step 号段长度
+	 */
+	public SegmentIdGenerator(IdSegmentStore store, String key, int step) {
+		if (store == null || key == null) {
+			throw new IllegalArgumentException("store and key cannot be null.");
+		}
+		if (step <= 0) {
+			throw new IllegalArgumentException("step must be greater than 0");
+		}
+		this.store = store;
+		this.key = key;
+		this.step = step;
+	}
+
+	public String getKey() {
+		return this.key;
+	}
+
+	public int getStep() {
+		return this.step;
+	}
+
+	public double getPrefetchRatio() {
+		return this.prefetchRatio;
+	}
+
+	/**
+	 * 设置预取比例
+	 *
+	 * @param prefetchRatio 预取比例(0~1]，当前号段消耗到此比例时预取下一号段
+	 * @return this
+	 */
+	public SegmentIdGenerator setPrefetchRatio(double prefetchRatio) {
+		if (prefetchRatio <= 0 || prefetchRatio > 1) {
+			throw new IllegalArgumentException("prefetchRatio must be in (0, 1]");
+		}
+		this.prefetchRatio = prefetchRatio;
+		return this;
+	}
+
+	/**
+	 * 设置统计计数器，统计生成个数、号段用尽次数和号段用尽后等待切换的耗时
+	 *
+	 * @param statsCounter 统计计数器，{@code null}表示不统计
+	 * @return this
+	 */
+	public SegmentIdGenerator setStatsCounter(IdGeneratorStatsCounter statsCounter) {
+		this.statsCounter = statsCounter;
+		return this;
+	}
+
+	/**
+	 * 获取统计快照
+	 *
+	 * @return 统计快照，未设置统计计数器时返回{@link IdGeneratorStats#EMPTY}
+	 */
+	public IdGeneratorStats getStats() {
+		IdGeneratorStatsCounter counter = this.statsCounter;
+		return counter == null ? IdGeneratorStats.EMPTY : counter.snapshot();
+	}
+
+	/**
+	 * 下一个ID
+	 *
+	 * @return ID
+	 */
+	public long nextId() {
+		for (;;) {
+			Buffer buffer = this.current;
+			if (buffer != null) {
+				long id = buffer.cursor.getAndIncrement();
+				if (id < buffer.end) {
+					if (id >= buffer.prefetchAt && this.next == null) {
+						this.prefetch(buffer);
+					}
+					IdGeneratorStatsCounter counter = this.statsCounter;
+					if (counter != null) {
+						counter.recordGenerated(1);
+					}
+					return id;
+				}
+			}
+			IdGeneratorStatsCounter counter = this.statsCounter;
+			if (counter == null) {
+				this.switchBuffer(buffer);
+			} else {
+				long start = System.nanoTime();
+				this.switchBuffer(buffer);
+				counter.recordWait(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * 在后台预取下一号段，其他线程正在提交预取、号段已切换或已有预取时直接返回
+	 *
+	 * @param buffer 触发预取的号段
+	 */
+	private void prefetch(Buffer buffer) {
+		if (!this.prefetching.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			if (this.next != null || this.current != buffer) {
+				return;
+			}
+			FutureTask<IdSegment> task = new FutureTask<>(new Callable<IdSegment>() {
+				@Override
+				public IdSegment call() throws Exception {
+					return load();
+				}
+			});
+			try {
+				PrefetchExecutorHolder.INSTANCE.execute(task);
+				this.next = task;
+			} catch (RejectedExecutionException e) {
+				// 线程池繁忙，下次分配时重试，号段用完时同步加载
+				LOGGER.debug(e.getMessage(), e);
+			}
+		} finally {
+			this.prefetching.set(false);
+		}
+	}
+
+	/**
+	 * 当前号段用完后切换到下一号段，没有预取或预取失败时同步加载
+	 *
+	 * @param exhausted 已用完的号段
+	 */
+	private void switchBuffer(Buffer exhausted) {
+		this.lock.lock();
+		try {
+			if (this.current != exhausted) {
+				// 其他线程已切换
+				return;
+			}
+			IdSegment segment = null;
+			Future<IdSegment> future = this.next;
+			this.next = null;
+			if (future != null) {
+				try {
+					segment = future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new UtilException(e, "interrupted while waiting id segment: {}", this.key);
+				} catch (ExecutionException e) {
+					LOGGER.warn(e.getMessage(), e.getCause());
+				}
+			}
+			if (segment == null) {
+				segment = this.load();
+			}
+			IdGeneratorStatsCounter counter = this.statsCounter;
+			if (counter != null && exhausted != null) {
+				counter.recordExhausted();
+			}
+			this.current = new Buffer(segment, this.prefetchRatio);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 从存储租用号段
+	 *
+	 * @return 号段
+	 */
+	private IdSegment load() {
+		IdSegment segment;
+		try {
+			segment = this.store.nextSegment(this.key, this.step);
+		} catch (RuntimeException e) {
+			throw new UtilException(e, "load id segment failed: {}", this.key);
+		}
+		if (segment == null) {
+			throw new UtilException("load id segment failed: {}", this.key);
+		}
+		return segment;
+	}
+
+	/**
+	 * 号段缓冲
+	 */
+	private static final class Buffer {
+
+		/** 下一个待分配的ID */
+		private final AtomicLong cursor;
+
+		/** 结束ID(不包含) */
+		private final long end;
+
+		/** 分配到此ID时触发预取 */
+		private final long prefetchAt;
+
+		private Buffer(IdSegment segment, double prefetchRatio) {
+			this.cursor = new AtomicLong(segment.getStart());
+			this.end = segment.getEnd();
+			this.prefetchAt = segment.getStart() + Math.min(segment.size() - 1, (long) (segment.size() * prefetchRatio));
+		}
+	}
+
+	/**
+	 * 共享的预取线程池，守护线程
+	 */
+	private static class PrefetchExecutorHolder {
+
+		private static final ThreadPoolExecutor INSTANCE;
+
+		static {
+			int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+			final AtomicInteger threadNumber = new AtomicInteger();
+			INSTANCE = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(1000), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "IdSegment Prefetch-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			INSTANCE.allowCoreThreadTimeOut(true);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package io.github.openguava.guavatool.core.lang;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
 /**
  * Twitter的Snowflake 算法<br>
  * 分布式系统中，有一些需要使用全局唯一ID的场景，有些时候我们希望能使用一种简单一些的ID，并且希望ID能够按照时间有序生成。
@@ -14,6 +17,16 @@ package io.github.openguava.guavatool.core.lang;
  * 第一位为未使用，接下来的41位为毫秒级时间(41位的长度可以使用69年)<br>
  * 然后是5位datacenterId和5位workerId(10位的长度最多支持部署1024个节点）<br>
  * 最后12位是毫秒内的计数（12位的计数顺序号支持每个节点每毫秒产生4096个ID序号）
+ * <p>
+ * 生成器无锁，上次时间和序号打包在一个{@link AtomicLong}中通过CAS推进，同一生成器产生的ID唯一且单调递增。
+ * <p>
+ * 时钟回拨处理：回拨不超过{@link #setMaxBackwardWait(long)}时等待时钟追上；更大的回拨，
+ * 若构造时从12位序号中预留了时钟序列位，则时钟序列加一后从当前时间继续生成(此后ID不再单调，但仍唯一)，否则抛出异常。
+ * 时钟序列共{@code 2^clockSequenceBits}个，循环使用；加一后的时钟序列此前用到的时间不早于当前时间时(即反复回拨用尽了时钟序列)同样抛出异常。
+ * <p>
+ * 设置{@link #setWorkerIdGuard(WorkerIdGuard)}后每次预留序号前检查机器标识是否仍归本节点所有，失效时抛出异常。
+ * <p>
+ * 设置{@link #setStatsCounter(IdGeneratorStatsCounter)}后统计生成速率、序号用尽次数、等待耗时直方图，以及时钟回拨次数、最大回拨毫秒数和借用时钟序列、拒绝生成的次数。
  * @author openguava
  */
 public class Snowflake {
@@ -29,6 +42,9 @@ public class Snowflake {
 	/** 默认数据中心占用的位数 */
 	private final static long DEFAULT_DATACENTERIDBITS = 5L;
 	
+	/** 默认时钟回拨最大等待毫秒数 */
+	private final static long DEFAULT_MAX_BACKWARD_WAIT = 10L;
+	
 	//private final long twepoch = 1288834974657L;
 	/** twepoch */
 	private long twepoch;
@@ -51,8 +67,24 @@ public class Snowflake {
 	
 	private long workerId;
 	private long datacenterId;
-	private long sequence = 0L;
-	private long lastTimestamp = -1L;
+	/** 数据中心和机器标识部分，构造时计算 */
+	private long nodeBits;
+	/** 时钟序列占用的位数，从12位序号的高位中预留 */
+	private long clockSequenceBits;
+	/** 毫秒内计数掩码 */
+	private long counterMask;
+	/** 时钟序列掩码(已左移到序号高位) */
+	private long clockSequenceMask;
+	/** 生成状态，高位为上次的相对时间(相对twepoch)，低12位为时钟序列和毫秒内计数 */
+	private final AtomicLong state = new AtomicLong();
+	/** 时钟回拨最大等待毫秒数 */
+	private volatile long maxBackwardWait = DEFAULT_MAX_BACKWARD_WAIT;
+	/** 每个时钟序列用到的最大相对时间，借用时钟序列时记录被放弃的序列 */
+	private final AtomicLongArray clockSequenceHighWater;
+	/** 统计计数器，{@code null}表示不统计 */
+	private volatile IdGeneratorStatsCounter statsCounter;
+	/** 机器标识守卫，{@code null}表示不检查 */
+	private volatile WorkerIdGuard workerIdGuard;
 
 	/**
 	 * 构造
@@ -84,6 +116,27 @@ public class Snowflake {
 	 * @param startTimestamp 开始时间戳(写代码时间)
 	 */
 	public Snowflake(long workerId, long datacenterId, long workerIdBits, long datacenterIdBits, long startTimestamp) {
+		this(workerId, datacenterId, workerIdBits, datacenterIdBits, startTimestamp, 0L);
+	}
+	
+	/**
+	 * 构造
+	 * 
+	 * @param workerId 终端ID(0~31)
+	 * @param datacenterId 数据中心ID(0~31)
+	 * @param workerIdBits 机器标识占用的位数(默认5L)
+	 * @param datacenterIdBits 数据中心占用的位数(默认5L)
+	 * @param startTimestamp 开始时间戳(写代码时间)
+	 * @param clockSequenceBits 时钟序列占用的位数(0~11)，从12位序号中预留，用于较大时钟回拨后继续生成，{@code 0}表示不预留
+	 */
+	public Snowflake(long workerId, long datacenterId, long workerIdBits, long datacenterIdBits, long startTimestamp, long clockSequenceBits) {
+		if (clockSequenceBits < 0 || clockSequenceBits >= sequenceBits) {
+			throw new IllegalArgumentException("clock sequence bits can't be greater than " + (sequenceBits - 1) + " or less than 0");
+		}
+		this.clockSequenceBits = clockSequenceBits;
+		this.counterMask = -1L ^ (-1L << (sequenceBits - clockSequenceBits));
+		this.clockSequenceMask = sequenceMask ^ counterMask;
+		this.clockSequenceHighWater = new AtomicLongArray(1 << clockSequenceBits);
 		this.workerId = workerId;
 		this.datacenterId = datacenterId;
 		//this.workerIdBits = workerIdBits;
@@ -99,6 +152,7 @@ public class Snowflake {
 		if (datacenterId > maxDatacenterId || datacenterId < 0) {
 			throw new IllegalArgumentException("datacenter Id can't be greater than " + maxDatacenterId + " or less than 0");
 		}
+		this.nodeBits = (datacenterId << datacenterIdShift) | (workerId << workerIdShift);
 	}
 
 	/**
@@ -106,24 +160,247 @@ public class Snowflake {
 	 * 
 	 * @return ID
 	 */
-	public synchronized long nextId() {
-		long timestamp = genTime();
-		if (timestamp < lastTimestamp) {
-			 //如果服务器时间有问题(时钟后退) 报错。
-			throw new IllegalStateException("Clock moved backwards. Refusing to generate id for " + (lastTimestamp - timestamp) + "ms");
-		}
-		if (lastTimestamp == timestamp) {
-			sequence = (sequence + 1) & sequenceMask;
-			if (sequence == 0) {
-				timestamp = tilNextMillis(lastTimestamp);
+	public long nextId() {
+		return toId(reserve(1));
+	}
+
+	/**
+	 * 批量生成ID，一次预留当前毫秒内连续的一段序号，序号用尽时进入下一毫秒
+	 * 
+	 * @param n 个数
+	 * @return ID数组，单调递增
+	 */
+	public long[] nextIds(int n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("n can't be less than 0");
+		}
+		long[] ids = new long[n];
+		nextIds(ids, 0, n);
+		return ids;
+	}
+
+	/**
+	 * 批量生成ID填充到数组
+	 * 
+	 * @param ids 数组
+	 */
+	public void nextIds(long[] ids) {
+		nextIds(ids, 0, ids.length);
+	}
+
+	/**
+	 * 批量生成ID填充到数组的指定区间，一次预留当前毫秒内连续的一段序号，序号用尽时进入下一毫秒
+	 * 
+	 * @param ids 数组
+	 * @param offset 起始位置
+	 * @param length 个数
+	 */
+	public void nextIds(long[] ids, int offset, int length) {
+		if (ids == null) {
+			throw new IllegalArgumentException("ids cannot be null.");
+		}
+		if (offset < 0 || length < 0 || offset + length > ids.length) {
+			throw new IllegalArgumentException("offset and length out of bounds: " + offset + ", " + length);
+		}
+		int filled = 0;
+		while (filled < length) {
+			long first = reserve(length - filled);
+			int count = reservedCount(first, length - filled);
+			long id = toId(first);
+			for (int i = 0; i < count; i++) {
+				ids[offset + filled + i] = id + i;
 			}
-		} else {
-			sequence = 0L;
+			filled += count;
 		}
+	}
+
+	/**
+	 * 设置时钟回拨最大等待毫秒数，回拨不超过此值时等待时钟追上
+	 * 
+	 * @param maxBackwardWait 最大等待毫秒数，{@code 0}表示不等待
+	 * @return this
+	 */
+	public Snowflake setMaxBackwardWait(long maxBackwardWait) {
+		if (maxBackwardWait < 0) {
+			throw new IllegalArgumentException("maxBackwardWait can't be less than 0");
+		}
+		this.maxBackwardWait = maxBackwardWait;
+		return this;
+	}
 
-		lastTimestamp = timestamp;
+	public long getMaxBackwardWait() {
+		return this.maxBackwardWait;
+	}
 
-		return ((timestamp - twepoch) << timestampLeftShift) | (datacenterId << datacenterIdShift) | (workerId << workerIdShift) | sequence;
+	/**
+	 * 设置统计计数器，统计生成个数、序号用尽次数、等待下一毫秒和等待时钟回拨的耗时及回拨次数
+	 * 
+	 * @param statsCounter 统计计数器，{@code null}表示不统计
+	 * @return this
+	 */
+	public Snowflake setStatsCounter(IdGeneratorStatsCounter statsCounter) {
+		this.statsCounter = statsCounter;
+		return this;
+	}
+
+	/**
+	 * 设置机器标识守卫，如{@link WorkerIdLease}，机器标识失效后拒绝生成
+	 * 
+	 * @param workerIdGuard 机器标识守卫，{@code null}表示不检查
+	 * @return this
+	 */
+	public Snowflake setWorkerIdGuard(WorkerIdGuard workerIdGuard) {
+		this.workerIdGuard = workerIdGuard;
+		return this;
+	}
+
+	/**
+	 * 获取统计快照，据此可判断生成速率是否接近每毫秒{@code 2^序号位数}个的上限
+	 * 
+	 * @return 统计快照，未设置统计计数器时返回{@link IdGeneratorStats#EMPTY}
+	 */
+	public IdGeneratorStats getStats() {
+		IdGeneratorStatsCounter counter = this.statsCounter;
+		return counter == null ? IdGeneratorStats.EMPTY : counter.snapshot();
+	}
+
+	/**
+	 * 预留当前毫秒内连续的一段序号
+	 * 
+	 * @param wanted 需要的个数，实际预留个数见{@link #reservedCount(long, int)}
+	 * @return 预留的第一个生成状态
+	 */
+	private long reserve(int wanted) {
+		for (;;) {
+			long current = this.state.get();
+			long lastTimestamp = current >>> sequenceBits;
+			long now = genTime();
+			WorkerIdGuard guard = this.workerIdGuard;
+			if (guard != null && !guard.isValid(now)) {
+				throw new IllegalStateException("Worker id " + workerId + " of datacenter " + datacenterId + " is no longer owned. Refusing to generate id");
+			}
+			long timestamp = now - twepoch;
+			long first;
+			if (timestamp > lastTimestamp) {
+				first = (timestamp << sequenceBits) | (current & clockSequenceMask);
+			} else if (timestamp == lastTimestamp) {
+				if ((current & counterMask) == counterMask) {
+					// 当前毫秒序号用尽，等待下一毫秒后重试
+					IdGeneratorStatsCounter counter = this.statsCounter;
+					if (counter == null) {
+						tilNextMillis(lastTimestamp + twepoch);
+					} else {
+						long start = System.nanoTime();
+						tilNextMillis(lastTimestamp + twepoch);
+						counter.recordWait(System.nanoTime() - start);
+					}
+					continue;
+				}
+				first = current + 1;
+			} else {
+				first = onClockBackwards(current, lastTimestamp, timestamp);
+				if (first < 0) {
+					continue;
+				}
+			}
+			int count = reservedCount(first, wanted);
+			if (this.state.compareAndSet(current, first + count - 1)) {
+				IdGeneratorStatsCounter counter = this.statsCounter;
+				if (counter != null) {
+					counter.recordGenerated(count);
+					// 只由占用最后一个序号的线程记录用尽，等待中的线程不重复记录
+					if (((first + count - 1) & counterMask) == counterMask) {
+						counter.recordExhausted();
+					}
+				}
+				return first;
+			}
+		}
+	}
+
+	/**
+	 * 从第一个生成状态开始当前毫秒内可预留的个数
+	 * 
+	 * @param first 第一个生成状态
+	 * @param wanted 需要的个数
+	 * @return 个数
+	 */
+	private int reservedCount(long first, int wanted) {
+		return (int) Math.min(counterMask - (first & counterMask) + 1, wanted);
+	}
+
+	/**
+	 * 处理时钟回拨
+	 * 
+	 * @param current 当前生成状态
+	 * @param lastTimestamp 上次的相对时间
+	 * @param timestamp 当前的相对时间
+	 * @return 借用时钟序列后的第一个生成状态，已等待需要重试时返回{@code -1}
+	 */
+	private long onClockBackwards(long current, long lastTimestamp, long timestamp) {
+		long offset = lastTimestamp - timestamp;
+		IdGeneratorStatsCounter counter = this.statsCounter;
+		if (counter != null) {
+			counter.recordRollback(offset);
+		}
+		if (offset <= this.maxBackwardWait) {
+			long start = System.nanoTime();
+			try {
+				Thread.sleep(offset);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for clock moved backwards " + offset + "ms", e);
+			}
+			if (counter != null) {
+				counter.recordWait(System.nanoTime() - start);
+			}
+			return -1;
+		}
+		if (clockSequenceBits > 0) {
+			// 记录放弃的时钟序列用到的时间，循环回到该序列时据此判断是否会重复
+			int shift = (int) (sequenceBits - clockSequenceBits);
+			updateHighWater((int) ((current & clockSequenceMask) >>> shift), lastTimestamp);
+			long clockSequence = (current + (counterMask + 1)) & clockSequenceMask;
+			if (this.clockSequenceHighWater.get((int) (clockSequence >>> shift)) < timestamp) {
+				// 借用时钟序列，从当前时间重新开始计数
+				if (counter != null) {
+					counter.recordRollbackBorrow();
+				}
+				return (timestamp << sequenceBits) | clockSequence;
+			}
+			if (counter != null) {
+				counter.recordRollbackReject();
+			}
+			throw new IllegalStateException("Clock moved backwards and all " + (1 << clockSequenceBits) + " clock sequences are in use. Refusing to generate id for " + offset + "ms");
+		}
+		if (counter != null) {
+			counter.recordRollbackReject();
+		}
+		//如果服务器时间有问题(时钟后退) 报错。
+		throw new IllegalStateException("Clock moved backwards. Refusing to generate id for " + offset + "ms");
+	}
+
+	/**
+	 * 更新时钟序列用到的最大相对时间
+	 * 
+	 * @param clockSequence 时钟序列
+	 * @param timestamp 相对时间
+	 */
+	private void updateHighWater(int clockSequence, long timestamp) {
+		long max;
+		while (timestamp > (max = this.clockSequenceHighWater.get(clockSequence)) && !this.clockSequenceHighWater.compareAndSet(clockSequence, max, timestamp)) {
+			// 重试直到更新最大值
+		}
+	}
+
+	/**
+	 * 将生成状态转换为ID
+	 * 
+	 * @param state 生成状态
+	 * @return ID
+	 */
+	private long toId(long state) {
+		return ((state >>> sequenceBits) << timestampLeftShift) | nodeBits | (state & sequenceMask);
 	}
 
 	/**
@@ -135,6 +412,7 @@ public class Snowflake {
 	private long tilNextMillis(long lastTimestamp) {
 		long timestamp = genTime();
 		while (timestamp <= lastTimestamp) {
+			SpinWait.onSpinWait();
 			timestamp = genTime();
 		}
 		return timestamp;
@@ -145,7 +423,7 @@ public class Snowflake {
 	 * @return 时间戳
 	 */
 	private long genTime() {
-		return System.currentTimeMillis();
+		return SystemClock.now();
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,21 @@
+package io.github.openguava.guavatool.core.lang;
+
+/**
+ * 自旋等待提示，供{@link Snowflake}等忙等待循环使用<br>
+ * Java 7没有对应的API，此实现为空操作；Java 11及以上运行时使用多版本JAR中{@code META-INF/versions/11}下调用{@code Thread.onSpinWait()}的实现，
+ * 修改时需同步修改{@code src/main/java11}下的同名类。
+ * @author openguava
+ *
+ */
+final class SpinWait {
+
+	private SpinWait() {
+	}
+
+	/**
+	 * 提示当前线程正在自旋等待
+	 */
+	static void onSpinWait() {
+		// Java 7没有自旋提示
+	}
+}
@@ -1,12 +1,11 @@
 package io.github.openguava.guavatool.core.lang;
 
 import java.sql.Timestamp;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 高并发场景下System.currentTimeMillis()的性能问题的优化
@@ -18,48 +17,277 @@ import java.util.concurrent.atomic.AtomicLong;
  * 1亿：4699,29,162.0344827586207%<p>
  * 1000万：480,12,40.0%<p>
  * 100万：50,10,5.0%<p>
+ * 精度模式见{@link Precision}；后台线程在首次读取时启动，空闲(超过{@link #setIdleTimeout(long)}无读取)时自动暂停，再次读取时恢复。
+ * 暂停或关闭期间读取直接调用System.currentTimeMillis()。Snowflake和缓存过期均通过{@link #now()}读取时间。
+ * <p>
+ * 默认时钟的精度由系统属性{@value #PRECISION_PROPERTY}指定(首次使用时读取一次，取值为{@link Precision}的名称，默认{@link Precision#MILLIS})，
+ * 也可通过{@link #setDefault(SystemClock)}替换。
  */
 public class SystemClock {
-	
+
+    /** 默认时钟精度的系统属性名 */
+    public static final String PRECISION_PROPERTY = "guavatool.systemClock.precision";
+
+    /** 默认空闲暂停时长，单位毫秒 */
+    public static final long DEFAULT_IDLE_TIMEOUT = 10000L;
+
+    /**
+     * 时钟精度模式
+     */
+    public enum Precision {
+
+        /** 后台线程每1毫秒更新 */
+        MILLIS(1),
+
+        /** 后台线程每10毫秒更新，开销更低，适合缓存过期等对精度不敏感的场景 */
+        TEN_MILLIS(10),
+
+        /** 由System.nanoTime()推算，无后台线程且单调递增，长时间运行会与系统时间产生少量偏差 */
+        NANO(0);
+
+        private final long period;
+
+        private Precision(long period) {
+            this.period = period;
+        }
+
+        public long getPeriod() {
+            return this.period;
+        }
+    }
+
+    private final Precision precision;
+
     private final long period;
-    
-    private final AtomicLong now;
-    
-    ExecutorService executor = Executors.newSingleThreadExecutor();
 
-    private SystemClock(long period) {
-        this.period = period;
-        this.now = new AtomicLong(System.currentTimeMillis());
-        scheduleClockUpdating();
+    /** 最近一次更新的时间 */
+    private volatile long now;
+
+    /** NANO模式的起始系统时间 */
+    private final long baseMillis;
+
+    /** NANO模式的起始nanoTime */
+    private final long baseNanos;
+
+    /** 空闲暂停时长，{@code 0}表示不自动暂停 */
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    /** 自上次空闲检查以来是否有读取 */
+    private volatile boolean accessed;
+
+    /** 是否手动暂停 */
+    private volatile boolean paused;
+
+    /** 是否已关闭 */
+    private volatile boolean shutdown;
+
+    /** 更新线程，首次启动时创建 */
+    private ScheduledThreadPoolExecutor scheduler;
+
+    /** 更新任务，{@code null}表示未在更新 */
+    private volatile ScheduledFuture<?> ticker;
+
+    /**
+     * 构造
+     * @param precision 精度模式
+     */
+    public SystemClock(Precision precision) {
+        if (precision == null) {
+            throw new IllegalArgumentException("precision cannot be null.");
+        }
+        this.precision = precision;
+        this.period = precision.getPeriod();
+        this.baseMillis = System.currentTimeMillis();
+        this.baseNanos = System.nanoTime();
+        this.now = this.baseMillis;
+    }
+
+    /** 默认时钟 */
+    private static volatile SystemClock defaultClock;
+
+    /**
+     * 默认时钟，首次使用时按系统属性{@value #PRECISION_PROPERTY}创建，未指定时精度为1毫秒
+     * @return 默认时钟
+     */
+    public static SystemClock getDefault() {
+        SystemClock clock = defaultClock;
+        if (clock != null) {
+            return clock;
+        }
+        synchronized (SystemClock.class) {
+            if (defaultClock == null) {
+                defaultClock = new SystemClock(defaultPrecision());
+            }
+            return defaultClock;
+        }
     }
 
-    private static class InstanceHolder {
-        public static final SystemClock INSTANCE = new SystemClock(1);
+    /**
+     * 替换默认时钟，之后{@link #now()}及Snowflake、缓存过期等通过默认时钟读取时间的组件都使用新时钟。
+     * 原时钟不会被关闭，空闲后自动暂停。
+     * @param clock 时钟
+     */
+    public static void setDefault(SystemClock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock cannot be null.");
+        }
+        defaultClock = clock;
     }
 
-    private static SystemClock instance() {
-        return InstanceHolder.INSTANCE;
+    /**
+     * 读取系统属性指定的默认精度
+     * @return 精度模式
+     */
+    private static Precision defaultPrecision() {
+        String value = System.getProperty(PRECISION_PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            return Precision.MILLIS;
+        }
+        try {
+            return Precision.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + PRECISION_PROPERTY + ": " + value, e);
+        }
     }
 
-    private void scheduleClockUpdating() {
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable runnable) {
-                Thread thread = new Thread(runnable, "System Clock");
-                thread.setDaemon(true);
-                return thread;
+    public Precision getPrecision() {
+        return this.precision;
+    }
+
+    public long getIdleTimeout() {
+        return this.idleTimeout;
+    }
+
+    /**
+     * 设置空闲暂停时长
+     * @param idleTimeout 超过此时长无读取时暂停更新，单位毫秒，{@code 0}表示不自动暂停
+     * @return this
+     */
+    public SystemClock setIdleTimeout(long idleTimeout) {
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("idleTimeout can't be less than 0");
+        }
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * 是否正在后台更新
+     * @return 是否正在更新
+     */
+    public boolean isTicking() {
+        return this.ticker != null;
+    }
+
+    /**
+     * 当前时间戳
+     * @return 时间戳
+     */
+    public long currentTimeMillis() {
+        if (this.period == 0) {
+            return this.baseMillis + (System.nanoTime() - this.baseNanos) / 1000000L;
+        }
+        if (!this.accessed) {
+            this.accessed = true;
+        }
+        if (this.ticker != null) {
+            return this.now;
+        }
+        if (!this.paused && !this.shutdown) {
+            this.startTicking();
+            // 启动后同样返回缓存时间：后台线程未及时更新时，直接读取的系统时间会晚于其他线程随后读到的缓存时间，表现为时间回退
+            if (this.ticker != null) {
+                return this.now;
             }
-        });
-        scheduler.scheduleAtFixedRate(new Runnable() {
+        }
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * 暂停后台更新，暂停期间读取直接调用System.currentTimeMillis()，直到{@link #resume()}
+     */
+    public synchronized void pause() {
+        this.paused = true;
+        this.stopTicking();
+    }
+
+    /**
+     * 恢复后台更新
+     */
+    public synchronized void resume() {
+        this.paused = false;
+        if (this.period > 0 && !this.shutdown) {
+            this.startTicking();
+        }
+    }
+
+    /**
+     * 关闭时钟并结束后台线程，关闭后读取直接调用System.currentTimeMillis()
+     */
+    public synchronized void shutdown() {
+        this.shutdown = true;
+        this.stopTicking();
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 启动后台更新
+     */
+    private synchronized void startTicking() {
+        if (this.ticker != null || this.paused || this.shutdown) {
+            return;
+        }
+        if (this.scheduler == null) {
+            this.scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "System Clock");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.scheduler.setRemoveOnCancelPolicy(true);
+            // 暂停后线程空闲退出
+            this.scheduler.setKeepAliveTime(this.period * 1000L, TimeUnit.MILLISECONDS);
+            this.scheduler.allowCoreThreadTimeOut(true);
+        }
+        this.now = System.currentTimeMillis();
+        this.accessed = false;
+        this.ticker = this.scheduler.scheduleAtFixedRate(new Runnable() {
+
+            private long idle;
+
             @Override
             public void run() {
-                now.set(System.currentTimeMillis());
+                now = System.currentTimeMillis();
+                long timeout = idleTimeout;
+                if (timeout <= 0) {
+                    return;
+                }
+                idle += period;
+                if (idle >= timeout) {
+                    idle = 0;
+                    if (!accessed) {
+                        stopTicking();
+                    }
+                    accessed = false;
+                }
             }
-        }, period, period, TimeUnit.MILLISECONDS);
+        }, this.period, this.period, TimeUnit.MILLISECONDS);
     }
 
-    private long currentTimeMillis() {
-        return now.get();
+    /**
+     * 停止后台更新
+     */
+    private synchronized void stopTicking() {
+        ScheduledFuture<?> future = this.ticker;
+        if (future != null) {
+            this.ticker = null;
+            future.cancel(false);
+        }
     }
 
     /**
@@ -67,10 +295,10 @@ public class SystemClock {
      * @return
      */
     public static long now() {
-        return instance().currentTimeMillis();
+        return getDefault().currentTimeMillis();
     }
 
     public static String nowDate() {
-        return new Timestamp(instance().currentTimeMillis()).toString();
+        return new Timestamp(getDefault().currentTimeMillis()).toString();
     }
-}
\ No newline at end of file
+}
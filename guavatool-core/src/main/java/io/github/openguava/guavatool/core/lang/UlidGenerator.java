@@ -0,0 +1,122 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ULID生成器，无需分配机器标识即可全局唯一，文本形式为26个{@link Crockford32}字符，字典序即时间顺序<br>
+ * 结构：48位毫秒时间戳、80位随机数。同一毫秒内(或时钟回拨时)不重新取随机数，而是将上一个ULID的随机部分加一，
+ * 因此同一生成器产生的ULID严格单调递增；随机部分加一溢出时进位到时间戳，即提前使用下一毫秒。
+ * <p>
+ * 随机数取自{@link ThreadLocalRandom}，{@link #next(char[], int)}直接写入调用方提供的字符数组，复用数组时不产生临时对象。
+ * @author openguava
+ *
+ */
+public class UlidGenerator {
+
+	/** 文本长度 */
+	public static final int LENGTH = Crockford32.LENGTH_128;
+
+	/** 上次的毫秒时间戳 */
+	private long lastTime;
+
+	/** 上次随机部分的高16位 */
+	private long lastRandomHigh;
+
+	/** 上次随机部分的低64位 */
+	private long lastRandomLow;
+
+	/** 统计计数器，{@code null}表示不统计 */
+	private volatile IdGeneratorStatsCounter statsCounter;
+
+	/**
+	 * 设置统计计数器，统计生成个数和随机部分溢出(进位到下一毫秒)的次数
+	 * @param statsCounter 统计计数器，{@code null}表示不统计
+	 * @return this
+	 */
+	public UlidGenerator setStatsCounter(IdGeneratorStatsCounter statsCounter) {
+		this.statsCounter = statsCounter;
+		return this;
+	}
+
+	/**
+	 * 获取统计快照
+	 * @return 统计快照，未设置统计计数器时返回{@link IdGeneratorStats#EMPTY}
+	 */
+	public IdGeneratorStats getStats() {
+		IdGeneratorStatsCounter counter = this.statsCounter;
+		return counter == null ? IdGeneratorStats.EMPTY : counter.snapshot();
+	}
+
+	/**
+	 * 下一个ULID
+	 * @return 26个字符
+	 */
+	public String next() {
+		char[] buf = new char[LENGTH];
+		this.next(buf, 0);
+		return new String(buf);
+	}
+
+	/**
+	 * 将下一个ULID写入字符数组
+	 * @param buf 字符数组
+	 * @param offset 开始位置，写入{@link #LENGTH}个字符
+	 */
+	public void next(char[] buf, int offset) {
+		Base62.checkBounds(buf, offset, LENGTH);
+		long high;
+		long low;
+		synchronized (this) {
+			this.advance();
+			high = (this.lastTime << 16) | this.lastRandomHigh;
+			low = this.lastRandomLow;
+		}
+		Crockford32.encode(high, low, buf, offset);
+	}
+
+	/**
+	 * 下一个ULID的二进制形式，以{@link UUID}表示，适合存入UUID类型的列
+	 * @return UUID，不带版本号和变体
+	 */
+	public UUID nextUUID() {
+		synchronized (this) {
+			this.advance();
+			return new UUID((this.lastTime << 16) | this.lastRandomHigh, this.lastRandomLow);
+		}
+	}
+
+	/**
+	 * 获取ULID中的毫秒时间戳
+	 * @param ulid ULID
+	 * @return 毫秒时间戳
+	 */
+	public static long timestamp(CharSequence ulid) {
+		return Crockford32.decode128(ulid)[0] >>> 16;
+	}
+
+	/**
+	 * 推进到下一个ULID，调用方需持有锁
+	 */
+	private void advance() {
+		IdGeneratorStatsCounter counter = this.statsCounter;
+		if (counter != null) {
+			counter.recordGenerated(1);
+		}
+		long now = SystemClock.now();
+		if (now > this.lastTime) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			this.lastTime = now;
+			this.lastRandomHigh = random.nextInt() & 0xFFFFL;
+			this.lastRandomLow = random.nextLong();
+			return;
+		}
+		// 同一毫秒或时钟回拨，随机部分加一
+		if (++this.lastRandomLow == 0 && (this.lastRandomHigh = (this.lastRandomHigh + 1) & 0xFFFFL) == 0) {
+			this.lastTime++;
+			if (counter != null) {
+				counter.recordExhausted();
+			}
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package io.github.openguava.guavatool.core.lang;
+
+/**
+ * {@link Snowflake}机器标识守卫<br>
+ * 生成器每次预留序号前检查机器标识在该时间是否仍归本节点所有，不再归属时拒绝生成，避免与接管该标识的节点产生重复ID。
+ * @author openguava
+ *
+ */
+public interface WorkerIdGuard {
+
+	/**
+	 * 机器标识在指定时间是否仍归本节点所有
+	 *
+	 * @param timestamp 生成ID使用的时间戳，单位毫秒
+	 * @return 是否有效
+	 */
+	boolean isValid(long timestamp);
+}
@@ -0,0 +1,275 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.openguava.guavatool.core.exception.UtilException;
+
+/**
+ * {@link Snowflake}机器标识租约<br>
+ * 从{@link WorkerIdRegistry}中租用一个空闲标识，每1/3租约时长续期一次，JVM关闭或{@link #close()}时释放，
+ * 节点扩缩容时无需手工分配workerId和datacenterId。
+ * <p>
+ * 默认在{@code 0~1023}中租用，对应默认5位数据中心和5位机器标识，{@link #newSnowflake()}将其拆分后创建生成器。
+ * 续期失败时先尝试重新租用原标识，仍失败则视为租约丢失并记录错误日志。租约作为{@link WorkerIdGuard}，
+ * 上次续期成功(以发起续期时的{@link SystemClock#now()}计，与生成器使用同一时钟)后超过租约时长即失效，{@link #newSnowflake()}创建的生成器此后拒绝生成，
+ * 避免与接管该标识的节点产生重复ID；注册中心短暂不可用后续期恢复时生成器随之恢复，租约丢失后需重新{@link #acquire()}并创建生成器。
+ * @author openguava
+ *
+ */
+public class WorkerIdLease implements WorkerIdGuard, Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WorkerIdLease.class);
+
+	/** 默认最大标识，即10位 */
+	public static final long DEFAULT_MAX_WORKER_ID = 1023L;
+
+	/** 默认租约时长，单位毫秒 */
+	public static final long DEFAULT_LEASE_MILLIS = 30000L;
+
+	/** 注册中心 */
+	private final WorkerIdRegistry registry;
+
+	/** 最大标识 */
+	private final long maxWorkerId;
+
+	/** 租约时长，单位毫秒 */
+	private final long leaseMillis;
+
+	/** 持有者，进程名加随机后缀 */
+	private final String owner;
+
+	/** 租用的标识，未租用时为{@code -1} */
+	private volatile long workerId = -1L;
+
+	/** 租约是否有效 */
+	private volatile boolean leased;
+
+	/** 上次续期成功时间，取发起请求时的{@link SystemClock#now()}，与生成器校验租约使用同一时钟 */
+	private volatile long lastRenewTime;
+
+	/** 续期任务 */
+	private ScheduledFuture<?> heartbeat;
+
+	/** JVM关闭钩子 */
+	private Thread shutdownHook;
+
+	/**
+	 * 构造，使用默认标识范围和租约时长
+	 *
+	 * @param registry 注册中心
+	 */
+	public WorkerIdLease(WorkerIdRegistry registry) {
+		this(registry, DEFAULT_MAX_WORKER_ID, DEFAULT_LEASE_MILLIS);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param registry 注册中心
+	 * @param maxWorkerId 最大标识，在{@code 0~maxWorkerId}中租用
+	 * @param leaseMillis 租约时长，单位毫秒
+	 */
+	public WorkerIdLease(WorkerIdRegistry registry, long maxWorkerId, long leaseMillis) {
+		if (registry == null) {
+			throw new IllegalArgumentException("registry cannot be null.");
+		}
+		if (maxWorkerId < 0 || leaseMillis < 3) {
+			throw new IllegalArgumentException("maxWorkerId can't be less than 0 and leaseMillis can't be less than 3");
+		}
+		this.registry = registry;
+		this.maxWorkerId = maxWorkerId;
+		this.leaseMillis = leaseMillis;
+		this.owner = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	public long getWorkerId() {
+		return this.workerId;
+	}
+
+	public String getOwner() {
+		return this.owner;
+	}
+
+	public boolean isLeased() {
+		return this.leased;
+	}
+
+	/**
+	 * 租约在指定时间是否有效，即仍持有租约且未超过上次续期成功时间加租约时长
+	 */
+	@Override
+	public boolean isValid(long timestamp) {
+		return this.leased && timestamp - this.lastRenewTime < this.leaseMillis;
+	}
+
+	/**
+	 * 租用标识，从随机位置开始依次尝试，已租用时直接返回
+	 *
+	 * @return 标识
+	 */
+	public synchronized long acquire() {
+		if (this.leased) {
+			return this.workerId;
+		}
+		long count = this.maxWorkerId + 1;
+		long start = ThreadLocalRandom.current().nextLong(count);
+		for (long i = 0; i < count; i++) {
+			long id = (start + i) % count;
+			long requestTime = SystemClock.now();
+			if (this.registry.tryAcquire(id, this.owner, this.leaseMillis)) {
+				this.workerId = id;
+				this.lastRenewTime = requestTime;
+				this.leased = true;
+				this.startHeartbeat();
+				return id;
+			}
+		}
+		throw new UtilException("no free worker id in [0, {}]", this.maxWorkerId);
+	}
+
+	/**
+	 * 租用标识并创建{@link Snowflake}，标识低5位为workerId，高5位为datacenterId，生成器以本租约为{@link WorkerIdGuard}
+	 *
+	 * @return 生成器
+	 */
+	public Snowflake newSnowflake() {
+		if (this.maxWorkerId > DEFAULT_MAX_WORKER_ID) {
+			throw new IllegalStateException("maxWorkerId can't be greater than " + DEFAULT_MAX_WORKER_ID + " for default snowflake");
+		}
+		long id = this.acquire();
+		return new Snowflake(id & 31L, id >>> 5).setWorkerIdGuard(this);
+	}
+
+	/**
+	 * 停止续期并释放标识
+	 */
+	@Override
+	public synchronized void close() {
+		if (this.heartbeat != null) {
+			this.heartbeat.cancel(false);
+			this.heartbeat = null;
+		}
+		if (this.shutdownHook != null) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+			} catch (IllegalStateException e) {
+				// JVM正在关闭
+			}
+			this.shutdownHook = null;
+		}
+		if (this.workerId >= 0) {
+			try {
+				this.registry.release(this.workerId, this.owner);
+			} catch (RuntimeException e) {
+				LOGGER.warn(e.getMessage(), e);
+			}
+		}
+		this.leased = false;
+		this.workerId = -1L;
+	}
+
+	/**
+	 * 启动续期任务并注册JVM关闭钩子，租约丢失后重新租用时先取消原任务并移除原钩子
+	 */
+	private void startHeartbeat() {
+		if (this.heartbeat != null) {
+			this.heartbeat.cancel(false);
+		}
+		if (this.shutdownHook != null) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+			} catch (IllegalStateException e) {
+				// JVM正在关闭
+			}
+		}
+		long period = this.leaseMillis / 3;
+		this.heartbeat = HeartbeatExecutorHolder.INSTANCE.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				renew();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+		this.shutdownHook = new Thread("WorkerId Release") {
+			@Override
+			public void run() {
+				synchronized (WorkerIdLease.this) {
+					// 关闭期间不能移除钩子，直接释放
+					shutdownHook = null;
+				}
+				close();
+			}
+		};
+		Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+	}
+
+	/**
+	 * 续期，失败时尝试重新租用原标识
+	 */
+	private void renew() {
+		long id = this.workerId;
+		if (!this.leased || id < 0) {
+			return;
+		}
+		long requestTime = SystemClock.now();
+		try {
+			if (this.registry.renew(id, this.owner, this.leaseMillis) || this.registry.tryAcquire(id, this.owner, this.leaseMillis)) {
+				this.lastRenewTime = requestTime;
+				return;
+			}
+			this.onLeaseLost(id);
+		} catch (RuntimeException e) {
+			LOGGER.warn(e.getMessage(), e);
+			// 注册中心暂时不可用，超过租约时长仍未续期成功时视为丢失
+			if (SystemClock.now() - this.lastRenewTime > this.leaseMillis) {
+				this.onLeaseLost(id);
+			}
+		}
+	}
+
+	/**
+	 * 租约丢失
+	 *
+	 * @param id 标识
+	 */
+	private synchronized void onLeaseLost(long id) {
+		if (!this.leased || this.workerId != id) {
+			return;
+		}
+		this.leased = false;
+		if (this.heartbeat != null) {
+			this.heartbeat.cancel(false);
+			this.heartbeat = null;
+		}
+		LOGGER.error("worker id lease lost: {}, owner: {}", id, this.owner);
+	}
+
+	/**
+	 * 共享的续期线程池，守护线程
+	 */
+	private static class HeartbeatExecutorHolder {
+
+		private static final ScheduledThreadPoolExecutor INSTANCE;
+
+		static {
+			INSTANCE = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "WorkerId Heartbeat");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			INSTANCE.setRemoveOnCancelPolicy(true);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package io.github.openguava.guavatool.core.lang;
+
+/**
+ * 机器标识注册中心，供{@link WorkerIdLease}租用{@link Snowflake}的机器标识<br>
+ * 租约到期未续期的标识视为空闲，可被其他节点租用。
+ * @author openguava
+ *
+ */
+public interface WorkerIdRegistry {
+
+	/**
+	 * 尝试租用标识，标识空闲或已被同一持有者租用时成功
+	 * 
+	 * @param workerId 标识
+	 * @param owner 持有者
+	 * @param leaseMillis 租约时长，单位毫秒
+	 * @return 是否成功
+	 */
+	boolean tryAcquire(long workerId, String owner, long leaseMillis);
+
+	/**
+	 * 续期，仅当标识仍由持有者租用时成功
+	 * 
+	 * @param workerId 标识
+	 * @param owner 持有者
+	 * @param leaseMillis 租约时长，单位毫秒
+	 * @return 是否成功，失败表示租约已丢失
+	 */
+	boolean renew(long workerId, String owner, long leaseMillis);
+
+	/**
+	 * 释放标识，仅当标识由持有者租用时释放
+	 * 
+	 * @param workerId 标识
+	 * @param owner 持有者
+	 */
+	void release(long workerId, String owner);
+}
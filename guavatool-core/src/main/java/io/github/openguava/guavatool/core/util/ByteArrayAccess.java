@@ -0,0 +1,90 @@
+package io.github.openguava.guavatool.core.util;
+
+/**
+ * 按端序读写byte数组中的short、int、long，供{@link ByteUtils}使用<br>
+ * 此实现逐字节移位，兼容Java 7；Java 11及以上运行时使用多版本JAR中{@code META-INF/versions/11}下基于VarHandle的实现，
+ * 两者的公开行为一致，修改时需同步修改{@code src/main/java11}下的同名类。
+ * @author openguava
+ *
+ */
+final class ByteArrayAccess {
+
+	private ByteArrayAccess() {
+	}
+
+	static short getShort(byte[] bytes, int start, boolean littleEndian) {
+		if (littleEndian) {
+			return (short) (bytes[start] & 0xff | (bytes[start + 1] & 0xff) << Byte.SIZE);
+		} else {
+			return (short) (bytes[start + 1] & 0xff | (bytes[start] & 0xff) << Byte.SIZE);
+		}
+	}
+
+	static void putShort(byte[] bytes, int start, short value, boolean littleEndian) {
+		if (littleEndian) {
+			bytes[start] = (byte) (value & 0xff);
+			bytes[start + 1] = (byte) ((value >> Byte.SIZE) & 0xff);
+		} else {
+			bytes[start + 1] = (byte) (value & 0xff);
+			bytes[start] = (byte) ((value >> Byte.SIZE) & 0xff);
+		}
+	}
+
+	static int getInt(byte[] bytes, int start, boolean littleEndian) {
+		if (littleEndian) {
+			return bytes[start] & 0xFF | //
+					(bytes[1 + start] & 0xFF) << 8 | //
+					(bytes[2 + start] & 0xFF) << 16 | //
+					(bytes[3 + start] & 0xFF) << 24; //
+		} else {
+			return bytes[3 + start] & 0xFF | //
+					(bytes[2 + start] & 0xFF) << 8 | //
+					(bytes[1 + start] & 0xFF) << 16 | //
+					(bytes[start] & 0xFF) << 24; //
+		}
+	}
+
+	static void putInt(byte[] bytes, int start, int value, boolean littleEndian) {
+		if (littleEndian) {
+			bytes[start] = (byte) (value & 0xFF);
+			bytes[start + 1] = (byte) ((value >> 8) & 0xFF);
+			bytes[start + 2] = (byte) ((value >> 16) & 0xFF);
+			bytes[start + 3] = (byte) ((value >> 24) & 0xFF);
+		} else {
+			bytes[start] = (byte) ((value >> 24) & 0xFF);
+			bytes[start + 1] = (byte) ((value >> 16) & 0xFF);
+			bytes[start + 2] = (byte) ((value >> 8) & 0xFF);
+			bytes[start + 3] = (byte) (value & 0xFF);
+		}
+	}
+
+	static long getLong(byte[] bytes, int start, boolean littleEndian) {
+		long values = 0;
+		if (littleEndian) {
+			for (int i = (Long.BYTES - 1); i >= 0; i--) {
+				values <<= Byte.SIZE;
+				values |= (bytes[i + start] & 0xff);
+			}
+		} else {
+			for (int i = 0; i < Long.BYTES; i++) {
+				values <<= Byte.SIZE;
+				values |= (bytes[i + start] & 0xff);
+			}
+		}
+		return values;
+	}
+
+	static void putLong(byte[] bytes, int start, long value, boolean littleEndian) {
+		if (littleEndian) {
+			for (int i = 0; i < Long.BYTES; i++) {
+				bytes[start + i] = (byte) (value & 0xFF);
+				value >>= Byte.SIZE;
+			}
+		} else {
+			for (int i = (Long.BYTES - 1); i >= 0; i--) {
+				bytes[start + i] = (byte) (value & 0xFF);
+				value >>= Byte.SIZE;
+			}
+		}
+	}
+}
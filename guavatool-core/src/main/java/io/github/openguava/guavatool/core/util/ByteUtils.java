@@ -87,12 +87,7 @@ public class ByteUtils {
 	 * @return short值
 	 */
 	public static short bytesToShort(final byte[] bytes, final int start, final ByteOrder byteOrder) {
-		if (ByteOrder.LITTLE_ENDIAN == byteOrder) {
-			//小端模式，数据的高字节保存在内存的高地址中，而数据的低字节保存在内存的低地址中
-			return (short) (bytes[start] & 0xff | (bytes[start + 1] & 0xff) << Byte.SIZE);
-		} else {
-			return (short) (bytes[start + 1] & 0xff | (bytes[start] & 0xff) << Byte.SIZE);
-		}
+		return ByteArrayAccess.getShort(bytes, start, ByteOrder.LITTLE_ENDIAN == byteOrder);
 	}
 
 	/**
@@ -116,13 +111,7 @@ public class ByteUtils {
 	 */
 	public static byte[] shortToBytes(short shortValue, ByteOrder byteOrder) {
 		byte[] b = new byte[Short.BYTES];
-		if (ByteOrder.LITTLE_ENDIAN == byteOrder) {
-			b[0] = (byte) (shortValue & 0xff);
-			b[1] = (byte) ((shortValue >> Byte.SIZE) & 0xff);
-		} else {
-			b[1] = (byte) (shortValue & 0xff);
-			b[0] = (byte) ((shortValue >> Byte.SIZE) & 0xff);
-		}
+		ByteArrayAccess.putShort(b, 0, shortValue, ByteOrder.LITTLE_ENDIAN == byteOrder);
 		return b;
 	}
 
@@ -160,18 +149,7 @@ public class ByteUtils {
 	 * @since hutool 5.7.21
 	 */
 	public static int bytesToInt(byte[] bytes, int start, ByteOrder byteOrder) {
-		if (ByteOrder.LITTLE_ENDIAN == byteOrder) {
-			return bytes[start] & 0xFF | //
-					(bytes[1 + start] & 0xFF) << 8 | //
-					(bytes[2 + start] & 0xFF) << 16 | //
-					(bytes[3 + start] & 0xFF) << 24; //
-		} else {
-			return bytes[3 + start] & 0xFF | //
-					(bytes[2 + start] & 0xFF) << 8 | //
-					(bytes[1 + start] & 0xFF) << 16 | //
-					(bytes[start] & 0xFF) << 24; //
-		}
-
+		return ByteArrayAccess.getInt(bytes, start, ByteOrder.LITTLE_ENDIAN == byteOrder);
 	}
 
 	/**
@@ -194,24 +172,9 @@ public class ByteUtils {
 	 * @return byte数组
 	 */
 	public static byte[] intToBytes(int intValue, ByteOrder byteOrder) {
-
-		if (ByteOrder.LITTLE_ENDIAN == byteOrder) {
-			return new byte[]{ //
-					(byte) (intValue & 0xFF), //
-					(byte) ((intValue >> 8) & 0xFF), //
-					(byte) ((intValue >> 16) & 0xFF), //
-					(byte) ((intValue >> 24) & 0xFF) //
-			};
-
-		} else {
-			return new byte[]{ //
-					(byte) ((intValue >> 24) & 0xFF), //
-					(byte) ((intValue >> 16) & 0xFF), //
-					(byte) ((intValue >> 8) & 0xFF), //
-					(byte) (intValue & 0xFF) //
-			};
-		}
-
+		byte[] b = new byte[Integer.BYTES];
+		ByteArrayAccess.putInt(b, 0, intValue, ByteOrder.LITTLE_ENDIAN == byteOrder);
+		return b;
 	}
 
 	/**
@@ -237,17 +200,7 @@ public class ByteUtils {
 	 */
 	public static byte[] longToBytes(long longValue, ByteOrder byteOrder) {
 		byte[] result = new byte[Long.BYTES];
-		if (ByteOrder.LITTLE_ENDIAN == byteOrder) {
-			for (int i = 0; i < result.length; i++) {
-				result[i] = (byte) (longValue & 0xFF);
-				longValue >>= Byte.SIZE;
-			}
-		} else {
-			for (int i = (result.length - 1); i >= 0; i--) {
-				result[i] = (byte) (longValue & 0xFF);
-				longValue >>= Byte.SIZE;
-			}
-		}
+		ByteArrayAccess.putLong(result, 0, longValue, ByteOrder.LITTLE_ENDIAN == byteOrder);
 		return result;
 	}
 
@@ -288,20 +241,7 @@ public class ByteUtils {
 	 * @since hutool 5.7.21
 	 */
 	public static long bytesToLong(byte[] bytes, int start, ByteOrder byteOrder) {
-		long values = 0;
-		if (ByteOrder.LITTLE_ENDIAN == byteOrder) {
-			for (int i = (Long.BYTES - 1); i >= 0; i--) {
-				values <<= Byte.SIZE;
-				values |= (bytes[i + start] & 0xff);
-			}
-		} else {
-			for (int i = 0; i < Long.BYTES; i++) {
-				values <<= Byte.SIZE;
-				values |= (bytes[i + start] & 0xff);
-			}
-		}
-
-		return values;
+		return ByteArrayAccess.getLong(bytes, start, ByteOrder.LITTLE_ENDIAN == byteOrder);
 	}
 
 	/**
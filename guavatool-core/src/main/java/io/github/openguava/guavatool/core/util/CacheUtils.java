@@ -0,0 +1,118 @@
+package io.github.openguava.guavatool.core.util;
+
+import io.github.openguava.guavatool.core.cache.FIFOCache;
+import io.github.openguava.guavatool.core.cache.LFUCache;
+import io.github.openguava.guavatool.core.cache.LRUCache;
+import io.github.openguava.guavatool.core.cache.TimedCache;
+import io.github.openguava.guavatool.core.cache.TinyLFUCache;
+
+/**
+ * 缓存工具类
+ * @author openguava
+ *
+ */
+public class CacheUtils {
+
+	/**
+	 * 创建FIFO(first in first out) 先进先出缓存
+	 * @param <K>
+	 * @param <V>
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位毫秒
+	 * @return
+	 */
+	public static <K, V> FIFOCache<K, V> newFIFOCache(int capacity, long timeout) {
+		return new FIFOCache<K, V>(capacity, timeout);
+	}
+
+	/**
+	 * 创建FIFO(first in first out) 先进先出缓存
+	 * @param <K>
+	 * @param <V>
+	 * @param capacity 容量
+	 * @return
+	 */
+	public static <K, V> FIFOCache<K, V> newFIFOCache(int capacity) {
+		return new FIFOCache<K, V>(capacity);
+	}
+
+	/**
+	 * 创建LFU(least frequently used) 最少使用率缓存
+	 * @param <K>
+	 * @param <V>
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位毫秒
+	 * @return
+	 */
+	public static <K, V> LFUCache<K, V> newLFUCache(int capacity, long timeout) {
+		return new LFUCache<K, V>(capacity, timeout);
+	}
+
+	/**
+	 * 创建LFU(least frequently used) 最少使用率缓存
+	 * @param <K>
+	 * @param <V>
+	 * @param capacity 容量
+	 * @return
+	 */
+	public static <K, V> LFUCache<K, V> newLFUCache(int capacity) {
+		return new LFUCache<K, V>(capacity);
+	}
+
+	/**
+	 * 创建W-TinyLFU缓存，按访问频率决定新对象能否进入缓存，适合存在批量扫描访问的场景
+	 * @param <K>
+	 * @param <V>
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位毫秒
+	 * @return
+	 */
+	public static <K, V> TinyLFUCache<K, V> newTinyLFUCache(int capacity, long timeout) {
+		return new TinyLFUCache<K, V>(capacity, timeout);
+	}
+
+	/**
+	 * 创建W-TinyLFU缓存，按访问频率决定新对象能否进入缓存，适合存在批量扫描访问的场景
+	 * @param <K>
+	 * @param <V>
+	 * @param capacity 容量
+	 * @return
+	 */
+	public static <K, V> TinyLFUCache<K, V> newTinyLFUCache(int capacity) {
+		return new TinyLFUCache<K, V>(capacity);
+	}
+
+	/**
+	 * 创建LRU (least recently used)最近最久未使用缓存
+	 * @param <K>
+	 * @param <V>
+	 * @param capacity 容量
+	 * @param timeout 过期时长，单位毫秒
+	 * @return
+	 */
+	public static <K, V> LRUCache<K, V> newLRUCache(int capacity, long timeout) {
+		return new LRUCache<K, V>(capacity, timeout);
+	}
+
+	/**
+	 * 创建LRU (least recently used)最近最久未使用缓存
+	 * @param <K>
+	 * @param <V>
+	 * @param capacity 容量
+	 * @return
+	 */
+	public static <K, V> LRUCache<K, V> newLRUCache(int capacity) {
+		return new LRUCache<K, V>(capacity);
+	}
+
+	/**
+	 * 创建定时缓存
+	 * @param <K>
+	 * @param <V>
+	 * @param timeout 过期时长，单位毫秒
+	 * @return
+	 */
+	public static <K, V> TimedCache<K, V> newTimedCache(long timeout) {
+		return new TimedCache<K, V>(timeout);
+	}
+}
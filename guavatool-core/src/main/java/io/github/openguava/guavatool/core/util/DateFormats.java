@@ -0,0 +1,48 @@
+package io.github.openguava.guavatool.core.util;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * 按模式字符串格式化和解析日期，供{@link DateUtils}使用<br>
+ * 此实现每次新建{@link SimpleDateFormat}，兼容Java 7；Java 11及以上运行时使用多版本JAR中{@code META-INF/versions/11}下
+ * 缓存线程安全格式化器的实现，两者的结果一致，修改时需同步修改{@code src/main/java11}下的同名类。
+ * @author openguava
+ *
+ */
+final class DateFormats {
+
+	private DateFormats() {
+	}
+
+	/**
+	 * 格式化日期
+	 * @param date 日期，非{@code null}
+	 * @param pattern 日期格式，非空
+	 * @param timeZone 时区，{@code null}表示默认时区
+	 * @return 格式化后的字符串
+	 */
+	static String format(Date date, String pattern, TimeZone timeZone) {
+		return newDateFormat(pattern, timeZone).format(date);
+	}
+
+	/**
+	 * 解析日期
+	 * @param text 日期字符串
+	 * @param pattern 日期格式
+	 * @param timeZone 时区，{@code null}表示默认时区
+	 * @return 日期
+	 */
+	static Date parse(String text, String pattern, TimeZone timeZone) {
+		return DateUtils.parse(text, newDateFormat(pattern, timeZone));
+	}
+
+	static SimpleDateFormat newDateFormat(String pattern, TimeZone timeZone) {
+		SimpleDateFormat dateFormat = new SimpleDateFormat(pattern);
+		if (timeZone != null) {
+			dateFormat.setTimeZone(timeZone);
+		}
+		return dateFormat;
+	}
+}
@@ -71,11 +71,7 @@ public class DateUtils {
 		if (null == date || StringUtils.isBlank(format)) {
 			return null;
 		}
-		final SimpleDateFormat sdf = new SimpleDateFormat(format);
-		if(timeZone != null) {
-			sdf.setTimeZone(timeZone);
-		}
-		return format(date, sdf);
+		return DateFormats.format(date, format, timeZone);
 	}
 	
 	/**
@@ -128,11 +124,7 @@ public class DateUtils {
 	 * @return
 	 */
 	public static Date parse(String dateStr, String format, TimeZone timeZone){
-		SimpleDateFormat dateFormat = new SimpleDateFormat(format);
-		if(timeZone != null) {
-			dateFormat.setTimeZone(timeZone);
-		}
-		return parse(dateStr, dateFormat);
+		return DateFormats.parse(dateStr, format, timeZone);
 	}
 	
 	/**
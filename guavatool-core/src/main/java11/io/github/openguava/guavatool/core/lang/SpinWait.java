@@ -0,0 +1,20 @@
+package io.github.openguava.guavatool.core.lang;
+
+/**
+ * 自旋等待提示，供{@link Snowflake}等忙等待循环使用<br>
+ * Java 11及以上的实现，调用{@link Thread#onSpinWait()}，在x86上编译为PAUSE指令，降低自旋时的功耗和对同核超线程的干扰。
+ * @author openguava
+ *
+ */
+final class SpinWait {
+
+	private SpinWait() {
+	}
+
+	/**
+	 * 提示当前线程正在自旋等待
+	 */
+	static void onSpinWait() {
+		Thread.onSpinWait();
+	}
+}
@@ -0,0 +1,88 @@
+package io.github.openguava.guavatool.core.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * 按端序读写byte数组中的short、int、long，供{@link ByteUtils}使用<br>
+ * Java 11及以上的实现，使用{@link MethodHandles#byteArrayViewVarHandle(Class, ByteOrder)}一次读写多个字节，
+ * JIT可将其编译为单条(必要时加字节交换的)内存访问指令。<br>
+ * JDK 11~15的VarHandle越界时只抛出{@link IndexOutOfBoundsException}，这里先行检查，与Java 7实现一样抛出{@link ArrayIndexOutOfBoundsException}。
+ * @author openguava
+ *
+ */
+final class ByteArrayAccess {
+
+	private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final VarHandle SHORT_BE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+	private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+	private ByteArrayAccess() {
+	}
+
+	static short getShort(byte[] bytes, int start, boolean littleEndian) {
+		checkIndex(bytes, start, Short.BYTES);
+		return littleEndian ? (short) SHORT_LE.get(bytes, start) : (short) SHORT_BE.get(bytes, start);
+	}
+
+	static void putShort(byte[] bytes, int start, short value, boolean littleEndian) {
+		checkIndex(bytes, start, Short.BYTES);
+		if (littleEndian) {
+			SHORT_LE.set(bytes, start, value);
+		} else {
+			SHORT_BE.set(bytes, start, value);
+		}
+	}
+
+	static int getInt(byte[] bytes, int start, boolean littleEndian) {
+		checkIndex(bytes, start, Integer.BYTES);
+		return littleEndian ? (int) INT_LE.get(bytes, start) : (int) INT_BE.get(bytes, start);
+	}
+
+	static void putInt(byte[] bytes, int start, int value, boolean littleEndian) {
+		checkIndex(bytes, start, Integer.BYTES);
+		if (littleEndian) {
+			INT_LE.set(bytes, start, value);
+		} else {
+			INT_BE.set(bytes, start, value);
+		}
+	}
+
+	static long getLong(byte[] bytes, int start, boolean littleEndian) {
+		checkIndex(bytes, start, Long.BYTES);
+		return littleEndian ? (long) LONG_LE.get(bytes, start) : (long) LONG_BE.get(bytes, start);
+	}
+
+	static void putLong(byte[] bytes, int start, long value, boolean littleEndian) {
+		checkIndex(bytes, start, Long.BYTES);
+		if (littleEndian) {
+			LONG_LE.set(bytes, start, value);
+		} else {
+			LONG_BE.set(bytes, start, value);
+		}
+	}
+
+	/**
+	 * 检查读写范围，越界时抛出与Java 7实现相同的异常
+	 * @param bytes byte数组
+	 * @param start 开始位置
+	 * @param size 读写字节数
+	 */
+	private static void checkIndex(byte[] bytes, int start, int size) {
+		if (start < 0) {
+			throw new ArrayIndexOutOfBoundsException(start);
+		}
+		if (start > bytes.length - size) {
+			throw new ArrayIndexOutOfBoundsException(Math.min(start, bytes.length));
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package io.github.openguava.guavatool.core.util;
+
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按模式字符串格式化和解析日期，供{@link DateUtils}使用<br>
+ * Java 11及以上的实现：模式只包含{@code yyyy MM dd HH mm ss SSS}等数字字段时，使用按模式缓存的线程安全{@link DateTimeFormatter}，
+ * 省去每次创建{@link SimpleDateFormat}的开销；其余情况(文本字段、两位年份、1901年以前、夏令时切换时刻、非公历或非ASCII数字的默认区域、
+ * 严格解析失败等)回退到{@link SimpleDateFormat}，保证结果与Java 7实现一致。
+ * @author openguava
+ *
+ */
+final class DateFormats {
+
+	/** 缓存的最大模式数，超出后不再缓存 */
+	private static final int MAX_CACHED = 256;
+
+	/** 不支持快速路径的模式 */
+	private static final DateTimeFormatter UNSUPPORTED = DateTimeFormatter.BASIC_ISO_DATE;
+
+	/** 快速路径支持的最早时间(1901-01-01T00:00Z)，更早的时间{@link SimpleDateFormat}可能使用儒略历，时区偏移也与{@code java.time}不一致 */
+	private static final long MIN_MILLIS = -2177452800000L;
+
+	/** 快速路径支持的最晚时间(9999-12-30T23:59:59.999Z)，更晚的时间在东时区可能超过4位年份 */
+	private static final long MAX_MILLIS = 253402214399999L;
+
+	/** 按模式缓存的格式化器 */
+	private static final ConcurrentHashMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+	/** 规则无法转换为区域标识的时区 */
+	private static final Object UNSUPPORTED_ZONE = new Object();
+
+	/** 按时区缓存的区域标识 */
+	private static final ConcurrentHashMap<TimeZone, Object> ZONES = new ConcurrentHashMap<>();
+
+	/** 最近检查的默认格式化区域 */
+	private static volatile Locale checkedLocale;
+
+	/** 最近检查的默认格式化区域是否使用公历和ASCII数字 */
+	private static volatile boolean localeSupported;
+
+	private DateFormats() {
+	}
+
+	/**
+	 * 格式化日期
+	 * @param date 日期，非{@code null}
+	 * @param pattern 日期格式，非空
+	 * @param timeZone 时区，{@code null}表示默认时区
+	 * @return 格式化后的字符串
+	 */
+	static String format(Date date, String pattern, TimeZone timeZone) {
+		long millis = date.getTime();
+		if (millis >= MIN_MILLIS && millis <= MAX_MILLIS) {
+			DateTimeFormatter formatter = formatter(pattern);
+			ZoneId zoneId = formatter == null ? null : zoneId(timeZone);
+			if (zoneId != null) {
+				return formatter.format(LocalDateTime.ofInstant(date.toInstant(), zoneId));
+			}
+		}
+		return newDateFormat(pattern, timeZone).format(date);
+	}
+
+	/**
+	 * 解析日期
+	 * @param text 日期字符串
+	 * @param pattern 日期格式
+	 * @param timeZone 时区，{@code null}表示默认时区
+	 * @return 日期
+	 */
+	static Date parse(String text, String pattern, TimeZone timeZone) {
+		DateTimeFormatter formatter = text == null ? null : formatter(pattern);
+		ZoneId zoneId = formatter == null ? null : zoneId(timeZone);
+		if (zoneId != null) {
+			try {
+				LocalDateTime dateTime = LocalDateTime.parse(text, formatter);
+				// 夏令时切换时刻的处理与SimpleDateFormat不同，交给SimpleDateFormat
+				if (dateTime.getYear() >= 1901 && zoneId.getRules().getValidOffsets(dateTime).size() == 1) {
+					return Date.from(dateTime.atZone(zoneId).toInstant());
+				}
+			} catch (DateTimeException e) {
+				// 宽松解析或尾部有多余字符等情况，交给SimpleDateFormat
+			}
+		}
+		return DateUtils.parse(text, newDateFormat(pattern, timeZone));
+	}
+
+	static SimpleDateFormat newDateFormat(String pattern, TimeZone timeZone) {
+		SimpleDateFormat dateFormat = new SimpleDateFormat(pattern);
+		if (timeZone != null) {
+			dateFormat.setTimeZone(timeZone);
+		}
+		return dateFormat;
+	}
+
+	/**
+	 * 获取模式对应的格式化器
+	 * @param pattern 日期格式
+	 * @return 格式化器，不支持快速路径时返回{@code null}
+	 */
+	private static DateTimeFormatter formatter(String pattern) {
+		if (pattern == null || !isLocaleSupported()) {
+			return null;
+		}
+		DateTimeFormatter formatter = FORMATTERS.get(pattern);
+		if (formatter == null) {
+			formatter = newFormatter(pattern);
+			if (FORMATTERS.size() < MAX_CACHED) {
+				FORMATTERS.putIfAbsent(pattern, formatter);
+			}
+		}
+		return formatter == UNSUPPORTED ? null : formatter;
+	}
+
+	/**
+	 * 将{@link SimpleDateFormat}模式转换为等价的严格{@link DateTimeFormatter}，未出现的字段默认为1970-01-01 00:00:00.000
+	 * @param pattern 日期格式
+	 * @return 格式化器，不等价时返回{@link #UNSUPPORTED}
+	 */
+	private static DateTimeFormatter newFormatter(String pattern) {
+		StringBuilder builder = new StringBuilder(pattern.length());
+		int i = 0;
+		while (i < pattern.length()) {
+			char c = pattern.charAt(i);
+			int count = 1;
+			while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+				count++;
+			}
+			i += count;
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+				if (!isSupportedField(c, count)) {
+					return UNSUPPORTED;
+				}
+				// SimpleDateFormat的年份对应ISO年份
+				c = c == 'y' ? 'u' : c;
+			} else if (c == '\'' || c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+				return UNSUPPORTED;
+			}
+			for (int j = 0; j < count; j++) {
+				builder.append(c);
+			}
+		}
+		try {
+			return new DateTimeFormatterBuilder().appendPattern(builder.toString())
+					.parseDefaulting(ChronoField.YEAR, 1970)
+					.parseDefaulting(ChronoField.MONTH_OF_YEAR, 1)
+					.parseDefaulting(ChronoField.DAY_OF_MONTH, 1)
+					.parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+					.parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+					.parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+					.parseDefaulting(ChronoField.NANO_OF_SECOND, 0)
+					.toFormatter(Locale.ROOT)
+					.withResolverStyle(ResolverStyle.STRICT);
+		} catch (IllegalArgumentException e) {
+			return UNSUPPORTED;
+		}
+	}
+
+	/**
+	 * 字段在两种格式化器中的含义是否相同
+	 * @param c 字段字母
+	 * @param count 重复次数
+	 * @return 是否相同
+	 */
+	private static boolean isSupportedField(char c, int count) {
+		switch (c) {
+		case 'y':
+			return count == 4;
+		case 'M':
+		case 'd':
+		case 'H':
+		case 'm':
+		case 's':
+			return count <= 2;
+		case 'S':
+			return count == 3;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * 获取时区对应的区域标识
+	 * @param timeZone 时区，{@code null}表示默认时区
+	 * @return 区域标识，规则与时区不一致(如自定义夏令时规则)时返回{@code null}
+	 */
+	private static ZoneId zoneId(TimeZone timeZone) {
+		TimeZone zone = timeZone == null ? TimeZone.getDefault() : timeZone;
+		Object zoneId = ZONES.get(zone);
+		if (zoneId == null) {
+			try {
+				zoneId = TimeZone.getTimeZone(zone.getID()).hasSameRules(zone) ? zone.toZoneId() : UNSUPPORTED_ZONE;
+			} catch (DateTimeException e) {
+				zoneId = UNSUPPORTED_ZONE;
+			}
+			if (ZONES.size() < MAX_CACHED) {
+				ZONES.putIfAbsent((TimeZone) zone.clone(), zoneId);
+			}
+		}
+		return zoneId == UNSUPPORTED_ZONE ? null : (ZoneId) zoneId;
+	}
+
+	/**
+	 * 默认格式化区域是否使用公历和ASCII数字，与{@link SimpleDateFormat}的输出一致
+	 * @return 是否支持
+	 */
+	private static boolean isLocaleSupported() {
+		Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		if (locale != checkedLocale) {
+			localeSupported = "gregory".equals(Calendar.getInstance(locale).getCalendarType())
+					&& DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0';
+			checkedLocale = locale;
+		}
+		return localeSupported;
+	}
+}
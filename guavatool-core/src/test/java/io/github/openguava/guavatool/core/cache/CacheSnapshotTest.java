@@ -0,0 +1,108 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import io.github.openguava.guavatool.core.exception.SerializationException;
+import io.github.openguava.guavatool.core.serializer.Serializer;
+import junit.framework.TestCase;
+
+/**
+ * {@link CacheSnapshot}保存、恢复及损坏文件测试
+ * @author openguava
+ *
+ */
+public class CacheSnapshotTest extends TestCase {
+
+	private static final Serializer<String, byte[]> SERIALIZER = new Serializer<String, byte[]>() {
+
+		@Override
+		public byte[] serialize(String t) throws SerializationException {
+			return t.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String deserialize(byte[] value) throws SerializationException {
+			return new String(value, StandardCharsets.UTF_8);
+		}
+	};
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.file = File.createTempFile("cache-snapshot", ".bin");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.file.delete();
+		new File(this.file.getPath() + ".tmp").delete();
+	}
+
+	public void testSaveAndLazyRestore() {
+		LRUCache<String, String> cache = new LRUCache<>(10);
+		cache.put("a", "1");
+		cache.put("b", "2", 600000);
+		new CacheSnapshot<>(this.file, SERIALIZER, SERIALIZER).save(cache);
+
+		LRUCache<String, String> restored = new LRUCache<>(10);
+		CacheSnapshot<String, String> snapshot = new CacheSnapshot<>(this.file, SERIALIZER, SERIALIZER).attach(restored);
+		assertEquals(2, snapshot.remaining());
+		// 未命中时从快照中惰性读取
+		assertEquals("1", restored.get("a"));
+		assertEquals(1, snapshot.remaining());
+		assertEquals(1, snapshot.restore(restored));
+		assertEquals("2", restored.get("b"));
+	}
+
+	public void testTruncatedFileKeepsPrecedingRecords() throws Exception {
+		LRUCache<String, String> cache = new LRUCache<>(10);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		new CacheSnapshot<>(this.file, SERIALIZER, SERIALIZER).save(cache);
+		// 模拟写入中断，截掉最后一条记录的末尾
+		RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+		try {
+			raf.setLength(raf.length() - 1);
+		} finally {
+			raf.close();
+		}
+		LRUCache<String, String> restored = new LRUCache<>(10);
+		CacheSnapshot<String, String> snapshot = new CacheSnapshot<>(this.file, SERIALIZER, SERIALIZER);
+		assertEquals(2, snapshot.restore(restored));
+		assertEquals(2, restored.size());
+	}
+
+	public void testCorruptedLengthStopsReading() throws Exception {
+		LRUCache<String, String> cache = new LRUCache<>(10);
+		cache.put("a", "1");
+		new CacheSnapshot<>(this.file, SERIALIZER, SERIALIZER).save(cache);
+		RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+		try {
+			// 在第一条记录后追加一条键长度超出文件的记录
+			raf.seek(raf.length());
+			raf.writeLong(0);
+			raf.writeInt(Integer.MAX_VALUE);
+		} finally {
+			raf.close();
+		}
+		LRUCache<String, String> restored = new LRUCache<>(10);
+		CacheSnapshot<String, String> snapshot = new CacheSnapshot<>(this.file, SERIALIZER, SERIALIZER);
+		assertEquals(1, snapshot.restore(restored));
+		assertEquals("1", restored.get("a"));
+	}
+
+	public void testInvalidFileIgnored() throws Exception {
+		RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+		try {
+			raf.writeInt(0x12345678);
+		} finally {
+			raf.close();
+		}
+		CacheSnapshot<String, String> snapshot = new CacheSnapshot<>(this.file, SERIALIZER, SERIALIZER).open();
+		assertEquals(0, snapshot.remaining());
+	}
+}
@@ -0,0 +1,49 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.List;
+
+import io.github.openguava.guavatool.core.lang.Pair;
+import junit.framework.TestCase;
+
+/**
+ * {@link HotKeySampler}及缓存统计测试
+ * @author openguava
+ *
+ */
+public class HotKeySamplerTest extends TestCase {
+
+	public void testHotKeySurvivesColdScan() {
+		HotKeySampler<String> sampler = new HotKeySampler<>(8, 1);
+		for (int i = 0; i < 1000; i++) {
+			sampler.record("hot");
+			// 只访问一次的冷键不断进入
+			sampler.record("cold-" + i);
+		}
+		List<Pair<String, Long>> top = sampler.topN(1);
+		assertEquals(1, top.size());
+		assertEquals("hot", top.get(0).getKey());
+		assertTrue(sampler.topN(100).size() <= 8);
+	}
+
+	public void testCacheRecordsSamplesOutsideLock() {
+		final LRUCache<String, String> cache = new LRUCache<>(4);
+		cache.setHotKeySampler(new HotKeySampler<String>(4, 1) {
+			@Override
+			public void record(String key) {
+				assertFalse(cache.lock.isHeldByCurrentThread());
+				super.record(key);
+			}
+		});
+		cache.put("a", "1");
+		for (int i = 0; i < 3; i++) {
+			assertEquals("1", cache.get("a"));
+		}
+		assertNull(cache.get("b"));
+		// 只采样命中
+		assertEquals(Long.valueOf(3), cache.getHotKeySampler().topN(1).get(0).getValue());
+		CacheStats stats = cache.stats();
+		assertEquals(3, stats.getHitCount());
+		assertEquals(1, stats.getMissCount());
+		assertEquals(0, stats.getLoadSuccessCount());
+	}
+}
@@ -0,0 +1,152 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.github.openguava.guavatool.core.lang.FuncR;
+import io.github.openguava.guavatool.core.lang.SystemClock;
+import junit.framework.TestCase;
+
+/**
+ * {@link LRUCache}淘汰和过期测试
+ * @author openguava
+ *
+ */
+public class LRUCacheTest extends TestCase {
+
+	private SystemClock defaultClock;
+
+	private ManualClock clock;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.defaultClock = SystemClock.getDefault();
+		this.clock = new ManualClock(1700000000000L);
+		SystemClock.setDefault(this.clock);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		SystemClock.setDefault(this.defaultClock);
+	}
+
+	public void testEvictsLeastRecentlyUsed() {
+		LRUCache<String, String> cache = new LRUCache<>(3);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		// 访问a后b成为最久未使用
+		assertEquals("1", cache.get("a"));
+		cache.put("d", "4");
+		assertNull(cache.get("b"));
+		assertEquals("1", cache.get("a"));
+		assertEquals("3", cache.get("c"));
+		assertEquals("4", cache.get("d"));
+		assertEquals(3, cache.size());
+	}
+
+	public void testExpiresInTimeoutOrder() {
+		LRUCache<String, String> cache = new LRUCache<>(10);
+		cache.put("short", "1", 100);
+		cache.put("long", "2", 200);
+		cache.put("forever", "3");
+		this.clock.time += 150;
+		assertNull(cache.get("short"));
+		assertEquals("2", cache.get("long"));
+		// 访问会续期，从上次访问起算
+		this.clock.time += 150;
+		assertEquals("2", cache.get("long"));
+		this.clock.time += 250;
+		assertNull(cache.get("long"));
+		assertEquals("3", cache.get("forever"));
+	}
+
+	public void testPrunesExpiredBeforeEvictingLive() {
+		LRUCache<String, String> cache = new LRUCache<>(3);
+		cache.put("live1", "1");
+		cache.put("live2", "2");
+		cache.put("expiring", "3", 100);
+		// expiring最近使用，但过期后应先于未过期的对象被清理
+		cache.get("expiring");
+		this.clock.time += 150;
+		cache.put("new", "4");
+		assertNull(cache.get("expiring"));
+		assertEquals("1", cache.get("live1"));
+		assertEquals("2", cache.get("live2"));
+		assertEquals("4", cache.get("new"));
+	}
+
+	public void testLoaderDoesNotBlockOtherKeys() throws Exception {
+		final LRUCache<String, String> cache = new LRUCache<>(10);
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Thread loader = new Thread() {
+			@Override
+			public void run() {
+				cache.get("slow", new FuncR<String>() {
+					@Override
+					public String call() {
+						loading.countDown();
+						try {
+							release.await(5, TimeUnit.SECONDS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						return "1";
+					}
+				});
+			}
+		};
+		loader.start();
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		// 加载期间其他键的读写不被阻塞
+		cache.put("other", "2");
+		assertEquals("2", cache.get("other"));
+		assertEquals(0, cache.prune());
+		release.countDown();
+		loader.join(5000);
+		assertEquals("1", cache.get("slow"));
+	}
+
+	public void testListenerCalledOutsideLock() {
+		final LRUCache<String, String> cache = new LRUCache<>(2);
+		final List<String> removed = new ArrayList<>();
+		cache.setListener(new CacheListener<String, String>() {
+			@Override
+			public void onRemove(String key, String cachedObject) {
+				assertFalse(cache.lock.isHeldByCurrentThread());
+				removed.add(key);
+			}
+		});
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		assertEquals(1, removed.size());
+		assertEquals("a", removed.get(0));
+		cache.remove("b");
+		cache.clear();
+		assertEquals(3, removed.size());
+		assertEquals("c", removed.get(2));
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * 手动推进的时钟
+	 */
+	private static class ManualClock extends SystemClock {
+
+		private volatile long time;
+
+		private ManualClock(long time) {
+			super(Precision.NANO);
+			this.time = time;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return this.time;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.openguava.guavatool.core.lang.SystemClock;
+import junit.framework.TestCase;
+
+/**
+ * {@link LoadingCache}合并加载及刷新测试
+ * @author openguava
+ *
+ */
+public class LoadingCacheTest extends TestCase {
+
+	private SystemClock defaultClock;
+
+	private ManualClock clock;
+
+	/** 测试线程中执行刷新任务 */
+	private final List<Runnable> refreshes = new ArrayList<>();
+
+	private final Executor executor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			refreshes.add(command);
+		}
+	};
+
+	@Override
+	protected void setUp() throws Exception {
+		this.defaultClock = SystemClock.getDefault();
+		this.clock = new ManualClock(1700000000000L);
+		SystemClock.setDefault(this.clock);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		SystemClock.setDefault(this.defaultClock);
+	}
+
+	public void testConcurrentMissesLoadOnce() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger loads = new AtomicInteger();
+		final LoadingCache<String, String> cache = new LoadingCache<>(new LRUCache<String, LoadingCache.Entry<String>>(16), 0, new CacheLoader<String, String>() {
+			@Override
+			public String load(String key) {
+				loads.incrementAndGet();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return key + "-v";
+			}
+		}, this.executor);
+		final AtomicReference<String> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					String value = cache.get("a");
+					if (!"a-v".equals(value)) {
+						failure.compareAndSet(null, value);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		Thread.sleep(100);
+		release.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+		assertNull(failure.get(), failure.get());
+		assertEquals(1, loads.get());
+	}
+
+	public void testErrorReleasesWaiters() throws Exception {
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final LoadingCache<String, String> cache = new LoadingCache<>(new LRUCache<String, LoadingCache.Entry<String>>(16), 0, new CacheLoader<String, String>() {
+			@Override
+			public String load(String key) {
+				loading.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				throw new StackOverflowError("load");
+			}
+		}, this.executor);
+		final AtomicReference<Throwable> waiterError = new AtomicReference<>();
+		Thread loader = new Thread() {
+			@Override
+			public void run() {
+				try {
+					cache.get("a");
+				} catch (Throwable e) {
+					// 加载线程自身收到Error
+				}
+			}
+		};
+		loader.start();
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		Thread waiter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					cache.get("a");
+				} catch (Throwable e) {
+					waiterError.set(e);
+				}
+			}
+		};
+		waiter.start();
+		Thread.sleep(100);
+		release.countDown();
+		loader.join(5000);
+		waiter.join(5000);
+		// 等待同一加载的线程不会一直阻塞
+		assertFalse(waiter.isAlive());
+		assertTrue(String.valueOf(waiterError.get()), waiterError.get() instanceof StackOverflowError);
+		assertEquals(1, cache.stats().getLoadFailureCount());
+	}
+
+	public void testRefreshAheadReturnsCurrentValue() {
+		final AtomicInteger version = new AtomicInteger();
+		LoadingCache<String, String> cache = new LoadingCache<>(new LRUCache<String, LoadingCache.Entry<String>>(16), 1000, new CacheLoader<String, String>() {
+			@Override
+			public String load(String key) {
+				return key + version.incrementAndGet();
+			}
+		}, this.executor);
+		assertEquals("a1", cache.get("a"));
+		this.clock.time += 1000;
+		// 到达刷新时长后返回当前值并提交一次后台刷新
+		assertEquals("a1", cache.get("a"));
+		assertEquals("a1", cache.get("a"));
+		assertEquals(1, this.refreshes.size());
+		this.refreshes.remove(0).run();
+		assertEquals("a2", cache.get("a"));
+		assertTrue(this.refreshes.isEmpty());
+	}
+
+	public void testStaleRefreshDropped() {
+		LoadingCache<String, String> cache = new LoadingCache<>(new LRUCache<String, LoadingCache.Entry<String>>(16), 1000, new CacheLoader<String, String>() {
+			@Override
+			public String load(String key) {
+				return "loaded";
+			}
+		}, this.executor);
+		assertEquals("loaded", cache.get("a"));
+		this.clock.time += 1000;
+		cache.get("a");
+		assertEquals(1, this.refreshes.size());
+		// 刷新期间重新写入，旧的刷新结果不能覆盖新值
+		cache.put("a", "written");
+		this.refreshes.remove(0).run();
+		assertEquals("written", cache.get("a"));
+	}
+
+	/**
+	 * 手动推进的时钟
+	 */
+	private static class ManualClock extends SystemClock {
+
+		private volatile long time;
+
+		private ManualClock(long time) {
+			super(Precision.NANO);
+			this.time = time;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return this.time;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link NearCacheDao}本地缓存测试
+ * @author openguava
+ *
+ */
+public class NearCacheDaoTest extends TestCase {
+
+	private MapCacheDao remote;
+
+	private NearCacheDao dao;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.remote = new MapCacheDao();
+		this.dao = new NearCacheDao(this.remote, 16, 60000L);
+	}
+
+	public void testLocalHitSkipsRemote() {
+		this.dao.put(bytes("a"), bytes("1"), 60);
+		assertEquals("1", string(this.dao.get(bytes("a"))));
+		assertEquals("1", string(this.dao.get(bytes("a"))));
+		assertEquals(0, this.remote.reads);
+		// 远程未命中的结果短暂缓存
+		assertNull(this.dao.get(bytes("b")));
+		assertNull(this.dao.get(bytes("b")));
+		assertEquals(1, this.remote.reads);
+	}
+
+	public void testReusedKeyArrayDoesNotCorruptLocalTier() {
+		byte[] key = bytes("a");
+		byte[] value = bytes("1");
+		this.dao.put(key, value, 60);
+		// 调用者复用数组写入另一个键
+		key[0] = 'b';
+		value[0] = '2';
+		this.dao.put(key, value, 60);
+		assertEquals("1", string(this.dao.get(bytes("a"))));
+		assertEquals("2", string(this.dao.get(bytes("b"))));
+		assertEquals(0, this.remote.reads);
+	}
+
+	public void testNonPositiveExpireNotCachedLocally() {
+		this.dao.put(bytes("a"), bytes("1"), 60);
+		// 远程视为不写入的失效时长，本地同样移除
+		this.dao.put(bytes("a"), bytes("2"), 0);
+		this.remote.map.remove(ByteBuffer.wrap(bytes("a")));
+		assertNull(this.dao.get(bytes("a")));
+		assertEquals(1, this.remote.reads);
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes();
+	}
+
+	private static String string(byte[] value) {
+		return value == null ? null : new String(value);
+	}
+
+	/**
+	 * 统计读取次数的内存缓存数据访问
+	 */
+	private static class MapCacheDao implements CacheDao<byte[], byte[]> {
+
+		private final Map<ByteBuffer, byte[]> map = new HashMap<>();
+
+		private int reads;
+
+		@Override
+		public byte[] get(byte[] key) {
+			this.reads++;
+			return this.map.get(ByteBuffer.wrap(key));
+		}
+
+		@Override
+		public byte[] put(byte[] key, byte[] value, int expire) {
+			// 与远程缓存一样保存副本
+			return this.map.put(ByteBuffer.wrap(key.clone()), value.clone());
+		}
+
+		@Override
+		public void remove(byte[] key) {
+			this.map.remove(ByteBuffer.wrap(key));
+		}
+
+		@Override
+		public Set<byte[]> keys(byte[] pattern) {
+			Set<byte[]> keys = new HashSet<>();
+			for (ByteBuffer key : this.map.keySet()) {
+				keys.add(key.array());
+			}
+			return keys;
+		}
+
+		@Override
+		public int size(byte[] pattern) {
+			return this.map.size();
+		}
+
+		@Override
+		public void clear() {
+			this.map.clear();
+		}
+	}
+}
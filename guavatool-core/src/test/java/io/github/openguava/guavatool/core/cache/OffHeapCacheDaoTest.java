@@ -0,0 +1,71 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link OffHeapCacheDao}分配及slab回收测试
+ * @author openguava
+ *
+ */
+public class OffHeapCacheDaoTest extends TestCase {
+
+	private static final int SLAB_SIZE = 1024;
+
+	public void testPutGetRemove() {
+		OffHeapCacheDao dao = new OffHeapCacheDao(4 * SLAB_SIZE, SLAB_SIZE);
+		byte[] value = filled(100, (byte) 7);
+		dao.put(key(1), value, -1);
+		assertTrue(Arrays.equals(value, dao.get(key(1))));
+		dao.remove(key(1));
+		assertNull(dao.get(key(1)));
+		// 失效时长为0不写入
+		dao.put(key(2), value, 0);
+		assertNull(dao.get(key(2)));
+	}
+
+	public void testReassignsSlabAcrossSizeClasses() {
+		// 只能容纳2个slab，全部被64字节等级占用
+		OffHeapCacheDao dao = new OffHeapCacheDao(2 * SLAB_SIZE, SLAB_SIZE);
+		int perSlab = SLAB_SIZE / 64;
+		for (int i = 0; i < 2 * perSlab; i++) {
+			dao.put(key(i), filled(50, (byte) i), -1);
+		}
+		// 先访问后半部分，使第一个slab上的对象最久未访问
+		for (int i = perSlab; i < 2 * perSlab; i++) {
+			assertNotNull(dao.get(key(i)));
+		}
+		byte[] large = filled(SLAB_SIZE - 16, (byte) 1);
+		dao.put(key(-1), large, -1);
+		assertTrue(Arrays.equals(large, dao.get(key(-1))));
+		assertEquals(0, dao.getRejectedCount());
+		// 被回收slab上的对象全部淘汰，另一个slab上的对象保留
+		for (int i = 0; i < perSlab; i++) {
+			assertNull(dao.get(key(i)));
+		}
+		for (int i = perSlab; i < 2 * perSlab; i++) {
+			assertTrue(Arrays.equals(filled(50, (byte) i), dao.get(key(i))));
+		}
+		assertEquals(2L * SLAB_SIZE, dao.getAllocatedMemory());
+	}
+
+	public void testOversizeValueRejected() {
+		OffHeapCacheDao dao = new OffHeapCacheDao(2 * SLAB_SIZE, SLAB_SIZE);
+		dao.put(key(1), filled(10, (byte) 1), -1);
+		dao.put(key(1), filled(SLAB_SIZE, (byte) 2), -1);
+		// 超过slab大小的值不写入，同时移除旧值
+		assertNull(dao.get(key(1)));
+		assertEquals(1, dao.getRejectedCount());
+	}
+
+	private static byte[] key(int i) {
+		return ("k" + i).getBytes();
+	}
+
+	private static byte[] filled(int length, byte b) {
+		byte[] bytes = new byte[length];
+		Arrays.fill(bytes, b);
+		return bytes;
+	}
+}
@@ -0,0 +1,100 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.openguava.guavatool.core.lang.FuncR;
+import junit.framework.TestCase;
+
+/**
+ * {@link SimpleCache}分段锁及键级别加载测试
+ * @author openguava
+ *
+ */
+public class SimpleCacheTest extends TestCase {
+
+	public void testConcurrentPutAndGetAcrossSegments() throws Exception {
+		final SimpleCache<String, Integer> cache = new SimpleCache<>(4);
+		final int perThread = 2000;
+		// WeakHashMap按键回收，测试期间持有全部键
+		final List<List<String>> keys = new ArrayList<>();
+		final AtomicReference<String> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final List<String> own = new ArrayList<>(perThread);
+			for (int j = 0; j < perThread; j++) {
+				own.add(i + "-" + j);
+			}
+			keys.add(own);
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < own.size(); j++) {
+						cache.put(own.get(j), j);
+						Integer value = cache.get(own.get(j));
+						if (value == null || value.intValue() != j) {
+							failure.compareAndSet(null, own.get(j) + " -> " + value);
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get(), failure.get());
+		for (List<String> own : keys) {
+			for (int j = 0; j < own.size(); j++) {
+				assertEquals(Integer.valueOf(j), cache.get(own.get(j)));
+			}
+		}
+	}
+
+	public void testLoaderBlocksOnlySameKey() throws Exception {
+		// 只有一个分段时，加载期间同一分段的其他键也不能被阻塞
+		final SimpleCache<String, String> cache = new SimpleCache<>(1);
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger loads = new AtomicInteger();
+		final FuncR<String> supplier = new FuncR<String>() {
+			@Override
+			public String call() {
+				loads.incrementAndGet();
+				loading.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "1";
+			}
+		};
+		final String key = "slow";
+		Thread[] loaders = new Thread[3];
+		for (int i = 0; i < loaders.length; i++) {
+			loaders[i] = new Thread() {
+				@Override
+				public void run() {
+					cache.get(key, supplier);
+				}
+			};
+			loaders[i].start();
+		}
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		String other = "other";
+		cache.put(other, "2");
+		assertEquals("2", cache.get(other));
+		release.countDown();
+		for (Thread loader : loaders) {
+			loader.join(5000);
+		}
+		// 相同键的并发未命中只加载一次
+		assertEquals(1, loads.get());
+		assertEquals("1", cache.get(key));
+	}
+}
@@ -0,0 +1,120 @@
+package io.github.openguava.guavatool.core.cache;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.openguava.guavatool.core.lang.SystemClock;
+import junit.framework.TestCase;
+
+/**
+ * {@link TimingWheel}到期执行测试
+ * @author openguava
+ *
+ */
+public class TimingWheelTest extends TestCase {
+
+	private static final long TICK_MS = 10L;
+
+	private SystemClock defaultClock;
+
+	private ManualClock clock;
+
+	private TimingWheel wheel;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.defaultClock = SystemClock.getDefault();
+		this.clock = new ManualClock(1700000000000L);
+		SystemClock.setDefault(this.clock);
+		// 每层4个槽，少量tick即可覆盖跨层降级
+		this.wheel = new TimingWheel(TICK_MS, 4, 3);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.wheel.stop();
+		SystemClock.setDefault(this.defaultClock);
+	}
+
+	public void testFiresOnDeadlineTickAfterCascade() {
+		// 4个tick落在第1层，降级时恰好到期
+		AtomicLong firedAt = this.schedule(4 * TICK_MS);
+		this.advanceTo(3 * TICK_MS);
+		assertEquals(-1, firedAt.get());
+		this.advanceTo(4 * TICK_MS);
+		assertEquals(4 * TICK_MS, firedAt.get());
+	}
+
+	public void testFiresEveryLevelOnTime() {
+		Random random = new Random(42);
+		long[] delays = new long[200];
+		AtomicLong[] firedAt = new AtomicLong[delays.length];
+		for (int i = 0; i < delays.length; i++) {
+			// 覆盖全部3层及超出最高层跨度的任务
+			delays[i] = 1 + random.nextInt(100 * (int) TICK_MS);
+			firedAt[i] = this.schedule(delays[i]);
+		}
+		for (long elapsed = TICK_MS; elapsed <= 100 * TICK_MS; elapsed += TICK_MS) {
+			this.advanceTo(elapsed);
+		}
+		for (int i = 0; i < delays.length; i++) {
+			// 到期tick向上取整，不提前也不延后
+			long expected = (delays[i] + TICK_MS - 1) / TICK_MS * TICK_MS;
+			assertEquals("delay " + delays[i], expected, firedAt[i].get());
+		}
+	}
+
+	public void testCancelledTaskDoesNotRun() {
+		final AtomicLong runs = new AtomicLong();
+		TimingWheel.Timeout timeout = this.wheel.schedule(new Runnable() {
+			@Override
+			public void run() {
+				runs.incrementAndGet();
+			}
+		}, 2 * TICK_MS);
+		this.wheel.stop();
+		timeout.cancel();
+		this.advanceTo(10 * TICK_MS);
+		assertTrue(timeout.isCancelled());
+		assertEquals(0, runs.get());
+	}
+
+	/**
+	 * 调度任务，记录执行时相对起始时间的时长，并停止推进线程由测试手动推进
+	 */
+	private AtomicLong schedule(long delayMs) {
+		final long start = 1700000000000L;
+		final AtomicLong firedAt = new AtomicLong(-1);
+		this.wheel.schedule(new Runnable() {
+			@Override
+			public void run() {
+				firedAt.set(clock.time - start);
+			}
+		}, delayMs);
+		this.wheel.stop();
+		return firedAt;
+	}
+
+	private void advanceTo(long elapsed) {
+		this.clock.time = 1700000000000L + elapsed;
+		this.wheel.advance(this.clock.time);
+	}
+
+	/**
+	 * 手动推进的时钟
+	 */
+	private static class ManualClock extends SystemClock {
+
+		private volatile long time;
+
+		private ManualClock(long time) {
+			super(Precision.NANO);
+			this.time = time;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return this.time;
+		}
+	}
+}
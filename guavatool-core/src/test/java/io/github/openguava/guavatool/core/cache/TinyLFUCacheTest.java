@@ -0,0 +1,56 @@
+package io.github.openguava.guavatool.core.cache;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link TinyLFUCache}准入测试
+ * @author openguava
+ *
+ */
+public class TinyLFUCacheTest extends TestCase {
+
+	public void testScanResistance() {
+		TinyLFUCache<String, String> tinyLfu = new TinyLFUCache<>(100);
+		LRUCache<String, String> lru = new LRUCache<>(100);
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 50; i++) {
+				access(tinyLfu, "hot-" + i);
+				access(lru, "hot-" + i);
+			}
+		}
+		// 只访问一次的键扫过整个缓存
+		for (int i = 0; i < 10000; i++) {
+			access(tinyLfu, "scan-" + i);
+			access(lru, "scan-" + i);
+		}
+		int tinyLfuHits = 0;
+		int lruHits = 0;
+		for (int i = 0; i < 50; i++) {
+			if (tinyLfu.get("hot-" + i) != null) {
+				tinyLfuHits++;
+			}
+			if (lru.get("hot-" + i) != null) {
+				lruHits++;
+			}
+		}
+		assertEquals(0, lruHits);
+		assertTrue("hot keys kept: " + tinyLfuHits, tinyLfuHits >= 45);
+		assertTrue(tinyLfu.size() <= 100);
+	}
+
+	public void testClearResetsFrequencies() {
+		TinyLFUCache<String, String> cache = new TinyLFUCache<>(10);
+		for (int i = 0; i < 20; i++) {
+			access(cache, "a");
+		}
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get("a"));
+	}
+
+	private static void access(AbstractCache<String, String> cache, String key) {
+		if (cache.get(key) == null) {
+			cache.put(key, key);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package io.github.openguava.guavatool.core.cache;
+
+import junit.framework.TestCase;
+
+/**
+ * 按权重淘汰测试
+ * @author openguava
+ *
+ */
+public class WeigherTest extends TestCase {
+
+	public void testEvictsUntilWeightFits() {
+		LRUCache<String, byte[]> cache = new LRUCache<>(0);
+		cache.setWeigher(new ByteArrayWeigher<String>(), 100);
+		cache.put("a", new byte[40]);
+		cache.put("b", new byte[40]);
+		assertEquals(80, cache.totalWeight());
+		// 加入c需要淘汰最久未使用的a
+		cache.put("c", new byte[40]);
+		assertNull(cache.get("a"));
+		assertNotNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+		assertEquals(80, cache.totalWeight());
+	}
+
+	public void testReplaceReleasesOldWeight() {
+		LRUCache<String, byte[]> cache = new LRUCache<>(0);
+		cache.setWeigher(new ByteArrayWeigher<String>(), 100);
+		cache.put("a", new byte[60]);
+		cache.put("b", new byte[30]);
+		// 替换a的旧值后总权重仍可容纳，不淘汰b
+		cache.put("a", new byte[70]);
+		assertNotNull(cache.get("b"));
+		assertEquals(100, cache.totalWeight());
+		cache.remove("a");
+		assertEquals(30, cache.totalWeight());
+	}
+
+	public void testOversizeValueNotCached() {
+		LRUCache<String, byte[]> cache = new LRUCache<>(0);
+		cache.setWeigher(new ByteArrayWeigher<String>(), 100);
+		cache.put("a", new byte[10]);
+		cache.put("a", new byte[101]);
+		// 超过最大总权重的值不缓存，同时移除旧值
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.totalWeight());
+	}
+}
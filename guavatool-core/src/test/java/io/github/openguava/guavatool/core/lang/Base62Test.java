@@ -0,0 +1,92 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link Base62}编解码测试
+ * @author openguava
+ *
+ */
+public class Base62Test extends TestCase {
+
+	private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+	public void testEncodeMatchesBigInteger() {
+		Random random = new Random(42);
+		long[] values = new long[1003];
+		values[0] = 0;
+		values[1] = -1;
+		values[2] = Long.MIN_VALUE;
+		for (int i = 3; i < values.length; i++) {
+			values[i] = random.nextLong();
+		}
+		for (long value : values) {
+			String text = Base62.encode(value);
+			assertEquals(Base62.LONG_LENGTH, text.length());
+			assertEquals(reference(unsigned(value), Base62.LONG_LENGTH), text);
+			assertEquals(value, Base62.decode(text));
+		}
+	}
+
+	public void testEncode128MatchesBigInteger() {
+		Random random = new Random(7);
+		for (int i = 0; i < 1000; i++) {
+			long high = i == 0 ? -1 : random.nextLong();
+			long low = i == 0 ? -1 : random.nextLong();
+			String text = Base62.encode(high, low);
+			assertEquals(Base62.LENGTH_128, text.length());
+			assertEquals(reference(unsigned(high).shiftLeft(64).or(unsigned(low)), Base62.LENGTH_128), text);
+			long[] decoded = Base62.decode128(text);
+			assertEquals(high, decoded[0]);
+			assertEquals(low, decoded[1]);
+		}
+	}
+
+	public void testOrderMatchesUnsignedValue() {
+		Random random = new Random(11);
+		for (int i = 0; i < 1000; i++) {
+			long a = random.nextLong();
+			long b = random.nextLong();
+			assertEquals(Long.signum(unsigned(a).compareTo(unsigned(b))), Integer.signum(Base62.encode(a).compareTo(Base62.encode(b))));
+		}
+	}
+
+	public void testRejectsIllegalText() {
+		try {
+			Base62.decode("0000000000-");
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// 非法字符
+		}
+		try {
+			Base62.decode128("0");
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// 长度不符
+		}
+		try {
+			Base62.encode(1L, new char[Base62.LONG_LENGTH], 1);
+			fail("expected IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// 数组空间不足
+		}
+	}
+
+	private static BigInteger unsigned(long value) {
+		return BigInteger.valueOf(value >>> 1).shiftLeft(1).or(BigInteger.valueOf(value & 1));
+	}
+
+	private static String reference(BigInteger value, int length) {
+		BigInteger radix = BigInteger.valueOf(62);
+		char[] buf = new char[length];
+		for (int i = length - 1; i >= 0; i--) {
+			BigInteger[] qr = value.divideAndRemainder(radix);
+			buf[i] = ALPHABET.charAt(qr[1].intValue());
+			value = qr[0];
+		}
+		return new String(buf);
+	}
+}
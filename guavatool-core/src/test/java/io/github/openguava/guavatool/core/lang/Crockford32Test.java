@@ -0,0 +1,92 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link Crockford32}编解码测试
+ * @author openguava
+ *
+ */
+public class Crockford32Test extends TestCase {
+
+	public void testEncodeMatchesBigInteger() {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			long value = i == 0 ? -1 : random.nextLong();
+			String text = Crockford32.encode(value);
+			assertEquals(Crockford32.LONG_LENGTH, text.length());
+			assertEquals(pad(unsigned(value).toString(32), Crockford32.LONG_LENGTH), translate(text));
+			assertEquals(value, Crockford32.decode(text));
+		}
+	}
+
+	public void testEncode128MatchesBigInteger() {
+		Random random = new Random(7);
+		for (int i = 0; i < 1000; i++) {
+			long high = i == 0 ? -1 : random.nextLong();
+			long low = i == 0 ? -1 : random.nextLong();
+			String text = Crockford32.encode(high, low);
+			assertEquals(Crockford32.LENGTH_128, text.length());
+			assertEquals(pad(unsigned(high).shiftLeft(64).or(unsigned(low)).toString(32), Crockford32.LENGTH_128), translate(text));
+			long[] decoded = Crockford32.decode128(text);
+			assertEquals(high, decoded[0]);
+			assertEquals(low, decoded[1]);
+		}
+	}
+
+	public void testDecodeIsLenient() {
+		String text = Crockford32.encode(0x0123456789ABCDEFL);
+		assertEquals(0x0123456789ABCDEFL, Crockford32.decode(text.toLowerCase()));
+		// I、L视为1，O视为0
+		assertEquals(Crockford32.decode("0000000000110"), Crockford32.decode("OOOOOOOOOOILo"));
+	}
+
+	public void testRejectsIllegalText() {
+		try {
+			Crockford32.decode("000000000000U");
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// U不在字母表中
+		}
+		try {
+			// 第一个字符超过4位
+			Crockford32.decode("G000000000000");
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// 溢出
+		}
+		try {
+			Crockford32.decode128("80000000000000000000000000");
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// 溢出
+		}
+	}
+
+	private static BigInteger unsigned(long value) {
+		return BigInteger.valueOf(value >>> 1).shiftLeft(1).or(BigInteger.valueOf(value & 1));
+	}
+
+	private static String pad(String text, int length) {
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = text.length(); i < length; i++) {
+			builder.append('0');
+		}
+		return builder.append(text).toString();
+	}
+
+	/**
+	 * 转换为{@link BigInteger#toString(int)}使用的32进制字母表
+	 */
+	private static String translate(String text) {
+		String alphabet = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+		StringBuilder builder = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			builder.append(Character.forDigit(alphabet.indexOf(text.charAt(i)), 32));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,104 @@
+package io.github.openguava.guavatool.core.lang;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link IdGeneratorStatsCounter}及{@link IdGeneratorStats}测试
+ * @author openguava
+ *
+ */
+public class IdGeneratorStatsTest extends TestCase {
+
+	public void testWaitBuckets() {
+		assertEquals(0, IdGeneratorStats.waitBucket(0));
+		assertEquals(0, IdGeneratorStats.waitBucket(1000));
+		assertEquals(1, IdGeneratorStats.waitBucket(1001));
+		assertEquals(1, IdGeneratorStats.waitBucket(2000));
+		assertEquals(2, IdGeneratorStats.waitBucket(2001));
+		assertEquals(20, IdGeneratorStats.waitBucket(1000L << 20));
+		assertEquals(IdGeneratorStats.WAIT_BUCKETS - 1, IdGeneratorStats.waitBucket((1000L << 20) + 1));
+		assertEquals(IdGeneratorStats.WAIT_BUCKETS - 1, IdGeneratorStats.waitBucket(Long.MAX_VALUE));
+		for (int i = 0; i < IdGeneratorStats.WAIT_BUCKETS - 1; i++) {
+			// 上限落在本桶，上限加一落在下一个桶
+			assertEquals(i, IdGeneratorStats.waitBucket(IdGeneratorStats.waitBucketUpperBound(i)));
+			assertEquals(i + 1, IdGeneratorStats.waitBucket(IdGeneratorStats.waitBucketUpperBound(i) + 1));
+		}
+	}
+
+	public void testSnapshotAndPercentile() {
+		IdGeneratorStatsCounter counter = new IdGeneratorStatsCounter();
+		counter.recordGenerated(100);
+		counter.recordGenerated(5);
+		counter.recordExhausted();
+		for (int i = 0; i < 98; i++) {
+			counter.recordWait(500);
+		}
+		counter.recordWait(3000);
+		counter.recordWait(5000000);
+		counter.recordRollback(3);
+		counter.recordRollback(7);
+		counter.recordRollbackBorrow();
+		counter.recordRollbackReject();
+		IdGeneratorStats stats = counter.snapshot();
+		assertEquals(105, stats.getGeneratedCount());
+		assertEquals(1, stats.getExhaustedCount());
+		assertEquals(100, stats.getWaitCount());
+		assertEquals(98 * 500 + 3000 + 5000000, stats.getTotalWaitTime());
+		assertEquals(5000000, stats.getMaxWaitTime());
+		assertEquals(stats.getTotalWaitTime() / 100.0, stats.getAverageWaitTime(), 0.0);
+		assertEquals(98, stats.getWaitHistogram()[0]);
+		assertEquals(2, stats.getRollbackCount());
+		assertEquals(7, stats.getMaxRollbackMillis());
+		assertEquals(1, stats.getRollbackBorrowCount());
+		assertEquals(1, stats.getRollbackRejectCount());
+		// 分位数返回所在桶的上限，不超过最长等待
+		assertEquals(1000, stats.getWaitTimePercentile(0.5));
+		assertEquals(1000, stats.getWaitTimePercentile(0.98));
+		assertEquals(4000, stats.getWaitTimePercentile(0.99));
+		assertEquals(5000000, stats.getWaitTimePercentile(1));
+		try {
+			stats.getWaitTimePercentile(0);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// 分位需在(0, 1]
+		}
+		assertEquals(0, IdGeneratorStats.EMPTY.getWaitTimePercentile(0.99));
+		assertEquals(0.0, IdGeneratorStats.EMPTY.getRate(), 0.0);
+	}
+
+	public void testMinusGivesInterval() {
+		IdGeneratorStatsCounter counter = new IdGeneratorStatsCounter();
+		counter.recordGenerated(10);
+		counter.recordWait(1500);
+		IdGeneratorStats before = counter.snapshot();
+		counter.recordGenerated(32);
+		counter.recordExhausted();
+		counter.recordWait(1500);
+		counter.recordWait(100);
+		IdGeneratorStats delta = counter.snapshot().minus(before);
+		assertEquals(32, delta.getGeneratedCount());
+		assertEquals(1, delta.getExhaustedCount());
+		assertEquals(2, delta.getWaitCount());
+		assertEquals(1600, delta.getTotalWaitTime());
+		assertEquals(1, delta.getWaitHistogram()[0]);
+		assertEquals(1, delta.getWaitHistogram()[1]);
+		assertTrue(delta.getElapsedTime() >= 0);
+		// 计数器重置后与旧快照相减不出现负数
+		counter.reset();
+		IdGeneratorStats afterReset = counter.snapshot().minus(before);
+		assertEquals(0, afterReset.getGeneratedCount());
+		assertEquals(0, afterReset.getWaitHistogram()[1]);
+	}
+
+	public void testSharedCounterAggregatesGenerators() {
+		IdGeneratorStatsCounter counter = new IdGeneratorStatsCounter();
+		Snowflake snowflake = new Snowflake(0, 0).setStatsCounter(counter);
+		UlidGenerator ulid = new UlidGenerator().setStatsCounter(counter);
+		snowflake.nextIds(100);
+		snowflake.nextId();
+		ulid.next();
+		assertEquals(102, counter.snapshot().getGeneratedCount());
+		assertEquals(102, snowflake.getStats().getGeneratedCount());
+		assertSame(IdGeneratorStats.EMPTY, new UUIDv7Generator().getStats());
+	}
+}
@@ -0,0 +1,94 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link SegmentIdGenerator}号段分配及预取测试
+ * @author openguava
+ *
+ */
+public class SegmentIdGeneratorTest extends TestCase {
+
+	public void testPrefetchesNextSegmentInBackground() throws Exception {
+		MemoryStore store = new MemoryStore();
+		SegmentIdGenerator generator = new SegmentIdGenerator(store, "order", 10);
+		for (long expected = 1; expected <= 8; expected++) {
+			assertEquals(expected, generator.nextId());
+		}
+		// 分配到号段的70%(第8个ID)时在后台预取下一号段
+		for (int i = 0; i < 100 && store.prefetched.get() == 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, store.prefetched.get());
+		for (long expected = 9; expected <= 30; expected++) {
+			assertEquals(expected, generator.nextId());
+		}
+		assertTrue(store.prefetched.get() >= 2);
+	}
+
+	public void testFailedPrefetchFallsBackToSyncLoad() {
+		MemoryStore store = new MemoryStore();
+		store.failPrefetch = true;
+		SegmentIdGenerator generator = new SegmentIdGenerator(store, "order", 10);
+		for (long expected = 1; expected <= 50; expected++) {
+			assertEquals(expected, generator.nextId());
+		}
+	}
+
+	public void testUniqueAcrossThreads() throws Exception {
+		final SegmentIdGenerator generator = new SegmentIdGenerator(new MemoryStore(), "order", 100);
+		final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+		final AtomicReference<String> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 5000; j++) {
+						if (!ids.add(generator.nextId())) {
+							failure.compareAndSet(null, "duplicate id");
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get(), failure.get());
+		assertEquals(20000, ids.size());
+	}
+
+	/**
+	 * 内存号段存储，统计后台预取次数
+	 */
+	private static class MemoryStore implements IdSegmentStore {
+
+		private final AtomicInteger prefetched = new AtomicInteger();
+
+		private long maxId;
+
+		private volatile boolean failPrefetch;
+
+		@Override
+		public synchronized IdSegment nextSegment(String key, int step) {
+			boolean prefetch = Thread.currentThread().getName().startsWith("IdSegment Prefetch");
+			if (prefetch) {
+				if (this.failPrefetch) {
+					throw new IllegalStateException("prefetch failed");
+				}
+				this.prefetched.incrementAndGet();
+			}
+			IdSegment segment = new IdSegment(this.maxId + 1, this.maxId + 1 + step);
+			this.maxId += step;
+			return segment;
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link Snowflake}测试
+ * @author openguava
+ *
+ */
+public class SnowflakeTest extends TestCase {
+
+	private static final long START_TIMESTAMP = 1577808000000L;
+
+	private SystemClock defaultClock;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.defaultClock = SystemClock.getDefault();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		SystemClock.setDefault(this.defaultClock);
+	}
+
+	public void testUniqueAndMonotonicAcrossThreads() throws Exception {
+		final Snowflake snowflake = new Snowflake(1, 1);
+		final int perThread = 100000;
+		final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+		final AtomicReference<String> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						long last = -1;
+						for (int j = 0; j < perThread; j++) {
+							long id = snowflake.nextId();
+							if (id <= last) {
+								failure.compareAndSet(null, "not monotonic: " + last + " -> " + id);
+							}
+							if (!ids.add(id)) {
+								failure.compareAndSet(null, "duplicate: " + id);
+							}
+							last = id;
+						}
+					} catch (RuntimeException e) {
+						failure.compareAndSet(null, e.toString());
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get(), failure.get());
+		assertEquals(threads.length * perThread, ids.size());
+	}
+
+	public void testNextIdsMonotonic() {
+		Snowflake snowflake = new Snowflake(0, 0);
+		long[] ids = snowflake.nextIds(10000);
+		long last = snowflake.nextId();
+		for (int i = 1; i < ids.length; i++) {
+			assertTrue(ids[i] > ids[i - 1]);
+		}
+		assertTrue(last > ids[ids.length - 1]);
+	}
+
+	public void testBatchesUniqueAcrossThreads() throws Exception {
+		final Snowflake snowflake = new Snowflake(2, 2);
+		final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+		final AtomicReference<String> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						long[] batch = new long[100];
+						for (int j = 0; j < 200; j++) {
+							snowflake.nextIds(batch, 10, 90);
+							for (int k = 10; k < batch.length; k++) {
+								if (!ids.add(batch[k])) {
+									failure.compareAndSet(null, "duplicate: " + batch[k]);
+								}
+							}
+							// 批量分配与单个分配交替
+							if (!ids.add(snowflake.nextId())) {
+								failure.compareAndSet(null, "duplicate single id");
+							}
+						}
+					} catch (RuntimeException e) {
+						failure.compareAndSet(null, e.toString());
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get(), failure.get());
+		assertEquals(threads.length * 200 * 91, ids.size());
+	}
+
+	public void testRollbackRejectedWithoutClockSequence() {
+		ManualClock clock = ManualClock.install(1700000000000L);
+		Snowflake snowflake = new Snowflake(0, 0, 5, 5, START_TIMESTAMP).setStatsCounter(new IdGeneratorStatsCounter());
+		snowflake.nextId();
+		clock.time -= 100;
+		try {
+			snowflake.nextId();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// 回拨超过最大等待时长且未预留时钟序列
+		}
+		assertEquals(1, snowflake.getStats().getRollbackCount());
+		assertEquals(1, snowflake.getStats().getRollbackRejectCount());
+	}
+
+	public void testRollbackBorrowsClockSequence() {
+		ManualClock clock = ManualClock.install(1700000000000L);
+		Snowflake snowflake = new Snowflake(0, 0, 5, 5, START_TIMESTAMP, 2).setStatsCounter(new IdGeneratorStatsCounter());
+		Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(ids.add(snowflake.nextId()));
+		}
+		// 回拨后从较早的时间重新生成，借用时钟序列保证不重复
+		clock.time -= 100;
+		for (int i = 0; i < 100; i++) {
+			clock.time++;
+			for (int j = 0; j < 100; j++) {
+				assertTrue(ids.add(snowflake.nextId()));
+			}
+		}
+		assertEquals(1, snowflake.getStats().getRollbackBorrowCount());
+	}
+
+	public void testClockSequenceWrapRejected() {
+		ManualClock clock = ManualClock.install(1700000000000L);
+		Snowflake snowflake = new Snowflake(0, 0, 5, 5, START_TIMESTAMP, 1).setStatsCounter(new IdGeneratorStatsCounter());
+		snowflake.nextId();
+		clock.time -= 100;
+		snowflake.nextId();
+		// 只有两个时钟序列，再次回拨会回到仍在使用的序列
+		clock.time -= 100;
+		try {
+			snowflake.nextId();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// 时钟序列用尽
+		}
+		// 时间越过被放弃序列用到的时间后可以再次借用
+		clock.time += 500;
+		long id = snowflake.nextId();
+		clock.time -= 50;
+		assertTrue(snowflake.nextId() != id);
+		assertEquals(2, snowflake.getStats().getRollbackBorrowCount());
+		assertEquals(1, snowflake.getStats().getRollbackRejectCount());
+	}
+
+	/**
+	 * 手动推进的时钟
+	 */
+	private static class ManualClock extends SystemClock {
+
+		private volatile long time;
+
+		private ManualClock(long time) {
+			super(Precision.NANO);
+			this.time = time;
+		}
+
+		private static ManualClock install(long time) {
+			ManualClock clock = new ManualClock(time);
+			SystemClock.setDefault(clock);
+			return clock;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return this.time;
+		}
+	}
+}
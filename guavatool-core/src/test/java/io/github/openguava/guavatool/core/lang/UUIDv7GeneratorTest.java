@@ -0,0 +1,109 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link UUIDv7Generator}测试
+ * @author openguava
+ *
+ */
+public class UUIDv7GeneratorTest extends TestCase {
+
+	private SystemClock defaultClock;
+
+	private ManualClock clock;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.defaultClock = SystemClock.getDefault();
+		this.clock = new ManualClock(1700000000000L);
+		SystemClock.setDefault(this.clock);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		SystemClock.setDefault(this.defaultClock);
+	}
+
+	public void testLayoutAndTimestamp() {
+		UUIDv7Generator generator = new UUIDv7Generator();
+		UUID uuid = generator.next();
+		assertEquals(7, uuid.version());
+		assertEquals(2, uuid.variant());
+		assertEquals(1700000000000L, UUIDv7Generator.timestamp(uuid));
+		String text = generator.nextString();
+		assertEquals(UUIDv7Generator.LENGTH, text.length());
+		UUID parsed = UUID.fromString(text);
+		assertEquals(text, parsed.toString());
+		assertEquals(7, parsed.version());
+	}
+
+	public void testMonotonicWithinMillisAndAfterRollback() {
+		UUIDv7Generator generator = new UUIDv7Generator();
+		Set<String> seen = new HashSet<>();
+		String last = "";
+		for (int i = 0; i < 30000; i++) {
+			if (i == 10000) {
+				// 时钟回拨仍在上次的时间戳上递增
+				this.clock.time -= 5;
+			} else if (i == 20000) {
+				this.clock.time += 10;
+			}
+			String text = generator.nextString();
+			assertTrue(last + " -> " + text, text.compareTo(last) > 0);
+			assertTrue(seen.add(text));
+			last = text;
+		}
+	}
+
+	public void testBase62KeepsOrder() {
+		UUIDv7Generator generator = new UUIDv7Generator();
+		String last = generator.nextBase62();
+		assertEquals(Base62.LENGTH_128, last.length());
+		for (int i = 0; i < 10000; i++) {
+			if (i % 1000 == 0) {
+				this.clock.time++;
+			}
+			String text = generator.nextBase62();
+			assertTrue(text.compareTo(last) > 0);
+			long[] bits = Base62.decode128(text);
+			assertEquals(this.clock.time, UUIDv7Generator.timestamp(new UUID(bits[0], bits[1])));
+			last = text;
+		}
+	}
+
+	public void testCounterExhaustionCarriesToNextMillis() {
+		UUIDv7Generator generator = new UUIDv7Generator().setStatsCounter(new IdGeneratorStatsCounter());
+		long last = 0;
+		// 计数起始值小于2^17，2^18个内必然用尽一次
+		for (int i = 0; i < (1 << 18); i++) {
+			UUID uuid = generator.next();
+			last = UUIDv7Generator.timestamp(uuid);
+		}
+		assertEquals(this.clock.time + 1, last);
+		assertEquals(1, generator.getStats().getExhaustedCount());
+		assertEquals(1 << 18, generator.getStats().getGeneratedCount());
+	}
+
+	/**
+	 * 手动推进的时钟
+	 */
+	private static class ManualClock extends SystemClock {
+
+		private volatile long time;
+
+		private ManualClock(long time) {
+			super(Precision.NANO);
+			this.time = time;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return this.time;
+		}
+	}
+}
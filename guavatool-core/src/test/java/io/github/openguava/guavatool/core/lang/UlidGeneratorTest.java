@@ -0,0 +1,112 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link UlidGenerator}测试
+ * @author openguava
+ *
+ */
+public class UlidGeneratorTest extends TestCase {
+
+	private SystemClock defaultClock;
+
+	private ManualClock clock;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.defaultClock = SystemClock.getDefault();
+		this.clock = new ManualClock(1700000000000L);
+		SystemClock.setDefault(this.clock);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		SystemClock.setDefault(this.defaultClock);
+	}
+
+	public void testLayoutAndTimestamp() {
+		UlidGenerator generator = new UlidGenerator();
+		String ulid = generator.next();
+		assertEquals(UlidGenerator.LENGTH, ulid.length());
+		assertTrue(ulid, ulid.matches("[0-7][0-9A-HJKMNP-TV-Z]{25}"));
+		assertEquals(1700000000000L, UlidGenerator.timestamp(ulid));
+		UUID uuid = generator.nextUUID();
+		assertEquals(1700000000000L, uuid.getMostSignificantBits() >>> 16);
+	}
+
+	public void testMonotonicWithinMillisAndAfterRollback() {
+		UlidGenerator generator = new UlidGenerator();
+		String last = generator.next();
+		for (int i = 0; i < 30000; i++) {
+			if (i == 10000) {
+				// 时钟回拨仍在上次的时间戳上递增
+				this.clock.time -= 5;
+			} else if (i == 20000) {
+				this.clock.time += 10;
+			}
+			String ulid = generator.next();
+			assertTrue(last + " -> " + ulid, ulid.compareTo(last) > 0);
+			last = ulid;
+		}
+		assertEquals(this.clock.time, UlidGenerator.timestamp(last));
+	}
+
+	public void testUniqueAcrossThreads() throws Exception {
+		final UlidGenerator generator = new UlidGenerator().setStatsCounter(new IdGeneratorStatsCounter());
+		final Set<String> ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		final AtomicReference<String> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					char[] buf = new char[UlidGenerator.LENGTH];
+					String last = "";
+					for (int j = 0; j < 20000; j++) {
+						generator.next(buf, 0);
+						String ulid = new String(buf);
+						if (ulid.compareTo(last) <= 0) {
+							failure.compareAndSet(null, "not monotonic: " + last + " -> " + ulid);
+						}
+						if (!ids.add(ulid)) {
+							failure.compareAndSet(null, "duplicate: " + ulid);
+						}
+						last = ulid;
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get(), failure.get());
+		assertEquals(threads.length * 20000, ids.size());
+		assertEquals(threads.length * 20000, generator.getStats().getGeneratedCount());
+	}
+
+	/**
+	 * 手动推进的时钟
+	 */
+	private static class ManualClock extends SystemClock {
+
+		private volatile long time;
+
+		private ManualClock(long time) {
+			super(Precision.NANO);
+			this.time = time;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return this.time;
+		}
+	}
+}
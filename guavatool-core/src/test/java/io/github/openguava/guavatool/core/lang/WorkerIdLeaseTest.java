@@ -0,0 +1,129 @@
+package io.github.openguava.guavatool.core.lang;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link WorkerIdLease}租用及失效测试
+ * @author openguava
+ *
+ */
+public class WorkerIdLeaseTest extends TestCase {
+
+	private static final long LEASE_MILLIS = 30000L;
+
+	private SystemClock defaultClock;
+
+	private ManualClock clock;
+
+	private MemoryRegistry registry;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.defaultClock = SystemClock.getDefault();
+		// 与系统时间不同的时钟，租约和生成器必须使用同一时钟
+		this.clock = new ManualClock(1600000000000L);
+		SystemClock.setDefault(this.clock);
+		this.registry = new MemoryRegistry();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		SystemClock.setDefault(this.defaultClock);
+	}
+
+	public void testDistinctIdsPerLease() {
+		WorkerIdLease first = new WorkerIdLease(this.registry, 1, LEASE_MILLIS);
+		WorkerIdLease second = new WorkerIdLease(this.registry, 1, LEASE_MILLIS);
+		WorkerIdLease third = new WorkerIdLease(this.registry, 1, LEASE_MILLIS);
+		try {
+			long a = first.acquire();
+			long b = second.acquire();
+			assertTrue(a != b);
+			try {
+				third.acquire();
+				fail("expected no free worker id");
+			} catch (RuntimeException e) {
+				// 标识已全部租出
+			}
+			first.close();
+			assertEquals(a, third.acquire());
+		} finally {
+			first.close();
+			second.close();
+			third.close();
+		}
+	}
+
+	public void testSnowflakeFencedAfterLeaseLapses() {
+		WorkerIdLease lease = new WorkerIdLease(this.registry, WorkerIdLease.DEFAULT_MAX_WORKER_ID, LEASE_MILLIS);
+		try {
+			Snowflake snowflake = lease.newSnowflake();
+			snowflake.nextId();
+			this.clock.time += LEASE_MILLIS - 1;
+			assertTrue(lease.isValid(SystemClock.now()));
+			snowflake.nextId();
+			// 超过租约时长未续期，生成器拒绝生成
+			this.clock.time += 1;
+			assertFalse(lease.isValid(SystemClock.now()));
+			try {
+				snowflake.nextId();
+				fail("expected IllegalStateException");
+			} catch (IllegalStateException e) {
+				// 租约失效
+			}
+		} finally {
+			lease.close();
+		}
+	}
+
+	/**
+	 * 内存注册中心
+	 */
+	private static class MemoryRegistry implements WorkerIdRegistry {
+
+		private final Map<Long, String> owners = new HashMap<>();
+
+		@Override
+		public synchronized boolean tryAcquire(long workerId, String owner, long leaseMillis) {
+			String current = this.owners.get(workerId);
+			if (current != null && !current.equals(owner)) {
+				return false;
+			}
+			this.owners.put(workerId, owner);
+			return true;
+		}
+
+		@Override
+		public synchronized boolean renew(long workerId, String owner, long leaseMillis) {
+			return owner.equals(this.owners.get(workerId));
+		}
+
+		@Override
+		public synchronized void release(long workerId, String owner) {
+			if (owner.equals(this.owners.get(workerId))) {
+				this.owners.remove(workerId);
+			}
+		}
+	}
+
+	/**
+	 * 手动推进的时钟
+	 */
+	private static class ManualClock extends SystemClock {
+
+		private volatile long time;
+
+		private ManualClock(long time) {
+			super(Precision.NANO);
+			this.time = time;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return this.time;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package io.github.openguava.guavatool.core.util;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link ByteArrayAccess}测试，Java 7与Java 11两个实现的结果及越界异常需一致
+ * @author openguava
+ *
+ */
+public class ByteArrayAccessTest extends TestCase {
+
+	public void testByteUtilsMatchesByteBuffer() {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			long value = random.nextLong();
+			for (ByteOrder order : new ByteOrder[] { ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN }) {
+				byte[] bytes = ByteUtils.longToBytes(value, order);
+				assertTrue(Arrays.equals(ByteBuffer.allocate(8).order(order).putLong(value).array(), bytes));
+				assertEquals(value, ByteUtils.bytesToLong(bytes, order));
+				assertEquals((int) value, ByteUtils.bytesToInt(ByteUtils.intToBytes((int) value, order), order));
+				assertEquals((short) value, ByteUtils.bytesToShort(ByteUtils.shortToBytes((short) value, order), 0, order));
+			}
+		}
+	}
+
+	public void testOutOfBoundsThrowsArrayIndexOutOfBounds() {
+		try {
+			ByteUtils.bytesToLong(new byte[16], 9, ByteOrder.LITTLE_ENDIAN);
+			fail("expected ArrayIndexOutOfBoundsException");
+		} catch (ArrayIndexOutOfBoundsException e) {
+			// 与数组访问一致
+		}
+		try {
+			ByteUtils.bytesToInt(new byte[4], -1, ByteOrder.BIG_ENDIAN);
+			fail("expected ArrayIndexOutOfBoundsException");
+		} catch (ArrayIndexOutOfBoundsException e) {
+			// 与数组访问一致
+		}
+	}
+
+	public void testJava11VersionMatchesJava7() throws Exception {
+		Class<?> java11 = loadJava11Version();
+		if (java11 == null) {
+			// 未生成多版本输出时跳过
+			return;
+		}
+		Random random = new Random(7);
+		byte[] expected = new byte[16];
+		byte[] actual = new byte[16];
+		for (int i = 0; i < 1000; i++) {
+			long value = random.nextLong();
+			int start = random.nextInt(9);
+			boolean littleEndian = random.nextBoolean();
+			ByteArrayAccess.putLong(expected, start, value, littleEndian);
+			invoke(java11, "putLong", actual, start, value, littleEndian);
+			assertTrue(Arrays.equals(expected, actual));
+			assertEquals(ByteArrayAccess.getLong(expected, start, littleEndian), invoke(java11, "getLong", actual, start, littleEndian));
+			assertEquals(ByteArrayAccess.getInt(expected, start, littleEndian), invoke(java11, "getInt", actual, start, littleEndian));
+			assertEquals(ByteArrayAccess.getShort(expected, start, littleEndian), invoke(java11, "getShort", actual, start, littleEndian));
+		}
+		for (int start : new int[] { -1, 9, 15, 16, 17 }) {
+			try {
+				invoke(java11, "getLong", actual, start, true);
+				fail("expected ArrayIndexOutOfBoundsException at " + start);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				// 与Java 7实现一致
+			}
+			try {
+				invoke(java11, "putInt", actual, start < 0 ? start : start + 4, 1, false);
+				fail("expected ArrayIndexOutOfBoundsException at " + start);
+			} catch (ArrayIndexOutOfBoundsException e) {
+				// 与Java 7实现一致
+			}
+		}
+	}
+
+	/**
+	 * 从META-INF/versions/11加载Java 11实现，不委托给已加载Java 7实现的类加载器
+	 */
+	private static Class<?> loadJava11Version() throws Exception {
+		URL location = ByteArrayAccess.class.getProtectionDomain().getCodeSource().getLocation();
+		File root = new File(new File(location.toURI()), "META-INF/versions/11");
+		if (!new File(root, ByteArrayAccess.class.getName().replace('.', '/') + ".class").isFile()) {
+			return null;
+		}
+		@SuppressWarnings("resource")
+		URLClassLoader loader = new URLClassLoader(new URL[] { root.toURI().toURL() }, null);
+		return loader.loadClass(ByteArrayAccess.class.getName());
+	}
+
+	private static Object invoke(Class<?> type, String name, Object... args) throws Exception {
+		Method target = null;
+		for (Method method : type.getDeclaredMethods()) {
+			if (method.getName().equals(name)) {
+				target = method;
+			}
+		}
+		target.setAccessible(true);
+		try {
+			return target.invoke(null, args);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package io.github.openguava.guavatool.mybatis.common;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import javax.sql.DataSource;
+
+import io.github.openguava.guavatool.core.exception.UtilException;
+import io.github.openguava.guavatool.core.lang.IdSegment;
+import io.github.openguava.guavatool.core.lang.IdSegmentStore;
+
+/**
+ * 基于JDBC的ID号段存储，每个业务键一行记录已分配的最大ID<br>
+ * 在同一事务中先累加最大ID再读取，行锁保证多个节点租用的号段不重叠；业务键不存在时自动插入。
+ * 表结构示例(MySQL)：
+ * <pre>
+ * CREATE TABLE id_segment (
+ *   biz_key VARCHAR(128) NOT NULL PRIMARY KEY,
+ *   max_id BIGINT NOT NULL,
+ *   update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+ * );
+ * </pre>
+ * @author openguava
+ *
+ */
+public class JdbcIdSegmentStore implements IdSegmentStore {
+
+	/** 默认表名 */
+	public static final String DEFAULT_TABLE_NAME = "id_segment";
+
+	/** 数据源 */
+	private final DataSource dataSource;
+
+	/** 累加最大ID */
+	private final String updateSql;
+
+	/** 读取最大ID */
+	private final String selectSql;
+
+	/** 插入业务键 */
+	private final String insertSql;
+
+	/**
+	 * 构造，使用默认表名
+	 * @param dataSource 数据源
+	 */
+	public JdbcIdSegmentStore(DataSource dataSource) {
+		this(dataSource, DEFAULT_TABLE_NAME);
+	}
+
+	/**
+	 * 构造
+	 * @param dataSource 数据源
+	 * @param tableName 表名，包含biz_key和max_id列
+	 */
+	public JdbcIdSegmentStore(DataSource dataSource, String tableName) {
+		if (dataSource == null || tableName == null) {
+			throw new IllegalArgumentException("dataSource and tableName cannot be null.");
+		}
+		this.dataSource = dataSource;
+		this.updateSql = "UPDATE " + tableName + " SET max_id = max_id + ? WHERE biz_key = ?";
+		this.selectSql = "SELECT max_id FROM " + tableName + " WHERE biz_key = ?";
+		this.insertSql = "INSERT INTO " + tableName + " (biz_key, max_id) VALUES (?, ?)";
+	}
+
+	@Override
+	public IdSegment nextSegment(String key, int step) {
+		try {
+			IdSegment segment = this.tryNextSegment(key, step);
+			if (segment == null) {
+				try {
+					this.insert(key);
+				} catch (SQLException e) {
+					// 其他节点已插入时忽略主键冲突
+					if (!isDuplicateKey(e)) {
+						throw e;
+					}
+				}
+				segment = this.tryNextSegment(key, step);
+			}
+			if (segment == null) {
+				throw new UtilException("id segment key not found: {}", key);
+			}
+			return segment;
+		} catch (SQLException e) {
+			throw new UtilException(e, "allocate id segment failed: {}", key);
+		}
+	}
+
+	/**
+	 * 在一个事务中累加并读取最大ID
+	 * @param key 业务键
+	 * @param step 号段长度
+	 * @return 号段，业务键不存在返回{@code null}
+	 * @throws SQLException SQL异常
+	 */
+	private IdSegment tryNextSegment(String key, int step) throws SQLException {
+		try (Connection connection = this.dataSource.getConnection()) {
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				int updated;
+				try (PreparedStatement statement = connection.prepareStatement(this.updateSql)) {
+					statement.setLong(1, step);
+					statement.setString(2, key);
+					updated = statement.executeUpdate();
+				}
+				if (updated == 0) {
+					connection.rollback();
+					return null;
+				}
+				long maxId;
+				try (PreparedStatement statement = connection.prepareStatement(this.selectSql)) {
+					statement.setString(1, key);
+					try (ResultSet resultSet = statement.executeQuery()) {
+						if (!resultSet.next()) {
+							connection.rollback();
+							return null;
+						}
+						maxId = resultSet.getLong(1);
+					}
+				}
+				connection.commit();
+				return new IdSegment(maxId - step, maxId);
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+	}
+
+	/**
+	 * 是否为违反唯一约束(SQLState以{@code 23}开头)
+	 * @param e SQL异常
+	 * @return 是否为主键冲突
+	 */
+	private static boolean isDuplicateKey(SQLException e) {
+		if (e instanceof SQLIntegrityConstraintViolationException) {
+			return true;
+		}
+		String sqlState = e.getSQLState();
+		return sqlState != null && sqlState.startsWith("23");
+	}
+
+	/**
+	 * 插入业务键，初始最大ID为{@code 1}，即第一个号段从{@code 1}开始
+	 * @param key 业务键
+	 * @throws SQLException SQL异常
+	 */
+	private void insert(String key) throws SQLException {
+		try (Connection connection = this.dataSource.getConnection(); PreparedStatement statement = connection.prepareStatement(this.insertSql)) {
+			statement.setString(1, key);
+			statement.setLong(2, 1L);
+			statement.executeUpdate();
+			if (!connection.getAutoCommit()) {
+				connection.commit();
+			}
+		}
+	}
+}
@@ -3,26 +3,49 @@ package io.github.openguava.guavatool.shiro.common;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
 import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.util.Destroyable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.github.openguava.guavatool.core.cache.CacheCursor;
 import io.github.openguava.guavatool.core.exception.SerializationException;
 import io.github.openguava.guavatool.core.util.LogUtils;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 会话数据访问
+ * <p>
+ * 启用延迟写入({@link AbstractShiroSessionConfig#setWriteBehindEnabled(boolean)})后，{@link #update(Session)}只把会话的快照按id合并到待写入队列，
+ * 由后台线程每隔刷新间隔分批写入，写入失败的会话重新加入队列；读取待写入的会话时返回快照的副本；只有访问时间变化的{@link SimpleSession}在{@link AbstractShiroSessionConfig#getTouchFlushInterval()}内最多写入一次。
+ * 是否只有访问时间变化按值判断：分字段存储的{@link DeltaSession}看有无脏属性，其他会话比较属性序列化后的字节。
+ * 队列满时同步写入。进程异常退出时尚未写入的更新会丢失，正常关闭时{@link #destroy()}会写入剩余更新。
+ * <p>
+ * 启用分字段存储({@link AbstractShiroSessionConfig#setDeltaStorageEnabled(boolean)})后，会话存储为哈希对象，
+ * 元数据(不含属性的{@link SimpleSession})和每个属性各占一个字段；{@link DeltaSession}只写入元数据和变化的属性，其他会话整体替换。
+ * 两种存储格式不兼容，切换时应同时更换键前缀。
  * @author openguava
  *
  */
-public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.AbstractSessionDAO {
+public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.AbstractSessionDAO implements Destroyable {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractSessionDAO.class);
 	
 	private static final int MILLISECONDS_IN_A_SECOND = 1000;
 	
+	/** 分字段存储的元数据字段 */
+	private static final byte[] META_FIELD = new byte[] { 'm' };
+	
+	/** 分字段存储的属性字段前缀，后接序列化的属性键 */
+	private static final byte ATTRIBUTE_FIELD_PREFIX = 'a';
+	
 	private AbstractShiroSessionConfig config;
 	
 	public AbstractShiroSessionConfig getConfig() {
@@ -51,6 +74,21 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 		return this;
 	}
 	
+	/** 待写入的会话，按会话id合并 */
+	private final ConcurrentHashMap<Serializable, Session> pendingSessions = new ConcurrentHashMap<>();
+	
+	/** 最近写入的会话状态，用于识别只有访问时间变化的更新 */
+	private final ConcurrentHashMap<Serializable, FlushedState> flushedStates = new ConcurrentHashMap<>();
+	
+	/** 刷新锁，删除会话时等待进行中的刷新，避免已删除的会话被重新写入 */
+	private final ReentrantLock flushLock = new ReentrantLock();
+	
+	/** 后台刷新任务 */
+	private volatile ScheduledFuture<?> flushTask;
+	
+	/** 上次清理写入状态的时间 */
+	private volatile long lastPruneTime;
+	
 	/** 线程变量存储 */
 	@SuppressWarnings("rawtypes")
 	private static final ThreadLocal sessionsInThread = new ThreadLocal();
@@ -80,7 +118,11 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 	 */
 	@Override
 	public void update(Session session) throws UnknownSessionException {
-		this.saveSession(session);
+		if (this.config.getWriteBehindEnabled()) {
+			this.writeBehind(session);
+		} else {
+			this.saveSession(session);
+		}
 		if (this.config.getSessionInMemoryEnabled()) {
 			this.setSessionToThreadLocal(session.getId(), session);
 		}
@@ -95,6 +137,10 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 		if (session == null || session.getId() == null) {
 			throw new UnknownSessionException("session or session id is null");
 		}
+		if (this.config.getDeltaStorageEnabled()) {
+			this.saveSessionFields(session);
+			return;
+		}
 		byte[] key;
 		byte[] value;
 		try {
@@ -104,9 +150,143 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 			LogUtils.error(this.getClass(), "serialize session error. session id=" + session.getId());
 			throw new UnknownSessionException(e);
 		}
+		this.dao.put(key, value, this.getSessionExpire(session));
+	}
+	
+	/**
+	 * 分字段保存会话，已与缓存同步的{@link DeltaSession}只写入元数据和变化的属性，其他会话整体替换<br>
+	 * 只写入变化的属性时仅当哈希仍存在才写入；哈希已过期或已被其他节点删除时改为整体写入，避免写出缺少属性(如身份)的会话
+	 * @param session
+	 * @throws UnknownSessionException
+	 */
+	protected void saveSessionFields(Session session) throws UnknownSessionException {
+		DeltaSession delta = session instanceof DeltaSession ? (DeltaSession) session : null;
+		boolean replace = delta == null || !delta.isSynced();
+		Set<Object> dirtyKeys = delta == null ? Collections.emptySet() : delta.drainDirtyKeys();
+		try {
+			byte[] key = this.config.getKeySerializer().serialize(this.getSessionKey(session.getId()));
+			int expire = this.getSessionExpire(session);
+			if (!this.writeSessionFields(key, session, replace ? session.getAttributeKeys() : dirtyKeys, expire, replace) && !replace) {
+				replace = true;
+				this.writeSessionFields(key, session, session.getAttributeKeys(), expire, true);
+			}
+		} catch (SerializationException e) {
+			if (delta != null) {
+				delta.restoreDirtyKeys(dirtyKeys);
+			}
+			LogUtils.error(this.getClass(), "serialize session error. session id=" + session.getId());
+			throw new UnknownSessionException(e);
+		} catch (RuntimeException e) {
+			if (delta != null) {
+				delta.restoreDirtyKeys(dirtyKeys);
+			}
+			throw e;
+		}
+		if (delta != null && replace) {
+			delta.markSynced();
+		}
+	}
+	
+	/**
+	 * 写入会话元数据和指定属性的字段，值为{@code null}的属性删除字段
+	 * @param key
+	 * @param session
+	 * @param attributeKeys
+	 * @param expire
+	 * @param replace 是否替换整个哈希
+	 * @return 是否写入，不替换且哈希不存在时为{@code false}
+	 * @throws SerializationException
+	 */
+	private boolean writeSessionFields(byte[] key, Session session, Collection<Object> attributeKeys, int expire, boolean replace) throws SerializationException {
+		Map<byte[], byte[]> fields = new LinkedHashMap<>();
+		List<byte[]> removedFields = new ArrayList<>();
+		fields.put(META_FIELD, this.config.getValueSerializer().serialize(copyMeta(session)));
+		for (Object attributeKey : attributeKeys) {
+			Object value = session.getAttribute(attributeKey);
+			if (value == null) {
+				removedFields.add(this.getAttributeField(attributeKey));
+			} else {
+				fields.put(this.getAttributeField(attributeKey), this.config.getValueSerializer().serialize(value));
+			}
+		}
+		return this.dao.putFields(key, fields, removedFields, expire, replace);
+	}
+	
+	/**
+	 * 从分字段存储的字段还原会话
+	 * @param fields
+	 * @return 会话，缺少元数据(不存在或已过期)时返回{@code null}
+	 * @throws SerializationException
+	 */
+	protected Session readSessionFields(Map<byte[], byte[]> fields) throws SerializationException {
+		SimpleSession meta = null;
+		Map<Object, Object> attributes = new HashMap<>();
+		for (Map.Entry<byte[], byte[]> entry : fields.entrySet()) {
+			byte[] field = entry.getKey();
+			if (Arrays.equals(field, META_FIELD)) {
+				meta = (SimpleSession) this.config.getValueSerializer().deserialize(entry.getValue());
+			} else if (field.length > 1 && field[0] == ATTRIBUTE_FIELD_PREFIX) {
+				Object attributeKey = this.config.getValueSerializer().deserialize(Arrays.copyOfRange(field, 1, field.length));
+				attributes.put(attributeKey, this.config.getValueSerializer().deserialize(entry.getValue()));
+			}
+		}
+		if (meta == null) {
+			return null;
+		}
+		DeltaSession session = new DeltaSession();
+		session.setId(meta.getId());
+		session.setStartTimestamp(meta.getStartTimestamp());
+		session.setLastAccessTime(meta.getLastAccessTime());
+		session.setTimeout(meta.getTimeout());
+		session.setStopTimestamp(meta.getStopTimestamp());
+		session.setExpired(meta.isExpired());
+		session.setHost(meta.getHost());
+		session.setAttributes(attributes.isEmpty() ? null : attributes);
+		session.markSynced();
+		return session;
+	}
+	
+	/**
+	 * 获取属性的字段名
+	 * @param attributeKey
+	 * @return
+	 * @throws SerializationException
+	 */
+	private byte[] getAttributeField(Object attributeKey) throws SerializationException {
+		byte[] serialized = this.config.getValueSerializer().serialize(attributeKey);
+		byte[] field = new byte[serialized.length + 1];
+		field[0] = ATTRIBUTE_FIELD_PREFIX;
+		System.arraycopy(serialized, 0, field, 1, serialized.length);
+		return field;
+	}
+	
+	/**
+	 * 复制不含属性的会话元数据
+	 * @param session
+	 * @return
+	 */
+	private static SimpleSession copyMeta(Session session) {
+		SimpleSession meta = new SimpleSession();
+		meta.setId(session.getId());
+		meta.setStartTimestamp(session.getStartTimestamp());
+		meta.setLastAccessTime(session.getLastAccessTime());
+		meta.setTimeout(session.getTimeout());
+		meta.setHost(session.getHost());
+		if (session instanceof SimpleSession) {
+			meta.setStopTimestamp(((SimpleSession) session).getStopTimestamp());
+			meta.setExpired(((SimpleSession) session).isExpired());
+		}
+		return meta;
+	}
+	
+	/**
+	 * 获取会话在缓存中的有效时间
+	 * @param session
+	 * @return 有效时间，单位秒
+	 */
+	protected int getSessionExpire(Session session) {
 		if (this.config.getExpire() == AbstractShiroSessionConfig.DEFAULT_EXPIRE) {
-			this.dao.put(key, value, (int) (session.getTimeout() / MILLISECONDS_IN_A_SECOND));
-			return;
+			return (int) (session.getTimeout() / MILLISECONDS_IN_A_SECOND);
 		}
 		if (this.config.getExpire() != AbstractShiroSessionConfig.NO_EXPIRE && this.config.getExpire() * MILLISECONDS_IN_A_SECOND < session.getTimeout()) {
 			LogUtils.warn(this.getClass(), "Redis session expire time: "
@@ -115,7 +295,388 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 					+ session.getTimeout()
 					+ " . It may cause some problems.");
 		}
-		this.dao.put(key, value, this.config.getExpire());
+		return this.config.getExpire();
+	}
+	
+	/**
+	 * 延迟写入会话，同一会话未写入的更新合并为一次
+	 * @param session
+	 * @throws UnknownSessionException
+	 */
+	protected void writeBehind(Session session) throws UnknownSessionException {
+		if (session == null || session.getId() == null) {
+			throw new UnknownSessionException("session or session id is null");
+		}
+		Serializable sessionId = session.getId();
+		// 队列中保存调用时的快照，后台写入和其他请求读取时不会与调用方并发访问同一个会话对象
+		Session snapshot = this.snapshotSession(session);
+		for (;;) {
+			Session previous = this.pendingSessions.get(sessionId);
+			if (previous != null) {
+				if (previous instanceof DeltaSession && snapshot instanceof DeltaSession) {
+					// 合并为一次写入，被替换会话的脏属性一并写入
+					DeltaSession delta = (DeltaSession) snapshot;
+					delta.restoreDirtyKeys(((DeltaSession) previous).peekDirtyKeys());
+					if (!((DeltaSession) previous).isSynced()) {
+						delta.markUnsynced();
+					}
+				}
+				if (this.pendingSessions.replace(sessionId, previous, snapshot)) {
+					return;
+				}
+				// 被替换的会话已开始写入，重试
+				continue;
+			}
+			if (this.isTouchOnly(snapshot)) {
+				// 只有访问时间变化，间隔内不再写入，快照不入队，脏属性退回调用方的会话
+				returnDirtyKeys(session, snapshot);
+				return;
+			}
+			if (this.pendingSessions.size() >= this.config.getWriteBehindCapacity()) {
+				// 队列已满，同步写入，失败时脏属性退回调用方的会话
+				try {
+					this.saveSession(snapshot);
+				} catch (RuntimeException e) {
+					returnDirtyKeys(session, snapshot);
+					throw e;
+				}
+				this.recordFlushed(snapshot, System.currentTimeMillis());
+				return;
+			}
+			if (this.pendingSessions.putIfAbsent(sessionId, snapshot) == null) {
+				this.startFlushTask();
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * 复制会话作为待写入快照，{@link DeltaSession}的脏属性转移到快照
+	 * @param session
+	 * @return 快照，无法复制的会话返回原对象
+	 */
+	private Session snapshotSession(Session session) {
+		Session snapshot = copySession(session);
+		if (snapshot != session && session instanceof DeltaSession) {
+			((DeltaSession) snapshot).restoreDirtyKeys(((DeltaSession) session).drainDirtyKeys());
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * 未入队的快照的脏属性退回调用方的会话，下次更新时一并写入
+	 * @param session 调用方的会话
+	 * @param snapshot 快照
+	 */
+	private static void returnDirtyKeys(Session session, Session snapshot) {
+		if (snapshot != session && snapshot instanceof DeltaSession) {
+			((DeltaSession) session).restoreDirtyKeys(((DeltaSession) snapshot).drainDirtyKeys());
+		}
+	}
+	
+	/**
+	 * 浅复制会话，属性集合单独复制，属性值共享<br>
+	 * 只复制{@link SimpleSession}和{@link DeltaSession}，其他类型的会话无法完整复制，返回原对象
+	 * @param session
+	 * @return 复制的会话，不含脏属性
+	 */
+	private static Session copySession(Session session) {
+		if (session.getClass() != SimpleSession.class && session.getClass() != DeltaSession.class) {
+			return session;
+		}
+		SimpleSession source = (SimpleSession) session;
+		SimpleSession copy = source instanceof DeltaSession ? new DeltaSession() : new SimpleSession();
+		copy.setId(source.getId());
+		copy.setStartTimestamp(source.getStartTimestamp());
+		copy.setLastAccessTime(source.getLastAccessTime());
+		copy.setTimeout(source.getTimeout());
+		copy.setStopTimestamp(source.getStopTimestamp());
+		copy.setExpired(source.isExpired());
+		copy.setHost(source.getHost());
+		Map<Object, Object> attributes = source.getAttributes();
+		copy.setAttributes(attributes == null ? null : new HashMap<>(attributes));
+		if (source instanceof DeltaSession && ((DeltaSession) source).isSynced()) {
+			((DeltaSession) copy).markSynced();
+		}
+		return copy;
+	}
+	
+	/**
+	 * 立即写入全部待写入的会话，按有效时间分组后每{@link AbstractShiroCacheDao#getBatchSize()}个会话一次批量写入，写入失败的会话重新加入队列
+	 */
+	public void flush() {
+		long now = System.currentTimeMillis();
+		if (!this.pendingSessions.isEmpty()) {
+			this.flushLock.lock();
+			try {
+				Map<Integer, List<Session>> groups = new HashMap<>();
+				for (Serializable sessionId : this.pendingSessions.keySet()) {
+					// 先移除上次写入的状态，写入完成前的更新不会与已过时的状态比较而被跳过
+					this.flushedStates.remove(sessionId);
+					Session session = this.pendingSessions.remove(sessionId);
+					if (session == null) {
+						continue;
+					}
+					Integer expire;
+					try {
+						expire = this.getSessionExpire(session);
+					} catch (RuntimeException e) {
+						LOGGER.error("flush session error. session id=" + session.getId(), e);
+						this.requeue(Collections.singletonList(session));
+						continue;
+					}
+					List<Session> group = groups.get(expire);
+					if (group == null) {
+						group = new ArrayList<>();
+						groups.put(expire, group);
+					}
+					group.add(session);
+				}
+				int batchSize = this.dao.getBatchSize();
+				for (Map.Entry<Integer, List<Session>> entry : groups.entrySet()) {
+					List<Session> group = entry.getValue();
+					for (int from = 0; from < group.size(); from += batchSize) {
+						List<Session> batch = group.subList(from, Math.min(from + batchSize, group.size()));
+						try {
+							this.flushBatch(batch, entry.getKey(), now);
+						} catch (RuntimeException e) {
+							// 本批未确认写入的会话重新加入队列，不影响其他批
+							LOGGER.error("flush sessions error.", e);
+							this.requeue(batch);
+						}
+					}
+				}
+			} finally {
+				this.flushLock.unlock();
+			}
+		}
+		this.pruneFlushedStates(now);
+	}
+	
+	/**
+	 * 写入一批会话
+	 * @param sessions
+	 * @param expire
+	 * @param now
+	 */
+	private void flushBatch(List<Session> sessions, int expire, long now) {
+		if (this.config.getDeltaStorageEnabled()) {
+			// 分字段存储每个会话的写入字段不同，逐个写入
+			for (Session session : sessions) {
+				try {
+					this.saveSessionFields(session);
+				} catch (UnknownSessionException e) {
+					continue;
+				} catch (RuntimeException e) {
+					LOGGER.error("flush session error. session id=" + session.getId(), e);
+					this.requeue(Collections.singletonList(session));
+					continue;
+				}
+				this.recordFlushed(session, now);
+			}
+			return;
+		}
+		Map<byte[], byte[]> entries = new LinkedHashMap<>();
+		List<Session> serialized = new ArrayList<>(sessions.size());
+		for (Session session : sessions) {
+			try {
+				entries.put(this.config.getKeySerializer().serialize(this.getSessionKey(session.getId())), this.config.getValueSerializer().serialize(session));
+				serialized.add(session);
+			} catch (SerializationException e) {
+				LogUtils.error(this.getClass(), "serialize session error. session id=" + session.getId());
+			} catch (RuntimeException e) {
+				LOGGER.error("flush session error. session id=" + session.getId(), e);
+				this.requeue(Collections.singletonList(session));
+			}
+		}
+		try {
+			this.dao.putAll(entries, expire);
+		} catch (RuntimeException e) {
+			LOGGER.error("flush sessions error.", e);
+			this.requeue(serialized);
+			return;
+		}
+		for (Session session : serialized) {
+			this.recordFlushed(session, now);
+		}
+	}
+	
+	/**
+	 * 写入失败的会话重新加入队列，队列中已有同一会话更新的快照时以新快照为准<br>
+	 * 新快照是{@link DeltaSession}时合并写入失败快照的脏属性，失败快照未同步时新快照也整体写入，避免只写入新快照的脏属性而丢失失败的写入
+	 * @param sessions
+	 */
+	private void requeue(List<Session> sessions) {
+		for (Session session : sessions) {
+			Serializable sessionId = session.getId();
+			for (;;) {
+				Session pending = this.pendingSessions.get(sessionId);
+				if (pending == null) {
+					if (this.pendingSessions.putIfAbsent(sessionId, session) == null) {
+						break;
+					}
+					// 期间有新的更新入队，重试
+					continue;
+				}
+				if (!(pending instanceof DeltaSession) || !(session instanceof DeltaSession)) {
+					// 新快照整体写入，已包含失败的更新
+					break;
+				}
+				DeltaSession failed = (DeltaSession) session;
+				Session copy = copySession(pending);
+				if (copy == pending) {
+					// 无法复制的会话直接合并
+					mergeDirtyKeys((DeltaSession) pending, failed);
+					break;
+				}
+				// 合并到新快照的副本，替换期间可能正在被读取或写入的新快照
+				DeltaSession merged = (DeltaSession) copy;
+				merged.restoreDirtyKeys(((DeltaSession) pending).peekDirtyKeys());
+				mergeDirtyKeys(merged, failed);
+				if (this.pendingSessions.replace(sessionId, pending, merged)) {
+					break;
+				}
+				// 新快照已开始写入或被替换，重试
+			}
+		}
+	}
+	
+	/**
+	 * 写入失败快照的脏属性和同步状态合并到较新的快照
+	 * @param target 较新的快照
+	 * @param failed 写入失败的快照
+	 */
+	private static void mergeDirtyKeys(DeltaSession target, DeltaSession failed) {
+		target.restoreDirtyKeys(failed.peekDirtyKeys());
+		if (!failed.isSynced()) {
+			target.markUnsynced();
+		}
+	}
+	
+	/**
+	 * 记录会话写入时的状态
+	 * @param session
+	 * @param now
+	 */
+	private void recordFlushed(Session session, long now) {
+		if (!(session instanceof SimpleSession)) {
+			return;
+		}
+		byte[] attributes = null;
+		if (!this.tracksDirtyKeys(session)) {
+			attributes = this.serializeAttributes((SimpleSession) session);
+			if (attributes == null) {
+				// 属性无法序列化时不记录，下次更新直接写入
+				this.flushedStates.remove(session.getId());
+				return;
+			}
+		}
+		this.flushedStates.put(session.getId(), new FlushedState((SimpleSession) session, attributes, now));
+	}
+	
+	/**
+	 * 是否只有访问时间变化：距上次写入不超过{@link AbstractShiroSessionConfig#getTouchFlushInterval()}，元数据相同，且属性没有变化<br>
+	 * 分字段存储的{@link DeltaSession}没有脏属性且已与缓存同步时属性没有变化；其他会话比较属性序列化后的字节，
+	 * 不依赖属性值的{@code equals}和{@code hashCode}，每次读取都重新反序列化的身份等属性也能识别
+	 * @param snapshot
+	 * @return
+	 */
+	private boolean isTouchOnly(Session snapshot) {
+		if (!(snapshot instanceof SimpleSession)) {
+			return false;
+		}
+		FlushedState state = this.flushedStates.get(snapshot.getId());
+		if (state == null || System.currentTimeMillis() - state.flushTime >= this.config.getTouchFlushInterval()) {
+			return false;
+		}
+		SimpleSession session = (SimpleSession) snapshot;
+		if (!state.sameMeta(session)) {
+			return false;
+		}
+		if (this.tracksDirtyKeys(session)) {
+			DeltaSession delta = (DeltaSession) session;
+			return delta.isSynced() && delta.peekDirtyKeys().isEmpty();
+		}
+		return state.attributes != null && Arrays.equals(state.attributes, this.serializeAttributes(session));
+	}
+	
+	/**
+	 * 属性变化是否由脏属性记录，只有分字段存储的{@link DeltaSession}按脏属性写入
+	 * @param session
+	 * @return
+	 */
+	private boolean tracksDirtyKeys(Session session) {
+		return session instanceof DeltaSession && this.config.getDeltaStorageEnabled();
+	}
+	
+	/**
+	 * 序列化会话属性，用于比较属性是否变化
+	 * @param session
+	 * @return 序列化的属性，无法序列化时返回{@code null}
+	 */
+	private byte[] serializeAttributes(SimpleSession session) {
+		Map<Object, Object> attributes = session.getAttributes();
+		try {
+			return this.config.getValueSerializer().serialize(attributes == null ? null : new HashMap<>(attributes));
+		} catch (SerializationException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * 清理超过写入间隔的写入状态，每个写入间隔最多清理一次
+	 * @param now
+	 */
+	private void pruneFlushedStates(long now) {
+		long interval = this.config.getTouchFlushInterval();
+		if (now - this.lastPruneTime < interval) {
+			return;
+		}
+		this.lastPruneTime = now;
+		Iterator<FlushedState> iterator = this.flushedStates.values().iterator();
+		while (iterator.hasNext()) {
+			if (now - iterator.next().flushTime >= interval) {
+				iterator.remove();
+			}
+		}
+	}
+	
+	/**
+	 * 启动后台刷新任务
+	 */
+	private void startFlushTask() {
+		if (this.flushTask != null) {
+			return;
+		}
+		synchronized (this) {
+			if (this.flushTask == null) {
+				long interval = this.config.getWriteBehindFlushInterval();
+				this.flushTask = WriteBehindExecutorHolder.INSTANCE.scheduleWithFixedDelay(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							flush();
+						} catch (RuntimeException e) {
+							LOGGER.error("flush sessions error.", e);
+						}
+					}
+				}, interval, interval, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+	
+	/**
+	 * 停止后台刷新任务并写入剩余的会话
+	 */
+	@Override
+	public void destroy() {
+		synchronized (this) {
+			if (this.flushTask != null) {
+				this.flushTask.cancel(false);
+				this.flushTask = null;
+			}
+		}
+		this.flush();
 	}
 	
 
@@ -134,12 +695,21 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 				return session;
 			}
 		}
+		Session pending = this.pendingSessions.get(sessionId);
+		if (pending != null) {
+			// 返回副本，队列中的快照只由后台写入读取
+			return copySession(pending);
+		}
 
 		Session session = null;
 		LOGGER.debug("read session from redis");
 		try {
-			byte[] value = this.dao.get(this.config.getKeySerializer().serialize(this.getSessionKey(sessionId)));
-			session = (Session)this.config.getValueSerializer().deserialize(value);
+			byte[] key = this.config.getKeySerializer().serialize(this.getSessionKey(sessionId));
+			if (this.config.getDeltaStorageEnabled()) {
+				session = this.readSessionFields(this.dao.getFields(key));
+			} else {
+				session = (Session)this.config.getValueSerializer().deserialize(this.dao.get(key));
+			}
 			if (this.config.getSessionInMemoryEnabled()) {
 				setSessionToThreadLocal(sessionId, session);
 			}
@@ -158,10 +728,16 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 			LOGGER.error("session or session id is null");
 			return;
 		}
+		this.pendingSessions.remove(session.getId());
+		this.flushedStates.remove(session.getId());
+		this.flushLock.lock();
 		try {
 			this.dao.remove(config.getKeySerializer().serialize(this.getSessionKey(session.getId())));
 		} catch (SerializationException e) {
 			LogUtils.error(this.getClass(), "delete session error. session id=" + session.getId());
+		} finally {
+			this.pendingSessions.remove(session.getId());
+			this.flushLock.unlock();
 		}
 	}
 
@@ -170,17 +746,44 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 	 */
 	@Override
 	public Collection<Session> getActiveSessions() {
+		// 先写入待写入的会话
+		this.flush();
 		Set<Session> sessions = new LinkedHashSet<>();
+		CacheCursor<byte[]> cursor = null;
 		try {
-			Set<byte[]> keys = this.dao.keys(this.config.getKeySerializer().serialize(this.config.getKeyPrefix() + "*"));
-			if (keys != null && !keys.isEmpty()) {
-				for (byte[] key:keys) {
-					Session s = (Session)this.config.getValueSerializer().deserialize(this.dao.get(key));
-					sessions.add(s);
+			cursor = this.dao.scan(this.config.getKeySerializer().serialize(this.config.getKeyPrefix() + "*"));
+			int batchSize = this.dao.getBatchSize();
+			List<byte[]> keys = new ArrayList<>(batchSize);
+			while (cursor.hasNext()) {
+				keys.add(cursor.next());
+				if (keys.size() >= batchSize || !cursor.hasNext()) {
+					// 每批键一次批量读取
+					if (this.config.getDeltaStorageEnabled()) {
+						for (Map<byte[], byte[]> fields : this.dao.getAllFields(keys)) {
+							// 遍历期间过期或被删除的会话跳过
+							Session s = this.readSessionFields(fields);
+							if (s != null) {
+								sessions.add(s);
+							}
+						}
+					} else {
+						for (byte[] value : this.dao.getAll(keys)) {
+							// 遍历期间过期或被删除的会话跳过
+							if (value != null) {
+								Session s = (Session)this.config.getValueSerializer().deserialize(value);
+								sessions.add(s);
+							}
+						}
+					}
+					keys.clear();
 				}
 			}
 		} catch (SerializationException e) {
 			LOGGER.error("get active sessions error.");
+		} finally {
+			if (cursor != null) {
+				cursor.close();
+			}
 		}
 		return sessions;
 	}
@@ -240,4 +843,63 @@ public class AbstractSessionDAO extends org.apache.shiro.session.mgt.eis.Abstrac
 	protected String getSessionKey(Serializable sessionId) {
 		return this.config.getKeyPrefix() + sessionId;
 	}
+
+	/**
+	 * 会话写入时除访问时间外的状态
+	 */
+	private static final class FlushedState {
+		
+		private final long timeout;
+		
+		private final Date stopTimestamp;
+		
+		private final boolean expired;
+		
+		private final String host;
+		
+		/** 序列化的属性，属性变化由脏属性记录时为{@code null} */
+		private final byte[] attributes;
+		
+		/** 写入时间 */
+		private final long flushTime;
+		
+		private FlushedState(SimpleSession session, byte[] attributes, long flushTime) {
+			this.timeout = session.getTimeout();
+			this.stopTimestamp = session.getStopTimestamp() == null ? null : new Date(session.getStopTimestamp().getTime());
+			this.expired = session.isExpired();
+			this.host = session.getHost();
+			this.attributes = attributes;
+			this.flushTime = flushTime;
+		}
+		
+		/**
+		 * 元数据是否与写入时相同
+		 * @param session
+		 * @return
+		 */
+		private boolean sameMeta(SimpleSession session) {
+			return this.timeout == session.getTimeout() && this.expired == session.isExpired()
+					&& Objects.equals(this.stopTimestamp, session.getStopTimestamp()) && Objects.equals(this.host, session.getHost());
+		}
+	}
+	
+	/**
+	 * 共享的延迟写入线程池，守护线程
+	 */
+	private static class WriteBehindExecutorHolder {
+		
+		private static final ScheduledThreadPoolExecutor INSTANCE;
+		
+		static {
+			INSTANCE = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "Shiro Session Write-Behind");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			INSTANCE.setRemoveOnCancelPolicy(true);
+		}
+	}
 }
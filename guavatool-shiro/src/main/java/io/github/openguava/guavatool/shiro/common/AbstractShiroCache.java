@@ -12,8 +12,11 @@ import java.util.Set;
 import org.apache.shiro.cache.Cache;
 import org.apache.shiro.cache.CacheException;
 import org.apache.shiro.subject.PrincipalCollection;
-import org.apache.shiro.util.CollectionUtils;
 
+import io.github.openguava.guavatool.core.cache.CacheCursor;
+import io.github.openguava.guavatool.core.cache.CacheStats;
+import io.github.openguava.guavatool.core.cache.CacheStatsCounter;
+import io.github.openguava.guavatool.core.cache.HotKeySampler;
 import io.github.openguava.guavatool.core.exception.SerializationException;
 import io.github.openguava.guavatool.core.util.LogUtils;
 import io.github.openguava.guavatool.core.util.StringUtils;
@@ -37,6 +40,29 @@ public abstract class AbstractShiroCache<K, V> implements Cache<K, V> {
 	
 	protected AbstractShiroCacheDao dao;
 	
+	/** 统计计数器，加载只统计未命中：加载次数等于未命中次数，加载耗时为未命中时读取缓存数据访问的耗时，命中不计入加载 */
+	protected final CacheStatsCounter statsCounter = new CacheStatsCounter();
+	
+	/** 热点键采样器 */
+	protected HotKeySampler<K> hotKeySampler;
+	
+	public HotKeySampler<K> getHotKeySampler() {
+		return this.hotKeySampler;
+	}
+	
+	public AbstractShiroCache<K, V> setHotKeySampler(HotKeySampler<K> hotKeySampler) {
+		this.hotKeySampler = hotKeySampler;
+		return this;
+	}
+	
+	/**
+	 * 获取缓存统计快照
+	 * @return
+	 */
+	public CacheStats stats() {
+		return this.statsCounter.snapshot();
+	}
+	
 	/**
 	 * 初始化
 	 * @param name
@@ -70,15 +96,26 @@ public abstract class AbstractShiroCache<K, V> implements Cache<K, V> {
 			return null;
 		}
 		LogUtils.debug(this.getClass(), "shiroCache get key [" + key + "]");
+		HotKeySampler<K> sampler = this.hotKeySampler;
+		if (sampler != null) {
+			sampler.record(key);
+		}
+		long start = System.nanoTime();
 		try {
 			byte[] rawKey = this.getRawKey(key);
 			byte[] rawValue = this.dao.get(rawKey);
 			if (rawValue == null) {
+				this.statsCounter.recordMisses(1);
+				this.statsCounter.recordLoadSuccess(System.nanoTime() - start);
 				return null;
 			}
 			V value = (V)this.config.getValueSerializer().deserialize(rawValue);
+			this.statsCounter.recordHits(1);
 			return value;
 		} catch (SerializationException e) {
+			// 无法反序列化的值视为未命中
+			this.statsCounter.recordMisses(1);
+			this.statsCounter.recordLoadFailure(System.nanoTime() - start);
 			throw new CacheException(e);
 		}
 	}
@@ -122,18 +159,11 @@ public abstract class AbstractShiroCache<K, V> implements Cache<K, V> {
 	@Override
 	public void clear() throws CacheException {
 		LogUtils.debug(this.getClass(), "ShiroCache clear cache");
-		Set<byte[]> keys = null;
 		try {
-			keys = this.dao.keys(this.config.getKeySerializer().serialize(this.config.getKeyPrefix() + "*"));
+			this.dao.clear(this.config.getKeySerializer().serialize(this.config.getKeyPrefix() + "*"));
 		} catch (SerializationException e) {
 			LogUtils.error(this.getClass(), "ShiroCache get keys error", e);
 		}
-		if (keys == null || keys.isEmpty()) {
-			return;
-		}
-		for (byte[] key : keys) {
-			this.dao.remove(key);
-		}
 	}
 	
 	/**
@@ -155,55 +185,77 @@ public abstract class AbstractShiroCache<K, V> implements Cache<K, V> {
 	@SuppressWarnings("unchecked")
 	@Override
 	public Set<K> keys() {
-		Set<byte[]> keys = null;
+		CacheCursor<byte[]> cursor;
 		try {
-			keys = this.dao.keys(this.config.getKeySerializer().serialize(this.config.getKeyPrefix() + "*"));
+			cursor = this.scan();
 		} catch (SerializationException e) {
 			LogUtils.error(this.getClass(), "ShiroCache get keys error", e);
 			return Collections.emptySet();
 		}
-		if (CollectionUtils.isEmpty(keys)) {
-			return Collections.emptySet();
-		}
 		Set<K> convertedKeys = new HashSet<>();
-		for (byte[] key : keys) {
-			try {
-				convertedKeys.add((K)this.config.getKeySerializer().deserialize(key));
-			} catch (SerializationException e) {
-				LogUtils.error(this.getClass(), "ShiroCache deserialize keys error", e);
+		try {
+			while (cursor.hasNext()) {
+				try {
+					convertedKeys.add((K)this.config.getKeySerializer().deserialize(cursor.next()));
+				} catch (SerializationException e) {
+					LogUtils.error(this.getClass(), "ShiroCache deserialize keys error", e);
+				}
 			}
+		} finally {
+			cursor.close();
 		}
-		return convertedKeys;
+		return convertedKeys.isEmpty() ? Collections.<K>emptySet() : convertedKeys;
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<V> values() {
-		Set<byte[]> keys = null;
+		CacheCursor<byte[]> cursor;
 		try {
-			keys = this.dao.keys(this.config.getKeySerializer().serialize(this.config.getKeyPrefix()+ "*"));
+			cursor = this.scan();
 		} catch (SerializationException e) {
 			LogUtils.error(this.getClass(), "ShiroCache get values error", e);
 			return Collections.emptySet();
 		}
-		if (CollectionUtils.isEmpty(keys)) {
-			return Collections.emptySet();
-		}
-		List<V> values = new ArrayList<>(keys.size());
-		for (byte[] key : keys) {
-			V value = null;
-			try {
-				value = (V)this.config.getValueSerializer().deserialize(this.dao.get(key));
-			} catch (SerializationException e) {
-				LogUtils.error(this.getClass(), "ShiroCache deserialize values error", e);
-			}
-			if (value != null) {
-				values.add(value);
+		List<V> values = new ArrayList<>();
+		int batchSize = this.dao.getBatchSize();
+		List<byte[]> keys = new ArrayList<>(batchSize);
+		try {
+			while (cursor.hasNext()) {
+				keys.add(cursor.next());
+				if (keys.size() >= batchSize || !cursor.hasNext()) {
+					// 每批键一次批量读取
+					for (byte[] rawValue : this.dao.getAll(keys)) {
+						V value = null;
+						try {
+							// 遍历期间过期或被删除的键跳过
+							if (rawValue != null) {
+								value = (V)this.config.getValueSerializer().deserialize(rawValue);
+							}
+						} catch (SerializationException e) {
+							LogUtils.error(this.getClass(), "ShiroCache deserialize values error", e);
+						}
+						if (value != null) {
+							values.add(value);
+						}
+					}
+					keys.clear();
+				}
 			}
+		} finally {
+			cursor.close();
 		}
 		return Collections.unmodifiableList(values);
 	}
 	
+	/**
+	 * 逐批遍历本缓存前缀下的原始 key，使用完毕必须关闭游标
+	 * @return
+	 */
+	protected CacheCursor<byte[]> scan() {
+		return this.dao.scan(this.config.getKeySerializer().serialize(this.config.getKeyPrefix() + "*"));
+	}
+	
 	/**
 	 * 获取原始 key
 	 * @param key
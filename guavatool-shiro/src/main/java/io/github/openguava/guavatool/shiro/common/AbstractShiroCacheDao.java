@@ -1,6 +1,17 @@
 package io.github.openguava.guavatool.shiro.common;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.openguava.guavatool.core.cache.CacheCursor;
 import io.github.openguava.guavatool.core.cache.CacheDao;
+import io.github.openguava.guavatool.core.cache.SimpleCacheCursor;
 
 /**
  * shiro 缓存数据访问
@@ -9,4 +20,197 @@ import io.github.openguava.guavatool.core.cache.CacheDao;
  */
 public abstract class AbstractShiroCacheDao implements CacheDao<byte[], byte[]> {
 
+	/** 默认批量操作每批数量 */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+	
+	/** 批量操作每批数量，远程缓存每批一次往返 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+	
+	public AbstractShiroCacheDao setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be greater than 0");
+		}
+		this.batchSize = batchSize;
+		return this;
+	}
+	
+	/**
+	 * 逐批遍历匹配的键，使用完毕必须关闭游标<br>
+	 * 默认实现遍历{@link #keys(byte[])}的结果，远程缓存应重写为增量遍历(如redis的{@code SCAN})，避免一次载入全部键
+	 * @param pattern 键模式，支持{@code *}和{@code ?}通配符
+	 * @return 键游标
+	 */
+	public CacheCursor<byte[]> scan(byte[] pattern) {
+		Set<byte[]> keys = this.keys(pattern);
+		return new SimpleCacheCursor<byte[]>(keys.iterator());
+	}
+	
+	/**
+	 * 批量获取对象<br>
+	 * 默认实现逐个调用{@link #get(byte[])}，远程缓存应重写为按{@link #getBatchSize()}分批的一次往返(如redis的{@code MGET})
+	 * @param keys 键列表
+	 * @return 与键列表顺序一致的值列表，不存在或已过期的为{@code null}
+	 */
+	public List<byte[]> getAll(List<byte[]> keys) {
+		List<byte[]> values = new ArrayList<>(keys.size());
+		for (byte[] key : keys) {
+			values.add(this.get(key));
+		}
+		return values;
+	}
+	
+	/**
+	 * 批量将对象加入到缓存，使用相同的失效时长<br>
+	 * 默认实现逐个调用{@link #put(byte[], byte[], int)}，远程缓存应重写为分批的管道写入
+	 * @param entries 键值对
+	 * @param expire 失效时长
+	 */
+	public void putAll(Map<byte[], byte[]> entries, int expire) {
+		for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+			this.put(entry.getKey(), entry.getValue(), expire);
+		}
+	}
+	
+	/**
+	 * 批量从缓存中移除对象<br>
+	 * 默认实现逐个调用{@link #remove(byte[])}，远程缓存应重写为分批的一次往返(如redis的多键{@code DEL})
+	 * @param keys 键集合
+	 */
+	public void removeAll(Collection<byte[]> keys) {
+		for (byte[] key : keys) {
+			this.remove(key);
+		}
+	}
+	
+	/**
+	 * 登记键前缀，缓存管理器创建缓存时调用<br>
+	 * 默认不做任何操作，远程缓存可据此按前缀维护键索引，使该前缀的{@link #size(byte[])}和{@link #clear(byte[])}不必遍历键
+	 * @param prefix 键前缀，不含通配符
+	 */
+	public void registerPrefix(byte[] prefix) {
+	}
+	
+	/**
+	 * 清空匹配的键<br>
+	 * 默认实现逐批遍历{@link #scan(byte[])}并调用{@link #removeAll(Collection)}
+	 * @param pattern 键模式，支持{@code *}和{@code ?}通配符
+	 */
+	public void clear(byte[] pattern) {
+		CacheCursor<byte[]> cursor = this.scan(pattern);
+		try {
+			List<byte[]> keys = new ArrayList<>(this.batchSize);
+			while (cursor.hasNext()) {
+				keys.add(cursor.next());
+				if (keys.size() >= this.batchSize || !cursor.hasNext()) {
+					this.removeAll(keys);
+					keys.clear();
+				}
+			}
+		} finally {
+			cursor.close();
+		}
+	}
+	
+	/**
+	 * 获取哈希对象的全部字段<br>
+	 * 默认实现将全部字段编码为一个值，通过{@link #get(byte[])}读取后解码，远程缓存应重写为原生哈希(如redis的{@code HGETALL})
+	 * @param key 键
+	 * @return 字段 - 值，不存在或已过期时为空
+	 */
+	public Map<byte[], byte[]> getFields(byte[] key) {
+		return decodeFields(this.get(key));
+	}
+	
+	/**
+	 * 批量获取哈希对象的全部字段<br>
+	 * 默认实现通过{@link #getAll(List)}读取后解码，远程缓存应重写为分批的管道读取
+	 * @param keys 键列表
+	 * @return 与键列表顺序一致的字段列表，不存在或已过期的为空
+	 */
+	public List<Map<byte[], byte[]>> getAllFields(List<byte[]> keys) {
+		List<byte[]> values = this.getAll(keys);
+		List<Map<byte[], byte[]>> fieldsList = new ArrayList<>(values.size());
+		for (byte[] value : values) {
+			fieldsList.add(decodeFields(value));
+		}
+		return fieldsList;
+	}
+	
+	/**
+	 * 写入哈希对象的字段并刷新失效时长<br>
+	 * 默认实现读取、合并后通过{@link #put(byte[], byte[], int)}整体写回，远程缓存应重写为原生哈希的字段级写入(如redis的{@code HSET}、{@code HDEL})
+	 * @param key 键
+	 * @param fields 写入的字段
+	 * @param removedFields 删除的字段，{@code replace}为{@code true}时忽略
+	 * @param expire 失效时长
+	 * @param replace 是否替换整个哈希对象，为{@code false}时仅当哈希对象仍存在才写入
+	 * @return 是否写入，不替换且哈希对象不存在(已过期或已删除)时为{@code false}
+	 */
+	public boolean putFields(byte[] key, Map<byte[], byte[]> fields, Collection<byte[]> removedFields, int expire, boolean replace) {
+		Map<ByteBuffer, byte[]> merged = new LinkedHashMap<>();
+		if (!replace) {
+			Map<byte[], byte[]> existing = this.getFields(key);
+			if (existing.isEmpty()) {
+				return false;
+			}
+			for (Map.Entry<byte[], byte[]> entry : existing.entrySet()) {
+				merged.put(ByteBuffer.wrap(entry.getKey()), entry.getValue());
+			}
+			for (byte[] field : removedFields) {
+				merged.remove(ByteBuffer.wrap(field));
+			}
+		}
+		for (Map.Entry<byte[], byte[]> entry : fields.entrySet()) {
+			merged.put(ByteBuffer.wrap(entry.getKey()), entry.getValue());
+		}
+		this.put(key, encodeFields(merged), expire);
+		return true;
+	}
+	
+	/**
+	 * 编码字段，格式为字段数和依次排列的(字段长度、字段、值长度、值)
+	 * @param fields 字段 - 值
+	 * @return 编码后的值
+	 */
+	private static byte[] encodeFields(Map<ByteBuffer, byte[]> fields) {
+		int length = 4;
+		for (Map.Entry<ByteBuffer, byte[]> entry : fields.entrySet()) {
+			length += 8 + entry.getKey().remaining() + entry.getValue().length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.putInt(fields.size());
+		for (Map.Entry<ByteBuffer, byte[]> entry : fields.entrySet()) {
+			buffer.putInt(entry.getKey().remaining());
+			buffer.put(entry.getKey().duplicate());
+			buffer.putInt(entry.getValue().length);
+			buffer.put(entry.getValue());
+		}
+		return buffer.array();
+	}
+	
+	/**
+	 * 解码{@link #encodeFields(Map)}编码的字段
+	 * @param value 编码后的值
+	 * @return 字段 - 值
+	 */
+	private static Map<byte[], byte[]> decodeFields(byte[] value) {
+		if (value == null || value.length == 0) {
+			return Collections.emptyMap();
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(value);
+		int size = buffer.getInt();
+		Map<byte[], byte[]> fields = new LinkedHashMap<>(size * 4 / 3 + 1);
+		for (int i = 0; i < size; i++) {
+			byte[] field = new byte[buffer.getInt()];
+			buffer.get(field);
+			byte[] fieldValue = new byte[buffer.getInt()];
+			buffer.get(fieldValue);
+			fields.put(field, fieldValue);
+		}
+		return fields;
+	}
 }
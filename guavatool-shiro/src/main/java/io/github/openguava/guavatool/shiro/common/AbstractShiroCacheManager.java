@@ -1,5 +1,7 @@
 package io.github.openguava.guavatool.shiro.common;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -9,6 +11,7 @@ import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.util.Destroyable;
 import org.apache.shiro.util.LifecycleUtils;
 
+import io.github.openguava.guavatool.core.cache.CacheStats;
 import io.github.openguava.guavatool.core.util.StringUtils;
 
 /**
@@ -69,6 +72,20 @@ public abstract class AbstractShiroCacheManager implements CacheManager, Destroy
 		return cache;
 	}
 	
+	/**
+	 * 获取各缓存统计快照
+	 * @return 缓存名称 - 统计快照
+	 */
+	public Map<String, CacheStats> getCacheStats() {
+		Map<String, CacheStats> stats = new LinkedHashMap<>();
+		for (Map.Entry<String, Cache<?, ?>> entry : this.caches.entrySet()) {
+			if (entry.getValue() instanceof AbstractShiroCache) {
+				stats.put(entry.getKey(), ((AbstractShiroCache<?, ?>) entry.getValue()).stats());
+			}
+		}
+		return stats;
+	}
+	
 	@SuppressWarnings({ "rawtypes" })
 	@Override
 	public void destroy() throws Exception {
@@ -23,6 +23,15 @@ public abstract class AbstractShiroSessionConfig {
 	
 	public static final int NO_EXPIRE = -1;
 	
+	/** 默认延迟写入刷新间隔，单位毫秒 */
+	public static final long DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL = 1000L;
+	
+	/** 默认延迟写入队列容量 */
+	public static final int DEFAULT_WRITE_BEHIND_CAPACITY = 10000;
+	
+	/** 默认仅访问时间变化的会话最短写入间隔，单位毫秒 */
+	public static final long DEFAULT_TOUCH_FLUSH_INTERVAL = 60000L;
+	
 	/** key序列化 */
 	private Serializer<String, byte[]> keySerializer = new StringSerializer();
 	
@@ -93,6 +102,75 @@ public abstract class AbstractShiroSessionConfig {
 		this.sessionInMemoryTimeout = sessionInMemoryTimeout;
 	}
 	
+	/** 是否启用延迟写入，启用后会话更新先合并到队列，由后台线程分批写入 */
+	private boolean writeBehindEnabled = false;
+	
+	public boolean getWriteBehindEnabled() {
+		return this.writeBehindEnabled;
+	}
+	
+	public AbstractShiroSessionConfig setWriteBehindEnabled(boolean writeBehindEnabled) {
+		this.writeBehindEnabled = writeBehindEnabled;
+		return this;
+	}
+	
+	/** 延迟写入刷新间隔，单位毫秒 */
+	private long writeBehindFlushInterval = DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL;
+	
+	public long getWriteBehindFlushInterval() {
+		return this.writeBehindFlushInterval;
+	}
+	
+	public AbstractShiroSessionConfig setWriteBehindFlushInterval(long writeBehindFlushInterval) {
+		if (writeBehindFlushInterval <= 0) {
+			throw new IllegalArgumentException("writeBehindFlushInterval must be greater than 0");
+		}
+		this.writeBehindFlushInterval = writeBehindFlushInterval;
+		return this;
+	}
+	
+	/** 延迟写入队列容量，按会话合并计数，队列满时同步写入 */
+	private int writeBehindCapacity = DEFAULT_WRITE_BEHIND_CAPACITY;
+	
+	public int getWriteBehindCapacity() {
+		return this.writeBehindCapacity;
+	}
+	
+	public AbstractShiroSessionConfig setWriteBehindCapacity(int writeBehindCapacity) {
+		if (writeBehindCapacity <= 0) {
+			throw new IllegalArgumentException("writeBehindCapacity must be greater than 0");
+		}
+		this.writeBehindCapacity = writeBehindCapacity;
+		return this;
+	}
+	
+	/** 仅访问时间变化的会话最短写入间隔，单位毫秒，应远小于会话超时时间；仅在启用延迟写入时生效 */
+	private long touchFlushInterval = DEFAULT_TOUCH_FLUSH_INTERVAL;
+	
+	public long getTouchFlushInterval() {
+		return this.touchFlushInterval;
+	}
+	
+	public AbstractShiroSessionConfig setTouchFlushInterval(long touchFlushInterval) {
+		if (touchFlushInterval < 0) {
+			throw new IllegalArgumentException("touchFlushInterval cannot be negative");
+		}
+		this.touchFlushInterval = touchFlushInterval;
+		return this;
+	}
+	
+	/** 是否按属性分字段存储会话，启用后只写入变化的属性和会话元数据；需配合{@link DeltaSessionFactory}创建会话 */
+	private boolean deltaStorageEnabled = false;
+	
+	public boolean getDeltaStorageEnabled() {
+		return this.deltaStorageEnabled;
+	}
+	
+	public AbstractShiroSessionConfig setDeltaStorageEnabled(boolean deltaStorageEnabled) {
+		this.deltaStorageEnabled = deltaStorageEnabled;
+		return this;
+	}
+	
 	/**
 	 * 克隆配置
 	 * @param config
@@ -105,6 +183,11 @@ public abstract class AbstractShiroSessionConfig {
 		this.setValueSerializer(config.getValueSerializer());
 		this.setExpire(config.getExpire());
 		this.setKeyPrefix(config.getKeyPrefix());
+		this.setWriteBehindEnabled(config.getWriteBehindEnabled());
+		this.setWriteBehindFlushInterval(config.getWriteBehindFlushInterval());
+		this.setWriteBehindCapacity(config.getWriteBehindCapacity());
+		this.setTouchFlushInterval(config.getTouchFlushInterval());
+		this.setDeltaStorageEnabled(config.getDeltaStorageEnabled());
 		return this;
 	}
 }
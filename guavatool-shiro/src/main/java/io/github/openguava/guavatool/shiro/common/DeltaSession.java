@@ -0,0 +1,117 @@
+package io.github.openguava.guavatool.shiro.common;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.shiro.session.mgt.SimpleSession;
+
+/**
+ * 记录变化属性的会话，配合{@link AbstractShiroSessionConfig#setDeltaStorageEnabled(boolean)}使用
+ * <p>
+ * 通过{@link #setAttribute(Object, Object)}和{@link #removeAttribute(Object)}变化的属性记为脏属性，会话数据访问只写入脏属性和会话元数据。
+ * 直接修改属性值对象内部状态不会被记录，修改后需重新调用{@link #setAttribute(Object, Object)}。
+ * @author openguava
+ *
+ */
+public class DeltaSession extends SimpleSession {
+
+	private static final long serialVersionUID = 1L;
+
+	/** 上次写入后变化的属性键 */
+	private transient Set<Object> dirtyKeys;
+
+	/** 属性是否与缓存一致，不一致时整体写入 */
+	private transient volatile boolean synced;
+
+	public DeltaSession() {
+		super();
+	}
+
+	public DeltaSession(String host) {
+		super(host);
+	}
+
+	@Override
+	public void setAttribute(Object key, Object value) {
+		super.setAttribute(key, value);
+		this.markDirty(key);
+	}
+
+	@Override
+	public Object removeAttribute(Object key) {
+		Object removed = super.removeAttribute(key);
+		if (removed != null) {
+			this.markDirty(key);
+		}
+		return removed;
+	}
+
+	@Override
+	public void setAttributes(Map<Object, Object> attributes) {
+		super.setAttributes(attributes);
+		this.synced = false;
+	}
+
+	/**
+	 * 属性是否与缓存一致
+	 * @return 为{@code false}时需整体写入
+	 */
+	public boolean isSynced() {
+		return this.synced;
+	}
+
+	/**
+	 * 标记属性与缓存一致，之后只写入脏属性
+	 */
+	void markSynced() {
+		this.synced = true;
+	}
+
+	/**
+	 * 标记属性与缓存不一致，下次整体写入
+	 */
+	void markUnsynced() {
+		this.synced = false;
+	}
+
+	/**
+	 * 获取脏属性的副本，不清空
+	 * @return 脏属性键
+	 */
+	synchronized Set<Object> peekDirtyKeys() {
+		return this.dirtyKeys == null ? Collections.emptySet() : new HashSet<>(this.dirtyKeys);
+	}
+
+	/**
+	 * 取出并清空脏属性
+	 * @return 脏属性键
+	 */
+	synchronized Set<Object> drainDirtyKeys() {
+		Set<Object> keys = this.dirtyKeys;
+		this.dirtyKeys = null;
+		return keys == null ? Collections.emptySet() : keys;
+	}
+
+	/**
+	 * 写入失败时恢复脏属性
+	 * @param keys 脏属性键
+	 */
+	synchronized void restoreDirtyKeys(Set<Object> keys) {
+		if (keys.isEmpty()) {
+			return;
+		}
+		if (this.dirtyKeys == null) {
+			this.dirtyKeys = new HashSet<>();
+		}
+		this.dirtyKeys.addAll(keys);
+	}
+
+	private synchronized void markDirty(Object key) {
+		if (this.dirtyKeys == null) {
+			this.dirtyKeys = new HashSet<>();
+		}
+		this.dirtyKeys.add(key);
+	}
+}
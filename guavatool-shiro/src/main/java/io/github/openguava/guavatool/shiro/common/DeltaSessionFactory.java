@@ -0,0 +1,24 @@
+package io.github.openguava.guavatool.shiro.common;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SessionContext;
+import org.apache.shiro.session.mgt.SessionFactory;
+
+/**
+ * 创建{@link DeltaSession}的会话工厂
+ * @author openguava
+ *
+ */
+public class DeltaSessionFactory implements SessionFactory {
+
+	@Override
+	public Session createSession(SessionContext initData) {
+		if (initData != null) {
+			String host = initData.getHost();
+			if (host != null) {
+				return new DeltaSession(host);
+			}
+		}
+		return new DeltaSession();
+	}
+}
@@ -0,0 +1,218 @@
+package io.github.openguava.guavatool.shiro.common;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.openguava.guavatool.core.cache.CacheCursor;
+import io.github.openguava.guavatool.core.cache.CacheDao;
+import io.github.openguava.guavatool.core.cache.NearCacheDao;
+import io.github.openguava.guavatool.core.lang.FuncP;
+
+/**
+ * shiro 近端缓存数据访问，在远程缓存数据访问之前增加一层短时本地缓存
+ * @author openguava
+ *
+ * @see NearCacheDao
+ */
+public class NearShiroCacheDao extends AbstractShiroCacheDao {
+
+	/** 近端缓存 */
+	private final NearCacheDao nearCacheDao;
+	
+	public NearCacheDao getNearCacheDao() {
+		return this.nearCacheDao;
+	}
+	
+	/**
+	 * 初始化，使用默认本地缓存容量和存活时长
+	 * @param dao 远程缓存数据访问
+	 */
+	public NearShiroCacheDao(AbstractShiroCacheDao dao) {
+		this(new NearCacheDao(dao));
+	}
+	
+	/**
+	 * 初始化
+	 * @param dao 远程缓存数据访问
+	 * @param capacity 本地缓存容量
+	 * @param localTimeout 本地缓存存活时长，单位毫秒
+	 */
+	public NearShiroCacheDao(AbstractShiroCacheDao dao, int capacity, long localTimeout) {
+		this(new NearCacheDao(dao, capacity, localTimeout));
+	}
+	
+	/**
+	 * 初始化
+	 * @param nearCacheDao 近端缓存
+	 */
+	public NearShiroCacheDao(NearCacheDao nearCacheDao) {
+		if (nearCacheDao == null) {
+			throw new IllegalArgumentException("nearCacheDao cannot be null.");
+		}
+		this.nearCacheDao = nearCacheDao;
+	}
+	
+	@Override
+	public byte[] get(byte[] key) {
+		return this.nearCacheDao.get(key);
+	}
+
+	@Override
+	public byte[] put(byte[] key, byte[] value, int expire) {
+		return this.nearCacheDao.put(key, value, expire);
+	}
+
+	@Override
+	public void remove(byte[] key) {
+		this.nearCacheDao.remove(key);
+	}
+
+	@Override
+	public Set<byte[]> keys(byte[] pattern) {
+		return this.nearCacheDao.keys(pattern);
+	}
+
+	@Override
+	public CacheCursor<byte[]> scan(byte[] pattern) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (dao instanceof AbstractShiroCacheDao) {
+			return ((AbstractShiroCacheDao) dao).scan(pattern);
+		}
+		return super.scan(pattern);
+	}
+
+	/**
+	 * 远程缓存支持批量操作时直接批量读取远程缓存，不经过也不填充本地缓存，避免批量遍历挤掉本地热点对象
+	 */
+	@Override
+	public List<byte[]> getAll(List<byte[]> keys) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (dao instanceof AbstractShiroCacheDao) {
+			return ((AbstractShiroCacheDao) dao).getAll(keys);
+		}
+		return super.getAll(keys);
+	}
+
+	/**
+	 * 远程缓存支持批量操作时批量写入远程缓存，并使本地缓存对象失效
+	 */
+	@Override
+	public void putAll(Map<byte[], byte[]> entries, int expire) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (!(dao instanceof AbstractShiroCacheDao)) {
+			super.putAll(entries, expire);
+			return;
+		}
+		((AbstractShiroCacheDao) dao).putAll(entries, expire);
+		this.invalidateAll(entries.keySet());
+	}
+
+	/**
+	 * 远程缓存支持批量操作时批量删除远程缓存，并使本地缓存对象失效
+	 */
+	@Override
+	public void removeAll(Collection<byte[]> keys) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (!(dao instanceof AbstractShiroCacheDao)) {
+			super.removeAll(keys);
+			return;
+		}
+		((AbstractShiroCacheDao) dao).removeAll(keys);
+		this.invalidateAll(keys);
+	}
+
+	/**
+	 * 远程缓存支持哈希对象时直接读取远程缓存，哈希对象不经过本地缓存
+	 */
+	@Override
+	public Map<byte[], byte[]> getFields(byte[] key) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (dao instanceof AbstractShiroCacheDao) {
+			return ((AbstractShiroCacheDao) dao).getFields(key);
+		}
+		return super.getFields(key);
+	}
+	
+	/**
+	 * 远程缓存支持哈希对象时直接批量读取远程缓存
+	 */
+	@Override
+	public List<Map<byte[], byte[]>> getAllFields(List<byte[]> keys) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (dao instanceof AbstractShiroCacheDao) {
+			return ((AbstractShiroCacheDao) dao).getAllFields(keys);
+		}
+		return super.getAllFields(keys);
+	}
+	
+	/**
+	 * 远程缓存支持哈希对象时写入远程缓存，并使本地缓存对象失效
+	 */
+	@Override
+	public boolean putFields(byte[] key, Map<byte[], byte[]> fields, Collection<byte[]> removedFields, int expire, boolean replace) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (!(dao instanceof AbstractShiroCacheDao)) {
+			return super.putFields(key, fields, removedFields, expire, replace);
+		}
+		boolean written = ((AbstractShiroCacheDao) dao).putFields(key, fields, removedFields, expire, replace);
+		this.invalidateAll(Collections.singletonList(key));
+		return written;
+	}
+
+	@Override
+	public int size(byte[] pattern) {
+		return this.nearCacheDao.size(pattern);
+	}
+
+	@Override
+	public void registerPrefix(byte[] prefix) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (dao instanceof AbstractShiroCacheDao) {
+			((AbstractShiroCacheDao) dao).registerPrefix(prefix);
+		}
+	}
+
+	/**
+	 * 远程缓存支持时按前缀清空远程缓存，本地缓存全部失效
+	 */
+	@Override
+	public void clear(byte[] pattern) {
+		CacheDao<byte[], byte[]> dao = this.nearCacheDao.getDao();
+		if (!(dao instanceof AbstractShiroCacheDao)) {
+			super.clear(pattern);
+			return;
+		}
+		((AbstractShiroCacheDao) dao).clear(pattern);
+		this.nearCacheDao.invalidateAll();
+	}
+
+	@Override
+	public void clear() {
+		this.nearCacheDao.clear();
+	}
+	
+	/**
+	 * 使本地缓存对象失效
+	 * @param key
+	 */
+	public void invalidate(byte[] key) {
+		this.nearCacheDao.invalidate(key);
+	}
+	
+	/**
+	 * 使本地缓存对象失效并回调失效钩子，与单个写入和删除的行为一致
+	 * @param keys
+	 */
+	private void invalidateAll(Collection<byte[]> keys) {
+		FuncP<byte[]> hook = this.nearCacheDao.getInvalidationHook();
+		for (byte[] key : keys) {
+			this.nearCacheDao.invalidate(key);
+			if (hook != null) {
+				hook.call(key);
+			}
+		}
+	}
+}
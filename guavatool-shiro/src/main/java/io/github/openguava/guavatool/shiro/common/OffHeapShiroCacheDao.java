@@ -0,0 +1,70 @@
+package io.github.openguava.guavatool.shiro.common;
+
+import java.util.Set;
+
+import io.github.openguava.guavatool.core.cache.OffHeapCacheDao;
+
+/**
+ * shiro 堆外缓存数据访问，会话和缓存对象存放在直接内存中，适合单节点的大容量本地会话存储
+ * @author openguava
+ *
+ * @see OffHeapCacheDao
+ */
+public class OffHeapShiroCacheDao extends AbstractShiroCacheDao {
+
+	/** 堆外缓存 */
+	private final OffHeapCacheDao offHeapCacheDao;
+	
+	public OffHeapCacheDao getOffHeapCacheDao() {
+		return this.offHeapCacheDao;
+	}
+	
+	/**
+	 * 初始化
+	 * @param maxMemory 最大直接内存，单位字节
+	 */
+	public OffHeapShiroCacheDao(long maxMemory) {
+		this(new OffHeapCacheDao(maxMemory));
+	}
+	
+	/**
+	 * 初始化
+	 * @param offHeapCacheDao 堆外缓存
+	 */
+	public OffHeapShiroCacheDao(OffHeapCacheDao offHeapCacheDao) {
+		if (offHeapCacheDao == null) {
+			throw new IllegalArgumentException("offHeapCacheDao cannot be null.");
+		}
+		this.offHeapCacheDao = offHeapCacheDao;
+	}
+	
+	@Override
+	public byte[] get(byte[] key) {
+		return this.offHeapCacheDao.get(key);
+	}
+
+	@Override
+	public byte[] put(byte[] key, byte[] value, int expire) {
+		return this.offHeapCacheDao.put(key, value, expire);
+	}
+
+	@Override
+	public void remove(byte[] key) {
+		this.offHeapCacheDao.remove(key);
+	}
+
+	@Override
+	public Set<byte[]> keys(byte[] pattern) {
+		return this.offHeapCacheDao.keys(pattern);
+	}
+
+	@Override
+	public int size(byte[] pattern) {
+		return this.offHeapCacheDao.size(pattern);
+	}
+
+	@Override
+	public void clear() {
+		this.offHeapCacheDao.clear();
+	}
+}
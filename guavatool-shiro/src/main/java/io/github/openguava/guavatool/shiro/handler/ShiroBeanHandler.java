@@ -24,7 +24,9 @@ import org.springframework.web.filter.DelegatingFilterProxy;
 
 import io.github.openguava.guavatool.shiro.ShiroRealm;
 import io.github.openguava.guavatool.shiro.ShiroWebSessionManager;
+import io.github.openguava.guavatool.shiro.common.AbstractSessionDAO;
 import io.github.openguava.guavatool.shiro.common.AbstractShiroCacheDao;
+import io.github.openguava.guavatool.shiro.common.DeltaSessionFactory;
 import io.github.openguava.guavatool.shiro.redis.RedisCacheManager;
 import io.github.openguava.guavatool.shiro.redis.RedisCacheDao;
 import io.github.openguava.guavatool.shiro.redis.RedisSessionDAO;
@@ -139,6 +141,10 @@ public abstract class ShiroBeanHandler {
 			SessionDAO newSessionDAO = this.getSessionDAO();
 			if(newSessionDAO != null) {
 				this.sessionManager.setSessionDAO(newSessionDAO);
+				// 分字段存储时创建记录变化属性的会话
+				if(newSessionDAO instanceof AbstractSessionDAO && ((AbstractSessionDAO) newSessionDAO).getConfig().getDeltaStorageEnabled()) {
+					this.sessionManager.setSessionFactory(new DeltaSessionFactory());
+				}
 			}
 			
 			//sessionIdCookie
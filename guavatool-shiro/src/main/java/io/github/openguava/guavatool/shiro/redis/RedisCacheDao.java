@@ -1,21 +1,53 @@
 package io.github.openguava.guavatool.shiro.redis;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 
+import io.github.openguava.guavatool.core.cache.CacheCursor;
+import io.github.openguava.guavatool.core.cache.SimpleCacheCursor;
+import io.github.openguava.guavatool.core.exception.UtilException;
+import io.github.openguava.guavatool.core.lang.SystemClock;
 import io.github.openguava.guavatool.shiro.common.AbstractShiroCacheDao;
 import io.github.openguava.guavatool.spring.util.RedisUtils;
 
 /**
  * redis 缓存数据访问
+ * <p>
+ * 通过{@link #registerPrefix(byte[])}登记的前缀(如{@link RedisCacheManager}的每个缓存名称)，在写入和删除键的同一管道中
+ * 维护一个有序集合索引，成员为键、分值为过期时间戳，因此{@link #size(byte[])}只需{@code ZCOUNT}，
+ * {@link #clear(byte[])}按索引分批{@code UNLINK}，均不必遍历整个键空间。登记前写入的键不在索引中，到期后自然失效。
  *
  */
 public class RedisCacheDao extends AbstractShiroCacheDao {
 
+	/** 默认SCAN每批数量 */
+	public static final int DEFAULT_SCAN_COUNT = 1000;
+	
+	/** 默认键索引前缀，不能与缓存键前缀重叠，否则索引本身会被前缀匹配到 */
+	public static final String DEFAULT_INDEX_KEY_PREFIX = "shiro:index:";
+	
+
 	private RedisConnectionFactory redisConnectionFactory;
 	
 	public RedisConnectionFactory getRedisConnectionFactory() {
@@ -56,6 +88,36 @@ public class RedisCacheDao extends AbstractShiroCacheDao {
 		this.charset = charset;
 	}
 	
+	/** SCAN每批建议返回的数量，越大往返次数越少，但单次SCAN占用redis的时间越长 */
+	private int scanCount = DEFAULT_SCAN_COUNT;
+	
+	public int getScanCount() {
+		return this.scanCount;
+	}
+	
+	public RedisCacheDao setScanCount(int scanCount) {
+		if (scanCount <= 0) {
+			throw new IllegalArgumentException("scanCount must be greater than 0");
+		}
+		this.scanCount = scanCount;
+		return this;
+	}
+	
+	/** 键索引前缀，需在登记前缀前设置 */
+	private String indexKeyPrefix = DEFAULT_INDEX_KEY_PREFIX;
+	
+	public String getIndexKeyPrefix() {
+		return this.indexKeyPrefix;
+	}
+	
+	public RedisCacheDao setIndexKeyPrefix(String indexKeyPrefix) {
+		this.indexKeyPrefix = indexKeyPrefix;
+		return this;
+	}
+	
+	/** 已登记的前缀 */
+	private final List<TrackedPrefix> trackedPrefixes = new CopyOnWriteArrayList<>();
+	
 	@Override
 	public byte[] get(byte[] key) {
 		return RedisUtils.getBytes(this.getRedisTemplate(), key);
@@ -63,13 +125,124 @@ public class RedisCacheDao extends AbstractShiroCacheDao {
 
 	@Override
 	public byte[] put(byte[] key, byte[] value, int expire) {
-		RedisUtils.setBytes(this.getRedisTemplate(), key, value, expire);
+		if (this.indexKeyOf(key) == null) {
+			RedisUtils.setBytes(this.getRedisTemplate(), key, value, expire);
+		} else {
+			this.writeBatch(Collections.singletonMap(key, value), expire);
+		}
 		return value;
 	}
 
 	@Override
 	public void remove(byte[] key) {
-		RedisUtils.delete(this.getRedisTemplate(), key);
+		if (this.indexKeyOf(key) == null) {
+			RedisUtils.delete(this.getRedisTemplate(), key);
+		} else {
+			this.deleteBatch(Collections.singletonList(key));
+		}
+	}
+	
+	/**
+	 * 按{@link #getBatchSize()}分批{@code MGET}，每批一次往返
+	 */
+	@Override
+	public List<byte[]> getAll(List<byte[]> keys) {
+		List<byte[]> values = new ArrayList<>(keys.size());
+		int batchSize = this.getBatchSize();
+		for (int from = 0; from < keys.size(); from += batchSize) {
+			List<byte[]> batch = keys.subList(from, Math.min(from + batchSize, keys.size()));
+			List<byte[]> batchValues = RedisUtils.multiGetBytes(this.getRedisTemplate(), batch.toArray(new byte[batch.size()][]));
+			if (batchValues == null) {
+				for (int i = 0; i < batch.size(); i++) {
+					values.add(null);
+				}
+			} else {
+				values.addAll(batchValues);
+			}
+		}
+		return values;
+	}
+	
+	/**
+	 * 按{@link #getBatchSize()}分批管道写入，每批一次往返
+	 */
+	@Override
+	public void putAll(Map<byte[], byte[]> entries, int expire) {
+		Map<byte[], byte[]> batch = new LinkedHashMap<>();
+		for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+			batch.put(entry.getKey(), entry.getValue());
+			if (batch.size() >= this.getBatchSize()) {
+				this.writeBatch(batch, expire);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			this.writeBatch(batch, expire);
+		}
+	}
+	
+	/**
+	 * 按{@link #getBatchSize()}分批多键{@code DEL}，每批一次往返
+	 */
+	@Override
+	public void removeAll(Collection<byte[]> keys) {
+		int batchSize = this.getBatchSize();
+		Iterator<byte[]> iterator = keys.iterator();
+		while (iterator.hasNext()) {
+			List<byte[]> batch = new ArrayList<>(Math.min(batchSize, keys.size()));
+			while (iterator.hasNext() && batch.size() < batchSize) {
+				batch.add(iterator.next());
+			}
+			this.deleteBatch(batch);
+		}
+	}
+
+	/**
+	 * 使用{@code HGETALL}获取哈希的全部字段
+	 */
+	@Override
+	public Map<byte[], byte[]> getFields(byte[] key) {
+		return RedisUtils.getHashBytes(this.getRedisTemplate(), key);
+	}
+	
+	/**
+	 * 按{@link #getBatchSize()}分批管道{@code HGETALL}，每批一次往返
+	 */
+	@Override
+	public List<Map<byte[], byte[]>> getAllFields(List<byte[]> keys) {
+		List<Map<byte[], byte[]>> fieldsList = new ArrayList<>(keys.size());
+		int batchSize = this.getBatchSize();
+		for (int from = 0; from < keys.size(); from += batchSize) {
+			List<byte[]> batch = keys.subList(from, Math.min(from + batchSize, keys.size()));
+			fieldsList.addAll(RedisUtils.multiGetHashBytes(this.getRedisTemplate(), batch.toArray(new byte[batch.size()][])));
+		}
+		return fieldsList;
+	}
+	
+	/**
+	 * 一次往返写入字段并刷新存活时间：替换时在同一事务中{@code DEL}后{@code HSET}；
+	 * 不替换时通过脚本仅在哈希仍存在时{@code HSET}、{@code HDEL}并刷新存活时间<br>
+	 * 已登记前缀的键随后加入索引
+	 */
+	@Override
+	public boolean putFields(final byte[] key, Map<byte[], byte[]> fields, Collection<byte[]> removedFields, int expire, boolean replace) {
+		if (expire == 0 || expire <= RedisUtils.NOT_VALUE_EXPIRE) {
+			return false;
+		}
+		if (!RedisUtils.setHashBytes(this.getRedisTemplate(), key, fields, removedFields, expire, replace)) {
+			return false;
+		}
+		final byte[] indexKey = this.indexKeyOf(key);
+		if (indexKey != null) {
+			final double expireAt = expire == RedisUtils.NEVER_EXPIRE ? Double.POSITIVE_INFINITY : SystemClock.now() + expire * 1000L;
+			this.getRedisTemplate().execute(new RedisCallback<Object>() {
+				@Override
+				public Object doInRedis(RedisConnection connection) throws DataAccessException {
+					return connection.zAdd(indexKey, expireAt, key);
+				}
+			});
+		}
+		return true;
 	}
 
 	@Override
@@ -77,14 +250,261 @@ public class RedisCacheDao extends AbstractShiroCacheDao {
 		return RedisUtils.keys(this.getRedisTemplate(), pattern);
 	}
 	
+	/**
+	 * 使用{@code SCAN}逐批遍历匹配的键，每批数量为{@link #getScanCount()}
+	 */
+	@Override
+	public CacheCursor<byte[]> scan(byte[] pattern) {
+		final Cursor<byte[]> cursor = RedisUtils.scan(this.getRedisTemplate(), new String(pattern, this.charset), this.scanCount);
+		return new SimpleCacheCursor<byte[]>(cursor) {
+			@Override
+			public void close() {
+				try {
+					cursor.close();
+				} catch (IOException e) {
+					throw new UtilException(e, "close scan cursor failed");
+				}
+			}
+		};
+	}
+	
+	/**
+	 * 缓存的对象数量<br>
+	 * 模式为已登记前缀加{@code *}时为索引中未过期的键数，{@code O(log N)}；其他模式逐批{@code SCAN}计数；{@code null}为整个数据库的键数
+	 */
 	@Override
 	public int size(byte[] pattern) {
-		Long sz = RedisUtils.dbSize(this.getRedisTemplate());
-		return sz.intValue();
+		if (pattern == null) {
+			return (int) RedisUtils.dbSize(this.getRedisTemplate());
+		}
+		final TrackedPrefix tracked = this.trackedPrefixOf(pattern);
+		if (tracked != null) {
+			Long count = this.getRedisTemplate().execute(new RedisCallback<Long>() {
+				@Override
+				public Long doInRedis(RedisConnection connection) throws DataAccessException {
+					return connection.zCount(tracked.indexKey, SystemClock.now(), Double.POSITIVE_INFINITY);
+				}
+			});
+			return count == null ? 0 : (int) Math.min(count.longValue(), Integer.MAX_VALUE);
+		}
+		int count = 0;
+		CacheCursor<byte[]> cursor = this.scan(pattern);
+		try {
+			while (cursor.hasNext()) {
+				cursor.next();
+				count++;
+			}
+		} finally {
+			cursor.close();
+		}
+		return count;
+	}
+	
+	@Override
+	public void registerPrefix(byte[] prefix) {
+		if (prefix == null || prefix.length == 0) {
+			throw new IllegalArgumentException("prefix cannot be empty.");
+		}
+		synchronized (this.trackedPrefixes) {
+			for (TrackedPrefix tracked : this.trackedPrefixes) {
+				if (Arrays.equals(tracked.prefix, prefix)) {
+					return;
+				}
+			}
+			byte[] indexPrefix = this.indexKeyPrefix.getBytes(this.charset);
+			byte[] indexKey = Arrays.copyOf(indexPrefix, indexPrefix.length + prefix.length);
+			System.arraycopy(prefix, 0, indexKey, indexPrefix.length, prefix.length);
+			this.trackedPrefixes.add(new TrackedPrefix(prefix.clone(), indexKey));
+		}
+	}
+	
+	/**
+	 * 清空匹配的键<br>
+	 * 模式为已登记前缀加{@code *}时按索引分批删除：每批先{@code ZRANGE}取出{@link #getBatchSize()}个键，
+	 * 再在一个管道中{@code ZREM}并{@code UNLINK}，所有命令都显式传入键，集群模式下由客户端按槽路由，不长时间阻塞redis；
+	 * 其他模式逐批{@code SCAN}删除。清空期间并发写入的键可能在索引移除后被删除，索引计数偏大直到其过期。
+	 */
+	@Override
+	public void clear(byte[] pattern) {
+		TrackedPrefix tracked = pattern == null ? null : this.trackedPrefixOf(pattern);
+		if (tracked == null) {
+			super.clear(pattern);
+			return;
+		}
+		final byte[] indexKey = tracked.indexKey;
+		final long count = this.getBatchSize();
+		Set<byte[]> keys;
+		do {
+			keys = this.getRedisTemplate().execute(new RedisCallback<Set<byte[]>>() {
+				@Override
+				public Set<byte[]> doInRedis(RedisConnection connection) throws DataAccessException {
+					return connection.zRange(indexKey, 0, count - 1);
+				}
+			});
+			if (keys == null || keys.isEmpty()) {
+				return;
+			}
+			final byte[][] batch = keys.toArray(new byte[keys.size()][]);
+			this.getRedisTemplate().executePipelined(new RedisCallback<Object>() {
+				@Override
+				public Object doInRedis(RedisConnection connection) throws DataAccessException {
+					connection.zRem(indexKey, batch);
+					connection.unlink(batch);
+					return null;
+				}
+			});
+		} while (keys.size() >= count);
 	}
 
+	/**
+	 * 清空已登记前缀下的键，不会清空整个redis数据库
+	 */
 	@Override
 	public void clear() {
-		// TODO Auto-generated method stub
+		for (TrackedPrefix tracked : this.trackedPrefixes) {
+			this.clear(tracked.pattern());
+		}
+	}
+	
+	/**
+	 * 写入一批键值，已登记前缀的键在同一管道中加入索引并清理索引中已过期的成员
+	 * @param entries
+	 * @param expire
+	 */
+	private void writeBatch(final Map<byte[], byte[]> entries, final int expire) {
+		if (expire == 0 || expire <= RedisUtils.NOT_VALUE_EXPIRE) {
+			return;
+		}
+		boolean tracked = false;
+		for (byte[] key : entries.keySet()) {
+			if (this.indexKeyOf(key) != null) {
+				tracked = true;
+				break;
+			}
+		}
+		if (!tracked) {
+			RedisUtils.multiSetBytes(this.getRedisTemplate(), entries, expire);
+			return;
+		}
+		final long now = SystemClock.now();
+		final double expireAt = expire == RedisUtils.NEVER_EXPIRE ? Double.POSITIVE_INFINITY : now + expire * 1000L;
+		this.getRedisTemplate().executePipelined(new RedisCallback<Object>() {
+			@Override
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				Set<byte[]> indexKeys = Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>());
+				for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+					if (expire == RedisUtils.NEVER_EXPIRE) {
+						connection.set(entry.getKey(), entry.getValue());
+					} else {
+						connection.set(entry.getKey(), entry.getValue(), Expiration.seconds(expire), SetOption.UPSERT);
+					}
+					byte[] indexKey = indexKeyOf(entry.getKey());
+					if (indexKey != null) {
+						connection.zAdd(indexKey, expireAt, entry.getKey());
+						indexKeys.add(indexKey);
+					}
+				}
+				for (byte[] indexKey : indexKeys) {
+					connection.zRemRangeByScore(indexKey, Double.NEGATIVE_INFINITY, now);
+				}
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * 删除一批键，已登记前缀的键在同一管道中移出索引
+	 * @param keys
+	 */
+	private void deleteBatch(final List<byte[]> keys) {
+		boolean tracked = false;
+		for (byte[] key : keys) {
+			if (this.indexKeyOf(key) != null) {
+				tracked = true;
+				break;
+			}
+		}
+		if (!tracked) {
+			RedisUtils.deleteBytes(this.getRedisTemplate(), keys.toArray(new byte[keys.size()][]));
+			return;
+		}
+		this.getRedisTemplate().executePipelined(new RedisCallback<Object>() {
+			@Override
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				connection.del(keys.toArray(new byte[keys.size()][]));
+				for (byte[] key : keys) {
+					byte[] indexKey = indexKeyOf(key);
+					if (indexKey != null) {
+						connection.zRem(indexKey, key);
+					}
+				}
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * 获取键所属的索引，多个登记前缀匹配时取最长的
+	 * @param key
+	 * @return 索引键，未登记时返回{@code null}
+	 */
+	private byte[] indexKeyOf(byte[] key) {
+		TrackedPrefix matched = null;
+		for (TrackedPrefix tracked : this.trackedPrefixes) {
+			if (tracked.matches(key) && (matched == null || tracked.prefix.length > matched.prefix.length)) {
+				matched = tracked;
+			}
+		}
+		return matched == null ? null : matched.indexKey;
+	}
+	
+	/**
+	 * 获取模式对应的登记前缀，模式须恰好为登记前缀加{@code *}
+	 * @param pattern
+	 * @return 登记前缀，不对应时返回{@code null}
+	 */
+	private TrackedPrefix trackedPrefixOf(byte[] pattern) {
+		if (pattern.length == 0 || pattern[pattern.length - 1] != '*') {
+			return null;
+		}
+		for (TrackedPrefix tracked : this.trackedPrefixes) {
+			if (tracked.prefix.length == pattern.length - 1 && tracked.matches(pattern)) {
+				return tracked;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * 登记的前缀及其索引键
+	 */
+	private static final class TrackedPrefix {
+		
+		private final byte[] prefix;
+		
+		private final byte[] indexKey;
+		
+		private TrackedPrefix(byte[] prefix, byte[] indexKey) {
+			this.prefix = prefix;
+			this.indexKey = indexKey;
+		}
+		
+		private boolean matches(byte[] key) {
+			if (key == null || key.length < this.prefix.length) {
+				return false;
+			}
+			for (int i = 0; i < this.prefix.length; i++) {
+				if (key[i] != this.prefix[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		private byte[] pattern() {
+			byte[] pattern = Arrays.copyOf(this.prefix, this.prefix.length + 1);
+			pattern[this.prefix.length] = '*';
+			return pattern;
+		}
 	}
 }
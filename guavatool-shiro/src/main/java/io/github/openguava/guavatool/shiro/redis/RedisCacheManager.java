@@ -21,6 +21,9 @@ public class RedisCacheManager extends AbstractShiroCacheManager {
 	protected <K, V> Cache<K, V> createCache(String name) throws CacheException {
 		AbstractShiroCacheConfig newConfig = new RedisCacheConfig().clone(this.getConfig());
 		newConfig.setKeyPrefix(this.getConfig().getKeyPrefix() + name + ":");
-		return new RedisCache<>(name, newConfig, this.getDao());
+		RedisCache<K, V> cache = new RedisCache<>(name, newConfig, this.getDao());
+		// 按缓存名称维护键索引
+		this.getDao().registerPrefix(newConfig.getKeySerializer().serialize(newConfig.getKeyPrefix()));
+		return cache;
 	}
 }
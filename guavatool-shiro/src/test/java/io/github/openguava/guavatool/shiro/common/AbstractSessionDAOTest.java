@@ -0,0 +1,296 @@
+package io.github.openguava.guavatool.shiro.common;
+
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link AbstractSessionDAO}延迟写入测试
+ * @author openguava
+ *
+ */
+public class AbstractSessionDAOTest extends TestCase {
+
+	private CountingCacheDao cacheDao;
+
+	private AbstractSessionDAO sessionDAO;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.cacheDao = new CountingCacheDao();
+		this.sessionDAO = new AbstractSessionDAO();
+		this.sessionDAO.setConfig(new AbstractShiroSessionConfig() {
+		});
+		// 后台刷新间隔足够长，由测试显式调用flush()
+		this.sessionDAO.getConfig().setWriteBehindEnabled(true).setWriteBehindFlushInterval(60000L);
+		this.sessionDAO.getConfig().setSessionInMemoryEnabled(false);
+		this.sessionDAO.setDao(this.cacheDao);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		this.sessionDAO.destroy();
+	}
+
+	public void testCoalescesUpdates() throws Exception {
+		SimpleSession session = newSession("s1");
+		for (int i = 0; i < 5; i++) {
+			session.setAttribute("count", i);
+			this.sessionDAO.update(session);
+		}
+		assertEquals(0, this.cacheDao.puts.get());
+		this.sessionDAO.flush();
+		assertEquals(1, this.cacheDao.puts.get());
+		assertEquals(4, this.sessionDAO.readSession("s1").getAttribute("count"));
+	}
+
+	public void testPendingReadReturnsCopy() throws Exception {
+		SimpleSession session = newSession("s1");
+		session.setAttribute("name", "a");
+		this.sessionDAO.update(session);
+		Session read = this.sessionDAO.readSession("s1");
+		assertNotSame(session, read);
+		read.setAttribute("name", "b");
+		// 修改读取到的副本不影响待写入的快照
+		this.sessionDAO.flush();
+		assertEquals("a", this.sessionDAO.readSession("s1").getAttribute("name"));
+	}
+
+	public void testDeleteDropsPendingWrite() throws Exception {
+		SimpleSession session = newSession("s1");
+		this.sessionDAO.update(session);
+		this.sessionDAO.delete(session);
+		this.sessionDAO.flush();
+		assertEquals(0, this.cacheDao.puts.get());
+		assertNull(this.cacheDao.get(this.key("s1")));
+	}
+
+	public void testDeleteDuringFlushWins() throws Exception {
+		final SimpleSession session = newSession("s1");
+		this.sessionDAO.update(session);
+		this.cacheDao.block();
+		Thread flusher = new Thread() {
+			@Override
+			public void run() {
+				sessionDAO.flush();
+			}
+		};
+		flusher.start();
+		assertTrue(this.cacheDao.entered.await(5, TimeUnit.SECONDS));
+		Thread deleter = new Thread() {
+			@Override
+			public void run() {
+				sessionDAO.delete(session);
+			}
+		};
+		deleter.start();
+		// 写入未完成前删除需等待，避免写入在删除之后落地
+		deleter.join(200);
+		assertTrue(deleter.isAlive());
+		this.cacheDao.release.countDown();
+		flusher.join(5000);
+		deleter.join(5000);
+		assertNull(this.cacheDao.get(this.key("s1")));
+	}
+
+	public void testTouchOnlyComparesAttributeValues() throws Exception {
+		SimpleSession session = newSession("s1");
+		session.setAttribute("principal", new Principal("admin"));
+		this.sessionDAO.update(session);
+		this.sessionDAO.flush();
+		assertEquals(1, this.cacheDao.puts.get());
+		// 每次读取都重新反序列化身份，没有equals和hashCode时仍识别为只有访问时间变化
+		Session read = this.sessionDAO.readSession("s1");
+		read.touch();
+		this.sessionDAO.update(read);
+		this.sessionDAO.flush();
+		assertEquals(1, this.cacheDao.puts.get());
+		read.setAttribute("principal", new Principal("guest"));
+		this.sessionDAO.update(read);
+		this.sessionDAO.flush();
+		assertEquals(2, this.cacheDao.puts.get());
+		assertEquals("guest", ((Principal) this.sessionDAO.readSession("s1").getAttribute("principal")).name);
+	}
+
+	public void testTouchOnlyNeverSkipsDirtyDeltaSession() throws Exception {
+		this.sessionDAO.getConfig().setDeltaStorageEnabled(true);
+		DeltaSession session = new DeltaSession();
+		session.setId("s1");
+		session.setAttribute("name", "a");
+		this.sessionDAO.update(session);
+		this.sessionDAO.flush();
+		assertEquals(1, this.cacheDao.puts.get());
+		DeltaSession read = (DeltaSession) this.sessionDAO.readSession("s1");
+		assertTrue(read.isSynced());
+		read.touch();
+		this.sessionDAO.update(read);
+		this.sessionDAO.flush();
+		assertEquals(1, this.cacheDao.puts.get());
+		assertTrue(read.peekDirtyKeys().isEmpty());
+		// 写入相同的值也记为脏属性，必须写入
+		read.setAttribute("name", "a");
+		this.sessionDAO.update(read);
+		this.sessionDAO.flush();
+		assertEquals(2, this.cacheDao.puts.get());
+		// 未同步的会话整体写入，不跳过
+		read.setAttributes(read.getAttributes());
+		this.sessionDAO.update(read);
+		this.sessionDAO.flush();
+		assertEquals(3, this.cacheDao.puts.get());
+	}
+
+	public void testUpdateDuringFlushNotSkipped() throws Exception {
+		SimpleSession session = newSession("s1");
+		session.setAttribute("name", "a");
+		this.sessionDAO.update(session);
+		this.sessionDAO.flush();
+		session.setAttribute("name", "b");
+		this.sessionDAO.update(session);
+		this.cacheDao.block();
+		Thread flusher = new Thread() {
+			@Override
+			public void run() {
+				sessionDAO.flush();
+			}
+		};
+		flusher.start();
+		assertTrue(this.cacheDao.entered.await(5, TimeUnit.SECONDS));
+		// 写入"b"未完成时改回"a"，与上次写入的状态相同也不能跳过
+		session.setAttribute("name", "a");
+		this.sessionDAO.update(session);
+		this.cacheDao.release.countDown();
+		flusher.join(5000);
+		this.sessionDAO.flush();
+		assertEquals("a", this.sessionDAO.readSession("s1").getAttribute("name"));
+	}
+
+	public void testFailedDeltaFlushMergesWithNewerUpdate() throws Exception {
+		this.sessionDAO.getConfig().setDeltaStorageEnabled(true);
+		DeltaSession session = new DeltaSession();
+		session.setId("s1");
+		session.setAttribute("a", "1");
+		this.sessionDAO.update(session);
+		this.sessionDAO.flush();
+		final DeltaSession read = (DeltaSession) this.sessionDAO.readSession("s1");
+		read.setAttribute("a", "2");
+		this.sessionDAO.update(read);
+		// 写入"a"失败前同一会话又有新的更新入队
+		this.cacheDao.failOnce(new Runnable() {
+			@Override
+			public void run() {
+				read.setAttribute("b", "1");
+				sessionDAO.update(read);
+			}
+		});
+		this.sessionDAO.flush();
+		this.sessionDAO.flush();
+		Session stored = this.sessionDAO.readSession("s1");
+		assertEquals("2", stored.getAttribute("a"));
+		assertEquals("1", stored.getAttribute("b"));
+	}
+
+	public void testDeltaSessionRoundTrip() throws Exception {
+		this.sessionDAO.getConfig().setDeltaStorageEnabled(true);
+		DeltaSession session = new DeltaSession("127.0.0.1");
+		session.setId("s1");
+		session.setTimeout(1800000L);
+		session.setAttribute("a", "1");
+		session.setAttribute("b", 2);
+		this.sessionDAO.update(session);
+		this.sessionDAO.flush();
+		DeltaSession read = (DeltaSession) this.sessionDAO.readSession("s1");
+		assertTrue(read.isSynced());
+		assertTrue(read.peekDirtyKeys().isEmpty());
+		assertEquals("127.0.0.1", read.getHost());
+		assertEquals(1800000L, read.getTimeout());
+		assertEquals(session.getAttributes(), read.getAttributes());
+		// 已同步的会话只写入变化的属性
+		read.removeAttribute("b");
+		read.setAttribute("c", "3");
+		this.sessionDAO.update(read);
+		this.sessionDAO.flush();
+		Session stored = this.sessionDAO.readSession("s1");
+		assertEquals("1", stored.getAttribute("a"));
+		assertNull(stored.getAttribute("b"));
+		assertEquals("3", stored.getAttribute("c"));
+	}
+
+	private byte[] key(String sessionId) throws Exception {
+		return this.sessionDAO.getConfig().getKeySerializer().serialize(this.sessionDAO.getConfig().getKeyPrefix() + sessionId);
+	}
+
+	private static SimpleSession newSession(String id) {
+		SimpleSession session = new SimpleSession();
+		session.setId(id);
+		return session;
+	}
+
+	/**
+	 * 没有equals和hashCode的身份
+	 */
+	private static class Principal implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+
+		private Principal(String name) {
+			this.name = name;
+		}
+	}
+
+	/**
+	 * 统计写入次数，可阻塞写入的缓存数据访问
+	 */
+	private static class CountingCacheDao extends OffHeapShiroCacheDao {
+
+		private final AtomicInteger puts = new AtomicInteger();
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		private volatile boolean blocking;
+
+		/** 下次写入时执行后抛出异常 */
+		private volatile Runnable failure;
+
+		private CountingCacheDao() {
+			super(64 << 20);
+		}
+
+		private void block() {
+			this.blocking = true;
+		}
+
+		private void failOnce(Runnable failure) {
+			this.failure = failure;
+		}
+
+		@Override
+		public byte[] put(byte[] key, byte[] value, int expire) {
+			this.puts.incrementAndGet();
+			Runnable failure = this.failure;
+			if (failure != null) {
+				this.failure = null;
+				failure.run();
+				throw new IllegalStateException("put failed");
+			}
+			if (this.blocking) {
+				this.entered.countDown();
+				try {
+					this.release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return super.put(key, value, expire);
+		}
+	}
+}
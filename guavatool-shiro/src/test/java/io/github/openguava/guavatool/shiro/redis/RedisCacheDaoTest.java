@@ -0,0 +1,494 @@
+package io.github.openguava.guavatool.shiro.redis;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.apache.shiro.cache.Cache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanCursor;
+import org.springframework.data.redis.core.ScanIteration;
+import org.springframework.data.redis.core.ScanOptions;
+
+import io.github.openguava.guavatool.core.cache.CacheCursor;
+import io.github.openguava.guavatool.core.lang.SystemClock;
+import io.github.openguava.guavatool.shiro.common.AbstractShiroCacheConfig;
+import junit.framework.TestCase;
+
+/**
+ * {@link RedisCacheDao}测试，使用内存实现的redis连接代替redis
+ * @author openguava
+ *
+ */
+public class RedisCacheDaoTest extends TestCase {
+
+	private MemoryRedis redis;
+
+	private RedisCacheDao dao;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.redis = new MemoryRedis();
+		this.dao = new RedisCacheDao().setRedisTemplate(this.redis.template());
+	}
+
+	public void testScanIteratesInBatches() {
+		for (int i = 0; i < 25; i++) {
+			this.dao.put(bytes("a:" + i), bytes("v" + i), 60);
+		}
+		for (int i = 0; i < 5; i++) {
+			this.dao.put(bytes("b:" + i), bytes("v" + i), 60);
+		}
+		this.dao.setScanCount(10);
+		Set<String> keys = new HashSet<>();
+		CacheCursor<byte[]> cursor = this.dao.scan(bytes("a:*"));
+		try {
+			while (cursor.hasNext()) {
+				keys.add(string(cursor.next()));
+			}
+		} finally {
+			cursor.close();
+		}
+		assertEquals(25, keys.size());
+		// 30个键每批10个，共3次SCAN，不使用KEYS
+		assertEquals(3, this.redis.count("scan"));
+		assertEquals(0, this.redis.count("keys"));
+		assertEquals(1, this.redis.closedCursors);
+	}
+
+	public void testCacheKeysAndSizeUseScan() {
+		RedisCache<String, String> cache = new RedisCache<>("test", new RedisCacheConfig(), this.dao);
+		for (int i = 0; i < 12; i++) {
+			cache.put("k" + i, "v" + i);
+		}
+		this.dao.put(bytes("other"), bytes("x"), 60);
+		this.dao.setScanCount(5);
+		Set<String> expected = new HashSet<>();
+		for (int i = 0; i < 12; i++) {
+			expected.add(RedisCacheConfig.DEFAULT_CACHE_KEY_PREFIX + "k" + i);
+		}
+		assertEquals(expected, cache.keys());
+		assertEquals(12, cache.size());
+		assertEquals(0, this.redis.count("keys"));
+		// 每次遍历后都关闭游标
+		assertEquals(2, this.redis.closedCursors);
+	}
+
+	public void testGetAllBatchesMget() {
+		this.dao.setBatchSize(4);
+		List<byte[]> keys = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			keys.add(bytes("k" + i));
+			if (i % 3 != 0) {
+				this.dao.put(bytes("k" + i), bytes("v" + i), 60);
+			}
+		}
+		List<byte[]> values = this.dao.getAll(keys);
+		assertEquals(10, values.size());
+		for (int i = 0; i < 10; i++) {
+			// 顺序与键一致，不存在的为null
+			assertEquals(i % 3 != 0 ? "v" + i : null, string(values.get(i)));
+		}
+		assertEquals(3, this.redis.count("mGet"));
+		assertEquals(0, this.redis.count("get"));
+	}
+
+	public void testPutAllAndRemoveAllBatch() {
+		this.dao.setBatchSize(4);
+		Map<byte[], byte[]> entries = new LinkedHashMap<>();
+		List<byte[]> keys = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			entries.put(bytes("k" + i), bytes("v" + i));
+			keys.add(bytes("k" + i));
+		}
+		this.dao.putAll(entries, 60);
+		// 每批一个管道
+		assertEquals(3, this.redis.count("openPipeline"));
+		assertEquals(10, this.redis.count("set"));
+		assertEquals("v7", string(this.dao.get(bytes("k7"))));
+		this.dao.removeAll(keys);
+		assertEquals(3, this.redis.count("del"));
+		assertEquals(0, this.dao.size(null));
+	}
+
+	public void testCacheValuesReadInBatches() {
+		RedisCache<String, String> cache = new RedisCache<>("test", new RedisCacheConfig(), this.dao);
+		this.dao.setBatchSize(4);
+		Set<String> expected = new HashSet<>();
+		for (int i = 0; i < 10; i++) {
+			cache.put("k" + i, "v" + i);
+			expected.add("v" + i);
+		}
+		assertEquals(expected, new HashSet<>(cache.values()));
+		assertEquals(3, this.redis.count("mGet"));
+		assertEquals(0, this.redis.count("get"));
+	}
+
+	public void testRegisteredPrefixSizeWithoutScan() {
+		RedisCacheManager manager = this.manager();
+		Cache<String, String> a = manager.getCache("a");
+		Cache<String, String> b = manager.getCache("b");
+		for (int i = 0; i < 5; i++) {
+			a.put("k" + i, "v" + i);
+		}
+		for (int i = 0; i < 3; i++) {
+			b.put("k" + i, "v" + i);
+		}
+		this.dao.put(bytes("other"), bytes("x"), 60);
+		assertEquals(5, a.size());
+		assertEquals(3, b.size());
+		// 已登记前缀按索引计数，不遍历键空间
+		assertEquals(2, this.redis.count("zCount"));
+		assertEquals(0, this.redis.count("scan"));
+		a.remove("k0");
+		assertEquals(4, a.size());
+	}
+
+	public void testClearRemovesOnlyRegisteredPrefix() {
+		RedisCacheManager manager = this.manager();
+		Cache<String, String> a = manager.getCache("a");
+		Cache<String, String> b = manager.getCache("b");
+		for (int i = 0; i < 5; i++) {
+			a.put("k" + i, "v" + i);
+			b.put("k" + i, "v" + i);
+		}
+		this.dao.put(bytes("other"), bytes("x"), 60);
+		this.dao.setBatchSize(2);
+		a.clear();
+		assertEquals(0, a.size());
+		assertNull(a.get("k1"));
+		assertEquals(5, b.size());
+		assertEquals("v1", b.get("k1"));
+		// 按索引分批删除，5个键每批2个，每批一次ZRANGE
+		assertEquals(3, this.redis.count("zRange"));
+		assertEquals(0, this.redis.count("scan"));
+		assertEquals(0, this.redis.count("keys"));
+		assertEquals(0, this.redis.sortedSet(bytes(RedisCacheDao.DEFAULT_INDEX_KEY_PREFIX + RedisCacheConfig.DEFAULT_CACHE_KEY_PREFIX + "a:"), false).size());
+		// 清空全部只清空已登记的前缀
+		this.dao.clear();
+		assertEquals(0, b.size());
+		assertEquals("x", string(this.dao.get(bytes("other"))));
+	}
+
+	public void testExpiredKeysLeaveIndex() {
+		SystemClock defaultClock = SystemClock.getDefault();
+		ManualClock clock = new ManualClock(1700000000000L);
+		SystemClock.setDefault(clock);
+		try {
+			Cache<String, String> a = this.manager().getCache("a");
+			a.put("k1", "v1");
+			assertEquals(1, a.size());
+			clock.time += AbstractShiroCacheConfig.DEFAULT_EXPIRE * 1000L + 1;
+			// 已过期的键不计数
+			assertEquals(0, a.size());
+			a.put("k2", "v2");
+			assertEquals(1, a.size());
+			// 写入时清理索引中已过期的成员
+			assertEquals(1, this.redis.sortedSet(bytes(RedisCacheDao.DEFAULT_INDEX_KEY_PREFIX + RedisCacheConfig.DEFAULT_CACHE_KEY_PREFIX + "a:"), false).size());
+		} finally {
+			SystemClock.setDefault(defaultClock);
+		}
+	}
+
+	private RedisCacheManager manager() {
+		RedisCacheManager manager = new RedisCacheManager();
+		manager.setDao(this.dao);
+		return manager;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String string(byte[] value) {
+		return value == null ? null : new String(value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 手动推进的时钟
+	 */
+	private static class ManualClock extends SystemClock {
+
+		private volatile long time;
+
+		private ManualClock(long time) {
+			super(Precision.NANO);
+			this.time = time;
+		}
+
+		@Override
+		public long currentTimeMillis() {
+			return this.time;
+		}
+	}
+
+	/**
+	 * 内存实现的redis，只支持被测代码用到的命令，并统计每个命令的调用次数
+	 */
+	private static class MemoryRedis implements InvocationHandler {
+
+		private final TreeMap<String, byte[]> values = new TreeMap<>();
+
+		private final Map<String, Map<String, Double>> sortedSets = new HashMap<>();
+
+		private final Map<String, Integer> counts = new HashMap<>();
+
+		/** 管道中的命令结果，{@code null}表示未开启管道 */
+		private List<Object> pipeline;
+
+		private int closedCursors;
+
+		private RedisTemplate<byte[], byte[]> template() {
+			final RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+					new Class<?>[] { RedisConnection.class }, this);
+			RedisConnectionFactory factory = (RedisConnectionFactory) Proxy.newProxyInstance(RedisConnectionFactory.class.getClassLoader(),
+					new Class<?>[] { RedisConnectionFactory.class }, new InvocationHandler() {
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) {
+							if (method.getName().equals("getConnection")) {
+								return connection;
+							}
+							if (method.getName().equals("getConvertPipelineAndTxResults")) {
+								return Boolean.FALSE;
+							}
+							return null;
+						}
+					});
+			RedisTemplate<byte[], byte[]> template = new RedisTemplate<>();
+			template.setConnectionFactory(factory);
+			template.setEnableDefaultSerializer(false);
+			template.afterPropertiesSet();
+			return template;
+		}
+
+		private synchronized int count(String command) {
+			Integer count = this.counts.get(command);
+			return count == null ? 0 : count.intValue();
+		}
+
+		@Override
+		public synchronized Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			switch (name) {
+			case "openPipeline":
+				this.pipeline = new ArrayList<>();
+				this.counts.put(name, this.count(name) + 1);
+				return null;
+			case "closePipeline":
+				List<Object> results = this.pipeline;
+				this.pipeline = null;
+				return results == null ? Collections.emptyList() : results;
+			case "isPipelined":
+				return this.pipeline != null;
+			case "isQueueing":
+			case "isClosed":
+				return false;
+			case "close":
+				return null;
+			case "getNativeConnection":
+				return this;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "MemoryRedis";
+			default:
+				break;
+			}
+			this.counts.put(name, this.count(name) + 1);
+			Object result = this.execute(name, args);
+			if (this.pipeline != null) {
+				this.pipeline.add(result);
+				return null;
+			}
+			return result;
+		}
+
+		private Object execute(String name, Object[] args) {
+			switch (name) {
+			case "get":
+				return this.values.get(key(args[0]));
+			case "set":
+				this.values.put(key(args[0]), (byte[]) args[1]);
+				return Boolean.TRUE;
+			case "mGet": {
+				List<byte[]> result = new ArrayList<>();
+				for (byte[] key : (byte[][]) args[0]) {
+					result.add(this.values.get(key(key)));
+				}
+				return result;
+			}
+			case "del":
+			case "unlink": {
+				long removed = 0;
+				for (byte[] key : (byte[][]) args[0]) {
+					if (this.values.remove(key(key)) != null | this.sortedSets.remove(key(key)) != null) {
+						removed++;
+					}
+				}
+				return removed;
+			}
+			case "keys": {
+				Set<byte[]> result = new HashSet<>();
+				for (String key : this.values.keySet()) {
+					if (matches(string((byte[]) args[0]), key)) {
+						result.add(bytes(key));
+					}
+				}
+				return result;
+			}
+			case "scan":
+				return this.scan((ScanOptions) args[0]);
+			case "dbSize":
+				return (long) this.values.size();
+			case "zAdd":
+				return this.sortedSet(args[0], true).put(key(args[2]), (Double) args[1]) == null;
+			case "zRem": {
+				long removed = 0;
+				for (byte[] member : (byte[][]) args[1]) {
+					if (this.sortedSet(args[0], true).remove(key(member)) != null) {
+						removed++;
+					}
+				}
+				return removed;
+			}
+			case "zRange": {
+				List<Map.Entry<String, Double>> entries = this.sortedEntries(args[0]);
+				Set<byte[]> result = new LinkedHashSet<>();
+				long end = Math.min((Long) args[2], entries.size() - 1);
+				for (long i = (Long) args[1]; i <= end; i++) {
+					result.add(bytes(entries.get((int) i).getKey()));
+				}
+				return result;
+			}
+			case "zCount": {
+				long count = 0;
+				for (Double score : this.sortedSet(args[0], false).values()) {
+					if (score >= (Double) args[1] && score <= (Double) args[2]) {
+						count++;
+					}
+				}
+				return count;
+			}
+			case "zRemRangeByScore": {
+				long removed = 0;
+				Iterator<Double> iterator = this.sortedSet(args[0], false).values().iterator();
+				while (iterator.hasNext()) {
+					Double score = iterator.next();
+					if (score >= (Double) args[1] && score <= (Double) args[2]) {
+						iterator.remove();
+						removed++;
+					}
+				}
+				return removed;
+			}
+			default:
+				throw new UnsupportedOperationException(name);
+			}
+		}
+
+		/**
+		 * 与redis一样按COUNT遍历键空间，每批只返回其中匹配的键
+		 */
+		private ScanCursor<byte[]> scan(ScanOptions options) {
+			final String pattern = options.getPattern();
+			final long batch = options.getCount() == null ? 10 : options.getCount();
+			ScanCursor<byte[]> cursor = new ScanCursor<byte[]>(options) {
+				@Override
+				protected ScanIteration<byte[]> doScan(long cursorId, ScanOptions scanOptions) {
+					synchronized (MemoryRedis.this) {
+						if (cursorId > 0) {
+							counts.put("scan", count("scan") + 1);
+						}
+						List<String> keys = new ArrayList<>(values.keySet());
+						List<byte[]> items = new ArrayList<>();
+						long end = Math.min(cursorId + batch, keys.size());
+						for (long i = cursorId; i < end; i++) {
+							if (pattern == null || matches(pattern, keys.get((int) i))) {
+								items.add(bytes(keys.get((int) i)));
+							}
+						}
+						return new ScanIteration<>(end >= keys.size() ? 0 : end, items);
+					}
+				}
+
+				@Override
+				protected void doClose() {
+					synchronized (MemoryRedis.this) {
+						closedCursors++;
+					}
+				}
+			};
+			return cursor.open();
+		}
+
+		private Map<String, Double> sortedSet(Object key, boolean create) {
+			Map<String, Double> sortedSet = this.sortedSets.get(key(key));
+			if (sortedSet == null) {
+				sortedSet = new HashMap<>();
+				if (create) {
+					this.sortedSets.put(key(key), sortedSet);
+				}
+			}
+			return sortedSet;
+		}
+
+		/**
+		 * 按分值、成员排序
+		 */
+		private List<Map.Entry<String, Double>> sortedEntries(Object key) {
+			List<Map.Entry<String, Double>> entries = new ArrayList<>(this.sortedSet(key, false).entrySet());
+			Collections.sort(entries, new Comparator<Map.Entry<String, Double>>() {
+				@Override
+				public int compare(Map.Entry<String, Double> a, Map.Entry<String, Double> b) {
+					int result = a.getValue().compareTo(b.getValue());
+					return result != 0 ? result : a.getKey().compareTo(b.getKey());
+				}
+			});
+			return entries;
+		}
+
+		private static String key(Object key) {
+			return new String((byte[]) key, StandardCharsets.ISO_8859_1);
+		}
+
+		private static boolean matches(String pattern, String key) {
+			StringBuilder regex = new StringBuilder();
+			for (char c : pattern.toCharArray()) {
+				if (c == '*') {
+					regex.append(".*");
+				} else if (c == '?') {
+					regex.append('.');
+				} else {
+					regex.append(Pattern.quote(String.valueOf(c)));
+				}
+			}
+			return Pattern.matches(regex.toString(), key);
+		}
+
+		private static byte[] bytes(String key) {
+			return key.getBytes(StandardCharsets.ISO_8859_1);
+		}
+
+		private static String string(byte[] key) {
+			return new String(key, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
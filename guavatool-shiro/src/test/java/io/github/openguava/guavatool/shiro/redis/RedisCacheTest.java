@@ -0,0 +1,34 @@
+package io.github.openguava.guavatool.shiro.redis;
+
+import io.github.openguava.guavatool.core.cache.CacheStats;
+import io.github.openguava.guavatool.shiro.common.AbstractShiroCacheConfig;
+import io.github.openguava.guavatool.shiro.common.OffHeapShiroCacheDao;
+import junit.framework.TestCase;
+
+/**
+ * {@link RedisCache}统计测试，使用堆外缓存数据访问代替redis
+ * @author openguava
+ *
+ */
+public class RedisCacheTest extends TestCase {
+
+	private RedisCache<String, String> cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		this.cache = new RedisCache<>("test", new AbstractShiroCacheConfig() {
+		}, new OffHeapShiroCacheDao(16 << 20));
+	}
+
+	public void testLoadsCountOnlyMisses() {
+		this.cache.put("a", "1");
+		assertEquals("1", this.cache.get("a"));
+		assertEquals("1", this.cache.get("a"));
+		assertNull(this.cache.get("b"));
+		CacheStats stats = this.cache.stats();
+		assertEquals(2, stats.getHitCount());
+		assertEquals(1, stats.getMissCount());
+		// 加载次数等于未命中次数，命中不计入
+		assertEquals(stats.getMissCount(), stats.getLoadSuccessCount() + stats.getLoadFailureCount());
+	}
+}
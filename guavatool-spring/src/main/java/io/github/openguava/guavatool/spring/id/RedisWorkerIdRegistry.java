@@ -0,0 +1,64 @@
+package io.github.openguava.guavatool.spring.id;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.github.openguava.guavatool.core.lang.WorkerIdRegistry;
+import io.github.openguava.guavatool.spring.util.RedisUtils;
+
+/**
+ * 基于redis的机器标识注册中心，每个标识对应一个带存活时间的键，值为持有者<br>
+ * 租用使用{@code SET NX PX}，续期和释放使用比较持有者的lua脚本，避免误续期或误删其他节点的租约。
+ * @author openguava
+ *
+ */
+public class RedisWorkerIdRegistry implements WorkerIdRegistry {
+
+	/** 默认键前缀 */
+	public static final String DEFAULT_KEY_PREFIX = "guavatool:snowflake:worker:";
+
+	/** redis 操作模板 */
+	private final StringRedisTemplate stringRedisTemplate;
+
+	/** 键前缀 */
+	private final String keyPrefix;
+
+	/**
+	 * 初始化，使用默认redis连接工厂和键前缀
+	 */
+	public RedisWorkerIdRegistry() {
+		this(RedisUtils.createStringRedisTemplate(), DEFAULT_KEY_PREFIX);
+	}
+
+	/**
+	 * 初始化
+	 * @param stringRedisTemplate redis 操作模板
+	 * @param keyPrefix 键前缀，不同的ID生成场景应使用不同前缀
+	 */
+	public RedisWorkerIdRegistry(StringRedisTemplate stringRedisTemplate, String keyPrefix) {
+		if (stringRedisTemplate == null || keyPrefix == null) {
+			throw new IllegalArgumentException("stringRedisTemplate and keyPrefix cannot be null.");
+		}
+		this.stringRedisTemplate = stringRedisTemplate;
+		this.keyPrefix = keyPrefix;
+	}
+
+	@Override
+	public boolean tryAcquire(long workerId, String owner, long leaseMillis) {
+		String key = this.keyPrefix + workerId;
+		if (RedisUtils.setStringIfAbsent(this.stringRedisTemplate, key, owner, leaseMillis)) {
+			return true;
+		}
+		// 已被自己持有时视为续期
+		return RedisUtils.compareAndExpire(this.stringRedisTemplate, key, owner, leaseMillis);
+	}
+
+	@Override
+	public boolean renew(long workerId, String owner, long leaseMillis) {
+		return RedisUtils.compareAndExpire(this.stringRedisTemplate, this.keyPrefix + workerId, owner, leaseMillis);
+	}
+
+	@Override
+	public void release(long workerId, String owner) {
+		RedisUtils.compareAndDelete(this.stringRedisTemplate, this.keyPrefix + workerId, owner);
+	}
+}
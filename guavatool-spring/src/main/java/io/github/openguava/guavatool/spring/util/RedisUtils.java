@@ -1,5 +1,11 @@
 package io.github.openguava.guavatool.spring.util;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -8,9 +14,14 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
@@ -30,6 +41,22 @@ public class RedisUtils {
 	/** 常量，表示系统中不存在这个缓存 (在对不存在的key获取剩余存活时间时返回此值) */ 
 	public static final long NOT_VALUE_EXPIRE = -2;
 	
+	/** 值相等时设置存活时间(单位: 毫秒)的脚本 */
+	private static final RedisScript<Long> COMPARE_AND_EXPIRE_SCRIPT = new DefaultRedisScript<>(
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+	
+	/** 值相等时删除的脚本 */
+	private static final RedisScript<Long> COMPARE_AND_DELETE_SCRIPT = new DefaultRedisScript<>(
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+	
+	/** 哈希存在时写入、删除字段并设置存活时间(单位: 秒，-1为永不过期)的脚本，ARGV依次为存活时间、写入字段数、写入的字段和值、删除的字段 */
+	private static final byte[] UPDATE_HASH_IF_EXISTS_SCRIPT = ("if redis.call('exists', KEYS[1]) == 0 then return 0 end "
+			+ "local n = tonumber(ARGV[2]) "
+			+ "if n > 0 then redis.call('hmset', KEYS[1], unpack(ARGV, 3, 2 + 2 * n)) end "
+			+ "if #ARGV > 2 + 2 * n then redis.call('hdel', KEYS[1], unpack(ARGV, 3 + 2 * n, #ARGV)) end "
+			+ "if tonumber(ARGV[1]) == -1 then redis.call('persist', KEYS[1]) else redis.call('expire', KEYS[1], ARGV[1]) end "
+			+ "return 1").getBytes(StandardCharsets.UTF_8);
+	
 	/** redis key序列化缓存*/
 	private static final ConcurrentHashMap<Class<?>, RedisSerializer<?>> RedisKeySerializerCache = new ConcurrentHashMap<>();
 	
@@ -234,6 +261,164 @@ public class RedisUtils {
 		});
 	}
 	
+	/**
+	 * redis 批量获取字节数组，一次{@code MGET}往返
+	 * @param redisTemplate
+	 * @param keys
+	 * @return 与keys顺序一致的值列表，不存在的为{@code null}
+	 */
+	public static List<byte[]> multiGetBytes(RedisTemplate<?, ?> redisTemplate, final byte[]... keys) {
+		return redisTemplate.execute(new RedisCallback<List<byte[]>>() {
+			@Override
+			public List<byte[]> doInRedis(RedisConnection connection) throws DataAccessException {
+				return connection.mGet(keys);
+			}
+		});
+	}
+	
+	/**
+	 * redis 批量设置字节数组，使用相同的存活时间，通过管道一次往返
+	 * @param redisTemplate
+	 * @param entries
+	 * @param timeout 存活时间 (单位: 秒)，语义同{@link #setBytes(RedisTemplate, byte[], byte[], long)}
+	 */
+	public static void multiSetBytes(RedisTemplate<?, ?> redisTemplate, final Map<byte[], byte[]> entries, final long timeout) {
+		if(timeout == 0 || timeout <= NOT_VALUE_EXPIRE || entries.isEmpty())  {
+			return;
+		}
+		redisTemplate.executePipelined(new RedisCallback<Object>() {
+			@Override
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+					if(timeout == NEVER_EXPIRE) {
+						connection.set(entry.getKey(), entry.getValue());
+					} else {
+						connection.set(entry.getKey(), entry.getValue(), Expiration.seconds(timeout), SetOption.UPSERT);
+					}
+				}
+				// 管道模式下必须返回null
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * redis 批量删除字节数组键，一次多键{@code DEL}往返
+	 * @param redisTemplate
+	 * @param keys
+	 * @return 删除的数量
+	 */
+	public static long deleteBytes(RedisTemplate<?, ?> redisTemplate, final byte[]... keys) {
+		Long count = redisTemplate.execute(new RedisCallback<Long>() {
+			@Override
+			public Long doInRedis(RedisConnection connection) throws DataAccessException {
+				return connection.del(keys);
+			}
+		});
+		return count == null ? 0L : count.longValue();
+	}
+	
+	/**
+	 * redis 获取哈希的全部字段
+	 * @param redisTemplate
+	 * @param key
+	 * @return 字段 - 值，key不存在时为空
+	 */
+	public static Map<byte[], byte[]> getHashBytes(RedisTemplate<?, ?> redisTemplate, final byte[] key) {
+		Map<byte[], byte[]> fields = redisTemplate.execute(new RedisCallback<Map<byte[], byte[]>>() {
+			@Override
+			public Map<byte[], byte[]> doInRedis(RedisConnection connection) throws DataAccessException {
+				return connection.hGetAll(key);
+			}
+		});
+		return fields == null ? Collections.<byte[], byte[]>emptyMap() : fields;
+	}
+	
+	/**
+	 * redis 批量获取哈希的全部字段，通过管道一次往返，结果不经过redisTemplate的哈希序列化
+	 * @param redisTemplate
+	 * @param keys
+	 * @return 与keys顺序一致的字段列表，key不存在时为空
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<Map<byte[], byte[]>> multiGetHashBytes(RedisTemplate<?, ?> redisTemplate, final byte[]... keys) {
+		List<Object> results = redisTemplate.execute(new RedisCallback<List<Object>>() {
+			@Override
+			public List<Object> doInRedis(RedisConnection connection) throws DataAccessException {
+				connection.openPipeline();
+				for (byte[] key : keys) {
+					connection.hGetAll(key);
+				}
+				return connection.closePipeline();
+			}
+		});
+		List<Map<byte[], byte[]>> hashes = new ArrayList<>(keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			Object result = results == null || i >= results.size() ? null : results.get(i);
+			hashes.add(result instanceof Map ? (Map<byte[], byte[]>) result : Collections.<byte[], byte[]>emptyMap());
+		}
+		return hashes;
+	}
+	
+	/**
+	 * redis 设置哈希字段并刷新存活时间，一次往返<br>
+	 * 替换时在同一事务中先删除key再写入；不替换时仅当哈希仍存在才写入，原子操作，避免在已过期或已被删除的哈希上写出只含部分字段的对象
+	 * @param redisTemplate
+	 * @param key
+	 * @param fields 写入的字段
+	 * @param removedFields 删除的字段，替换时忽略
+	 * @param timeout 存活时间 (单位: 秒)，语义同{@link #setBytes(RedisTemplate, byte[], byte[], long)}
+	 * @param replace 是否替换整个哈希
+	 * @return 是否写入，不替换且哈希不存在时为{@code false}
+	 */
+	public static boolean setHashBytes(RedisTemplate<?, ?> redisTemplate, final byte[] key, final Map<byte[], byte[]> fields,
+			final Collection<byte[]> removedFields, final long timeout, final boolean replace) {
+		if(timeout == 0 || timeout <= NOT_VALUE_EXPIRE)  {
+			return false;
+		}
+		if (!replace) {
+			final byte[][] keysAndArgs = new byte[3 + 2 * fields.size() + removedFields.size()][];
+			int i = 0;
+			keysAndArgs[i++] = key;
+			keysAndArgs[i++] = String.valueOf(timeout).getBytes(StandardCharsets.US_ASCII);
+			keysAndArgs[i++] = String.valueOf(fields.size()).getBytes(StandardCharsets.US_ASCII);
+			for (Map.Entry<byte[], byte[]> entry : fields.entrySet()) {
+				keysAndArgs[i++] = entry.getKey();
+				keysAndArgs[i++] = entry.getValue();
+			}
+			for (byte[] field : removedFields) {
+				keysAndArgs[i++] = field;
+			}
+			Long result = redisTemplate.execute(new RedisCallback<Long>() {
+				@Override
+				public Long doInRedis(RedisConnection connection) throws DataAccessException {
+					return connection.eval(UPDATE_HASH_IF_EXISTS_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs);
+				}
+			});
+			return result != null && result.longValue() > 0;
+		}
+		redisTemplate.execute(new RedisCallback<Object>() {
+			@Override
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				connection.openPipeline();
+				connection.multi();
+				connection.del(key);
+				if (!fields.isEmpty()) {
+					connection.hMSet(key, fields);
+				}
+				if(timeout == NEVER_EXPIRE) {
+					connection.persist(key);
+				} else {
+					connection.expire(key, timeout);
+				}
+				connection.exec();
+				connection.closePipeline();
+				return null;
+			}
+		});
+		return true;
+	}
+	
 	/**
 	 * redis 获取值
 	 * @param <K>
@@ -284,6 +469,43 @@ public class RedisUtils {
 		set(redisTemplate, key, object, expire);
 	}
 	
+	/**
+	 * redis 不存在时写入 String，并设定存活时间 (单位: 毫秒)
+	 * @param stringRedisTemplate
+	 * @param key
+	 * @param value
+	 * @param timeoutMillis
+	 * @return 是否写入
+	 */
+	public static boolean setStringIfAbsent(StringRedisTemplate stringRedisTemplate, String key, String value, long timeoutMillis) {
+		return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(key, value, timeoutMillis, TimeUnit.MILLISECONDS));
+	}
+	
+	/**
+	 * redis 当前值等于期望值时设定存活时间 (单位: 毫秒)，原子操作
+	 * @param stringRedisTemplate
+	 * @param key
+	 * @param expected
+	 * @param timeoutMillis
+	 * @return 是否设定
+	 */
+	public static boolean compareAndExpire(StringRedisTemplate stringRedisTemplate, String key, String expected, long timeoutMillis) {
+		Long result = stringRedisTemplate.execute(COMPARE_AND_EXPIRE_SCRIPT, Collections.singletonList(key), expected, String.valueOf(timeoutMillis));
+		return result != null && result > 0;
+	}
+	
+	/**
+	 * redis 当前值等于期望值时删除，原子操作
+	 * @param stringRedisTemplate
+	 * @param key
+	 * @param expected
+	 * @return 是否删除
+	 */
+	public static boolean compareAndDelete(StringRedisTemplate stringRedisTemplate, String key, String expected) {
+		Long result = stringRedisTemplate.execute(COMPARE_AND_DELETE_SCRIPT, Collections.singletonList(key), expected);
+		return result != null && result > 0;
+	}
+	
 	/**
 	 * redis 删除值
 	 * @param <K>
@@ -338,6 +560,24 @@ public class RedisUtils {
 		return redisTemplate.keys(pattern);
 	}
 	
+	/**
+	 * redis key 增量搜索，使用{@code SCAN}逐批返回原始key，不会像{@code KEYS}一样长时间阻塞redis<br>
+	 * 游标独占一个连接直到关闭，使用完毕必须调用{@link Cursor#close()}
+	 * @param redisTemplate
+	 * @param pattern key模式
+	 * @param count 每批建议返回的数量
+	 * @return 原始key游标
+	 */
+	public static Cursor<byte[]> scan(RedisTemplate<?, ?> redisTemplate, String pattern, long count) {
+		final ScanOptions options = ScanOptions.scanOptions().match(pattern).count(count).build();
+		return redisTemplate.executeWithStickyConnection(new RedisCallback<Cursor<byte[]>>() {
+			@Override
+			public Cursor<byte[]> doInRedis(RedisConnection connection) throws DataAccessException {
+				return connection.scan(options);
+			}
+		});
+	}
+	
 	/**
 	 * redis 数据库大小
 	 * @param <K>